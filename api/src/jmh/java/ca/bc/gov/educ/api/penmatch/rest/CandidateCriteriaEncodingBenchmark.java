@@ -0,0 +1,71 @@
+package ca.bc.gov.educ.api.penmatch.rest;
+
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Candidate criteria encoding benchmark.
+ * <p>
+ * Measures the per lookup cost of encoding the candidate search criteria, serializing the criteria graph and URL
+ * encoding it against rendering the precompiled template, for each query shape.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CandidateCriteriaEncodingBenchmark {
+  /**
+   * The Keys, one of each query shape.
+   */
+  private static final List<CandidateLookupKey> KEYS = List.of(
+      CandidateLookupKey.withAllParts("19981102", "ODLUS", "VICTORIA", "00501007", "239661"),
+      CandidateLookupKey.noInit("19791018", "VANDERLEEK", "08288006", "123456"),
+      CandidateLookupKey.noLocalID("19791018", "VANDERLEEK", "JAKE"),
+      CandidateLookupKey.noInitNoLocalID("20001231", "JACKSON"));
+  /**
+   * The Shape, the index of the key.
+   */
+  @Param({"0", "1", "2", "3"})
+  int shape;
+  /**
+   * The Key.
+   */
+  private CandidateLookupKey key;
+
+  /**
+   * Sets up.
+   */
+  @Setup
+  public void setUp() {
+    this.key = KEYS.get(this.shape);
+  }
+
+  /**
+   * Serialize the criteria graph and URL encode it.
+   *
+   * @return the URL encoded criteria
+   * @throws JsonProcessingException the json processing exception
+   */
+  @Benchmark
+  public String serialized() throws JsonProcessingException {
+    return URLEncoder.encode(CandidateCriteriaTemplates.serializedCriteria(this.key), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Render the precompiled template.
+   *
+   * @return the URL encoded criteria
+   */
+  @Benchmark
+  public String templated() {
+    return CandidateCriteriaTemplates.encodedCriteria(this.key);
+  }
+}
@@ -0,0 +1,141 @@
+package ca.bc.gov.educ.api.penmatch.service.v1.match;
+
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupContext;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupManager;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchResult;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudentDetail;
+import ca.bc.gov.educ.api.penmatch.struct.v1.newmatch.NewPenMatchNames;
+import ca.bc.gov.educ.api.penmatch.struct.v1.newmatch.NewPenMatchStudentDetail;
+import ca.bc.gov.educ.api.penmatch.support.BenchmarkFixtures;
+import ca.bc.gov.educ.api.penmatch.util.PenMatchUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Pen match service benchmark.
+ * <p>
+ * Runs the matching engine over the students of {@code mock_pen_demog.json}, with the student api stubbed and the
+ * reference data loaded from the mock json files.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PenMatchServiceBenchmark {
+  /**
+   * The Lookup manager.
+   */
+  private PenMatchLookupManager lookupManager;
+  /**
+   * The Pen match service.
+   */
+  private PenMatchService penMatchService;
+  /**
+   * The New pen match service.
+   */
+  private NewPenMatchService newPenMatchService;
+  /**
+   * The Initialized student, names and nicknames already looked up.
+   */
+  private NewPenMatchStudentDetail initializedStudent;
+  /**
+   * The Master record.
+   */
+  private PenMasterRecord masterRecord;
+  /**
+   * The Master names.
+   */
+  private NewPenMatchNames masterNames;
+
+  /**
+   * Sets up.
+   */
+  @Setup
+  public void setUp() {
+    final List<StudentCandidateEntity> students = BenchmarkFixtures.penDemog();
+    final ApplicationProperties applicationProperties = BenchmarkFixtures.applicationProperties();
+    this.lookupManager = BenchmarkFixtures.lookupManager(students);
+    final PenMatchMetrics penMatchMetrics = new PenMatchMetrics(applicationProperties, new SimpleMeterRegistry());
+    this.newPenMatchService = new NewPenMatchService(this.lookupManager, applicationProperties, penMatchMetrics);
+    this.penMatchService = new PenMatchService(this.lookupManager, this.newPenMatchService, applicationProperties, penMatchMetrics);
+
+    this.initializedStudent = this.newStudent();
+    this.newPenMatchService.matchStudent(this.initializedStudent, UUID.randomUUID());
+    this.masterRecord = PenMatchUtils.convertStudentEntityToPenMasterRecord(students.stream().filter(student -> "122740046".equals(student.getPen())).findFirst().orElseThrow());
+    this.masterNames = this.newPenMatchService.formatNamesFromMaster(this.masterRecord);
+  }
+
+  /**
+   * The whole match, old algorithm handing off to the new one, for a student submitted without a PEN.
+   *
+   * @return the pen match result
+   */
+  @Benchmark
+  public PenMatchResult matchStudent() {
+    final PenMatchStudentDetail student = this.oldStudent();
+    return this.penMatchService.matchStudent(student, new PenMatchLookupContext(this.lookupManager, UUID.randomUUID()));
+  }
+
+  /**
+   * The new algorithm only.
+   *
+   * @return the pen match result
+   */
+  @Benchmark
+  public PenMatchResult newMatchStudent() {
+    return this.newPenMatchService.matchStudent(this.newStudent(), new PenMatchLookupContext(this.lookupManager, UUID.randomUUID()));
+  }
+
+  /**
+   * Determine match code.
+   *
+   * @return the packed match code
+   */
+  @Benchmark
+  public int determineMatchCode() {
+    return this.newPenMatchService.determineMatchCode(this.initializedStudent, this.masterRecord, this.masterNames, false);
+  }
+
+  /**
+   * One char typo.
+   *
+   * @return whether the names are one typo apart
+   */
+  @Benchmark
+  public boolean oneCharTypo() {
+    return this.newPenMatchService.oneCharTypo("CLAYTON", "CLAYTEN");
+  }
+
+  private PenMatchStudentDetail oldStudent() {
+    final PenMatchStudentDetail student = new PenMatchStudentDetail();
+    student.setSurname("LORD");
+    student.setGivenName("CLAYTEN");
+    student.setMiddleName("L");
+    student.setDob("19991201");
+    student.setSex("F");
+    student.setLocalID("285261");
+    student.setMincode("00501007");
+    return student;
+  }
+
+  private NewPenMatchStudentDetail newStudent() {
+    final NewPenMatchStudentDetail student = new NewPenMatchStudentDetail();
+    student.setSurname("LORD");
+    student.setGivenName("CLAYTEN");
+    student.setMiddleName("L");
+    student.setDob("19991201");
+    student.setSex("F");
+    student.setLocalID("285261");
+    student.setMincode("00501007");
+    return student;
+  }
+}
@@ -0,0 +1,155 @@
+package ca.bc.gov.educ.api.penmatch.support;
+
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupCache;
+import ca.bc.gov.educ.api.penmatch.lookup.MergedStudentResolver;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupManager;
+import ca.bc.gov.educ.api.penmatch.lookup.StudentDemographicsReplica;
+import ca.bc.gov.educ.api.penmatch.model.v1.FrequencySurnameEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.MatchCodeEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.NicknameEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.repository.v1.ForeignSurnameRepository;
+import ca.bc.gov.educ.api.penmatch.repository.v1.MatchCodesRepository;
+import ca.bc.gov.educ.api.penmatch.repository.v1.NicknamesRepository;
+import ca.bc.gov.educ.api.penmatch.repository.v1.SurnameFrequencyRepository;
+import ca.bc.gov.educ.api.penmatch.rest.RestUtils;
+import ca.bc.gov.educ.api.penmatch.service.v1.match.SurnameFrequencyService;
+import ca.bc.gov.educ.api.penmatch.util.PenMatchUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * The type Benchmark fixtures.
+ * <p>
+ * Builds the matching engine outside of spring: the reference data comes from the mock json files of the test
+ * resources and the student api is stubbed with the students of {@code mock_pen_demog.json}, every search returning
+ * all of them. Candidate searches are cached, so after the first invocation a benchmark measures the engine and not
+ * the stubs.
+ */
+public final class BenchmarkFixtures {
+  /**
+   * The Object mapper.
+   */
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * The students of {@code mock_pen_demog.json}.
+   *
+   * @return the students
+   */
+  public static List<StudentCandidateEntity> penDemog() {
+    final List<StudentCandidateEntity> students = new ArrayList<>();
+    for (final JsonNode demog : read("mock_pen_demog.json", new TypeReference<List<JsonNode>>() {
+    })) {
+      final String dob = demog.get("studBirth").asText();
+      students.add(StudentCandidateEntity.builder()
+          .studentID(UUID.randomUUID())
+          .pen(text(demog, "studNo"))
+          .legalLastName(text(demog, "studSurname"))
+          .legalFirstName(text(demog, "studGiven"))
+          .legalMiddleNames(text(demog, "studMiddle"))
+          .usualLastName(text(demog, "usualSurname"))
+          .usualFirstName(text(demog, "usualGiven"))
+          .usualMiddleNames(text(demog, "usualMiddle"))
+          .dob(dob.substring(0, 4) + "-" + dob.substring(4, 6) + "-" + dob.substring(6, 8))
+          .sexCode(text(demog, "studSex"))
+          .statusCode(text(demog, "studStatus"))
+          .localID(text(demog, "localID"))
+          .mincode(text(demog, "mincode"))
+          .postalCode(text(demog, "postalCode"))
+          .gradeCode(text(demog, "grade"))
+          .build());
+    }
+    return students;
+  }
+
+  /**
+   * A lookup manager over the mock reference data, whose student api returns the given students for every search.
+   *
+   * @param students the students
+   * @return the pen match lookup manager
+   */
+  public static PenMatchLookupManager lookupManager(final List<StudentCandidateEntity> students) {
+    final ApplicationProperties applicationProperties = applicationProperties();
+    final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    final MatchCodesRepository matchCodesRepository = Mockito.mock(MatchCodesRepository.class);
+    Mockito.when(matchCodesRepository.findAll()).thenReturn(read("mock_match_codes.json", new TypeReference<List<MatchCodeEntity>>() {
+    }));
+    final NicknamesRepository nicknamesRepository = Mockito.mock(NicknamesRepository.class);
+    Mockito.when(nicknamesRepository.findAll()).thenReturn(read("mock_nicknames.json", new TypeReference<List<NicknameEntity>>() {
+    }));
+    final SurnameFrequencyRepository surnameFrequencyRepository = Mockito.mock(SurnameFrequencyRepository.class);
+    Mockito.when(surnameFrequencyRepository.findAll()).thenReturn(read("mock_surname_frequency.json", new TypeReference<List<FrequencySurnameEntity>>() {
+    }));
+
+    final RestUtils restUtils = Mockito.mock(RestUtils.class);
+    try {
+      Mockito.when(restUtils.lookupWithAllParts(any(), any(), any(), any(), any(), any())).thenReturn(students);
+      Mockito.when(restUtils.lookupNoInit(any(), any(), any(), any(), any())).thenReturn(students);
+      Mockito.when(restUtils.lookupNoLocalID(any(), any(), any(), any())).thenReturn(students);
+      Mockito.when(restUtils.lookupNoInitNoLocalID(any(), any(), any())).thenReturn(students);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    Mockito.when(restUtils.getPenMasterRecordByPen(any(), any())).thenAnswer(invocation -> masterRecord(students, invocation.getArgument(0)));
+
+    final PenMatchLookupManager lookupManager = new PenMatchLookupManager(Mockito.mock(ForeignSurnameRepository.class), nicknamesRepository, matchCodesRepository, restUtils,
+        new SurnameFrequencyService(surnameFrequencyRepository, meterRegistry), new CandidateLookupCache(applicationProperties, meterRegistry),
+        new StudentDemographicsReplica(restUtils, applicationProperties, meterRegistry), new MergedStudentResolver(restUtils, applicationProperties, meterRegistry),
+        applicationProperties, meterRegistry);
+    lookupManager.init();
+    return lookupManager;
+  }
+
+  /**
+   * The application properties of the benchmarks: candidate searches cached, every other optional feature off.
+   *
+   * @return the application properties
+   */
+  public static ApplicationProperties applicationProperties() {
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    applicationProperties.setCandidateLookupCacheEnabled(true);
+    applicationProperties.setCandidateLookupCacheMaxSize(1000);
+    applicationProperties.setCandidateLookupCacheTtlSeconds(3600);
+    applicationProperties.setMergedStudentCacheMaxSize(100);
+    applicationProperties.setMergedStudentCacheTtlSeconds(60);
+    return applicationProperties;
+  }
+
+  private static Optional<?> masterRecord(final List<StudentCandidateEntity> students, final String pen) {
+    return students.stream().filter(student -> StringUtils.equals(student.getPen(), pen)).findFirst().map(PenMatchUtils::convertStudentEntityToPenMasterRecord);
+  }
+
+  private static String text(final JsonNode node, final String field) {
+    return StringUtils.trimToNull(node.get(field).asText());
+  }
+
+  private static <T> T read(final String resource, final TypeReference<T> type) {
+    try (InputStream input = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+      return OBJECT_MAPPER.readValue(input, type);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package ca.bc.gov.educ.api.penmatch.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Pen match utils benchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PenMatchUtilsBenchmark {
+  /**
+   * The Pen.
+   */
+  @Param({"122740046", "122740047"})
+  String pen;
+
+  /**
+   * Pen check digit.
+   *
+   * @return whether the check digit is valid
+   */
+  @Benchmark
+  public boolean penCheckDigit() {
+    return PenMatchUtils.penCheckDigit(this.pen);
+  }
+}
@@ -0,0 +1,127 @@
+package ca.bc.gov.educ.api.penmatch.util;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.struct.v1.*;
+import ca.bc.gov.educ.api.penmatch.support.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Scoring utils benchmark.
+ * <p>
+ * Scores a transaction against the master record it nearly matches: same student, given name misspelt, middle name
+ * initial only.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringUtilsBenchmark {
+  /**
+   * The Student.
+   */
+  private PenMatchStudentDetail student;
+  /**
+   * The Master.
+   */
+  private PenMasterRecord master;
+  /**
+   * The Session.
+   */
+  private PenMatchSession session;
+  /**
+   * The Transaction names.
+   */
+  private PenMatchNames transactionNames;
+  /**
+   * The Master names.
+   */
+  private PenMatchNames masterNames;
+
+  /**
+   * Sets up.
+   */
+  @Setup
+  public void setUp() {
+    final StudentCandidateEntity lord = BenchmarkFixtures.penDemog().stream().filter(candidate -> "122740046".equals(candidate.getPen())).findFirst().orElseThrow();
+    this.master = PenMatchUtils.convertStudentEntityToPenMasterRecord(lord);
+    this.student = new PenMatchStudentDetail();
+    this.student.setSurname("LORD");
+    this.student.setGivenName("CLAYTEN");
+    this.student.setMiddleName("L");
+    this.student.setDob("19991201");
+    this.student.setSex("F");
+    this.student.setLocalID("285261");
+    this.student.setMincode("00501007");
+    this.session = new PenMatchSession();
+
+    final PenMasterRecord transaction = new PenMasterRecord();
+    transaction.setGiven(this.student.getGivenName());
+    transaction.setMiddle(this.student.getMiddleName());
+    this.transactionNames = PenMatchUtils.storeNamesFromMaster(transaction);
+    this.masterNames = PenMatchUtils.storeNamesFromMaster(this.master);
+  }
+
+  /**
+   * Match birthday.
+   *
+   * @return the score
+   */
+  @Benchmark
+  public int matchBirthday() {
+    return ScoringUtils.matchBirthday(this.student, this.master);
+  }
+
+  /**
+   * Match surname.
+   *
+   * @return the surname match result
+   */
+  @Benchmark
+  public SurnameMatchResult matchSurname() {
+    return ScoringUtils.matchSurname(this.student, this.master);
+  }
+
+  /**
+   * Match given name.
+   *
+   * @return the given name match result
+   */
+  @Benchmark
+  public GivenNameMatchResult matchGivenName() {
+    return ScoringUtils.matchGivenName(this.transactionNames, this.masterNames);
+  }
+
+  /**
+   * Match middle name.
+   *
+   * @return the middle name match result
+   */
+  @Benchmark
+  public MiddleNameMatchResult matchMiddleName() {
+    return ScoringUtils.matchMiddleName(this.transactionNames, this.masterNames);
+  }
+
+  /**
+   * Match local id.
+   *
+   * @return the local id match result
+   */
+  @Benchmark
+  public LocalIDMatchResult matchLocalID() {
+    return ScoringUtils.matchLocalID(this.student, this.master, this.session);
+  }
+
+  /**
+   * Run soundex.
+   *
+   * @return the soundex
+   */
+  @Benchmark
+  public String runSoundex() {
+    return ScoringUtils.runSoundex("VANDERLEEK");
+  }
+}
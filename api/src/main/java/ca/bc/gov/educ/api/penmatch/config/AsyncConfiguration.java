@@ -1,6 +1,9 @@
 package ca.bc.gov.educ.api.penmatch.config;
 
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.jboss.threads.EnhancedQueueExecutor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,7 +11,9 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.EnableAsync;
 
 import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * The type Async configuration.
@@ -16,17 +21,45 @@ import java.util.concurrent.Executor;
 @Configuration
 @EnableAsync
 @Profile("!test")
+@Slf4j
 public class AsyncConfiguration {
   /**
-   * Thread pool task executor executor.
+   * Thread pool task executor executor. The events are handled at most {@code subscriber.max.concurrency} at a time;
+   * with virtual threads enabled each event gets its own virtual thread, otherwise the pool has a platform thread per
+   * permit.
    *
+   * @param applicationProperties the application properties
+   * @param meterRegistry         the meter registry
    * @return the executor
    */
   @Bean(name = "subscriberExecutor")
-  public Executor threadPoolTaskExecutor() {
-    return new EnhancedQueueExecutor.Builder()
+  public Executor threadPoolTaskExecutor(final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+    final int maxConcurrency = Math.max(1, applicationProperties.getSubscriberMaxConcurrency());
+    Optional<Executor> virtualThreads = Optional.empty();
+    if (applicationProperties.isSubscriberVirtualThreadsEnabled()) {
+      virtualThreads = newVirtualThreadPerTaskExecutor();
+      if (virtualThreads.isEmpty()) {
+        log.warn("Virtual threads are not available on java {}, handling events on {} platform threads", Runtime.version().feature(), maxConcurrency);
+      }
+    }
+    final Executor delegate = virtualThreads.orElseGet(() -> new EnhancedQueueExecutor.Builder()
         .setThreadFactory(new ThreadFactoryBuilder().setNameFormat("message-subscriber-%d").build())
-        .setCorePoolSize(8).setMaximumPoolSize(8).setKeepAliveTime(Duration.ofSeconds(60)).build();
+        .setCorePoolSize(maxConcurrency).setMaximumPoolSize(maxConcurrency).setKeepAliveTime(Duration.ofSeconds(60)).build());
+    return new ConcurrencyLimitedExecutor("pen.match.subscriber", delegate, maxConcurrency, meterRegistry);
+  }
+
+  /**
+   * An executor starting a virtual thread per task, when the runtime has them. The api is looked up at runtime, as the
+   * application is compiled for java 17.
+   *
+   * @return the executor, empty when the runtime has no virtual threads
+   */
+  private static Optional<Executor> newVirtualThreadPerTaskExecutor() {
+    try {
+      return Optional.of((Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+    } catch (final ReflectiveOperationException e) {
+      return Optional.empty();
+    }
   }
 
 }
@@ -0,0 +1,106 @@
+package ca.bc.gov.educ.api.penmatch.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The type Concurrency limited executor.
+ * <p>
+ * Runs tasks on a delegate executor, at most as many at a time as it has permits. The permits are sized to the
+ * capacity of the downstream apis rather than to a number of threads, so the delegate can hand out a thread per task;
+ * a task waits for its permit on its own thread. The tasks waiting and running are exported as gauges, and the time a
+ * task waits from its submission to its permit as a timer.
+ */
+public class ConcurrencyLimitedExecutor implements Executor {
+  /**
+   * The Delegate.
+   */
+  private final Executor delegate;
+  /**
+   * The Permits.
+   */
+  private final Semaphore permits;
+  /**
+   * The Tasks waiting for a permit.
+   */
+  private final AtomicInteger queued = new AtomicInteger();
+  /**
+   * The Tasks holding a permit.
+   */
+  private final AtomicInteger inFlight = new AtomicInteger();
+  /**
+   * The Queue wait timer.
+   */
+  private final Timer queueWait;
+
+  /**
+   * Instantiates a new Concurrency limited executor.
+   *
+   * @param name          the name of the executor, the prefix of its metrics
+   * @param delegate      the delegate
+   * @param maxConcurrent the max concurrent tasks
+   * @param meterRegistry the meter registry
+   */
+  public ConcurrencyLimitedExecutor(final String name, final Executor delegate, final int maxConcurrent, final MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.permits = new Semaphore(Math.max(1, maxConcurrent));
+    Gauge.builder(name + ".queued", this.queued, AtomicInteger::get).description("The tasks waiting for a permit").register(meterRegistry);
+    Gauge.builder(name + ".in.flight", this.inFlight, AtomicInteger::get).description("The tasks running").register(meterRegistry);
+    this.queueWait = Timer.builder(name + ".queue.wait").description("The time a task waits for a permit").register(meterRegistry);
+  }
+
+  @Override
+  public void execute(final Runnable task) {
+    final long submitted = System.nanoTime();
+    this.queued.incrementAndGet();
+    try {
+      this.delegate.execute(() -> this.run(task, submitted));
+    } catch (final RuntimeException e) {
+      this.queued.decrementAndGet();
+      throw e;
+    }
+  }
+
+  /**
+   * Gets the tasks waiting for a permit.
+   *
+   * @return the queued
+   */
+  public int getQueued() {
+    return this.queued.get();
+  }
+
+  /**
+   * Gets the tasks holding a permit.
+   *
+   * @return the in flight
+   */
+  public int getInFlight() {
+    return this.inFlight.get();
+  }
+
+  /**
+   * Run a task once it holds a permit.
+   *
+   * @param task      the task
+   * @param submitted the nanos the task was submitted at
+   */
+  private void run(final Runnable task, final long submitted) {
+    this.permits.acquireUninterruptibly();
+    this.queued.decrementAndGet();
+    this.inFlight.incrementAndGet();
+    this.queueWait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+    try {
+      task.run();
+    } finally {
+      this.inFlight.decrementAndGet();
+      this.permits.release();
+    }
+  }
+}
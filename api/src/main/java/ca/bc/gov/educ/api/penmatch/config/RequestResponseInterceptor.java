@@ -1,20 +1,55 @@
 package ca.bc.gov.educ.api.penmatch.config;
 
+import ca.bc.gov.educ.api.penmatch.constants.WorkloadLane;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
 import ca.bc.gov.educ.api.penmatch.helpers.LogHelper;
+import ca.bc.gov.educ.api.penmatch.helpers.WorkloadLaneHolder;
 import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.val;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.AsyncHandlerInterceptor;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class RequestResponseInterceptor implements AsyncHandlerInterceptor {
+  /**
+   * The constant CLIENT_NAME.
+   */
+  public static final String CLIENT_NAME = "X-Client-Name";
+  /**
+   * The Clients whose requests are bulk.
+   */
+  private final Set<String> bulkClients;
+  /**
+   * The Requests received past their deadline.
+   */
+  private final Counter expiredOnReceipt;
+
+  /**
+   * Instantiates a new Request response interceptor.
+   *
+   * @param applicationProperties the application properties
+   * @param meterRegistry         the meter registry
+   */
+  @Autowired
+  public RequestResponseInterceptor(final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+    this.expiredOnReceipt = meterRegistry.counter(DeadlineHolder.EXPIRED_COUNTER, "source", "http", "stage", DeadlineHolder.RECEIVED_STAGE);
+    this.bulkClients = Arrays.stream(StringUtils.split(StringUtils.defaultString(applicationProperties.getWorkloadLanesBulkClients()), ','))
+        .map(String::trim).filter(StringUtils::isNotEmpty).collect(Collectors.toUnmodifiableSet());
+  }
 
   @Override
   public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
@@ -23,9 +58,26 @@ public class RequestResponseInterceptor implements AsyncHandlerInterceptor {
       final long startTime = Instant.now().toEpochMilli();
       request.setAttribute("startTime", startTime);
     }
+    // requests are interactive, unless they come from a client known to send bulk traffic
+    final String clientName = StringUtils.trimToEmpty(request.getHeader(CLIENT_NAME));
+    WorkloadLaneHolder.setLane(this.bulkClients.contains(clientName) ? WorkloadLane.BULK : WorkloadLane.INTERACTIVE);
+    // a request its caller has already given up on is dropped
+    DeadlineHolder.setDeadline(DeadlineHolder.parse(request.getHeader(DeadlineHolder.HTTP_HEADER)));
+    if (DeadlineHolder.isExpired()) {
+      log.warn("Dropping request to {}, its deadline has passed", request.getRequestURI());
+      this.expiredOnReceipt.increment();
+      response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+      return false;
+    }
     return true;
   }
 
+  @Override
+  public void afterConcurrentHandlingStarted(@NonNull final HttpServletRequest request, @NonNull final HttpServletResponse response, @NonNull final Object handler) {
+    WorkloadLaneHolder.clear();
+    DeadlineHolder.clear();
+  }
+
   /**
    * After completion.
    *
@@ -36,6 +88,8 @@ public class RequestResponseInterceptor implements AsyncHandlerInterceptor {
    */
   @Override
   public void afterCompletion(@NonNull final HttpServletRequest request, final HttpServletResponse response, @NonNull final Object handler, final Exception ex) {
+    WorkloadLaneHolder.clear();
+    DeadlineHolder.clear();
     LogHelper.logServerHttpReqResponseDetails(request, response);
     val correlationID = request.getHeader(ApplicationProperties.CORRELATION_ID);
     if (correlationID != null) {
@@ -0,0 +1,23 @@
+package ca.bc.gov.educ.api.penmatch.constants;
+
+/**
+ * The enum Candidate lookup type, one per shape of PEN demog search issued by the match algorithms.
+ */
+public enum CandidateLookupType {
+  /**
+   * Dob, surname with given initial, mincode and local id.
+   */
+  ALL_PARTS,
+  /**
+   * Dob, surname, mincode and local id.
+   */
+  NO_INIT,
+  /**
+   * Dob and surname with given initial.
+   */
+  NO_LOCAL_ID,
+  /**
+   * Dob and surname.
+   */
+  NO_INIT_NO_LOCAL_ID
+}
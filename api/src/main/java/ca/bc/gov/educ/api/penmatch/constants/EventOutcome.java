@@ -24,6 +24,10 @@ public enum EventOutcome {
    * Pen match processed event outcome.
    */
   PEN_MATCH_PROCESSED,
+  /**
+   * Pen match batch processed event outcome.
+   */
+  PEN_MATCH_BATCH_PROCESSED,
   /**
    * Student not found event outcome.
    */
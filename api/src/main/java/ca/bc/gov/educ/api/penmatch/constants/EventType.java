@@ -32,5 +32,29 @@ public enum EventType {
    * Delete possible match event type.
    */
   DELETE_POSSIBLE_MATCH,
-  GET_STUDENTS
+  GET_STUDENTS,
+  /**
+   * Create student event type, published by the student api.
+   */
+  CREATE_STUDENT,
+  /**
+   * Update student event type, published by the student api.
+   */
+  UPDATE_STUDENT,
+  /**
+   * Delete student event type, published by the student api.
+   */
+  DELETE_STUDENT,
+  /**
+   * Create merge event type, published by the student api when students are merged.
+   */
+  CREATE_MERGE,
+  /**
+   * Delete merge event type, published by the student api when students are demerged.
+   */
+  DELETE_MERGE,
+  /**
+   * Process pen match batch event type, a list of students each with its own saga id.
+   */
+  PROCESS_PEN_MATCH_BATCH
 }
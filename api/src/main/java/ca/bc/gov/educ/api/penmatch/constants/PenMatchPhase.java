@@ -0,0 +1,54 @@
+package ca.bc.gov.educ.api.penmatch.constants;
+
+/**
+ * The enum Pen match phase, the phases of a match that are timed.
+ */
+public enum PenMatchPhase {
+  /**
+   * Initialize pen match phase.
+   */
+  INITIALIZE("initialize"),
+  /**
+   * Confirm pen pen match phase.
+   */
+  CONFIRM_PEN("confirm_pen"),
+  /**
+   * Candidate fetch pen match phase.
+   */
+  CANDIDATE_FETCH("candidate_fetch"),
+  /**
+   * Candidate scoring pen match phase.
+   */
+  CANDIDATE_SCORING("candidate_scoring"),
+  /**
+   * Best match selection pen match phase.
+   */
+  BEST_MATCH_SELECTION("best_match_selection"),
+  /**
+   * New algorithm handoff pen match phase.
+   */
+  NEW_ALGORITHM_HANDOFF("new_algorithm_handoff");
+
+  /**
+   * The Value.
+   */
+  private final String value;
+
+  /**
+   * Instantiates a new Pen match phase.
+   *
+   * @param value the value
+   */
+  PenMatchPhase(final String value) {
+    this.value = value;
+  }
+
+  /**
+   * Gets value.
+   *
+   * @return the value
+   */
+  public String getValue() {
+    return this.value;
+  }
+}
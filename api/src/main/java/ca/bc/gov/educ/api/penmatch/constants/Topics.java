@@ -11,5 +11,9 @@ public enum Topics {
   /**
    * Pen match events topic topics.
    */
-  PEN_MATCH_EVENTS_TOPIC
+  PEN_MATCH_EVENTS_TOPIC,
+  /**
+   * Student events topic topics.
+   */
+  STUDENT_EVENTS_TOPIC
 }
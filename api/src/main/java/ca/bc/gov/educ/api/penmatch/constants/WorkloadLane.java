@@ -0,0 +1,54 @@
+package ca.bc.gov.educ.api.penmatch.constants;
+
+/**
+ * The enum Workload lane, the class of traffic a match belongs to.
+ */
+public enum WorkloadLane {
+  /**
+   * Interactive workload lane, single matches a user is waiting on.
+   */
+  INTERACTIVE("interactive"),
+  /**
+   * Bulk workload lane, sagas and batches.
+   */
+  BULK("bulk");
+
+  /**
+   * The Value.
+   */
+  private final String value;
+
+  /**
+   * Instantiates a new Workload lane.
+   *
+   * @param value the value
+   */
+  WorkloadLane(final String value) {
+    this.value = value;
+  }
+
+  /**
+   * Gets value.
+   *
+   * @return the value
+   */
+  public String getValue() {
+    return this.value;
+  }
+
+  /**
+   * The lane of a value, ignoring case.
+   *
+   * @param value        the value
+   * @param defaultValue the lane when the value is not a lane
+   * @return the workload lane
+   */
+  public static WorkloadLane fromValue(final String value, final WorkloadLane defaultValue) {
+    for (final WorkloadLane lane : values()) {
+      if (lane.value.equalsIgnoreCase(value) || lane.name().equalsIgnoreCase(value)) {
+        return lane;
+      }
+    }
+    return defaultValue;
+  }
+}
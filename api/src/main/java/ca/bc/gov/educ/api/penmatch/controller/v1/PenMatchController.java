@@ -5,6 +5,7 @@ import ca.bc.gov.educ.api.penmatch.mappers.v1.MatchReasonCodeMapper;
 import ca.bc.gov.educ.api.penmatch.mappers.v1.PenMatchStudentMapper;
 import ca.bc.gov.educ.api.penmatch.mappers.v1.PossibleMatchMapper;
 import ca.bc.gov.educ.api.penmatch.messaging.jetstream.Publisher;
+import ca.bc.gov.educ.api.penmatch.service.v1.match.PenMatchBatchService;
 import ca.bc.gov.educ.api.penmatch.service.v1.match.PenMatchService;
 import ca.bc.gov.educ.api.penmatch.service.v1.match.PossibleMatchWrapperService;
 import ca.bc.gov.educ.api.penmatch.struct.v1.MatchReasonCode;
@@ -15,9 +16,12 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.AccessLevel;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -37,6 +41,11 @@ public class PenMatchController implements PenMatchEndpoint {
   @Getter(AccessLevel.PRIVATE)
   private final PenMatchService penMatchService;
 
+  /**
+   * The Pen match batch service.
+   */
+  private final PenMatchBatchService penMatchBatchService;
+
   /**
    * The Possible match service.
    */
@@ -57,12 +66,14 @@ public class PenMatchController implements PenMatchEndpoint {
    * Instantiates a new Pen match controller.
    *
    * @param penMatchService             the pen match service
+   * @param penMatchBatchService        the pen match batch service
    * @param possibleMatchWrapperService the possible match service
    * @param publisher                   the publisher
    */
   @Autowired
-  public PenMatchController(final PenMatchService penMatchService, final PossibleMatchWrapperService possibleMatchWrapperService, final Publisher publisher) {
+  public PenMatchController(final PenMatchService penMatchService, final PenMatchBatchService penMatchBatchService, final PossibleMatchWrapperService possibleMatchWrapperService, final Publisher publisher) {
     this.penMatchService = penMatchService;
+    this.penMatchBatchService = penMatchBatchService;
     this.possibleMatchWrapperService = possibleMatchWrapperService;
     this.publisher = publisher;
   }
@@ -72,6 +83,11 @@ public class PenMatchController implements PenMatchEndpoint {
     return this.penMatchService.matchStudent(mapper.toPenMatchStudentDetails(student), UUID.randomUUID());
   }
 
+  @Override
+  public ResponseEntity<StreamingResponseBody> matchStudents(final InputStream students) {
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(output -> this.penMatchBatchService.matchStudents(students, output));
+  }
+
   @Override
   public List<PossibleMatch> savePossibleMatches(final List<PossibleMatch> possibleMatches) throws JsonProcessingException {
     final var convertedList = possibleMatches.stream().map(possibleMatchMapper::toModel).collect(Collectors.toList());
@@ -95,7 +111,7 @@ public class PenMatchController implements PenMatchEndpoint {
 
   @Override
   public List<String> getNicknames(final String givenName) {
-    return this.penMatchService.getNicknames(givenName).stream().map(entity -> entity.getNickname2().trim()).collect(Collectors.toList());
+    return this.penMatchService.getNicknames(givenName);
   }
 
   @Override
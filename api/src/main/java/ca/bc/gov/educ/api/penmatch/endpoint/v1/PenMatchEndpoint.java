@@ -1,6 +1,7 @@
 package ca.bc.gov.educ.api.penmatch.endpoint.v1;
 
 import ca.bc.gov.educ.api.penmatch.struct.v1.MatchReasonCode;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchBatchResult;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchResult;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudent;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PossibleMatch;
@@ -13,12 +14,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -43,6 +47,20 @@ public interface PenMatchEndpoint {
   @Schema(name = "PenMatchStudent", implementation = PenMatchStudent.class)
   PenMatchResult matchStudent(@Validated @RequestBody PenMatchStudent student);
 
+  /**
+   * Match a batch of students streamed as newline delimited json, one pen match student per line.
+   * The response streams one pen match batch result per submitted record, in submission order.
+   *
+   * @param students the newline delimited students
+   * @return the streaming response body
+   */
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @PreAuthorize("hasAuthority('SCOPE_READ_PEN_MATCH')")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "OK")})
+  @Tag(name = "Endpoint to run pen match algorithm on a batch of students.", description = "Endpoint to run pen match algorithm on a batch of students.")
+  @Schema(name = "PenMatchBatchResult", implementation = PenMatchBatchResult.class)
+  ResponseEntity<StreamingResponseBody> matchStudents(InputStream students);
+
   /**
    * Save possible matches list.
    *
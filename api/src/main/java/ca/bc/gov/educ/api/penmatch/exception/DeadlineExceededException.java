@@ -0,0 +1,31 @@
+package ca.bc.gov.educ.api.penmatch.exception;
+
+import lombok.Getter;
+
+/**
+ * The type Deadline exceeded exception, thrown when a match reaches its next stage after its caller gave up on it.
+ */
+public class DeadlineExceededException extends PENMatchRuntimeException {
+
+  /**
+   * The constant serialVersionUID.
+   */
+  private static final long serialVersionUID = -2164871512384590471L;
+
+  /**
+   * The Stage the match was abandoned at.
+   */
+  @Getter
+  private final String stage;
+
+  /**
+   * Instantiates a new Deadline exceeded exception.
+   *
+   * @param stage the stage the match was abandoned at
+   */
+  public DeadlineExceededException(final String stage) {
+    super("Deadline exceeded before " + stage);
+    this.stage = stage;
+  }
+
+}
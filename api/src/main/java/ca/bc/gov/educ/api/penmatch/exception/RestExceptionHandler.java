@@ -1,7 +1,10 @@
 package ca.bc.gov.educ.api.penmatch.exception;
 
 import ca.bc.gov.educ.api.penmatch.exception.errors.ApiError;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jboss.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpHeaders;
@@ -15,6 +18,7 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 /**
@@ -29,6 +33,21 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
    */
   private static final Logger log = Logger.getLogger(RestExceptionHandler.class);
 
+  /**
+   * The Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Instantiates a new Rest exception handler.
+   *
+   * @param meterRegistry the meter registry
+   */
+  @Autowired
+  public RestExceptionHandler(final MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
   /**
    * Handles HttpMessageNotReadableException
    *
@@ -99,6 +118,21 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     return buildResponseEntity(apiError);
   }
 
+  /**
+   * Handles DeadlineExceededException, a match abandoned as its caller has given up on it.
+   *
+   * @param ex the DeadlineExceededException
+   * @return the ApiError object
+   */
+  @ExceptionHandler(DeadlineExceededException.class)
+  protected ResponseEntity<Object> handleDeadlineExceeded(DeadlineExceededException ex) {
+    this.meterRegistry.counter(DeadlineHolder.EXPIRED_COUNTER, "source", "http", "stage", ex.getStage()).increment();
+    ApiError apiError = new ApiError(GATEWAY_TIMEOUT);
+    apiError.setMessage(ex.getMessage());
+    log.warn(apiError.getMessage());
+    return buildResponseEntity(apiError);
+  }
+
   /**
    * Handles MethodArgumentNotValidException. Triggered when an object fails @Valid validation.
    *
@@ -0,0 +1,191 @@
+package ca.bc.gov.educ.api.penmatch.helpers;
+
+import ca.bc.gov.educ.api.penmatch.exception.DeadlineExceededException;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The type Deadline holder.
+ * <p>
+ * Holds the deadline of the request running on the current thread, the epoch millis its caller gives up at, set by
+ * the entry points from the {@value #HTTP_HEADER} http header, the {@value #NATS_HEADER} nats header or the deadline of
+ * the event. A match checks it before each remote lookup and each algorithm stage, and its student api requests time
+ * out at it. Work on a thread no entry point has set a deadline on has none.
+ */
+public final class DeadlineHolder {
+  /**
+   * The constant HTTP_HEADER.
+   */
+  public static final String HTTP_HEADER = "X-Request-Deadline";
+  /**
+   * The constant NATS_HEADER.
+   */
+  public static final String NATS_HEADER = "Deadline";
+  /**
+   * The constant EXPIRED_COUNTER.
+   */
+  public static final String EXPIRED_COUNTER = "pen.match.deadline.expired";
+  /**
+   * The constant RECEIVED_STAGE, a request past its deadline when received.
+   */
+  public static final String RECEIVED_STAGE = "received";
+  /**
+   * The constant LOOKUP_STAGE, a remote lookup.
+   */
+  public static final String LOOKUP_STAGE = "lookup";
+  /**
+   * The constant MIN_TIMEOUT, the timeout of a request sent just before the deadline.
+   */
+  private static final Duration MIN_TIMEOUT = Duration.ofMillis(1);
+  /**
+   * The Deadline of the current thread.
+   */
+  private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+  private DeadlineHolder() {
+  }
+
+  /**
+   * Parses a deadline header value.
+   *
+   * @param value the epoch millis, may be null
+   * @return the deadline, null if the value is not a deadline
+   */
+  public static Long parse(final String value) {
+    final long deadline = NumberUtils.toLong(value, 0);
+    return deadline > 0 ? deadline : null;
+  }
+
+  /**
+   * The earlier of two deadlines.
+   *
+   * @param first  the first, may be null
+   * @param second the second, may be null
+   * @return the earlier deadline, null if neither is set
+   */
+  public static Long earliest(final Long first, final Long second) {
+    if (first == null) {
+      return second;
+    }
+    return second == null ? first : Math.min(first, second);
+  }
+
+  /**
+   * Gets the deadline of the current thread.
+   *
+   * @return the epoch millis, null if none
+   */
+  public static Long getDeadline() {
+    return DEADLINE.get();
+  }
+
+  /**
+   * Sets the deadline of the current thread.
+   *
+   * @param deadline the epoch millis, null for none
+   */
+  public static void setDeadline(final Long deadline) {
+    if (deadline == null) {
+      DEADLINE.remove();
+    } else {
+      DEADLINE.set(deadline);
+    }
+  }
+
+  /**
+   * Clears the deadline of the current thread.
+   */
+  public static void clear() {
+    DEADLINE.remove();
+  }
+
+  /**
+   * Whether the deadline of the current thread has passed.
+   *
+   * @return the boolean
+   */
+  public static boolean isExpired() {
+    return isExpired(DEADLINE.get());
+  }
+
+  /**
+   * Whether a deadline, captured from a request thread, has passed.
+   *
+   * @param deadline the epoch millis, null if none
+   * @return the boolean
+   */
+  public static boolean isExpired(final Long deadline) {
+    return deadline != null && System.currentTimeMillis() >= deadline;
+  }
+
+  /**
+   * Waits for a future, up to the deadline of the current thread if it has one, rethrowing a deadline exceeded while it
+   * ran as is rather than wrapped. Other failures are thrown wrapped in a {@link CompletionException}, as by
+   * {@link CompletableFuture#join()}.
+   *
+   * @param <T>    the type of the result
+   * @param future the future
+   * @return the result
+   * @throws DeadlineExceededException if the deadline passes before the future completes
+   */
+  public static <T> T join(final CompletableFuture<T> future) {
+    final Long deadline = DEADLINE.get();
+    try {
+      if (deadline == null) {
+        return future.join();
+      }
+      return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof DeadlineExceededException deadlineExceeded) {
+        throw deadlineExceeded;
+      }
+      throw e;
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof DeadlineExceededException deadlineExceeded) {
+        throw deadlineExceeded;
+      }
+      throw new CompletionException(e.getCause());
+    } catch (final TimeoutException e) {
+      throw new DeadlineExceededException(LOOKUP_STAGE);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(e);
+    }
+  }
+
+  /**
+   * Checks the deadline of the current thread before a stage.
+   *
+   * @param stage the stage
+   * @throws DeadlineExceededException if the deadline has passed
+   */
+  public static void check(final String stage) {
+    if (isExpired()) {
+      throw new DeadlineExceededException(stage);
+    }
+  }
+
+  /**
+   * The timeout of a remote request, the time left to the deadline of the current thread when shorter than the default.
+   *
+   * @param defaultTimeout the default timeout
+   * @return the timeout
+   */
+  public static Duration timeout(final Duration defaultTimeout) {
+    final Long deadline = DEADLINE.get();
+    if (deadline == null) {
+      return defaultTimeout;
+    }
+    final Duration remaining = Duration.ofMillis(deadline - System.currentTimeMillis());
+    if (remaining.compareTo(MIN_TIMEOUT) < 0) {
+      return MIN_TIMEOUT;
+    }
+    return remaining.compareTo(defaultTimeout) < 0 ? remaining : defaultTimeout;
+  }
+}
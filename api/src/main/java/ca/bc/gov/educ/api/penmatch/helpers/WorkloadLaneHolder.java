@@ -0,0 +1,45 @@
+package ca.bc.gov.educ.api.penmatch.helpers;
+
+import ca.bc.gov.educ.api.penmatch.constants.WorkloadLane;
+
+/**
+ * The type Workload lane holder.
+ * <p>
+ * Holds the workload lane of the work running on the current thread, set by the entry points. Work on a thread no entry
+ * point has set a lane on, e.g. batches and background jobs, is bulk.
+ */
+public final class WorkloadLaneHolder {
+  /**
+   * The Lane of the current thread.
+   */
+  private static final ThreadLocal<WorkloadLane> LANE = new ThreadLocal<>();
+
+  private WorkloadLaneHolder() {
+  }
+
+  /**
+   * Gets the lane of the current thread.
+   *
+   * @return the workload lane
+   */
+  public static WorkloadLane getLane() {
+    final WorkloadLane lane = LANE.get();
+    return lane == null ? WorkloadLane.BULK : lane;
+  }
+
+  /**
+   * Sets the lane of the current thread.
+   *
+   * @param lane the lane
+   */
+  public static void setLane(final WorkloadLane lane) {
+    LANE.set(lane);
+  }
+
+  /**
+   * Clears the lane of the current thread.
+   */
+  public static void clear() {
+    LANE.remove();
+  }
+}
@@ -0,0 +1,64 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The type Candidate lookup bucket.
+ * <p>
+ * The candidates of one widened search for a batch: every student of one dob, or matching any leg of the searches
+ * planned for the batch records with that dob. Any search covered by one of the planned keys is answered from the
+ * bucket in memory.
+ */
+@Getter
+public final class CandidateLookupBucket {
+  /**
+   * The Dob.
+   */
+  private final String dob;
+  /**
+   * The Keys the widened search was built from.
+   */
+  private final Set<CandidateLookupKey> keys;
+  /**
+   * The Candidates.
+   */
+  private final List<StudentCandidateEntity> candidates;
+
+  /**
+   * Instantiates a new Candidate lookup bucket.
+   *
+   * @param dob        the dob
+   * @param keys       the keys
+   * @param candidates the candidates
+   */
+  public CandidateLookupBucket(final String dob, final Set<CandidateLookupKey> keys, final List<StudentCandidateEntity> candidates) {
+    this.dob = dob;
+    this.keys = Set.copyOf(keys);
+    this.candidates = List.copyOf(candidates);
+  }
+
+  /**
+   * Whether the search for the key can be answered from this bucket.
+   *
+   * @param key the key
+   * @return the boolean
+   */
+  public boolean covers(final CandidateLookupKey key) {
+    return this.keys.stream().anyMatch(planned -> planned.covers(key));
+  }
+
+  /**
+   * The candidates the student api would return for the key.
+   *
+   * @param key the key, which must be covered by this bucket
+   * @return the list
+   */
+  public List<StudentCandidateEntity> candidatesFor(final CandidateLookupKey key) {
+    return this.candidates.stream().filter(key::matches).collect(Collectors.toUnmodifiableList());
+  }
+}
@@ -0,0 +1,387 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * The type Candidate lookup cache.
+ * <p>
+ * Holds the results of PEN demog searches keyed by {@link CandidateLookupKey}, so repeated submissions of the same
+ * student (re-submitted batch files, retries) are served without another round trip to the student api. Entries are
+ * bounded by size and expire after a fixed time; student change events evict the entries the student could be part of.
+ * The entries are indexed by dob, surname, mincode and local id and by the students they hold, so an event only
+ * inspects the entries it can affect. Every invalidation starts a new epoch, and a load that started in an earlier
+ * epoch is returned to its caller but not cached, as it may have read the student before the change.
+ */
+@Component
+@Slf4j
+public class CandidateLookupCache {
+  /**
+   * The constant CACHE_NAME.
+   */
+  public static final String CACHE_NAME = "penmatch.candidate.lookup";
+  /**
+   * The Enabled flag.
+   */
+  private final boolean enabled;
+  /**
+   * The Cache.
+   */
+  private final Cache<CandidateLookupKey, CachedCandidates> cache;
+  /**
+   * The Invalidations counter.
+   */
+  private final Counter invalidations;
+  /**
+   * The Epoch, advanced by every invalidation.
+   */
+  private final AtomicLong epoch = new AtomicLong();
+  /**
+   * The Stamps, one per cached entry, so an index posting is only removed by the removal of the entry that made it.
+   */
+  private final AtomicLong stamps = new AtomicLong();
+  /**
+   * Taken shared to cache an entry of the current epoch, and exclusive to invalidate, so no entry of an earlier epoch
+   * is cached after the invalidation that ended its epoch.
+   */
+  private final ReadWriteLock epochLock = new ReentrantReadWriteLock();
+  /**
+   * The Entries by dob.
+   */
+  private final Map<String, Map<CandidateLookupKey, Long>> dobIndex = new ConcurrentHashMap<>();
+  /**
+   * The Entries by surname.
+   */
+  private final Map<String, Map<CandidateLookupKey, Long>> surnameIndex = new ConcurrentHashMap<>();
+  /**
+   * The Entries by mincode and local id.
+   */
+  private final Map<String, Map<CandidateLookupKey, Long>> mincodeLocalIDIndex = new ConcurrentHashMap<>();
+  /**
+   * The Entries by the students they hold.
+   */
+  private final Map<UUID, Map<CandidateLookupKey, Long>> studentIndex = new ConcurrentHashMap<>();
+
+  /**
+   * Instantiates a new Candidate lookup cache.
+   *
+   * @param applicationProperties the application properties
+   * @param meterRegistry         the meter registry
+   */
+  @Autowired
+  public CandidateLookupCache(final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+    this.enabled = applicationProperties.isCandidateLookupCacheEnabled();
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(applicationProperties.getCandidateLookupCacheMaxSize())
+        .expireAfterWrite(Duration.ofSeconds(applicationProperties.getCandidateLookupCacheTtlSeconds()))
+        .removalListener(this::unindex)
+        .recordStats()
+        .build();
+    GuavaCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+    this.invalidations = meterRegistry.counter(CACHE_NAME + ".invalidations");
+  }
+
+  /**
+   * Returns the cached candidates for the key, calling the loader on a miss. Concurrent loads of the same key are left
+   * to the loader to share.
+   *
+   * @param key    the key
+   * @param loader the loader which performs the remote lookup
+   * @return the candidates, unmodifiable
+   */
+  public List<StudentCandidateEntity> get(final CandidateLookupKey key, final Supplier<List<StudentCandidateEntity>> loader) {
+    if (!this.enabled) {
+      return loader.get();
+    }
+    final CachedCandidates cached = this.cache.getIfPresent(key);
+    if (cached != null) {
+      return cached.getCandidates();
+    }
+    final long loadEpoch = this.epoch();
+    final List<StudentCandidateEntity> candidates = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+    this.put(key, candidates, loadEpoch);
+    return candidates;
+  }
+
+  /**
+   * The current epoch, to pass to {@link #put(CandidateLookupKey, List, long)} for a search started now.
+   *
+   * @return the epoch
+   */
+  public long epoch() {
+    return this.epoch.get();
+  }
+
+  /**
+   * Caches the candidates for the key, read by a search outside {@link #get(CandidateLookupKey, Supplier)}, unless a
+   * student changed since the search started.
+   *
+   * @param key        the key
+   * @param candidates every candidate for the key
+   * @param loadEpoch  the epoch when the search started
+   */
+  public void put(final CandidateLookupKey key, final List<StudentCandidateEntity> candidates, final long loadEpoch) {
+    if (!this.enabled) {
+      return;
+    }
+    final var readLock = this.epochLock.readLock();
+    readLock.lock();
+    try {
+      if (loadEpoch != this.epoch.get()) {
+        log.debug("Not caching candidate lookup {} loaded before a student change", key);
+        return;
+      }
+      final CachedCandidates cached = new CachedCandidates(this.stamps.incrementAndGet(), Collections.unmodifiableList(new ArrayList<>(candidates)));
+      this.index(key, cached);
+      this.cache.put(key, cached);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the cached candidates for the key without loading them.
+   *
+   * @param key the key
+   * @return the candidates, empty on a miss or when the cache is disabled
+   */
+  public Optional<List<StudentCandidateEntity>> getIfPresent(final CandidateLookupKey key) {
+    if (!this.enabled) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(this.cache.getIfPresent(key)).map(CachedCandidates::getCandidates);
+  }
+
+  /**
+   * Evicts every entry the student could be part of, either before or after the change.
+   * An entry is evicted when its criteria match the student's dob, surname or mincode and local id,
+   * or when it already holds the student.
+   *
+   * @param student the changed student
+   */
+  public void invalidate(final StudentCandidateEntity student) {
+    if (!this.enabled || student == null) {
+      return;
+    }
+    int evicted = 0;
+    final var writeLock = this.epochLock.writeLock();
+    writeLock.lock();
+    try {
+      this.epoch.incrementAndGet();
+      for (final CandidateLookupKey key : this.affectedKeys(student)) {
+        if (this.cache.asMap().remove(key) != null) {
+          evicted++;
+        }
+      }
+    } finally {
+      writeLock.unlock();
+    }
+    this.invalidations.increment(evicted);
+    log.debug("Evicted {} candidate lookup entries for student :: {}", evicted, student.getStudentID());
+  }
+
+  /**
+   * Evicts all entries, used when a change event cannot be attributed to a student.
+   */
+  public void invalidateAll() {
+    if (!this.enabled) {
+      return;
+    }
+    final var writeLock = this.epochLock.writeLock();
+    writeLock.lock();
+    try {
+      this.epoch.incrementAndGet();
+      this.invalidations.increment(this.cache.size());
+      this.cache.invalidateAll();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Number of entries currently held.
+   *
+   * @return the size
+   */
+  public long size() {
+    return this.cache.size();
+  }
+
+  /**
+   * The keys of the entries the student could be part of, found through the indexes.
+   *
+   * @param student the student
+   * @return the keys
+   */
+  private Set<CandidateLookupKey> affectedKeys(final StudentCandidateEntity student) {
+    final Set<CandidateLookupKey> keys = new HashSet<>(this.postings(this.dobIndex, StringUtils.remove(student.getDob(), '-')));
+    final String surname = student.getLegalLastName();
+    if (surname != null) {
+      for (int length = 0; length <= surname.length(); length++) {
+        keys.addAll(this.postings(this.surnameIndex, surname.substring(0, length)));
+      }
+    }
+    if (student.getMincode() != null) {
+      keys.addAll(this.postings(this.mincodeLocalIDIndex, this.mincodeLocalID(student.getMincode(), student.getLocalID())));
+    }
+    if (student.getStudentID() != null) {
+      keys.addAll(this.postings(this.studentIndex, student.getStudentID()));
+    }
+    return keys;
+  }
+
+  /**
+   * Posts the entry in every index it belongs to.
+   *
+   * @param key    the key
+   * @param cached the cached entry
+   */
+  private void index(final CandidateLookupKey key, final CachedCandidates cached) {
+    this.post(this.dobIndex, key.getDob(), key, cached.getStamp());
+    if (key.getSurname() != null) {
+      this.post(this.surnameIndex, key.getSurname(), key, cached.getStamp());
+    }
+    if (key.getMincode() != null) {
+      this.post(this.mincodeLocalIDIndex, this.mincodeLocalID(key.getMincode(), key.getLocalID()), key, cached.getStamp());
+    }
+    for (final StudentCandidateEntity candidate : cached.getCandidates()) {
+      if (candidate.getStudentID() != null) {
+        this.post(this.studentIndex, candidate.getStudentID(), key, cached.getStamp());
+      }
+    }
+  }
+
+  /**
+   * Removes the postings of an entry leaving the cache, unless a newer entry of the same key replaced them.
+   *
+   * @param notification the removal notification
+   */
+  private void unindex(final RemovalNotification<CandidateLookupKey, CachedCandidates> notification) {
+    final CandidateLookupKey key = notification.getKey();
+    final CachedCandidates cached = notification.getValue();
+    if (key == null || cached == null) {
+      return;
+    }
+    this.unpost(this.dobIndex, key.getDob(), key, cached.getStamp());
+    if (key.getSurname() != null) {
+      this.unpost(this.surnameIndex, key.getSurname(), key, cached.getStamp());
+    }
+    if (key.getMincode() != null) {
+      this.unpost(this.mincodeLocalIDIndex, this.mincodeLocalID(key.getMincode(), key.getLocalID()), key, cached.getStamp());
+    }
+    for (final StudentCandidateEntity candidate : cached.getCandidates()) {
+      if (candidate.getStudentID() != null) {
+        this.unpost(this.studentIndex, candidate.getStudentID(), key, cached.getStamp());
+      }
+    }
+  }
+
+  /**
+   * Post the key under the term.
+   *
+   * @param <T>   the term type
+   * @param index the index
+   * @param term  the term
+   * @param key   the key
+   * @param stamp the stamp of the entry
+   */
+  private <T> void post(final Map<T, Map<CandidateLookupKey, Long>> index, final T term, final CandidateLookupKey key, final long stamp) {
+    if (term == null) {
+      return;
+    }
+    index.compute(term, (t, keys) -> {
+      final Map<CandidateLookupKey, Long> postings = keys == null ? new ConcurrentHashMap<>() : keys;
+      postings.put(key, stamp);
+      return postings;
+    });
+  }
+
+  /**
+   * Remove the posting of the key under the term, if it is still the one of the entry with the stamp.
+   *
+   * @param <T>   the term type
+   * @param index the index
+   * @param term  the term
+   * @param key   the key
+   * @param stamp the stamp of the entry
+   */
+  private <T> void unpost(final Map<T, Map<CandidateLookupKey, Long>> index, final T term, final CandidateLookupKey key, final long stamp) {
+    if (term == null) {
+      return;
+    }
+    index.computeIfPresent(term, (t, keys) -> {
+      keys.remove(key, stamp);
+      return keys.isEmpty() ? null : keys;
+    });
+  }
+
+  /**
+   * The keys posted under the term.
+   *
+   * @param <T>   the term type
+   * @param index the index
+   * @param term  the term
+   * @return the keys
+   */
+  private <T> Set<CandidateLookupKey> postings(final Map<T, Map<CandidateLookupKey, Long>> index, final T term) {
+    if (term == null) {
+      return Collections.emptySet();
+    }
+    final Map<CandidateLookupKey, Long> keys = index.get(term);
+    return keys == null ? Collections.emptySet() : keys.keySet();
+  }
+
+  /**
+   * The index term of a mincode and local id.
+   *
+   * @param mincode the mincode
+   * @param localID the local id
+   * @return the term
+   */
+  private String mincodeLocalID(final String mincode, final String localID) {
+    return StringUtils.defaultString(mincode) + "|" + StringUtils.defaultString(localID);
+  }
+
+  /**
+   * The candidates of a cache entry, with the stamp of its index postings.
+   */
+  @Getter
+  @AllArgsConstructor
+  private static final class CachedCandidates {
+    /**
+     * The Stamp.
+     */
+    private final long stamp;
+    /**
+     * The Candidates.
+     */
+    private final List<StudentCandidateEntity> candidates;
+  }
+}
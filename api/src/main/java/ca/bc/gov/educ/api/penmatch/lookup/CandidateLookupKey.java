@@ -0,0 +1,185 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.constants.CandidateLookupType;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.rest.RestUtils;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The type Candidate lookup key.
+ * <p>
+ * Identifies a PEN demog search by its criteria only, so the same search issued for different transactions resolves
+ * to the same key. Parts that are not sent for a lookup type are left null.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CandidateLookupKey {
+  /**
+   * The Lookup type.
+   */
+  private final CandidateLookupType lookupType;
+  /**
+   * The Dob.
+   */
+  private final String dob;
+  /**
+   * The Surname.
+   */
+  private final String surname;
+  /**
+   * The Given name.
+   */
+  private final String givenName;
+  /**
+   * The Mincode.
+   */
+  private final String mincode;
+  /**
+   * The Local id.
+   */
+  private final String localID;
+
+  /**
+   * Key for a lookup with all parts.
+   *
+   * @param dob       the dob
+   * @param surname   the surname
+   * @param givenName the given name
+   * @param mincode   the mincode
+   * @param localID   the local id
+   * @return the candidate lookup key
+   */
+  public static CandidateLookupKey withAllParts(final String dob, final String surname, final String givenName, final String mincode, final String localID) {
+    return new CandidateLookupKey(CandidateLookupType.ALL_PARTS, dob, surname, givenName, mincode, localID);
+  }
+
+  /**
+   * Key for a lookup without given initial.
+   *
+   * @param dob     the dob
+   * @param surname the surname
+   * @param mincode the mincode
+   * @param localID the local id
+   * @return the candidate lookup key
+   */
+  public static CandidateLookupKey noInit(final String dob, final String surname, final String mincode, final String localID) {
+    return new CandidateLookupKey(CandidateLookupType.NO_INIT, dob, surname, null, mincode, localID);
+  }
+
+  /**
+   * Key for a lookup without local id.
+   *
+   * @param dob       the dob
+   * @param surname   the surname
+   * @param givenName the given name
+   * @return the candidate lookup key
+   */
+  public static CandidateLookupKey noLocalID(final String dob, final String surname, final String givenName) {
+    return new CandidateLookupKey(CandidateLookupType.NO_LOCAL_ID, dob, surname, givenName, null, null);
+  }
+
+  /**
+   * Key for a lookup without given initial or local id.
+   *
+   * @param dob     the dob
+   * @param surname the surname
+   * @return the candidate lookup key
+   */
+  public static CandidateLookupKey noInitNoLocalID(final String dob, final String surname) {
+    return new CandidateLookupKey(CandidateLookupType.NO_INIT_NO_LOCAL_ID, dob, surname, null, null, null);
+  }
+
+  /**
+   * Whether the lookup type sends the given name.
+   *
+   * @return the boolean
+   */
+  public boolean usesGivenName() {
+    return this.lookupType == CandidateLookupType.ALL_PARTS || this.lookupType == CandidateLookupType.NO_LOCAL_ID;
+  }
+
+  /**
+   * Whether the lookup type sends the mincode and local id.
+   *
+   * @return the boolean
+   */
+  public boolean usesLocalID() {
+    return this.lookupType == CandidateLookupType.ALL_PARTS || this.lookupType == CandidateLookupType.NO_INIT;
+  }
+
+  /**
+   * Evaluates the search criteria against a student in memory, the same way the student api evaluates them:
+   * dob equal, or surname starting with (and given name starting with, or empty when no initial is given),
+   * or mincode and local id equal; merged and deceased students excluded.
+   *
+   * @param student the student
+   * @return true if the student api would return the student for this key
+   */
+  public boolean matches(final StudentCandidateEntity student) {
+    if (RestUtils.MERGED.equals(student.getStatusCode()) || RestUtils.DECEASED.equals(student.getStatusCode())) {
+      return false;
+    }
+    if (StringUtils.equals(this.dob, StringUtils.remove(student.getDob(), '-'))) {
+      return true;
+    }
+    if (StringUtils.startsWith(student.getLegalLastName(), this.surname) && this.givenNameMatches(student.getLegalFirstName())) {
+      return true;
+    }
+    return this.usesLocalID() && StringUtils.equals(this.mincode, student.getMincode()) && StringUtils.equals(this.localID, student.getLocalID());
+  }
+
+  /**
+   * Whether every student the student api returns for the other key is also returned for this key, so the other
+   * search can be answered by filtering this one's results with {@link #matches(StudentCandidateEntity)}.
+   * That holds when the dob is the same, the other surname extends this surname, the other given name restricts at
+   * least as much as this one and the mincode and local id leg, if the other search has one, is also in this search.
+   *
+   * @param other the other key
+   * @return the boolean
+   */
+  public boolean covers(final CandidateLookupKey other) {
+    if (!StringUtils.equals(this.dob, other.dob) || !StringUtils.startsWith(other.surname, this.surname)) {
+      return false;
+    }
+    if (this.usesGivenName() && !(other.usesGivenName() && this.givenNameCovers(other.givenName))) {
+      return false;
+    }
+    return !other.usesLocalID() || (this.usesLocalID() && StringUtils.equals(this.mincode, other.mincode) && StringUtils.equals(this.localID, other.localID));
+  }
+
+  /**
+   * Given name covers boolean.
+   *
+   * @param otherGivenName the other given name
+   * @return the boolean
+   */
+  private boolean givenNameCovers(final String otherGivenName) {
+    if (StringUtils.isNotBlank(this.givenName)) {
+      return StringUtils.isNotBlank(otherGivenName) && otherGivenName.startsWith(this.givenName);
+    }
+    return StringUtils.isBlank(otherGivenName);
+  }
+
+  /**
+   * Given name matches boolean.
+   *
+   * @param legalFirstName the legal first name
+   * @return the boolean
+   */
+  private boolean givenNameMatches(final String legalFirstName) {
+    if (!this.usesGivenName()) {
+      return true;
+    }
+    if (StringUtils.isNotBlank(this.givenName)) {
+      return StringUtils.startsWith(legalFirstName, this.givenName);
+    }
+    return StringUtils.isEmpty(legalFirstName);
+  }
+}
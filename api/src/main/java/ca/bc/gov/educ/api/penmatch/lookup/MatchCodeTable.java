@@ -0,0 +1,96 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.MatchCodeEntity;
+import ca.bc.gov.educ.api.penmatch.util.MatchCodeUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The type Match code table.
+ * <p>
+ * The MATCH_CODE results as a dense array indexed by packed match code (see {@link MatchCodeUtils}), holding the
+ * index of the result in a small table of distinct results. A lookup is an array read; the table is an immutable
+ * snapshot replaced as a whole on reload.
+ */
+@Slf4j
+public final class MatchCodeTable extends ReferenceDataSnapshot {
+  /**
+   * The constant EMPTY.
+   */
+  public static final MatchCodeTable EMPTY = new MatchCodeTable(0, List.of());
+  /**
+   * The Result index + 1 by packed match code, 0 if the match code has no result.
+   */
+  private final byte[] resultIndexes;
+  /**
+   * The Distinct results.
+   */
+  private final String[] results;
+  /**
+   * The Size.
+   */
+  private final int size;
+
+  /**
+   * Instantiates a new Match code table.
+   *
+   * @param version  the version
+   * @param entities the match code entities
+   */
+  public MatchCodeTable(final long version, final List<MatchCodeEntity> entities) {
+    super(version);
+    final List<String> distinctResults = new ArrayList<>();
+    final int[] codes = new int[entities.size()];
+    int maxCode = MatchCodeUtils.INVALID;
+    for (int i = 0; i < entities.size(); i++) {
+      codes[i] = MatchCodeUtils.parse(entities.get(i).getMatchCode());
+      if (codes[i] == MatchCodeUtils.INVALID) {
+        log.warn("Ignoring match code that can not be packed :: {}", entities.get(i).getMatchCode());
+      }
+      maxCode = Math.max(maxCode, codes[i]);
+    }
+    this.resultIndexes = new byte[maxCode + 1];
+    int loaded = 0;
+    for (int i = 0; i < entities.size(); i++) {
+      if (codes[i] == MatchCodeUtils.INVALID) {
+        continue;
+      }
+      final String result = entities.get(i).getMatchResult();
+      int index = distinctResults.indexOf(result);
+      if (index < 0) {
+        distinctResults.add(result);
+        index = distinctResults.size() - 1;
+      }
+      this.resultIndexes[codes[i]] = (byte) (index + 1);
+      loaded++;
+    }
+    this.results = distinctResults.toArray(new String[0]);
+    this.size = loaded;
+  }
+
+  /**
+   * Lookup the result of a packed match code.
+   *
+   * @param code the packed match code
+   * @return the result, null if the match code has none
+   */
+  public String lookup(final int code) {
+    if (code < 0 || code >= this.resultIndexes.length) {
+      return null;
+    }
+    final int index = this.resultIndexes[code] & 0xFF;
+    return index == 0 ? null : this.results[index - 1];
+  }
+
+  /**
+   * The number of match codes in the table.
+   *
+   * @return the int
+   */
+  @Override
+  public int size() {
+    return this.size;
+  }
+}
@@ -0,0 +1,142 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.rest.RestUtils;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
+import ca.bc.gov.educ.api.penmatch.util.PenMatchUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The type Merged student resolver.
+ * <p>
+ * Resolves a merged student to the master record of the student it was merged to. The true student id normally comes
+ * with the merged student's own record, so the true student is fetched by id in one request and returned as is,
+ * instead of looking up the merged student by id, then the true student by id, then the true student again by PEN.
+ * The student id to true student id and true student id to master record mappings are cached; student change and
+ * merge events evict the mappings of the students they touch.
+ */
+@Component
+@Slf4j
+public class MergedStudentResolver {
+  /**
+   * The constant CACHE_NAME.
+   */
+  public static final String CACHE_NAME = "penmatch.merged.student";
+  /**
+   * The Rest utils.
+   */
+  private final RestUtils restUtils;
+  /**
+   * The Enabled flag.
+   */
+  private final boolean enabled;
+  /**
+   * The True student ids by student id.
+   */
+  private final Cache<String, String> trueStudentIDs;
+  /**
+   * The True students by student id.
+   */
+  private final Cache<String, PenMasterRecord> trueStudents;
+  /**
+   * The Invalidations counter.
+   */
+  private final Counter invalidations;
+
+  /**
+   * Instantiates a new Merged student resolver.
+   *
+   * @param restUtils             the rest utils
+   * @param applicationProperties the application properties
+   * @param meterRegistry         the meter registry
+   */
+  @Autowired
+  public MergedStudentResolver(final RestUtils restUtils, final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+    this.restUtils = restUtils;
+    this.enabled = applicationProperties.isMergedStudentCacheEnabled();
+    final Duration ttl = Duration.ofSeconds(applicationProperties.getMergedStudentCacheTtlSeconds());
+    this.trueStudentIDs = CacheBuilder.newBuilder().maximumSize(applicationProperties.getMergedStudentCacheMaxSize()).expireAfterWrite(ttl).recordStats().build();
+    this.trueStudents = CacheBuilder.newBuilder().maximumSize(applicationProperties.getMergedStudentCacheMaxSize()).expireAfterWrite(ttl).recordStats().build();
+    GuavaCacheMetrics.monitor(meterRegistry, this.trueStudentIDs, CACHE_NAME + ".true.student.ids");
+    GuavaCacheMetrics.monitor(meterRegistry, this.trueStudents, CACHE_NAME + ".true.students");
+    this.invalidations = meterRegistry.counter(CACHE_NAME + ".invalidations");
+  }
+
+  /**
+   * Resolves the master record of the true student of a merged student.
+   *
+   * @param mergedRecord  the master record of the merged student
+   * @param correlationID the correlation id
+   * @return the master record of the true student, empty if the student has no true student or it has no PEN
+   */
+  public Optional<PenMasterRecord> resolve(final PenMasterRecord mergedRecord, final UUID correlationID) {
+    if (mergedRecord == null || mergedRecord.getStudentID() == null) {
+      return Optional.empty();
+    }
+    final String trueStudentID = this.resolveTrueStudentID(mergedRecord, correlationID);
+    if (trueStudentID == null) {
+      return Optional.empty();
+    }
+    final PenMasterRecord cached = this.enabled ? this.trueStudents.getIfPresent(trueStudentID) : null;
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    final Optional<PenMasterRecord> trueStudent = this.restUtils.getStudentByStudentID(trueStudentID, correlationID)
+        .filter(student -> student.getPen() != null)
+        .map(PenMatchUtils::convertStudentEntityToPenMasterRecord);
+    if (this.enabled) {
+      trueStudent.ifPresent(masterRecord -> this.trueStudents.put(trueStudentID, masterRecord));
+    }
+    return trueStudent;
+  }
+
+  /**
+   * Evicts the mappings of the student, called when the student changes, is merged or is demerged.
+   *
+   * @param studentID the student id
+   */
+  public void invalidate(final String studentID) {
+    if (!this.enabled || studentID == null) {
+      return;
+    }
+    this.trueStudentIDs.invalidate(studentID);
+    this.trueStudents.invalidate(studentID);
+    this.invalidations.increment();
+    log.debug("Evicted merged student mappings for student :: {}", studentID);
+  }
+
+  /**
+   * Resolves the true student id, from the merged record when the student api sent it, otherwise from the cache or by
+   * fetching the merged student by id.
+   *
+   * @param mergedRecord  the merged record
+   * @param correlationID the correlation id
+   * @return the true student id
+   */
+  private String resolveTrueStudentID(final PenMasterRecord mergedRecord, final UUID correlationID) {
+    final String studentID = mergedRecord.getStudentID();
+    String trueStudentID = mergedRecord.getTrueStudentID();
+    if (trueStudentID == null && this.enabled) {
+      trueStudentID = this.trueStudentIDs.getIfPresent(studentID);
+    }
+    if (trueStudentID == null) {
+      trueStudentID = this.restUtils.getStudentByStudentID(studentID, correlationID).map(StudentEntity::getTrueStudentID).orElse(null);
+    }
+    if (trueStudentID != null && this.enabled) {
+      this.trueStudentIDs.put(studentID, trueStudentID);
+    }
+    return trueStudentID;
+  }
+}
@@ -0,0 +1,59 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The type Nickname group.
+ * <p>
+ * The names that share a NICKNAME row with one name, as sorted name ids of the {@link NicknameSnapshot} it was taken
+ * from. Checking whether a name is a nickname is a hash lookup of its id and a binary search.
+ */
+public final class NicknameGroup {
+  /**
+   * The constant EMPTY.
+   */
+  public static final NicknameGroup EMPTY = new NicknameGroup(Map.of(), new int[0]);
+  /**
+   * The Name ids of the snapshot.
+   */
+  private final Map<String, Integer> nameIds;
+  /**
+   * The Member ids, sorted.
+   */
+  private final int[] memberIds;
+
+  /**
+   * Instantiates a new Nickname group.
+   *
+   * @param nameIds   the name ids of the snapshot
+   * @param memberIds the member ids, sorted
+   */
+  NicknameGroup(final Map<String, Integer> nameIds, final int[] memberIds) {
+    this.nameIds = nameIds;
+    this.memberIds = memberIds;
+  }
+
+  /**
+   * Whether the name is in the group.
+   *
+   * @param name the name
+   * @return the boolean
+   */
+  public boolean contains(final String name) {
+    if (name == null || this.memberIds.length == 0) {
+      return false;
+    }
+    final Integer nameId = this.nameIds.get(name);
+    return nameId != null && Arrays.binarySearch(this.memberIds, nameId) >= 0;
+  }
+
+  /**
+   * Whether the group has no members.
+   *
+   * @return the boolean
+   */
+  public boolean isEmpty() {
+    return this.memberIds.length == 0;
+  }
+}
@@ -0,0 +1,191 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.NicknameEntity;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+
+/**
+ * The type Nickname snapshot.
+ * <p>
+ * The NICKNAME rows compiled once per load. Every name is given an int id, and for each name the snapshot holds what
+ * the match algorithms ask of it, so no request walks the rows:
+ * <ul>
+ *   <li>the group of names it shares a row with, used by the new algorithm to decide whether two names are nicknames</li>
+ *   <li>the nicknames of its base nickname (nickname 1 by convention), used by the old algorithm</li>
+ *   <li>the nickname 2 values of its rows, served by the nicknames endpoint</li>
+ * </ul>
+ * A name's rows are the rows with it as nickname 1, then the rows with it as nickname 2, in repository order.
+ */
+public final class NicknameSnapshot extends ReferenceDataSnapshot {
+  /**
+   * The constant EMPTY.
+   */
+  public static final NicknameSnapshot EMPTY = new NicknameSnapshot(0, List.of());
+  /**
+   * The Name ids.
+   */
+  private final Map<String, Integer> nameIds;
+  /**
+   * The Groups, by name id.
+   */
+  private final NicknameGroup[] groups;
+  /**
+   * The Base nickname expansions, by name id.
+   */
+  private final List<List<String>> expansions;
+  /**
+   * The Nickname 2 values, by name id.
+   */
+  private final List<List<String>> nickname2s;
+  /**
+   * The Size.
+   */
+  private final int size;
+
+  /**
+   * Instantiates a new Nickname snapshot.
+   *
+   * @param version  the version
+   * @param entities the nickname entities
+   */
+  public NicknameSnapshot(final long version, final List<NicknameEntity> entities) {
+    super(version);
+    final Map<String, List<NicknameEntity>> rowsByName = new LinkedHashMap<>();
+    for (final NicknameEntity entity : entities) {
+      addRow(rowsByName, entity.getNickname1(), entity);
+    }
+    for (final NicknameEntity entity : entities) {
+      addRow(rowsByName, entity.getNickname2(), entity);
+    }
+    rowsByName.remove(null);
+
+    final Map<String, Integer> ids = new HashMap<>();
+    for (final String name : rowsByName.keySet()) {
+      ids.put(name, ids.size());
+    }
+    this.nameIds = Collections.unmodifiableMap(ids);
+    this.groups = new NicknameGroup[ids.size()];
+    final List<List<String>> expansionsById = new ArrayList<>(ids.size());
+    final List<List<String>> nickname2sById = new ArrayList<>(ids.size());
+    for (final Map.Entry<String, List<NicknameEntity>> nameRows : rowsByName.entrySet()) {
+      final int nameId = ids.get(nameRows.getKey());
+      this.groups[nameId] = this.group(nameRows.getValue());
+      expansionsById.add(List.copyOf(expand(rowsByName, nameRows.getKey())));
+      nickname2sById.add(nameRows.getValue().stream().map(entity -> StringUtils.trim(entity.getNickname2())).toList());
+    }
+    this.expansions = Collections.unmodifiableList(expansionsById);
+    this.nickname2s = Collections.unmodifiableList(nickname2sById);
+    this.size = entities.size();
+  }
+
+  /**
+   * Add the entity to the rows of the name, once.
+   *
+   * @param rowsByName the rows by name
+   * @param name       the name
+   * @param entity     the entity
+   */
+  private static void addRow(final Map<String, List<NicknameEntity>> rowsByName, final String name, final NicknameEntity entity) {
+    final List<NicknameEntity> rows = rowsByName.computeIfAbsent(StringUtils.trimToNull(name), key -> new ArrayList<>());
+    if (!rows.contains(entity)) {
+      rows.add(entity);
+    }
+  }
+
+  /**
+   * The nicknames of the base nickname of a name, as the old algorithm expands them: the base nickname is nickname 1
+   * of the first row of the name, kept unless it is the name itself, followed by nickname 2 of each row of the base
+   * nickname that is not the name itself.
+   *
+   * @param rowsByName the rows by name
+   * @param name       the name
+   * @return the nicknames
+   */
+  private static List<String> expand(final Map<String, List<NicknameEntity>> rowsByName, final String name) {
+    final List<String> nicknames = new ArrayList<>();
+    final String baseNickname = StringUtils.trimToNull(rowsByName.get(name).get(0).getNickname1());
+    if (baseNickname == null) {
+      return nicknames;
+    }
+    if (!StringUtils.equals(baseNickname, name)) {
+      nicknames.add(baseNickname);
+    }
+    for (final NicknameEntity entity : rowsByName.getOrDefault(baseNickname, List.of())) {
+      if (!StringUtils.equals(entity.getNickname2(), name)) {
+        nicknames.add(StringUtils.trimToEmpty(entity.getNickname2()));
+      }
+    }
+    return nicknames;
+  }
+
+  /**
+   * The group of the names on the rows.
+   *
+   * @param rows the rows of a name
+   * @return the nickname group
+   */
+  private NicknameGroup group(final List<NicknameEntity> rows) {
+    final Set<String> members = new HashSet<>();
+    for (final NicknameEntity entity : rows) {
+      members.add(StringUtils.trimToNull(entity.getNickname1()));
+      members.add(StringUtils.trimToNull(entity.getNickname2()));
+    }
+    members.remove(null);
+    return new NicknameGroup(this.nameIds, members.stream().mapToInt(this.nameIds::get).sorted().toArray());
+  }
+
+  /**
+   * The id of a name.
+   *
+   * @param name the name, upper case
+   * @return the id, -1 if the name has no nicknames
+   */
+  private int nameId(final String name) {
+    final Integer nameId = name == null ? null : this.nameIds.get(name);
+    return nameId == null ? -1 : nameId;
+  }
+
+  /**
+   * The group of names sharing a row with a name.
+   *
+   * @param name the name, upper case
+   * @return the nickname group, empty if the name has no nicknames
+   */
+  public NicknameGroup getGroup(final String name) {
+    final int nameId = this.nameId(name);
+    return nameId < 0 ? NicknameGroup.EMPTY : this.groups[nameId];
+  }
+
+  /**
+   * The nicknames of the base nickname of a name, not including the name itself.
+   *
+   * @param name the name, upper case
+   * @return the nicknames, empty if the name has no nicknames
+   */
+  public List<String> getExpansion(final String name) {
+    final int nameId = this.nameId(name);
+    return nameId < 0 ? List.of() : this.expansions.get(nameId);
+  }
+
+  /**
+   * The nickname 2 values of the rows of a name.
+   *
+   * @param name the name, upper case
+   * @return the nicknames, empty if the name has no nicknames
+   */
+  public List<String> getNicknames(final String name) {
+    final int nameId = this.nameId(name);
+    return nameId < 0 ? List.of() : this.nickname2s.get(nameId);
+  }
+
+  /**
+   * The number of nickname rows in the snapshot.
+   *
+   * @return the int
+   */
+  @Override
+  public int size() {
+    return this.size;
+  }
+}
@@ -0,0 +1,217 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchCandidate;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The type Pen match lookup context.
+ * <p>
+ * Carries the lookups done for one match request so the old algorithm, the new algorithm and the PEN confirmation
+ * steps do not repeat them. Candidate lists are kept by their search criteria; a search whose results are contained
+ * in an earlier, wider search, or in a dob bucket fetched for a batch, is answered by filtering the wider list in
+ * memory, so only criteria combinations not yet covered go to the lookup manager. Each lookup going to the lookup
+ * manager first checks the deadline of the request. A context belongs to a single match and is not thread safe.
+ */
+@Slf4j
+public class PenMatchLookupContext {
+  /**
+   * The Lookup manager.
+   */
+  private final PenMatchLookupManager lookupManager;
+  /**
+   * The Correlation id.
+   */
+  @Getter
+  private final UUID correlationID;
+  /**
+   * The Candidates by criteria.
+   */
+  private final Map<CandidateLookupKey, List<StudentCandidateEntity>> candidates = new LinkedHashMap<>();
+  /**
+   * The Dob buckets.
+   */
+  private final List<CandidateLookupBucket> buckets = new ArrayList<>();
+  /**
+   * The Surname frequencies.
+   */
+  private final Map<String, Integer> surnameFrequencies = new HashMap<>();
+  /**
+   * The Pen master records by pen.
+   */
+  private final Map<String, Optional<PenMasterRecord>> penMasterRecords = new HashMap<>();
+  /**
+   * The Pen master record requests in flight, by pen.
+   */
+  private final Map<String, CompletableFuture<Optional<PenMasterRecord>>> penMasterRecordRequests = new HashMap<>();
+  /**
+   * The True students by merged student id.
+   */
+  private final Map<String, Optional<PenMasterRecord>> trueStudents = new HashMap<>();
+
+  /**
+   * Instantiates a new Pen match lookup context.
+   *
+   * @param lookupManager the lookup manager
+   * @param correlationID the correlation id
+   */
+  public PenMatchLookupContext(final PenMatchLookupManager lookupManager, final UUID correlationID) {
+    this.lookupManager = lookupManager;
+    this.correlationID = correlationID;
+  }
+
+  /**
+   * Lookup candidates for the key, reusing a list already fetched for the same or a wider search.
+   *
+   * @param key the key
+   * @return the list
+   */
+  public List<StudentCandidateEntity> lookupCandidates(final CandidateLookupKey key) {
+    final List<StudentCandidateEntity> inContext = this.lookupCandidatesInContext(key);
+    if (inContext != null) {
+      return inContext;
+    }
+    DeadlineHolder.check(DeadlineHolder.LOOKUP_STAGE);
+    final List<StudentCandidateEntity> looked = this.lookupManager.lookupCandidates(key, this.correlationID);
+    this.candidates.put(key, looked);
+    return looked;
+  }
+
+  /**
+   * Passes the candidates for the key to the action one by one, until the action returns false. A search not answered
+   * by this context is read through {@link PenMatchLookupManager#forEachCandidate}, which may stop reading early, so
+   * its candidates are not kept.
+   *
+   * @param key    the key
+   * @param action the action, returning whether it wants more candidates
+   */
+  public void forEachCandidate(final CandidateLookupKey key, final Predicate<StudentCandidateEntity> action) {
+    final List<StudentCandidateEntity> inContext = this.lookupCandidatesInContext(key);
+    if (inContext == null) {
+      DeadlineHolder.check(DeadlineHolder.LOOKUP_STAGE);
+      this.lookupManager.forEachCandidate(key, this.correlationID, action);
+      return;
+    }
+    for (final StudentCandidateEntity candidate : inContext) {
+      if (!action.test(candidate)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Lookup candidates for the key among the lists already fetched for this match.
+   *
+   * @param key the key
+   * @return the list, null if no list fetched so far covers the key
+   */
+  private List<StudentCandidateEntity> lookupCandidatesInContext(final CandidateLookupKey key) {
+    final List<StudentCandidateEntity> fetched = this.candidates.get(key);
+    if (fetched != null) {
+      return fetched;
+    }
+    for (final Map.Entry<CandidateLookupKey, List<StudentCandidateEntity>> entry : this.candidates.entrySet()) {
+      if (entry.getKey().covers(key)) {
+        log.debug("Answering {} from the candidates of {}", key, entry.getKey());
+        final List<StudentCandidateEntity> narrowed = entry.getValue().stream().filter(key::matches).collect(Collectors.toUnmodifiableList());
+        this.candidates.put(key, narrowed);
+        return narrowed;
+      }
+    }
+    for (final CandidateLookupBucket bucket : this.buckets) {
+      if (bucket.covers(key)) {
+        log.debug("Answering {} from the dob bucket {}", key, bucket.getDob());
+        final List<StudentCandidateEntity> narrowed = bucket.candidatesFor(key);
+        this.candidates.put(key, narrowed);
+        return narrowed;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Seeds the context with a dob bucket fetched for a batch.
+   *
+   * @param bucket the bucket
+   */
+  public void addBucket(final CandidateLookupBucket bucket) {
+    this.buckets.add(bucket);
+  }
+
+  /**
+   * Lookup the normalized candidate view of a student returned by {@link #lookupCandidates(CandidateLookupKey)}.
+   *
+   * @param student the student
+   * @return the pen match candidate
+   */
+  public PenMatchCandidate lookupPenMatchCandidate(final StudentCandidateEntity student) {
+    return this.lookupManager.lookupPenMatchCandidate(student);
+  }
+
+  /**
+   * Lookup surname frequency.
+   *
+   * @param surname the surname
+   * @return the integer
+   */
+  public Integer lookupSurnameFrequency(final String surname) {
+    return this.surnameFrequencies.computeIfAbsent(surname, this.lookupManager::lookupSurnameFrequency);
+  }
+
+  /**
+   * Lookup student by pen.
+   *
+   * @param pen the pen
+   * @return the optional
+   */
+  public Optional<PenMasterRecord> lookupStudentByPEN(final String pen) {
+    return this.penMasterRecords.computeIfAbsent(pen, key -> {
+      final CompletableFuture<Optional<PenMasterRecord>> request = this.penMasterRecordRequests.remove(key);
+      if (request != null) {
+        return DeadlineHolder.join(request);
+      }
+      DeadlineHolder.check(DeadlineHolder.LOOKUP_STAGE);
+      return this.lookupManager.lookupStudentByPEN(key, this.correlationID);
+    });
+  }
+
+  /**
+   * Sends the lookup of a student by pen without waiting for the answer, so the caller can do other lookups while
+   * it is in flight; {@link #lookupStudentByPEN(String)} then waits for it.
+   *
+   * @param pen the pen
+   * @return true if a request was sent, false if the pen was already looked up or requested
+   */
+  public boolean prefetchStudentByPEN(final String pen) {
+    if (this.penMasterRecords.containsKey(pen) || this.penMasterRecordRequests.containsKey(pen)) {
+      return false;
+    }
+    DeadlineHolder.check(DeadlineHolder.LOOKUP_STAGE);
+    this.penMasterRecordRequests.put(pen, this.lookupManager.lookupStudentByPENAsync(pen, this.correlationID));
+    return true;
+  }
+
+  /**
+   * Lookup the master record of the student a merged student was merged to. The record is also kept under its PEN, so
+   * a later {@link #lookupStudentByPEN(String)} of the true PEN is answered without another lookup.
+   *
+   * @param mergedRecord the master record of the merged student
+   * @return the optional
+   */
+  public Optional<PenMasterRecord> lookupTrueStudent(final PenMasterRecord mergedRecord) {
+    return this.trueStudents.computeIfAbsent(mergedRecord.getStudentID(), key -> {
+      DeadlineHolder.check(DeadlineHolder.LOOKUP_STAGE);
+      final Optional<PenMasterRecord> trueStudent = this.lookupManager.lookupTrueStudent(mergedRecord, this.correlationID);
+      trueStudent.ifPresent(masterRecord -> this.penMasterRecords.putIfAbsent(masterRecord.getPen(), trueStudent));
+      return trueStudent;
+    });
+  }
+}
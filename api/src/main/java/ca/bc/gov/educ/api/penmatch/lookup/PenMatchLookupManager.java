@@ -2,32 +2,36 @@ package ca.bc.gov.educ.api.penmatch.lookup;
 
 import ca.bc.gov.educ.api.penmatch.exception.LookupRuntimeException;
 import ca.bc.gov.educ.api.penmatch.model.v1.*;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
 import ca.bc.gov.educ.api.penmatch.repository.v1.ForeignSurnameRepository;
 import ca.bc.gov.educ.api.penmatch.repository.v1.MatchCodesRepository;
 import ca.bc.gov.educ.api.penmatch.repository.v1.NicknamesRepository;
+import ca.bc.gov.educ.api.penmatch.rest.RestPageImpl;
 import ca.bc.gov.educ.api.penmatch.rest.RestUtils;
 import ca.bc.gov.educ.api.penmatch.service.v1.match.SurnameFrequencyService;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchCandidate;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchNames;
+import ca.bc.gov.educ.api.penmatch.util.MatchCodeUtils;
+import ca.bc.gov.educ.api.penmatch.util.PenMatchUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 /**
  * The type Pen match lookup manager.
@@ -65,18 +69,53 @@ public class PenMatchLookupManager {
    */
   private final RestUtils restUtils;
   /**
-   * The Nicknames map
+   * The Surname frequency service.
    */
-  private final Map<String, List<NicknameEntity>> nicknamesMap = new ConcurrentHashMap<>();
+  private final SurnameFrequencyService surnameFrequencyService;
   /**
-   * The Nicknames lock.
+   * The Candidate lookup cache.
    */
-  private final ReadWriteLock nicknamesLock = new ReentrantReadWriteLock();
-  private final SurnameFrequencyService surnameFrequencyService;
+  private final CandidateLookupCache candidateLookupCache;
+  /**
+   * The Student demographics replica.
+   */
+  private final StudentDemographicsReplica studentDemographicsReplica;
+  /**
+   * The Merged student resolver.
+   */
+  private final MergedStudentResolver mergedStudentResolver;
   /**
-   * The Match codes map.
+   * The Application properties.
    */
-  private Map<String, String> matchCodesMap;
+  private final ApplicationProperties applicationProperties;
+  /**
+   * The Candidate search pages counter.
+   */
+  private final Counter candidateSearchPages;
+  /**
+   * The Candidate searches stopped early counter.
+   */
+  private final Counter candidateSearchesStoppedEarly;
+  /**
+   * The Candidate searches in flight, shared by concurrent lookups of the same criteria.
+   */
+  private final SingleFlight<CandidateLookupKey, List<StudentCandidateEntity>> candidateSearches;
+  /**
+   * The First pages of the paged candidate searches in flight, shared by concurrent searches of the same key.
+   */
+  private final SingleFlight<CandidateLookupKey, RestPageImpl<StudentCandidateEntity>> candidateFirstPages;
+  /**
+   * The Pen match candidates, kept as long as the student they were computed from is referenced by a lookup cache.
+   */
+  private final Cache<StudentCandidateEntity, PenMatchCandidate> penMatchCandidates = CacheBuilder.newBuilder().weakKeys().build();
+  /**
+   * The Match codes.
+   */
+  private final ReferenceDataHolder<MatchCodeTable> matchCodes;
+  /**
+   * The Nicknames.
+   */
+  private final ReferenceDataHolder<NicknameSnapshot> nicknames;
 
   /**
    * Instantiates a new Pen match lookup manager.
@@ -85,22 +124,30 @@ public class PenMatchLookupManager {
    * @param nicknamesRepository        the nicknames repository
    * @param matchCodesRepository       the match codes repository
    * @param restUtils                  the rest utils
+   * @param surnameFrequencyService    the surname frequency service
+   * @param candidateLookupCache       the candidate lookup cache
+   * @param studentDemographicsReplica the student demographics replica
+   * @param mergedStudentResolver      the merged student resolver
+   * @param applicationProperties      the application properties
+   * @param meterRegistry              the meter registry
    */
   @Autowired
-  public PenMatchLookupManager(final ForeignSurnameRepository foreignSurnameRepository, final NicknamesRepository nicknamesRepository, final MatchCodesRepository matchCodesRepository, final RestUtils restUtils, final SurnameFrequencyService surnameFrequencyService) {
+  public PenMatchLookupManager(final ForeignSurnameRepository foreignSurnameRepository, final NicknamesRepository nicknamesRepository, final MatchCodesRepository matchCodesRepository, final RestUtils restUtils, final SurnameFrequencyService surnameFrequencyService, final CandidateLookupCache candidateLookupCache, final StudentDemographicsReplica studentDemographicsReplica, final MergedStudentResolver mergedStudentResolver, final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
     this.foreignSurnameRepository = foreignSurnameRepository;
     this.nicknamesRepository = nicknamesRepository;
     this.matchCodesRepository = matchCodesRepository;
     this.restUtils = restUtils;
     this.surnameFrequencyService = surnameFrequencyService;
-  }
-
-  @Scheduled(fixedRate = 30000)
-  @Caching(evict = {
-          @CacheEvict(value="lookupAllParts", allEntries=true),
-          @CacheEvict(value="lookupNoInit", allEntries=true) })
-  public void evictAllCachesAtIntervals() {
-    log.debug("Evicting cache for lookups");
+    this.candidateLookupCache = candidateLookupCache;
+    this.studentDemographicsReplica = studentDemographicsReplica;
+    this.mergedStudentResolver = mergedStudentResolver;
+    this.applicationProperties = applicationProperties;
+    this.candidateSearchPages = meterRegistry.counter("pen.match.candidate.search.pages");
+    this.candidateSearchesStoppedEarly = meterRegistry.counter("pen.match.candidate.search.stopped.early");
+    this.matchCodes = new ReferenceDataHolder<>("matchCodes", MatchCodeTable.EMPTY, version -> new MatchCodeTable(version, getMatchCodesRepository().findAll()), meterRegistry);
+    this.nicknames = new ReferenceDataHolder<>("nicknames", NicknameSnapshot.EMPTY, version -> new NicknameSnapshot(version, getNicknamesRepository().findAll()), meterRegistry);
+    this.candidateSearches = new SingleFlight<>("candidateSearch", meterRegistry);
+    this.candidateFirstPages = new SingleFlight<>("candidateSearchFirstPage", meterRegistry);
   }
 
   /**
@@ -114,14 +161,8 @@ public class PenMatchLookupManager {
    * @param correlationID the correlation id
    * @return the list
    */
-  @Cacheable("lookupAllParts")
-  public List<StudentEntity> lookupWithAllParts(String dob, String surname, String givenName, String mincode, String localID, UUID correlationID) {
-    try {
-      return restUtils.lookupWithAllParts(dob, surname, givenName, mincode, localID, correlationID);
-    } catch (JsonProcessingException e) {
-      log.error(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
-      throw new LookupRuntimeException(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
-    }
+  public List<StudentCandidateEntity> lookupWithAllParts(String dob, String surname, String givenName, String mincode, String localID, UUID correlationID) {
+    return lookupCandidates(CandidateLookupKey.withAllParts(dob, surname, givenName, mincode, localID), correlationID);
   }
 
 
@@ -135,14 +176,8 @@ public class PenMatchLookupManager {
    * @param correlationID the correlation id
    * @return the list
    */
-  @Cacheable("lookupNoInit")
-  public List<StudentEntity> lookupNoInit(String dob, String surname, String mincode, String localID, UUID correlationID) {
-    try {
-      return restUtils.lookupNoInit(dob, surname, mincode, localID, correlationID);
-    } catch (JsonProcessingException e) {
-      log.error(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
-      throw new LookupRuntimeException(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
-    }
+  public List<StudentCandidateEntity> lookupNoInit(String dob, String surname, String mincode, String localID, UUID correlationID) {
+    return lookupCandidates(CandidateLookupKey.noInit(dob, surname, mincode, localID), correlationID);
   }
 
   /**
@@ -154,9 +189,97 @@ public class PenMatchLookupManager {
    * @param correlationID the correlation id
    * @return the list
    */
-  public List<StudentEntity> lookupNoLocalID(String dob, String surname, String givenName, UUID correlationID) {
+  public List<StudentCandidateEntity> lookupNoLocalID(String dob, String surname, String givenName, UUID correlationID) {
+    return lookupCandidates(CandidateLookupKey.noLocalID(dob, surname, givenName), correlationID);
+  }
+
+  /**
+   * Lookup with no initial or local ID
+   *
+   * @param dob           the dob
+   * @param surname       the surname
+   * @param correlationID the correlation id
+   * @return the list
+   */
+  public List<StudentCandidateEntity> lookupNoInitNoLocalID(String dob, String surname, UUID correlationID) {
+    return lookupCandidates(CandidateLookupKey.noInitNoLocalID(dob, surname), correlationID);
+  }
+
+  /**
+   * Lookup candidates for the key, answered from the student demographics replica while it is fresh, otherwise from
+   * the candidate lookup cache or the student api. Concurrent lookups of the same key share one student api search.
+   * The correlation id is only used for tracing the remote call, it is not part of the key; a lookup coalesced into
+   * a search already in flight is traced under the correlation id of the lookup which started it.
+   *
+   * @param key           the key
+   * @param correlationID the correlation id
+   * @return the list
+   */
+  public List<StudentCandidateEntity> lookupCandidates(CandidateLookupKey key, UUID correlationID) {
+    Optional<List<StudentCandidateEntity>> replicaCandidates = studentDemographicsReplica.lookup(key);
+    if (replicaCandidates.isPresent()) {
+      return replicaCandidates.get();
+    }
+    return candidateLookupCache.get(key, () -> candidateSearches.get(key, () -> Collections.unmodifiableList(lookupCandidatesRemote(key, correlationID))));
+  }
+
+  /**
+   * Passes the candidates for the key to the action one by one, until the action returns false.
+   * Candidates held by the student demographics replica or the candidate lookup cache are passed from memory. Otherwise,
+   * when paged candidate searches are enabled, the student api is searched one page at a time, in student id order,
+   * and no further page is requested once the action stops. Concurrent searches of the same key share the request of
+   * the first page; a search which reads every page caches the candidates, one stopped early is not cached, as it has
+   * not read every candidate, and neither is one that a student change overtook.
+   *
+   * @param key           the key
+   * @param correlationID the correlation id
+   * @param action        the action, returning whether it wants more candidates
+   */
+  public void forEachCandidate(CandidateLookupKey key, UUID correlationID, Predicate<StudentCandidateEntity> action) {
+    Optional<List<StudentCandidateEntity>> inMemory = studentDemographicsReplica.lookup(key).or(() -> candidateLookupCache.getIfPresent(key));
+    if (inMemory.isPresent() || !applicationProperties.isCandidateSearchPagedEnabled()) {
+      for (StudentCandidateEntity candidate : inMemory.orElseGet(() -> lookupCandidates(key, correlationID))) {
+        if (!action.test(candidate)) {
+          return;
+        }
+      }
+      return;
+    }
+    List<StudentCandidateEntity> candidates = new ArrayList<>();
+    long cacheEpoch = candidateLookupCache.epoch();
+    RestPageImpl<StudentCandidateEntity> page = candidateFirstPages.get(key, () -> lookupCandidatePage(key, 0, correlationID));
+    int pageNumber = 0;
+    while (true) {
+      for (StudentCandidateEntity candidate : page.getContent()) {
+        if (!action.test(candidate)) {
+          if (page.hasNext()) {
+            candidateSearchesStoppedEarly.increment();
+          }
+          return;
+        }
+      }
+      candidates.addAll(page.getContent());
+      if (!page.hasNext()) {
+        break;
+      }
+      page = lookupCandidatePage(key, ++pageNumber, correlationID);
+    }
+    candidateLookupCache.put(key, candidates, cacheEpoch);
+  }
+
+  /**
+   * Lookup one page of the candidates for the key from the student api.
+   *
+   * @param key           the key
+   * @param pageNumber    the page number
+   * @param correlationID the correlation id
+   * @return the page
+   */
+  private RestPageImpl<StudentCandidateEntity> lookupCandidatePage(CandidateLookupKey key, int pageNumber, UUID correlationID) {
     try {
-      return restUtils.lookupNoLocalID(dob, surname, givenName, correlationID);
+      RestPageImpl<StudentCandidateEntity> page = restUtils.lookupCandidatePage(key, pageNumber, applicationProperties.getCandidateSearchPageSize(), correlationID);
+      candidateSearchPages.increment();
+      return page;
     } catch (JsonProcessingException e) {
       log.error(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
       throw new LookupRuntimeException(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
@@ -164,22 +287,63 @@ public class PenMatchLookupManager {
   }
 
   /**
-   * Lookup with no initial or local ID
+   * Lookup the candidates of a batch dob bucket with one widened search.
+   * Empty while the student demographics replica is serving, as every search is then answered in memory anyway.
    *
    * @param dob           the dob
-   * @param surname       the surname
+   * @param keys          the keys planned for the batch records with this dob
+   * @param correlationID the correlation id
+   * @return the candidate lookup bucket
+   */
+  public Optional<CandidateLookupBucket> lookupDobBucket(String dob, Set<CandidateLookupKey> keys, UUID correlationID) {
+    if (studentDemographicsReplica.isServing()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(new CandidateLookupBucket(dob, keys, restUtils.lookupDobBucket(dob, keys, correlationID)));
+    } catch (JsonProcessingException e) {
+      log.error(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
+      throw new LookupRuntimeException(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
+    }
+  }
+
+  /**
+   * Lookup candidates from the student api.
+   *
+   * @param key           the key
    * @param correlationID the correlation id
    * @return the list
    */
-  public List<StudentEntity> lookupNoInitNoLocalID(String dob, String surname, UUID correlationID) {
+  private List<StudentCandidateEntity> lookupCandidatesRemote(CandidateLookupKey key, UUID correlationID) {
     try {
-      return restUtils.lookupNoInitNoLocalID(dob, surname, correlationID);
+      switch (key.getLookupType()) {
+        case ALL_PARTS:
+          return restUtils.lookupWithAllParts(key.getDob(), key.getSurname(), key.getGivenName(), key.getMincode(), key.getLocalID(), correlationID);
+        case NO_INIT:
+          return restUtils.lookupNoInit(key.getDob(), key.getSurname(), key.getMincode(), key.getLocalID(), correlationID);
+        case NO_LOCAL_ID:
+          return restUtils.lookupNoLocalID(key.getDob(), key.getSurname(), key.getGivenName(), correlationID);
+        default:
+          return restUtils.lookupNoInitNoLocalID(key.getDob(), key.getSurname(), correlationID);
+      }
     } catch (JsonProcessingException e) {
       log.error(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
       throw new LookupRuntimeException(ERROR_OCCURRED_DURING_LOOKUP + e.getMessage());
     }
   }
 
+  /**
+   * The normalized candidate view of a student returned by a candidate lookup.
+   * It is computed once per student instance, so a student served from the candidate cache, the replica or a dob
+   * bucket is converted once for all the matches it takes part in.
+   *
+   * @param student the student
+   * @return the pen match candidate
+   */
+  public PenMatchCandidate lookupPenMatchCandidate(StudentCandidateEntity student) {
+    return penMatchCandidates.asMap().computeIfAbsent(student, PenMatchUtils::convertStudentEntityToPenMatchCandidate);
+  }
+
   /**
    * Fetches a PEN Master Record given a student number
    *
@@ -194,22 +358,30 @@ public class PenMatchLookupManager {
     return Optional.empty();
   }
 
+  /**
+   * Fetches a PEN Master Record given a student number, without blocking while the student api answers
+   *
+   * @param pen           the pen
+   * @param correlationID the correlation id
+   * @return the future of the optional
+   */
+  public CompletableFuture<Optional<PenMasterRecord>> lookupStudentByPENAsync(String pen, UUID correlationID) {
+    if (StringUtils.isNotBlank(pen)) {
+      return restUtils.getPenMasterRecordByPenAsync(pen, correlationID);
+    }
+    return CompletableFuture.completedFuture(Optional.empty());
+  }
+
 
   /**
-   * Fetches a PEN Master Record given a student number
+   * Fetches the PEN Master Record of the student a merged student was merged to
    *
-   * @param studentID the student id
+   * @param mergedRecord  the master record of the merged student
    * @param correlationID the correlation or transaction id
-   * @return the string
+   * @return the optional
    */
-  public String lookupStudentTruePENNumberByStudentID(String studentID, UUID correlationID) {
-    if (studentID != null) {
-      var truePenOptional = restUtils.lookupStudentTruePENNumberByStudentID(studentID, correlationID);
-      if (truePenOptional.isPresent()) {
-        return truePenOptional.get();
-      }
-    }
-    return null;
+  public Optional<PenMasterRecord> lookupTrueStudent(PenMasterRecord mergedRecord, UUID correlationID) {
+    return mergedStudentResolver.resolve(mergedRecord, correlationID);
   }
 
 
@@ -220,15 +392,29 @@ public class PenMatchLookupManager {
    * Nickname 1 Nickname 2 JAMES JIM JAMES JIMMY JAMES JAIMIE
    *
    * @param givenName the given name
-   * @return the list
+   * @return the nickname 2 values of the rows of the given name
    */
-  public List<NicknameEntity> lookupNicknamesOnly(String givenName) {
+  public List<String> lookupNicknamesOnly(String givenName) {
     if (givenName == null || givenName.length() < 1) {
       return new ArrayList<>();
     }
 
-    String givenNameUpper = givenName.toUpperCase();
-    return getNicknames(givenNameUpper);
+    return nicknames.get().getNicknames(givenName.toUpperCase());
+  }
+
+  /**
+   * Look up the names that share a nickname row with the given name, to check whether another name is a nickname of
+   * it or vice versa.
+   *
+   * @param givenName the given name
+   * @return the nickname group
+   */
+  public NicknameGroup lookupNicknameGroup(String givenName) {
+    if (givenName == null || givenName.length() < 1) {
+      return NicknameGroup.EMPTY;
+    }
+
+    return nicknames.get().getGroup(givenName.toUpperCase());
   }
 
   /**
@@ -236,6 +422,9 @@ public class PenMatchLookupManager {
    * example, we would expect the following in the nickname file:
    * <p>
    * Nickname 1 Nickname 2 JAMES JIM JAMES JIMMY JAMES JAIMIE
+   * <p>
+   * The base nickname of the given name and all its nickname2's, bypassing the given name, are added to the
+   * transaction names; the expansion is precomputed per name when the nicknames are loaded.
    *
    * @param penMatchTransactionNames the pen match transaction names
    * @param givenName                the given name
@@ -245,33 +434,7 @@ public class PenMatchLookupManager {
       return;
     }
 
-    String givenNameUpper = givenName.toUpperCase();
-
-    // Part 1 - Find the base nickname
-    String baseNickname = null;
-
-    List<NicknameEntity> nicknamesBaseList = getNicknames(givenNameUpper);
-    if (!nicknamesBaseList.isEmpty()) {
-      baseNickname = StringUtils.trimToNull(nicknamesBaseList.get(0).getNickname1());
-    }
-
-    // Part 2 - Base nickname has been found; now find all the nickname2's,
-    // bypassing the one that is the same as the given name in the transaction.
-    // The base nickname should be stored as well if it is not the same as the given
-    // name
-    if (baseNickname != null) {
-
-      if (!StringUtils.equals(baseNickname, givenNameUpper)) {
-        penMatchTransactionNames.getNicknames().add(baseNickname);
-      }
-
-      List<NicknameEntity> tempNicknamesList = getNicknames(baseNickname);
-      for (NicknameEntity nickEntity : tempNicknamesList) {
-        if (!StringUtils.equals(nickEntity.getNickname2(), givenNameUpper)) {
-          penMatchTransactionNames.getNicknames().add(StringUtils.trimToEmpty(nickEntity.getNickname2()));
-        }
-      }
-    }
+    penMatchTransactionNames.getNicknames().addAll(nicknames.get().getExpansion(givenName.toUpperCase()));
   }
 
   /**
@@ -306,39 +469,34 @@ public class PenMatchLookupManager {
     if (matchCode == null) {
       return null;
     }
-
-    if (matchCodesMap == null) {
-      matchCodesMap = new ConcurrentHashMap<>();
-      List<MatchCodeEntity> matchCodesEntities = getMatchCodesRepository().findAll();
-      for (MatchCodeEntity entity : matchCodesEntities) {
-        matchCodesMap.put(entity.getMatchCode(), entity.getMatchResult());
-      }
+    int packedMatchCode = MatchCodeUtils.parse(matchCode);
+    if (packedMatchCode == MatchCodeUtils.INVALID) {
+      return matchCode;
     }
+    return lookupMatchResult(packedMatchCode);
+  }
 
-    if (matchCodesMap.containsKey(matchCode)) {
-      return matchCodesMap.get(matchCode);
+  /**
+   * Lookup the result of a packed match code, the match code itself if it has no result.
+   *
+   * @param matchCode the packed match code
+   * @return the string
+   */
+  public String lookupMatchResult(int matchCode) {
+    String matchResult = matchCodes.get().lookup(matchCode);
+    if (matchResult != null) {
+      return matchResult;
     }
-
-    return matchCode;
+    return MatchCodeUtils.toString(matchCode);
   }
 
   /**
    * Reload cache.
-   * - Evict cache every 24 hours and reload again
+   * - Rebuild the reference data every 24 hours; each kind is swapped in whole once it is built
    */
   @Scheduled(fixedRate = 86400000)
   public void reloadCache() {
-    log.info("Evicting match codes cache");
-    if (matchCodesMap != null) {
-      matchCodesMap.clear();
-    }
-    matchCodesMap = getMatchCodesRepository().findAll().stream().collect(Collectors.toConcurrentMap(MatchCodeEntity::getMatchCode, MatchCodeEntity::getMatchResult));
-    log.info("Reloaded match codes into cache. {} entries", matchCodesMap.size());
-
-    log.info("Reloading nicknames cache");
-    nicknamesMap.clear();
-    this.setNicknames();
-    log.info("Reloaded nicknames into cache");
+    loadReferenceData();
   }
 
   /**
@@ -346,87 +504,17 @@ public class PenMatchLookupManager {
    */
   @PostConstruct
   public void init() {
-    log.info("Loading Match codes during startup.");
-    matchCodesMap = getMatchCodesRepository().findAll().stream().collect(Collectors.toConcurrentMap(MatchCodeEntity::getMatchCode, MatchCodeEntity::getMatchResult));
-    log.info("Loaded Match codes during startup. {} entries", matchCodesMap.size());
-
-    log.info("Loading Nicknames during startup.");
-    this.setNicknames();
-    log.info("Loaded Nicknames during startup.");
-  }
-
-  /**
-   * Gets nicknames.
-   *
-   * @param givenName the given name
-   * @return the nicknames
-   */
-  public List<NicknameEntity> getNicknames(String givenName) {
-    String givenNameUpper = givenName.toUpperCase();
-    if (this.nicknamesMap.containsKey(givenNameUpper)) {
-      return this.nicknamesMap.get(givenNameUpper);
-    }
-
-    return new ArrayList<>();
+    log.info("Loading reference data during startup.");
+    loadReferenceData();
   }
 
   /**
-   * Sets nicknames.
+   * Load the match codes, nicknames and surname frequencies into new snapshots.
    */
-  private void setNicknames() {
-    var writeLock = nicknamesLock.writeLock();
-    try {
-      writeLock.lock();
-      mapNicknames(getNicknamesRepository().findAll());
-
-      log.info("loaded {} entries into nicknames map ", nicknamesMap.values().size());
-    } finally {
-      writeLock.unlock();
-    }
-  }
-
-  /**
-   * Map nickname.
-   *
-   * @param entities the entity list
-   */
-// map as (givenName, list of Nicknames entity)
-  private void mapNicknames(List<NicknameEntity> entities) {
-    for (NicknameEntity entity : entities) {
-      String givenName = entity.getNickname1();
-      var key = StringUtils.trimToNull(givenName);
-      List<NicknameEntity> nicknames;
-
-      if (this.nicknamesMap.containsKey(key)) {
-        nicknames = this.nicknamesMap.get(key);
-      } else {
-        nicknames = new ArrayList<>();
-      }
-
-      if (!nicknames.contains(entity)) {
-        nicknames.add(entity);
-        this.nicknamesMap.put(key, nicknames);
-      }
-    }
-
-    for (NicknameEntity entity : entities) {
-      String givenName = entity.getNickname2();
-      var key = StringUtils.trimToNull(givenName);
-      List<NicknameEntity> nicknames;
-
-      if (this.nicknamesMap.containsKey(key)) {
-        nicknames = this.nicknamesMap.get(key);
-      } else {
-        nicknames = new ArrayList<>();
-      }
-
-      if (!nicknames.contains(entity)) {
-        nicknames.add(entity);
-        this.nicknamesMap.put(key, nicknames);
-      }
-    }
-
-
+  private void loadReferenceData() {
+    matchCodes.reload();
+    nicknames.reload();
+    surnameFrequencyService.reload();
   }
 
 }
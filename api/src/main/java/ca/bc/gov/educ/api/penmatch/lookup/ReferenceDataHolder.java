@@ -0,0 +1,84 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.LongFunction;
+
+/**
+ * The type Reference data holder.
+ * <p>
+ * Holds the current snapshot of one kind of reference data behind a single volatile reference. A reload builds the
+ * next version completely before publishing it, so readers take no lock and always see either the old or the new
+ * snapshot. The version, size and age of the current snapshot and the build time of each reload are published as
+ * metrics tagged with the reference data name.
+ *
+ * @param <T> the snapshot type
+ */
+@Slf4j
+public final class ReferenceDataHolder<T extends ReferenceDataSnapshot> {
+  /**
+   * The constant METRIC_PREFIX.
+   */
+  private static final String METRIC_PREFIX = "pen.match.reference.data";
+  /**
+   * The Name.
+   */
+  private final String name;
+  /**
+   * The Builder, given the version to build.
+   */
+  private final LongFunction<T> builder;
+  /**
+   * The Build timer.
+   */
+  private final Timer buildTimer;
+  /**
+   * The Snapshot.
+   */
+  private volatile T snapshot;
+
+  /**
+   * Instantiates a new Reference data holder.
+   *
+   * @param name          the reference data name, used as the metrics tag
+   * @param empty         the empty snapshot served until the first load
+   * @param builder       the builder, given the version to build
+   * @param meterRegistry the meter registry
+   */
+  public ReferenceDataHolder(final String name, final T empty, final LongFunction<T> builder, final MeterRegistry meterRegistry) {
+    this.name = name;
+    this.builder = builder;
+    this.snapshot = empty;
+    Gauge.builder(METRIC_PREFIX + ".version", this, holder -> holder.get().getVersion()).tag("data", name).register(meterRegistry);
+    Gauge.builder(METRIC_PREFIX + ".size", this, holder -> holder.get().size()).tag("data", name).register(meterRegistry);
+    Gauge.builder(METRIC_PREFIX + ".age", this, holder -> Duration.between(holder.get().getBuildTime(), Instant.now()).toSeconds())
+        .tag("data", name).baseUnit("seconds").register(meterRegistry);
+    this.buildTimer = Timer.builder(METRIC_PREFIX + ".build").tag("data", name).register(meterRegistry);
+  }
+
+  /**
+   * The current snapshot.
+   *
+   * @return the snapshot
+   */
+  public T get() {
+    return this.snapshot;
+  }
+
+  /**
+   * Build the next version and swap it in. Concurrent reloads are serialized so versions stay in order.
+   *
+   * @return the new snapshot
+   */
+  public synchronized T reload() {
+    final T next = this.buildTimer.record(() -> this.builder.apply(this.snapshot.getVersion() + 1));
+    this.snapshot = next;
+    log.info("Loaded {} reference data version {} with {} entries", this.name, next.getVersion(), next.size());
+    return next;
+  }
+}
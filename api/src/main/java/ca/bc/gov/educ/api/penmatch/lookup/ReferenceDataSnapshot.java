@@ -0,0 +1,41 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * The type Reference data snapshot.
+ * <p>
+ * An immutable, fully built copy of one kind of reference data (match codes, nicknames, surname frequencies).
+ * Snapshots are built off to the side and swapped in whole by a {@link ReferenceDataHolder}, so a match never sees
+ * reference data that is partially loaded.
+ */
+@Getter
+public abstract class ReferenceDataSnapshot {
+  /**
+   * The Version, starting at 1 for the first load; 0 is the empty snapshot in place before it.
+   */
+  private final long version;
+  /**
+   * The Build time.
+   */
+  private final Instant buildTime;
+
+  /**
+   * Instantiates a new Reference data snapshot.
+   *
+   * @param version the version
+   */
+  protected ReferenceDataSnapshot(final long version) {
+    this.version = version;
+    this.buildTime = Instant.now();
+  }
+
+  /**
+   * The number of entries in the snapshot.
+   *
+   * @return the int
+   */
+  public abstract int size();
+}
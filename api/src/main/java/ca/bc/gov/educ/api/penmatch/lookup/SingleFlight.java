@@ -0,0 +1,129 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.exception.DeadlineExceededException;
+import ca.bc.gov.educ.api.penmatch.exception.LookupRuntimeException;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The type Single flight.
+ * <p>
+ * Lets concurrent callers asking for the same key share one load: the first caller runs the loader, callers arriving
+ * while it runs wait for its result, or its exception, instead of loading again. A key is forgotten as soon as its load
+ * completes, so nothing is held afterwards; keeping results is left to a cache in front of it. Every waiter waits at
+ * most until its own deadline. A load abandoned at the deadline of its caller is not shared: a waiter with time left
+ * loads again. Loads and coalesced calls are published
+ * as metrics tagged with the flight name.
+ * <p>
+ * Flights are shared across workload lanes: the load runs in the lane of the caller which started it, so an interactive
+ * caller coalesced into a load started by a bulk caller also waits behind that load's wait for a bulk student api slot.
+ * This is accepted because the load is the same search, which the interactive caller would otherwise send again.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@Slf4j
+public final class SingleFlight<K, V> {
+  /**
+   * The constant METRIC_PREFIX.
+   */
+  private static final String METRIC_PREFIX = "pen.match.single.flight";
+  /**
+   * The Loads in flight.
+   */
+  private final Map<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+  /**
+   * The Loads counter.
+   */
+  private final Counter loads;
+  /**
+   * The Coalesced calls counter.
+   */
+  private final Counter coalesced;
+
+  /**
+   * Instantiates a new Single flight.
+   *
+   * @param name          the flight name, used as the metrics tag
+   * @param meterRegistry the meter registry
+   */
+  public SingleFlight(final String name, final MeterRegistry meterRegistry) {
+    this.loads = Counter.builder(METRIC_PREFIX + ".loads").tag("flight", name).register(meterRegistry);
+    this.coalesced = Counter.builder(METRIC_PREFIX + ".coalesced").tag("flight", name).register(meterRegistry);
+    Gauge.builder(METRIC_PREFIX + ".in.flight", this.flights, Map::size).tag("flight", name).register(meterRegistry);
+  }
+
+  /**
+   * Returns the value for the key, running the loader unless a load of the same key is already in flight.
+   *
+   * @param key    the key
+   * @param loader the loader
+   * @return the value, shared with every caller coalesced into the same load
+   */
+  public V get(final K key, final Supplier<V> loader) {
+    final CompletableFuture<V> flight = new CompletableFuture<>();
+    final CompletableFuture<V> inFlight = this.flights.putIfAbsent(key, flight);
+    if (inFlight != null) {
+      this.coalesced.increment();
+      log.debug("Joining the load in flight for {}", key);
+      try {
+        return this.join(inFlight);
+      } catch (final DeadlineExceededException e) {
+        if (DeadlineHolder.isExpired()) {
+          throw e;
+        }
+        return this.get(key, loader);
+      }
+    }
+    this.loads.increment();
+    try {
+      final V value = loader.get();
+      flight.complete(value);
+      return value;
+    } catch (final RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.flights.remove(key, flight);
+    }
+  }
+
+  /**
+   * Number of loads currently in flight.
+   *
+   * @return the size
+   */
+  public int inFlight() {
+    return this.flights.size();
+  }
+
+  /**
+   * Waits for a load started by another caller, up to the deadline of this caller, rethrowing its exception as is.
+   *
+   * @param flight the flight
+   * @return the value
+   * @throws DeadlineExceededException if the deadline of this caller passes before the load completes
+   */
+  private V join(final CompletableFuture<V> flight) {
+    try {
+      return DeadlineHolder.join(flight);
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new LookupRuntimeException(e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,404 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.rest.RestPageImpl;
+import ca.bc.gov.educ.api.penmatch.rest.RestUtils;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The type Student demographics replica.
+ * <p>
+ * Optional in-memory copy of the PEN demographics, bootstrapped page by page from the student api and kept current
+ * from the student change events on JetStream. Students are blocked by dob with secondary postings on legal surname
+ * (for prefix searches) and on mincode plus local id, which are exactly the three legs of the candidate searches.
+ * The replica only answers while it is bootstrapped, the last applied event is within the configured lag, and it heard
+ * from the event stream, an event or a heartbeat that the stream is caught up, within that same lag; otherwise callers
+ * fall back to the remote search. A stream that stopped delivering so stops the replica serving rather than leaving it
+ * serving the data of its last event.
+ */
+@Component
+@Slf4j
+public class StudentDemographicsReplica {
+  /**
+   * The constant METRIC_PREFIX.
+   */
+  public static final String METRIC_PREFIX = "penmatch.replica";
+  /**
+   * The Rest utils.
+   */
+  private final RestUtils restUtils;
+  /**
+   * The Enabled flag.
+   */
+  private final boolean enabled;
+  /**
+   * The Bootstrap page size.
+   */
+  private final int bootstrapPageSize;
+  /**
+   * The Max lag.
+   */
+  private final Duration maxLag;
+  /**
+   * The Students by id.
+   */
+  private final Map<UUID, StudentCandidateEntity> students = new ConcurrentHashMap<>();
+  /**
+   * The Students by dob.
+   */
+  private final Map<String, Set<UUID>> dobIndex = new HashMap<>();
+  /**
+   * The Students by legal surname, sorted for prefix searches.
+   */
+  private final NavigableMap<String, Set<UUID>> surnameIndex = new ConcurrentSkipListMap<>();
+  /**
+   * The Students by mincode and local id.
+   */
+  private final Map<String, Set<UUID>> mincodeLocalIDIndex = new HashMap<>();
+  /**
+   * The Index lock.
+   */
+  private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+  /**
+   * The time students were deleted while the bootstrap runs, by id, so a later bootstrap page does not bring them
+   * back.
+   */
+  private final Map<UUID, Instant> tombstones = new HashMap<>();
+  /**
+   * The Event lag in millis of the last applied event.
+   */
+  private final AtomicLong eventLagMillis = new AtomicLong();
+  /**
+   * The time in epoch millis the replica last heard from the event stream, an event or a heartbeat.
+   */
+  private final AtomicLong lastHeardMillis = new AtomicLong();
+  /**
+   * The Lookups served counter.
+   */
+  private final Counter lookupsServed;
+  /**
+   * The Fallbacks counter.
+   */
+  private final Counter fallbacks;
+  /**
+   * The Bootstrapped flag.
+   */
+  private volatile boolean bootstrapped;
+  /**
+   * The Bootstrapped at.
+   */
+  private volatile Instant bootstrappedAt;
+
+  /**
+   * Instantiates a new Student demographics replica.
+   *
+   * @param restUtils             the rest utils
+   * @param applicationProperties the application properties
+   * @param meterRegistry         the meter registry
+   */
+  @Autowired
+  public StudentDemographicsReplica(final RestUtils restUtils, final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+    this.restUtils = restUtils;
+    this.enabled = applicationProperties.isStudentReplicaEnabled();
+    this.bootstrapPageSize = applicationProperties.getStudentReplicaBootstrapPageSize();
+    this.maxLag = Duration.ofSeconds(applicationProperties.getStudentReplicaMaxLagSeconds());
+    meterRegistry.gauge(METRIC_PREFIX + ".size", this.students, Map::size);
+    meterRegistry.gauge(METRIC_PREFIX + ".event.lag.seconds", this.eventLagMillis, lag -> lag.get() / 1000.0);
+    meterRegistry.gauge(METRIC_PREFIX + ".silence.seconds", this, replica -> replica.silenceMillis() / 1000.0);
+    meterRegistry.gauge(METRIC_PREFIX + ".serving", this, replica -> replica.isServing() ? 1 : 0);
+    this.lookupsServed = meterRegistry.counter(METRIC_PREFIX + ".lookups", "result", "served");
+    this.fallbacks = meterRegistry.counter(METRIC_PREFIX + ".lookups", "result", "fallback");
+  }
+
+  /**
+   * Bootstraps the replica in the background once the application is up.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void bootstrapInBackground() {
+    if (!this.enabled) {
+      return;
+    }
+    final var executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("student-replica-bootstrap-%d").setDaemon(true).build());
+    executor.execute(this::bootstrap);
+    executor.shutdown();
+  }
+
+  /**
+   * Loads every active student from the student api, page by page.
+   * Events applied while the bootstrap runs are not overwritten by older page data, and students deleted while it runs
+   * are not brought back by a later page, see {@link #upsert(StudentCandidateEntity, boolean)}.
+   */
+  public void bootstrap() {
+    final UUID correlationID = UUID.randomUUID();
+    log.info("Bootstrapping student demographics replica, correlationID :: {}", correlationID);
+    try {
+      int pageNumber = 0;
+      RestPageImpl<StudentCandidateEntity> page;
+      do {
+        page = this.restUtils.getActiveStudentsPage(pageNumber++, this.bootstrapPageSize, correlationID);
+        page.getContent().forEach(student -> this.upsert(student, true));
+        log.debug("Loaded page {} of {} into student demographics replica", pageNumber, page.getTotalPages());
+      } while (page.hasNext());
+      this.bootstrappedAt = Instant.now();
+      this.lastHeardMillis.set(this.bootstrappedAt.toEpochMilli());
+      this.bootstrapped = true;
+      this.clearTombstones();
+      log.info("Bootstrapped student demographics replica with {} students", this.students.size());
+    } catch (final Exception e) {
+      log.error("Bootstrapping student demographics replica failed, lookups will use the student api", e);
+    }
+  }
+
+  /**
+   * Whether lookups can be answered from the replica.
+   *
+   * @return the boolean
+   */
+  public boolean isServing() {
+    return this.enabled && this.bootstrapped && this.eventLagMillis.get() <= this.maxLag.toMillis() && this.silenceMillis() <= this.maxLag.toMillis();
+  }
+
+  /**
+   * Whether the replica is enabled.
+   *
+   * @return the boolean
+   */
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Records a heartbeat, the event stream being live and every event on it delivered, which keeps an idle replica
+   * serving.
+   */
+  public void heartbeat() {
+    if (this.enabled) {
+      this.lastHeardMillis.set(System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * Lookup the candidates for the key from memory, or empty when the replica is not serving.
+   *
+   * @param key the key
+   * @return the candidates
+   */
+  public Optional<List<StudentCandidateEntity>> lookup(final CandidateLookupKey key) {
+    if (!this.isServing()) {
+      if (this.enabled) {
+        this.fallbacks.increment();
+      }
+      return Optional.empty();
+    }
+    final Set<UUID> studentIDs = new HashSet<>();
+    final var readLock = this.indexLock.readLock();
+    readLock.lock();
+    try {
+      studentIDs.addAll(this.dobIndex.getOrDefault(key.getDob(), Collections.emptySet()));
+      if (key.getSurname() != null) {
+        this.surnameIndex.subMap(key.getSurname(), true, key.getSurname() + Character.MAX_VALUE, false).values().forEach(studentIDs::addAll);
+      }
+      if (key.usesLocalID()) {
+        studentIDs.addAll(this.mincodeLocalIDIndex.getOrDefault(this.mincodeLocalID(key.getMincode(), key.getLocalID()), Collections.emptySet()));
+      }
+    } finally {
+      readLock.unlock();
+    }
+    final List<StudentCandidateEntity> candidates = new ArrayList<>();
+    for (final UUID studentID : studentIDs) {
+      final StudentCandidateEntity student = this.students.get(studentID);
+      if (student != null && key.matches(student)) {
+        candidates.add(student);
+      }
+    }
+    this.lookupsServed.increment();
+    return Optional.of(candidates);
+  }
+
+  /**
+   * Applies a student change event.
+   *
+   * @param student     the student as published with the event
+   * @param publishedAt the time the event was published, used for the lag
+   */
+  public void apply(final StudentCandidateEntity student, final ZonedDateTime publishedAt) {
+    if (!this.enabled) {
+      return;
+    }
+    this.lastHeardMillis.set(System.currentTimeMillis());
+    this.upsert(student, false);
+    if (publishedAt != null) {
+      this.eventLagMillis.set(Math.max(0, Duration.between(publishedAt.toInstant(), Instant.now()).toMillis()));
+    }
+  }
+
+  /**
+   * Removes a deleted student. While the bootstrap runs the deletion is also kept as a tombstone, as the student may
+   * still be on a page not loaded yet.
+   *
+   * @param studentID the student id
+   */
+  public void remove(final UUID studentID) {
+    if (!this.enabled || studentID == null) {
+      return;
+    }
+    this.lastHeardMillis.set(System.currentTimeMillis());
+    final var writeLock = this.indexLock.writeLock();
+    writeLock.lock();
+    try {
+      final StudentCandidateEntity existing = this.students.remove(studentID);
+      if (existing != null) {
+        this.unindex(existing);
+      }
+      if (!this.bootstrapped) {
+        this.tombstones.put(studentID, Instant.now());
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the time the bootstrap completed.
+   *
+   * @return the bootstrapped at, null until bootstrapped
+   */
+  public Instant getBootstrappedAt() {
+    return this.bootstrappedAt;
+  }
+
+  /**
+   * The time in millis since the replica last heard from the event stream.
+   *
+   * @return the silence millis
+   */
+  private long silenceMillis() {
+    return Math.max(0, System.currentTimeMillis() - this.lastHeardMillis.get());
+  }
+
+  /**
+   * Clear the tombstones once the bootstrap loaded its last page.
+   */
+  private void clearTombstones() {
+    final var writeLock = this.indexLock.writeLock();
+    writeLock.lock();
+    try {
+      this.tombstones.clear();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Upsert the student, ignoring data older than what is held. A bootstrap page row of a student deleted while the
+   * bootstrap runs is skipped; an event for the student means it is back, so it lifts the tombstone.
+   *
+   * @param student the student
+   * @param pageRow whether the student comes from a bootstrap page rather than an event
+   */
+  private void upsert(final StudentCandidateEntity student, final boolean pageRow) {
+    if (student == null || student.getStudentID() == null) {
+      return;
+    }
+    final var writeLock = this.indexLock.writeLock();
+    writeLock.lock();
+    try {
+      if (pageRow) {
+        final Instant deletedAt = this.tombstones.get(student.getStudentID());
+        if (deletedAt != null) {
+          log.debug("Skipping bootstrap row of student {} deleted at {}", student.getStudentID(), deletedAt);
+          return;
+        }
+      } else {
+        this.tombstones.remove(student.getStudentID());
+      }
+      final StudentCandidateEntity existing = this.students.get(student.getStudentID());
+      if (existing != null) {
+        if (StringUtils.compare(student.getUpdateDate(), existing.getUpdateDate()) < 0) {
+          return;
+        }
+        this.unindex(existing);
+      }
+      this.students.put(student.getStudentID(), student);
+      this.index(student);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Index.
+   *
+   * @param student the student
+   */
+  private void index(final StudentCandidateEntity student) {
+    final UUID studentID = student.getStudentID();
+    this.dobIndex.computeIfAbsent(StringUtils.remove(student.getDob(), '-'), k -> new HashSet<>()).add(studentID);
+    if (student.getLegalLastName() != null) {
+      this.surnameIndex.computeIfAbsent(student.getLegalLastName(), k -> new HashSet<>()).add(studentID);
+    }
+    this.mincodeLocalIDIndex.computeIfAbsent(this.mincodeLocalID(student.getMincode(), student.getLocalID()), k -> new HashSet<>()).add(studentID);
+  }
+
+  /**
+   * Unindex.
+   *
+   * @param student the student
+   */
+  private void unindex(final StudentCandidateEntity student) {
+    final UUID studentID = student.getStudentID();
+    this.removePosting(this.dobIndex, StringUtils.remove(student.getDob(), '-'), studentID);
+    if (student.getLegalLastName() != null) {
+      this.removePosting(this.surnameIndex, student.getLegalLastName(), studentID);
+    }
+    this.removePosting(this.mincodeLocalIDIndex, this.mincodeLocalID(student.getMincode(), student.getLocalID()), studentID);
+  }
+
+  /**
+   * Remove posting.
+   *
+   * @param index     the index
+   * @param key       the key
+   * @param studentID the student id
+   */
+  private void removePosting(final Map<String, Set<UUID>> index, final String key, final UUID studentID) {
+    final Set<UUID> postings = index.get(key);
+    if (postings != null) {
+      postings.remove(studentID);
+      if (postings.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Mincode local id posting key.
+   *
+   * @param mincode the mincode
+   * @param localID the local id
+   * @return the string
+   */
+  private String mincodeLocalID(final String mincode, final String localID) {
+    return StringUtils.defaultString(mincode) + "|" + StringUtils.defaultString(localID);
+  }
+}
@@ -0,0 +1,109 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.FrequencySurnameEntity;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The type Surname frequency snapshot.
+ * <p>
+ * The FREQUENCY_SURNAME rows as a prefix index: the surnames sorted, so the surnames starting with a prefix are one
+ * contiguous range, and the running total of their frequencies, so the frequency of any range is one subtraction.
+ * A prefix lookup is two binary searches over the surnames, plus one over the running totals when the limit is reached.
+ */
+public final class SurnameFrequencySnapshot extends ReferenceDataSnapshot {
+  /**
+   * The constant EMPTY.
+   */
+  public static final SurnameFrequencySnapshot EMPTY = new SurnameFrequencySnapshot(0, List.of());
+  /**
+   * The Surnames, sorted.
+   */
+  private final String[] surnames;
+  /**
+   * The Cumulative frequencies: the total frequency of the surnames before each index, one entry longer than the
+   * surnames.
+   */
+  private final long[] cumulativeFrequencies;
+
+  /**
+   * Instantiates a new Surname frequency snapshot.
+   *
+   * @param version  the version
+   * @param entities the surname frequency entities
+   */
+  public SurnameFrequencySnapshot(final long version, final List<FrequencySurnameEntity> entities) {
+    super(version);
+    final FrequencySurnameEntity[] sorted = entities.stream().filter(entity -> entity.getSurname() != null)
+        .sorted(Comparator.comparing(FrequencySurnameEntity::getSurname)).toArray(FrequencySurnameEntity[]::new);
+    this.surnames = new String[sorted.length];
+    this.cumulativeFrequencies = new long[sorted.length + 1];
+    for (int i = 0; i < sorted.length; i++) {
+      this.surnames[i] = sorted[i].getSurname();
+      final int frequency = Math.max(0, NumberUtils.toInt(StringUtils.trim(sorted[i].getSurnameFrequency())));
+      this.cumulativeFrequencies[i + 1] = this.cumulativeFrequencies[i] + frequency;
+    }
+  }
+
+  /**
+   * The summed frequency of the surnames starting with the prefix, in surname order, summing no further once the
+   * limit is reached.
+   *
+   * @param prefix the prefix
+   * @param limit  the limit
+   * @return the frequency
+   */
+  public int frequencyOfPrefix(final String prefix, final int limit) {
+    final int from = this.lowerBound(prefix);
+    final int to = this.lowerBound(prefix + Character.MAX_VALUE);
+    final long base = this.cumulativeFrequencies[from];
+    if (this.cumulativeFrequencies[to] - base < limit) {
+      return (int) (this.cumulativeFrequencies[to] - base);
+    }
+    // the first running total within the range that reaches the limit
+    int low = from + 1;
+    int high = to;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.cumulativeFrequencies[mid] - base >= limit) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return (int) Math.min(Integer.MAX_VALUE, this.cumulativeFrequencies[low] - base);
+  }
+
+  /**
+   * The index of the first surname not before the key.
+   *
+   * @param key the key
+   * @return the index
+   */
+  private int lowerBound(final String key) {
+    int low = 0;
+    int high = this.surnames.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.surnames[mid].compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * The number of surnames in the snapshot.
+   *
+   * @return the int
+   */
+  @Override
+  public int size() {
+    return this.surnames.length;
+  }
+}
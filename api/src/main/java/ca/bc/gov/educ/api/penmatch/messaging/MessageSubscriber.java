@@ -5,6 +5,7 @@ import ca.bc.gov.educ.api.penmatch.service.v1.events.EventHandlerDelegatorServic
 import ca.bc.gov.educ.api.penmatch.struct.Event;
 import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
 import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
 import io.nats.client.Message;
 import io.nats.client.MessageHandler;
 import jakarta.annotation.PostConstruct;
@@ -13,6 +14,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 import static ca.bc.gov.educ.api.penmatch.constants.Topics.PEN_MATCH_API_TOPIC;
 import static lombok.AccessLevel.PRIVATE;
 
@@ -23,6 +26,10 @@ import static lombok.AccessLevel.PRIVATE;
 @Component
 @Slf4j
 public class MessageSubscriber {
+  /**
+   * The constant DRAIN_TIMEOUT, the time a paused subscription has to hand over the events already delivered to it.
+   */
+  private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(5);
   /**
    * The Connection.
    */
@@ -32,27 +39,65 @@ public class MessageSubscriber {
    */
   @Getter(PRIVATE)
   private final EventHandlerDelegatorService eventHandlerDelegatorService;
+  /**
+   * The Admission control.
+   */
+  private final SubscriberAdmissionControl admissionControl;
+  /**
+   * The Dispatcher of the current subscription.
+   */
+  private volatile Dispatcher dispatcher;
 
   /**
    * Instantiates a new Message subscriber.
    *
    * @param natsConnection               the nats connection
    * @param eventHandlerDelegatorService the event handler delegator service
+   * @param admissionControl             the admission control
    */
   @Autowired
-  public MessageSubscriber(final NatsConnection natsConnection, final EventHandlerDelegatorService eventHandlerDelegatorService) {
+  public MessageSubscriber(final NatsConnection natsConnection, final EventHandlerDelegatorService eventHandlerDelegatorService, final SubscriberAdmissionControl admissionControl) {
     this.eventHandlerDelegatorService = eventHandlerDelegatorService;
+    this.admissionControl = admissionControl;
     this.connection = natsConnection.getNatsCon();
   }
 
   /**
-   * Subscribe.
+   * Subscribe. The admission control pauses the subscription by draining its dispatcher, which leaves the queue group,
+   * so the other members take the traffic, and still hands the events already delivered to it to the handler, where
+   * the admission control sheds them like any other event over the maximum depth. It resumes the subscription by
+   * joining the queue group again with a new dispatcher.
    */
   @PostConstruct
   public void subscribe() {
-    final String queue = PEN_MATCH_API_TOPIC.toString().replace("_", "-");
-    final var dispatcher = this.connection.createDispatcher(this.onMessage());
-    dispatcher.subscribe(PEN_MATCH_API_TOPIC.toString(), queue);
+    final String subject = PEN_MATCH_API_TOPIC.toString();
+    final String queue = subject.replace("_", "-");
+    this.admissionControl.setSubscription(this::pause, () -> this.join(subject, queue));
+    this.join(subject, queue);
+  }
+
+  /**
+   * Join the queue group with a new dispatcher.
+   *
+   * @param subject the subject
+   * @param queue   the queue
+   */
+  private void join(final String subject, final String queue) {
+    final Dispatcher joined = this.connection.createDispatcher(this.onMessage());
+    joined.subscribe(subject, queue);
+    this.dispatcher = joined;
+  }
+
+  /**
+   * Pause the subscription, draining its dispatcher.
+   */
+  private void pause() {
+    try {
+      this.dispatcher.drain(DRAIN_TIMEOUT);
+    } catch (final InterruptedException e) {
+      log.error("Interrupted while pausing the subscription", e);
+      Thread.currentThread().interrupt();
+    }
   }
 
   /**
@@ -68,7 +113,9 @@ public class MessageSubscriber {
           final var eventString = new String(message.getData());
           LogHelper.logMessagingEventDetails(eventString);
           final var event = JsonUtil.getJsonObjectFromString(Event.class, eventString);
-          this.eventHandlerDelegatorService.handleEvent(event, message);
+          if (this.admissionControl.tryAdmit()) {
+            this.handleAdmittedEvent(event, message);
+          }
         } catch (final Exception e) {
           log.error("Exception ", e);
         }
@@ -76,5 +123,20 @@ public class MessageSubscriber {
     };
   }
 
+  /**
+   * Hand an admitted event to its handler, releasing it if the handler cannot take it.
+   *
+   * @param event   the event
+   * @param message the message
+   */
+  private void handleAdmittedEvent(final Event event, final Message message) {
+    try {
+      this.eventHandlerDelegatorService.handleAdmittedEvent(event, message, System.nanoTime());
+    } catch (final RuntimeException e) {
+      this.admissionControl.release();
+      throw e;
+    }
+  }
+
 
 }
@@ -0,0 +1,174 @@
+package ca.bc.gov.educ.api.penmatch.messaging;
+
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The type Subscriber admission control.
+ * <p>
+ * Bounds the events taken off {@code PEN_MATCH_API_TOPIC} and not yet handled. Once the depth reaches its maximum
+ * further events are shed and the subscription is paused, so the other members of the queue group take the traffic,
+ * until the depth drains to half of the maximum. An event that waited longer than the maximum age before its handling
+ * started is shed too, as its caller has timed out. The depth, the pause and the shed events are exported as metrics.
+ */
+@Component
+@Slf4j
+public class SubscriberAdmissionControl {
+  /**
+   * The Depth, the events admitted and not yet handled.
+   */
+  private final AtomicInteger depth = new AtomicInteger();
+  /**
+   * The Max depth.
+   */
+  private final int maxDepth;
+  /**
+   * The Resume depth.
+   */
+  private final int resumeDepth;
+  /**
+   * The Max age nanos.
+   */
+  private final long maxAgeNanos;
+  /**
+   * The Events shed for depth.
+   */
+  private final Counter shedForDepth;
+  /**
+   * The Events shed for age.
+   */
+  private final Counter shedForAge;
+  /**
+   * The Paused flag.
+   */
+  private volatile boolean paused;
+  /**
+   * Pauses the subscription.
+   */
+  private Runnable onPause = () -> {
+  };
+  /**
+   * Resumes the subscription.
+   */
+  private Runnable onResume = () -> {
+  };
+
+  /**
+   * Instantiates a new Subscriber admission control.
+   *
+   * @param applicationProperties the application properties
+   * @param meterRegistry         the meter registry
+   */
+  @Autowired
+  public SubscriberAdmissionControl(final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+    this.maxDepth = Math.max(1, applicationProperties.getSubscriberMaxQueueDepth());
+    this.resumeDepth = this.maxDepth / 2;
+    this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(applicationProperties.getSubscriberMaxQueueAgeMs());
+    this.shedForDepth = meterRegistry.counter("pen.match.subscriber.shed", "reason", "depth");
+    this.shedForAge = meterRegistry.counter("pen.match.subscriber.shed", "reason", "age");
+    Gauge.builder("pen.match.subscriber.depth", this.depth, AtomicInteger::get).description("The events admitted and not yet handled").register(meterRegistry);
+    Gauge.builder("pen.match.subscriber.paused", this, control -> control.isPaused() ? 1 : 0).description("Whether the subscription is paused").register(meterRegistry);
+  }
+
+  /**
+   * Sets what pauses and resumes the subscription.
+   *
+   * @param onPause  pauses the subscription
+   * @param onResume resumes the subscription
+   */
+  public synchronized void setSubscription(final Runnable onPause, final Runnable onResume) {
+    this.onPause = onPause;
+    this.onResume = onResume;
+  }
+
+  /**
+   * Admits an event, unless the depth is at its maximum, pausing the subscription when it reaches it.
+   *
+   * @return whether the event is admitted, false when it is shed
+   */
+  public boolean tryAdmit() {
+    final int admitted = this.depth.incrementAndGet();
+    if (admitted > this.maxDepth) {
+      this.depth.decrementAndGet();
+      this.shedForDepth.increment();
+      log.warn("Shed event, {} events are already waiting", this.maxDepth);
+      return false;
+    }
+    if (admitted == this.maxDepth) {
+      this.pause();
+    }
+    return true;
+  }
+
+  /**
+   * Whether an admitted event waited too long to be handled, shedding it if so.
+   *
+   * @param admittedAt the nanos the event was admitted at
+   * @return the boolean
+   */
+  public boolean isExpired(final long admittedAt) {
+    if (this.maxAgeNanos > 0 && System.nanoTime() - admittedAt > this.maxAgeNanos) {
+      this.shedForAge.increment();
+      log.warn("Shed event, it waited more than {} ms", TimeUnit.NANOSECONDS.toMillis(this.maxAgeNanos));
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Releases an admitted event once handled or shed, resuming the subscription when the depth has drained.
+   */
+  public void release() {
+    if (this.depth.decrementAndGet() <= this.resumeDepth && this.paused) {
+      this.resume();
+    }
+  }
+
+  /**
+   * Gets the depth.
+   *
+   * @return the depth
+   */
+  public int getDepth() {
+    return this.depth.get();
+  }
+
+  /**
+   * Whether the subscription is paused.
+   *
+   * @return the boolean
+   */
+  public boolean isPaused() {
+    return this.paused;
+  }
+
+  /**
+   * Pause the subscription.
+   */
+  private synchronized void pause() {
+    if (!this.paused) {
+      this.paused = true;
+      log.info("Pausing the subscription at {} waiting events", this.maxDepth);
+      this.onPause.run();
+    }
+  }
+
+  /**
+   * Resume the subscription.
+   */
+  private synchronized void resume() {
+    if (this.paused) {
+      this.paused = false;
+      log.info("Resuming the subscription at {} waiting events", this.depth.get());
+      this.onResume.run();
+    }
+  }
+}
@@ -1,14 +1,18 @@
 package ca.bc.gov.educ.api.penmatch.messaging.jetstream;
 
 import ca.bc.gov.educ.api.penmatch.helpers.LogHelper;
+import ca.bc.gov.educ.api.penmatch.lookup.StudentDemographicsReplica;
 import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
 import ca.bc.gov.educ.api.penmatch.service.v1.events.JetStreamEventHandlerService;
 import ca.bc.gov.educ.api.penmatch.struct.ChoreographedEvent;
 import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import io.nats.client.Connection;
 import io.nats.client.JetStreamApiException;
+import io.nats.client.JetStreamSubscription;
 import io.nats.client.Message;
 import io.nats.client.PushSubscribeOptions;
+import io.nats.client.api.AckPolicy;
 import io.nats.client.api.ConsumerConfiguration;
 import io.nats.client.api.DeliverPolicy;
 import jakarta.annotation.PostConstruct;
@@ -16,11 +20,13 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 
 import static ca.bc.gov.educ.api.penmatch.constants.Topics.PEN_MATCH_EVENTS_TOPIC;
+import static ca.bc.gov.educ.api.penmatch.constants.Topics.STUDENT_EVENTS_TOPIC;
 
 /**
  * The type Subscriber.
@@ -34,17 +40,27 @@ public class Subscriber {
    */
   private final JetStreamEventHandlerService jetStreamEventHandlerService;
   private final Connection natsConnection;
+  /**
+   * The Student demographics replica.
+   */
+  private final StudentDemographicsReplica studentDemographicsReplica;
+  /**
+   * The Student events subscription.
+   */
+  private JetStreamSubscription studentEventsSubscription;
 
   /**
    * Instantiates a new Subscriber.
    *
    * @param natsConnection               the nats connection
    * @param jetStreamEventHandlerService the stan event handler service
+   * @param studentDemographicsReplica   the student demographics replica
    */
   @Autowired
-  public Subscriber(final Connection natsConnection, final JetStreamEventHandlerService jetStreamEventHandlerService) {
+  public Subscriber(final Connection natsConnection, final JetStreamEventHandlerService jetStreamEventHandlerService, final StudentDemographicsReplica studentDemographicsReplica) {
     this.jetStreamEventHandlerService = jetStreamEventHandlerService;
     this.natsConnection = natsConnection;
+    this.studentDemographicsReplica = studentDemographicsReplica;
   }
 
 
@@ -64,6 +80,41 @@ public class Subscriber {
         .configuration(ConsumerConfiguration.builder().deliverPolicy(DeliverPolicy.New).build()).build();
     this.natsConnection.jetStream().subscribe(PEN_MATCH_EVENTS_TOPIC.toString(), qName, this.natsConnection.createDispatcher(), this::onPenMatchEventsTopicMessage,
         autoAck, options);
+    this.subscribeToStudentEvents();
+  }
+
+  /**
+   * Every pod keeps its own candidate lookup cache and replica, so student change events are consumed through an ephemeral
+   * consumer per pod rather than a shared durable queue. Nothing is acknowledged, a missed event only means a cache entry
+   * lives until it expires; the replica stops serving when the event lag grows beyond its limit, or when it has heard
+   * neither an event nor a heartbeat for as long, see {@link #checkStudentEvents()}.
+   *
+   * @throws IOException           the io exception
+   * @throws JetStreamApiException the jet stream api exception
+   */
+  private void subscribeToStudentEvents() throws IOException, JetStreamApiException {
+    final PushSubscribeOptions options = PushSubscribeOptions.builder().stream(ApplicationProperties.STUDENT_EVENTS_STREAM_NAME)
+        .configuration(ConsumerConfiguration.builder().deliverPolicy(DeliverPolicy.New).ackPolicy(AckPolicy.None).build()).build();
+    this.studentEventsSubscription = this.natsConnection.jetStream().subscribe(STUDENT_EVENTS_TOPIC.toString(), this.natsConnection.createDispatcher(), this::onStudentEventsTopicMessage,
+        false, options);
+  }
+
+  /**
+   * Sends the student demographics replica a heartbeat while the student events consumer is live and has delivered
+   * every event, so a quiet stream keeps the replica serving and a dead or stuck one does not.
+   */
+  @Scheduled(fixedDelayString = "${student.replica.heartbeat.interval.ms}")
+  public void checkStudentEvents() {
+    if (!this.studentDemographicsReplica.isEnabled() || this.studentEventsSubscription == null) {
+      return;
+    }
+    try {
+      if (this.studentEventsSubscription.getConsumerInfo().getNumPending() == 0) {
+        this.studentDemographicsReplica.heartbeat();
+      }
+    } catch (final Exception ex) {
+      log.warn("Checking the student events consumer failed, no heartbeat sent to the student demographics replica :: {}", ex.getMessage());
+    }
   }
 
   /**
@@ -86,4 +137,21 @@ public class Subscriber {
       log.error("Exception ", ex);
     }
   }
+
+  /**
+   * This method will process the student change events pushed into the STUDENT_EVENTS_TOPIC by the student api.
+   * Event types this api does not know about are ignored.
+   *
+   * @param message the string representation of {@link ChoreographedEvent}
+   */
+  public void onStudentEventsTopicMessage(final Message message) {
+    try {
+      final ChoreographedEvent event = JsonUtil.getJsonObjectFromString(ChoreographedEvent.class, new String(message.getData()));
+      this.jetStreamEventHandlerService.handleStudentEvent(event, message.isJetStream() ? message.metaData().timestamp() : null);
+    } catch (final InvalidFormatException ex) {
+      log.debug("Ignoring student event :: {}", ex.getMessage());
+    } catch (final Exception ex) {
+      log.error("Exception ", ex);
+    }
+  }
 }
@@ -0,0 +1,108 @@
+package ca.bc.gov.educ.api.penmatch.model.v1;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.util.UUID;
+
+/**
+ * The type Student candidate entity.
+ * <p>
+ * The projection of a student which the candidate searches decode into. Only the fields read by the candidate lookups
+ * and the match algorithms are kept, along with the update date the student demographics replica orders changes by;
+ * every other field of the student api response is skipped while parsing. The full student is {@link StudentEntity}.
+ */
+@Data
+@SuperBuilder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StudentCandidateEntity {
+  /**
+   * The Student id.
+   */
+  UUID studentID;
+
+  /**
+   * The Pen.
+   */
+  String pen;
+
+  /**
+   * The Legal first name.
+   */
+  String legalFirstName;
+
+  /**
+   * The Legal middle names.
+   */
+  String legalMiddleNames;
+
+  /**
+   * The Legal last name.
+   */
+  String legalLastName;
+
+  /**
+   * The Dob.
+   */
+  String dob;
+
+  /**
+   * The Sex code.
+   */
+  String sexCode;
+
+  /**
+   * The Usual first name.
+   */
+  String usualFirstName;
+
+  /**
+   * The Usual middle names.
+   */
+  String usualMiddleNames;
+
+  /**
+   * The Usual last name.
+   */
+  String usualLastName;
+
+  /**
+   * The Postal code.
+   */
+  String postalCode;
+
+  /**
+   * The Mincode.
+   */
+  String mincode;
+
+  /**
+   * The Local id.
+   */
+  String localID;
+
+  /**
+   * The Grade code.
+   */
+  String gradeCode;
+
+  /**
+   * The Status code.
+   */
+  String statusCode;
+
+  /**
+   * The True student id.
+   */
+  String trueStudentID;
+
+  /**
+   * The Update date.
+   */
+  String updateDate;
+}
@@ -19,6 +19,7 @@ public class ApplicationProperties {
    */
   public static final String API_NAME = "PEN_MATCH_API";
   public static final String STREAM_NAME = "PEN_MATCH_EVENTS";
+  public static final String STUDENT_EVENTS_STREAM_NAME = "STUDENT_EVENTS";
   public static final String CORRELATION_ID = "correlationID";
   /**
    * The Client id.
@@ -63,4 +64,158 @@ public class ApplicationProperties {
   @Value("${nats.maxReconnect}")
   Integer natsMaxReconnect;
 
+  /**
+   * The Candidate lookup cache enabled flag.
+   */
+  @Value("${candidate.lookup.cache.enabled}")
+  boolean candidateLookupCacheEnabled;
+
+  /**
+   * The Candidate lookup cache max size.
+   */
+  @Value("${candidate.lookup.cache.max.size}")
+  long candidateLookupCacheMaxSize;
+
+  /**
+   * The Candidate lookup cache ttl in seconds.
+   */
+  @Value("${candidate.lookup.cache.ttl.seconds}")
+  long candidateLookupCacheTtlSeconds;
+
+  /**
+   * The Student replica enabled flag.
+   */
+  @Value("${student.replica.enabled}")
+  boolean studentReplicaEnabled;
+
+  /**
+   * The Student replica bootstrap page size.
+   */
+  @Value("${student.replica.bootstrap.page.size}")
+  int studentReplicaBootstrapPageSize;
+
+  /**
+   * The Student replica max event lag in seconds, beyond which lookups go to the student api.
+   */
+  @Value("${student.replica.max.lag.seconds}")
+  long studentReplicaMaxLagSeconds;
+
+  /**
+   * The Pen match batch threads, shared by all running batches.
+   */
+  @Value("${pen.match.batch.threads}")
+  int penMatchBatchThreads;
+
+  /**
+   * The Pen match batch max records in flight per batch.
+   */
+  @Value("${pen.match.batch.max.in.flight}")
+  int penMatchBatchMaxInFlight;
+
+  /**
+   * Whether the demographic search runs while a supplied PEN is being confirmed. Off by default: the search is wasted
+   * whenever the PEN is confirmed, so turn it on only for traffic where supplied PENs are often wrong.
+   */
+  @Value("${pen.match.parallel.confirmation.enabled}")
+  boolean penMatchParallelConfirmationEnabled;
+
+  /**
+   * The Merged student cache enabled flag.
+   */
+  @Value("${merged.student.cache.enabled}")
+  boolean mergedStudentCacheEnabled;
+
+  /**
+   * The Merged student cache max size.
+   */
+  @Value("${merged.student.cache.max.size}")
+  long mergedStudentCacheMaxSize;
+
+  /**
+   * The Merged student cache ttl in seconds.
+   */
+  @Value("${merged.student.cache.ttl.seconds}")
+  long mergedStudentCacheTtlSeconds;
+
+  /**
+   * Whether the new algorithm reads its candidate search page by page, stopping once it has enough matches.
+   */
+  @Value("${candidate.search.paged.enabled}")
+  boolean candidateSearchPagedEnabled;
+
+  /**
+   * The Candidate search page size, the most candidates held at once by a paged search.
+   */
+  @Value("${candidate.search.page.size}")
+  int candidateSearchPageSize;
+
+  /**
+   * Whether student api replies are requested in the binary smile format, off by default. Turn on only once the
+   * student api honours the accept header and the nats server supports headers; otherwise replies stay json.
+   */
+  @Value("${student.api.smile.enabled}")
+  boolean studentApiSmileEnabled;
+
+  /**
+   * Whether the phases of each match are timed and exported as metrics.
+   */
+  @Value("${pen.match.metrics.enabled}")
+  boolean penMatchMetricsEnabled;
+
+  /**
+   * Whether the subscribed events are handled on virtual threads, when the runtime has them.
+   */
+  @Value("${subscriber.virtual.threads.enabled}")
+  boolean subscriberVirtualThreadsEnabled;
+
+  /**
+   * The maximum number of subscribed events handled at a time, sized to the capacity of the student api.
+   */
+  @Value("${subscriber.max.concurrency}")
+  int subscriberMaxConcurrency;
+
+  /**
+   * The maximum number of subscribed events waiting or being handled, beyond which events are shed and the
+   * subscription is paused.
+   */
+  @Value("${subscriber.max.queue.depth}")
+  int subscriberMaxQueueDepth;
+
+  /**
+   * The maximum time in milliseconds a subscribed event waits to be handled before it is shed, 0 for no limit.
+   */
+  @Value("${subscriber.max.queue.age.ms}")
+  long subscriberMaxQueueAgeMs;
+
+  /**
+   * Whether the student api capacity is shared between the interactive and bulk workload lanes.
+   */
+  @Value("${workload.lanes.enabled}")
+  boolean workloadLanesEnabled;
+
+  /**
+   * The comma separated names, sent in the X-Client-Name header, of the clients whose requests are bulk.
+   */
+  @Value("${workload.lanes.bulk.clients}")
+  String workloadLanesBulkClients;
+
+  /**
+   * The maximum number of student api requests in flight.
+   */
+  @Value("${student.api.max.concurrency}")
+  int studentApiMaxConcurrency;
+
+  /**
+   * The number of the student api requests in flight reserved to interactive matches.
+   */
+  @Value("${student.api.interactive.reserved}")
+  int studentApiInteractiveReserved;
+
+  /**
+   * The Pen match batch plan window, the records read ahead and planned together so more records share a dob bucket;
+   * never less than the max records in flight.
+   */
+  @Value("${pen.match.batch.plan.window}")
+  int penMatchBatchPlanWindow;
+
 }
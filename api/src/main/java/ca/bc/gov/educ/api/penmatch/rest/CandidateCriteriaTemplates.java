@@ -0,0 +1,500 @@
+package ca.bc.gov.educ.api.penmatch.rest;
+
+import ca.bc.gov.educ.api.penmatch.exception.PENMatchRuntimeException;
+import ca.bc.gov.educ.api.penmatch.filter.FilterOperation;
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
+import ca.bc.gov.educ.api.penmatch.struct.Search;
+import ca.bc.gov.educ.api.penmatch.struct.SearchCriteria;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static ca.bc.gov.educ.api.penmatch.filter.FilterOperation.EQUAL;
+import static ca.bc.gov.educ.api.penmatch.filter.FilterOperation.STARTS_WITH;
+import static ca.bc.gov.educ.api.penmatch.rest.RestUtils.*;
+import static ca.bc.gov.educ.api.penmatch.struct.Condition.AND;
+import static ca.bc.gov.educ.api.penmatch.struct.Condition.OR;
+import static ca.bc.gov.educ.api.penmatch.struct.ValueType.DATE;
+import static ca.bc.gov.educ.api.penmatch.struct.ValueType.STRING;
+
+/**
+ * The type Candidate criteria templates.
+ * <p>
+ * The four candidate searches only differ by the dob, surname, given name, mincode and local id they carry, so each
+ * query shape is serialized once at class load with placeholders for those values and kept as URL encoded byte
+ * segments. A search copies the segments and splices in its own values, JSON escaped and URL encoded, instead of
+ * building the criteria graph, serializing it and URL encoding the whole document on every lookup. The result is byte
+ * for byte the URL encoded serialization of the graph.
+ */
+final class CandidateCriteriaTemplates {
+  /**
+   * The constant DOB_FORMATTER_SHORT.
+   */
+  private static final DateTimeFormatter DOB_FORMATTER_SHORT = DateTimeFormatter.ofPattern("yyyyMMdd");
+  /**
+   * The constant DOB_FORMATTER_LONG.
+   */
+  private static final DateTimeFormatter DOB_FORMATTER_LONG = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+  /**
+   * The constant NULL_VALUE.
+   */
+  private static final byte[] NULL_VALUE = "null".getBytes(StandardCharsets.US_ASCII);
+  /**
+   * The constant QUOTE, URL encoded.
+   */
+  private static final byte[] QUOTE = "%22".getBytes(StandardCharsets.US_ASCII);
+  /**
+   * The constant HEX_DIGITS.
+   */
+  private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+  /**
+   * The Object mapper, only used to compile the templates.
+   */
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  /**
+   * The All parts template.
+   */
+  private static final Template ALL_PARTS = Template.compile(withAllPartsSearches(Slot.DOB.placeholder, Slot.SURNAME.placeholder, Slot.GIVEN_NAME.placeholder, Slot.MINCODE.placeholder, Slot.LOCAL_ID.placeholder));
+  /**
+   * The All parts template for a student without a given name.
+   */
+  private static final Template ALL_PARTS_NO_GIVEN_NAME = Template.compile(withAllPartsSearches(Slot.DOB.placeholder, Slot.SURNAME.placeholder, null, Slot.MINCODE.placeholder, Slot.LOCAL_ID.placeholder));
+  /**
+   * The No init template.
+   */
+  private static final Template NO_INIT = Template.compile(noInitSearches(Slot.DOB.placeholder, Slot.SURNAME.placeholder, Slot.MINCODE.placeholder, Slot.LOCAL_ID.placeholder));
+  /**
+   * The No local id template.
+   */
+  private static final Template NO_LOCAL_ID = Template.compile(noLocalIDSearches(Slot.DOB.placeholder, Slot.SURNAME.placeholder, Slot.GIVEN_NAME.placeholder));
+  /**
+   * The No local id template for a student without a given name.
+   */
+  private static final Template NO_LOCAL_ID_NO_GIVEN_NAME = Template.compile(noLocalIDSearches(Slot.DOB.placeholder, Slot.SURNAME.placeholder, null));
+  /**
+   * The No init no local id template.
+   */
+  private static final Template NO_INIT_NO_LOCAL_ID = Template.compile(noInitNoLocalIDSearches(Slot.DOB.placeholder, Slot.SURNAME.placeholder));
+
+  /**
+   * Instantiates a new Candidate criteria templates.
+   */
+  private CandidateCriteriaTemplates() {
+  }
+
+  /**
+   * URL encoded criteria of the search for the key.
+   *
+   * @param key the key
+   * @return the URL encoded criteria
+   */
+  static String encodedCriteria(final CandidateLookupKey key) {
+    switch (key.getLookupType()) {
+      case ALL_PARTS:
+        return withAllParts(key.getDob(), key.getSurname(), key.getGivenName(), key.getMincode(), key.getLocalID());
+      case NO_INIT:
+        return noInit(key.getDob(), key.getSurname(), key.getMincode(), key.getLocalID());
+      case NO_LOCAL_ID:
+        return noLocalID(key.getDob(), key.getSurname(), key.getGivenName());
+      default:
+        return noInitNoLocalID(key.getDob(), key.getSurname());
+    }
+  }
+
+  /**
+   * URL encoded criteria of the lookup with all parts.
+   *
+   * @param dob       the dob
+   * @param surname   the surname
+   * @param givenName the given name
+   * @param mincode   the mincode
+   * @param localID   the local id
+   * @return the URL encoded criteria
+   */
+  static String withAllParts(final String dob, final String surname, final String givenName, final String mincode, final String localID) {
+    if (StringUtils.isNotBlank(givenName)) {
+      return ALL_PARTS.render(toLongDob(dob), surname, givenName, mincode, localID);
+    }
+    return ALL_PARTS_NO_GIVEN_NAME.render(toLongDob(dob), surname, null, mincode, localID);
+  }
+
+  /**
+   * URL encoded criteria of the lookup with no initial.
+   *
+   * @param dob     the dob
+   * @param surname the surname
+   * @param mincode the mincode
+   * @param localID the local id
+   * @return the URL encoded criteria
+   */
+  static String noInit(final String dob, final String surname, final String mincode, final String localID) {
+    return NO_INIT.render(toLongDob(dob), surname, null, mincode, localID);
+  }
+
+  /**
+   * URL encoded criteria of the lookup with no local id.
+   *
+   * @param dob       the dob
+   * @param surname   the surname
+   * @param givenName the given name
+   * @return the URL encoded criteria
+   */
+  static String noLocalID(final String dob, final String surname, final String givenName) {
+    if (StringUtils.isNotBlank(givenName)) {
+      return NO_LOCAL_ID.render(toLongDob(dob), surname, givenName, null, null);
+    }
+    return NO_LOCAL_ID_NO_GIVEN_NAME.render(toLongDob(dob), surname, null, null, null);
+  }
+
+  /**
+   * URL encoded criteria of the lookup with no initial or local id.
+   *
+   * @param dob     the dob
+   * @param surname the surname
+   * @return the URL encoded criteria
+   */
+  static String noInitNoLocalID(final String dob, final String surname) {
+    return NO_INIT_NO_LOCAL_ID.render(toLongDob(dob), surname, null, null, null);
+  }
+
+  /**
+   * Criteria json of the search for the key, serialized from the criteria graph the templates are compiled from.
+   *
+   * @param key the key
+   * @return the criteria json
+   * @throws JsonProcessingException the json processing exception
+   */
+  static String serializedCriteria(final CandidateLookupKey key) throws JsonProcessingException {
+    final String dob = DOB_FORMATTER_LONG.format(LocalDate.parse(key.getDob(), DOB_FORMATTER_SHORT));
+    final String givenName = StringUtils.isNotBlank(key.getGivenName()) ? key.getGivenName() : null;
+    switch (key.getLookupType()) {
+      case ALL_PARTS:
+        return OBJECT_MAPPER.writeValueAsString(withAllPartsSearches(dob, key.getSurname(), givenName, key.getMincode(), key.getLocalID()));
+      case NO_INIT:
+        return OBJECT_MAPPER.writeValueAsString(noInitSearches(dob, key.getSurname(), key.getMincode(), key.getLocalID()));
+      case NO_LOCAL_ID:
+        return OBJECT_MAPPER.writeValueAsString(noLocalIDSearches(dob, key.getSurname(), givenName));
+      default:
+        return OBJECT_MAPPER.writeValueAsString(noInitNoLocalIDSearches(dob, key.getSurname()));
+    }
+  }
+
+  /**
+   * Converts a yyyyMMdd dob to yyyy-MM-dd. Dates that are valid in every month are sliced directly, anything else goes
+   * through the date formatters so lenient days and invalid dates resolve exactly as they always did.
+   *
+   * @param dob the dob
+   * @return the long dob
+   */
+  static String toLongDob(final String dob) {
+    if (dob != null && dob.length() == 8 && StringUtils.isNumeric(dob)) {
+      final int month = (dob.charAt(4) - '0') * 10 + (dob.charAt(5) - '0');
+      final int day = (dob.charAt(6) - '0') * 10 + (dob.charAt(7) - '0');
+      if (month >= 1 && month <= 12 && day >= 1 && day <= 28) {
+        return dob.substring(0, 4) + '-' + dob.substring(4, 6) + '-' + dob.substring(6, 8);
+      }
+    }
+    return DOB_FORMATTER_LONG.format(LocalDate.parse(dob, DOB_FORMATTER_SHORT));
+  }
+
+  /**
+   * Searches of the lookup with all parts, a null given name searches for students without one.
+   *
+   * @param dob       the long dob
+   * @param surname   the surname
+   * @param givenName the given name
+   * @param mincode   the mincode
+   * @param localID   the local id
+   * @return the searches
+   */
+  private static List<Search> withAllPartsSearches(final String dob, final String surname, final String givenName, final String mincode, final String localID) {
+    final List<Search> searches = new LinkedList<>();
+    searches.add(dobSearch(dob));
+    searches.add(surnameGivenNameSearch(surname, givenName));
+    searches.add(mincodeLocalIDSearch(mincode, localID));
+    searches.add(mergedDeceasedSearch());
+    return searches;
+  }
+
+  /**
+   * Searches of the lookup with no initial.
+   *
+   * @param dob     the long dob
+   * @param surname the surname
+   * @param mincode the mincode
+   * @param localID the local id
+   * @return the searches
+   */
+  private static List<Search> noInitSearches(final String dob, final String surname, final String mincode, final String localID) {
+    final List<Search> searches = new LinkedList<>();
+    searches.add(dobSearch(dob));
+    searches.add(surnameSearch(surname));
+    searches.add(mincodeLocalIDSearch(mincode, localID));
+    searches.add(mergedDeceasedSearch());
+    return searches;
+  }
+
+  /**
+   * Searches of the lookup with no local id, a null given name searches for students without one.
+   *
+   * @param dob       the long dob
+   * @param surname   the surname
+   * @param givenName the given name
+   * @return the searches
+   */
+  private static List<Search> noLocalIDSearches(final String dob, final String surname, final String givenName) {
+    final List<Search> searches = new LinkedList<>();
+    searches.add(dobSearch(dob));
+    searches.add(surnameGivenNameSearch(surname, givenName));
+    searches.add(mergedDeceasedSearch());
+    return searches;
+  }
+
+  /**
+   * Searches of the lookup with no initial or local id.
+   *
+   * @param dob     the long dob
+   * @param surname the surname
+   * @return the searches
+   */
+  private static List<Search> noInitNoLocalIDSearches(final String dob, final String surname) {
+    final List<Search> searches = new LinkedList<>();
+    searches.add(dobSearch(dob));
+    searches.add(surnameSearch(surname));
+    searches.add(mergedDeceasedSearch());
+    return searches;
+  }
+
+  private static Search dobSearch(final String dob) {
+    final List<SearchCriteria> criteriaListDob = new LinkedList<>();
+    criteriaListDob.add(SearchCriteria.builder().key(DOB).operation(EQUAL).value(dob).valueType(DATE).build());
+    return Search.builder().searchCriteriaList(criteriaListDob).build();
+  }
+
+  private static Search surnameSearch(final String surname) {
+    final List<SearchCriteria> criteriaListSurname = new LinkedList<>();
+    criteriaListSurname.add(SearchCriteria.builder().key(LEGAL_LAST_NAME).operation(STARTS_WITH).value(surname).valueType(STRING).build());
+    return Search.builder().condition(OR).searchCriteriaList(criteriaListSurname).build();
+  }
+
+  private static Search surnameGivenNameSearch(final String surname, final String givenName) {
+    final List<SearchCriteria> criteriaListSurnameGiven = new LinkedList<>();
+    criteriaListSurnameGiven.add(SearchCriteria.builder().key(LEGAL_LAST_NAME).operation(STARTS_WITH).value(surname).valueType(STRING).build());
+    if (givenName != null) {
+      criteriaListSurnameGiven.add(SearchCriteria.builder().key(LEGAL_FIRST_NAME).operation(STARTS_WITH).value(givenName).valueType(STRING).condition(AND).build());
+    } else {
+      criteriaListSurnameGiven.add(SearchCriteria.builder().key(LEGAL_FIRST_NAME).operation(EQUAL).value(null).valueType(STRING).condition(AND).build());
+    }
+    return Search.builder().condition(OR).searchCriteriaList(criteriaListSurnameGiven).build();
+  }
+
+  private static Search mincodeLocalIDSearch(final String mincode, final String localID) {
+    final List<SearchCriteria> criteriaListMincodeLocalID = new LinkedList<>();
+    criteriaListMincodeLocalID.add(SearchCriteria.builder().key(MINCODE).operation(EQUAL).value(mincode).valueType(STRING).build());
+    criteriaListMincodeLocalID.add(SearchCriteria.builder().key(LOCAL_ID).operation(EQUAL).value(localID).valueType(STRING).condition(AND).build());
+    return Search.builder().condition(OR).searchCriteriaList(criteriaListMincodeLocalID).build();
+  }
+
+  private static Search mergedDeceasedSearch() {
+    final List<SearchCriteria> criteriaMergedDeceased = new LinkedList<>();
+    criteriaMergedDeceased.add(SearchCriteria.builder().key(STATUS_CODE).operation(FilterOperation.NOT_IN).value("M,D").valueType(STRING).build());
+    return Search.builder().condition(AND).searchCriteriaList(criteriaMergedDeceased).build();
+  }
+
+  /**
+   * Writes a string value the way it appears in the URL encoded criteria: null, or quoted and JSON escaped, then URL
+   * encoded as {@link URLEncoder} does.
+   *
+   * @param out   the out
+   * @param value the value
+   */
+  private static void writeValue(final ByteArrayOutputStream out, final String value) {
+    if (value == null) {
+      out.writeBytes(NULL_VALUE);
+      return;
+    }
+    out.writeBytes(QUOTE);
+    if (needsJsonEscape(value)) {
+      for (final byte b : new String(JsonStringEncoder.getInstance().quoteAsString(value)).getBytes(StandardCharsets.UTF_8)) {
+        writeEncoded(out, b);
+      }
+    } else {
+      for (int i = 0; i < value.length(); i++) {
+        writeEncoded(out, (byte) value.charAt(i));
+      }
+    }
+    out.writeBytes(QUOTE);
+  }
+
+  /**
+   * Whether the value has anything but printable ascii characters which JSON leaves as is; names, codes and ids
+   * normally do not and are URL encoded char by char.
+   *
+   * @param value the value
+   * @return the boolean
+   */
+  private static boolean needsJsonEscape(final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c < 0x20 || c >= 0x7F || c == '"' || c == '\\') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes one byte URL encoded as {@link URLEncoder} does.
+   *
+   * @param out the out
+   * @param b   the byte
+   */
+  private static void writeEncoded(final ByteArrayOutputStream out, final byte b) {
+    if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '.' || b == '-' || b == '*' || b == '_') {
+      out.write(b);
+    } else if (b == ' ') {
+      out.write('+');
+    } else {
+      out.write('%');
+      out.write(HEX_DIGITS[(b >> 4) & 0x0F]);
+      out.write(HEX_DIGITS[b & 0x0F]);
+    }
+  }
+
+  /**
+   * The value slots of a template.
+   */
+  private enum Slot {
+    /**
+     * Dob slot.
+     */
+    DOB,
+    /**
+     * Surname slot.
+     */
+    SURNAME,
+    /**
+     * Given name slot.
+     */
+    GIVEN_NAME,
+    /**
+     * Mincode slot.
+     */
+    MINCODE,
+    /**
+     * Local id slot.
+     */
+    LOCAL_ID;
+
+    /**
+     * The Placeholder value the template is serialized with.
+     */
+    private final String placeholder = "${" + this.name() + "}";
+  }
+
+  /**
+   * One query shape: the URL encoded text around its value slots.
+   */
+  private static final class Template {
+    /**
+     * The Segments, one more than the slots.
+     */
+    private final byte[][] segments;
+    /**
+     * The Slots, in the order they appear.
+     */
+    private final Slot[] slots;
+    /**
+     * The Length of all segments.
+     */
+    private final int length;
+
+    private Template(final List<byte[]> segments, final List<Slot> slots) {
+      this.segments = segments.toArray(new byte[0][]);
+      this.slots = slots.toArray(new Slot[0]);
+      this.length = segments.stream().mapToInt(segment -> segment.length).sum();
+    }
+
+    /**
+     * Serializes the searches, cuts the json at the quoted placeholders and URL encodes the text around them.
+     *
+     * @param searches the searches, carrying placeholders as values
+     * @return the template
+     */
+    private static Template compile(final List<Search> searches) {
+      final String json;
+      try {
+        json = OBJECT_MAPPER.writeValueAsString(searches);
+      } catch (final JsonProcessingException e) {
+        throw new PENMatchRuntimeException("Unable to compile the candidate criteria template :: " + e.getMessage());
+      }
+      final List<byte[]> segments = new ArrayList<>();
+      final List<Slot> slots = new ArrayList<>();
+      int start = 0;
+      while (true) {
+        Slot next = null;
+        int nextIndex = -1;
+        for (final Slot slot : Slot.values()) {
+          final int index = json.indexOf('"' + slot.placeholder + '"', start);
+          if (index >= 0 && (nextIndex < 0 || index < nextIndex)) {
+            next = slot;
+            nextIndex = index;
+          }
+        }
+        if (next == null) {
+          segments.add(URLEncoder.encode(json.substring(start), StandardCharsets.UTF_8).getBytes(StandardCharsets.US_ASCII));
+          return new Template(segments, slots);
+        }
+        segments.add(URLEncoder.encode(json.substring(start, nextIndex), StandardCharsets.UTF_8).getBytes(StandardCharsets.US_ASCII));
+        slots.add(next);
+        start = nextIndex + next.placeholder.length() + 2;
+      }
+    }
+
+    /**
+     * Splices the values into the template.
+     *
+     * @param dob       the long dob
+     * @param surname   the surname
+     * @param givenName the given name
+     * @param mincode   the mincode
+     * @param localID   the local id
+     * @return the URL encoded criteria
+     */
+    private String render(final String dob, final String surname, final String givenName, final String mincode, final String localID) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(this.length + 32 * this.slots.length);
+      for (int i = 0; i < this.slots.length; i++) {
+        out.writeBytes(this.segments[i]);
+        switch (this.slots[i]) {
+          case DOB:
+            writeValue(out, dob);
+            break;
+          case SURNAME:
+            writeValue(out, surname);
+            break;
+          case GIVEN_NAME:
+            writeValue(out, givenName);
+            break;
+          case MINCODE:
+            writeValue(out, mincode);
+            break;
+          default:
+            writeValue(out, localID);
+            break;
+        }
+      }
+      out.writeBytes(this.segments[this.slots.length]);
+      return out.toString(StandardCharsets.US_ASCII);
+    }
+  }
+}
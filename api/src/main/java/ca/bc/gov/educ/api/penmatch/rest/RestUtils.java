@@ -2,9 +2,13 @@ package ca.bc.gov.educ.api.penmatch.rest;
 
 import ca.bc.gov.educ.api.penmatch.constants.EventOutcome;
 import ca.bc.gov.educ.api.penmatch.constants.EventType;
+import ca.bc.gov.educ.api.penmatch.exception.DeadlineExceededException;
 import ca.bc.gov.educ.api.penmatch.exception.PENMatchRuntimeException;
 import ca.bc.gov.educ.api.penmatch.filter.FilterOperation;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
 import ca.bc.gov.educ.api.penmatch.messaging.NatsConnection;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
 import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
 import ca.bc.gov.educ.api.penmatch.struct.*;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
@@ -14,6 +18,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.nats.client.Connection;
+import io.nats.client.Message;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.commons.lang3.StringUtils;
@@ -25,9 +30,8 @@ import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -65,6 +69,18 @@ public class RestUtils {
    * The constant PAGE_SIZE.
    */
   public static final String PAGE_SIZE = "pageSize";
+  /**
+   * The constant PAGE_NUMBER.
+   */
+  public static final String PAGE_NUMBER = "pageNumber";
+  /**
+   * The constant SORT_CRITERIA_LIST.
+   */
+  public static final String SORT_CRITERIA_LIST = "sort";
+  /**
+   * The constant STUDENT_ID_SORT, a unique and so stable order for reading a search page by page.
+   */
+  public static final String STUDENT_ID_SORT = URLEncoder.encode("{\"studentID\":\"ASC\"}", StandardCharsets.UTF_8);
   /**
    * The constant LEGAL_FIRST_NAME.
    */
@@ -97,15 +113,15 @@ public class RestUtils {
    */
   public static final String MERGED = "M";
 
+  public static final String STUDENT_API_TOPIC = "STUDENT_API_TOPIC";
   /**
-   * The constant DOB_FORMATTER_SHORT.
+   * The constant STUDENT_API_TIMEOUT.
    */
-  private static final DateTimeFormatter DOB_FORMATTER_SHORT = DateTimeFormatter.ofPattern("yyyyMMdd");
+  private static final Duration STUDENT_API_TIMEOUT = Duration.ofSeconds(60);
   /**
-   * The constant DOB_FORMATTER_LONG.
+   * The constant GET_STUDENTS_TIMEOUT.
    */
-  private static final DateTimeFormatter DOB_FORMATTER_LONG = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-  public static final String STUDENT_API_TOPIC = "STUDENT_API_TOPIC";
+  private static final Duration GET_STUDENTS_TIMEOUT = Duration.ofSeconds(2);
   /**
    * The Object mapper.
    */
@@ -115,15 +131,27 @@ public class RestUtils {
    * The Connection.
    */
   private final Connection connection;
+  /**
+   * The Wire format.
+   */
+  private final StudentApiWireFormat wireFormat;
+  /**
+   * The Scheduler.
+   */
+  private final StudentApiScheduler scheduler;
 
 
   /**
    * Instantiates a new Rest utils.
    *
    * @param connection the connection
+   * @param wireFormat the wire format
+   * @param scheduler  the scheduler
    */
-  public RestUtils(final NatsConnection connection) {
+  public RestUtils(final NatsConnection connection, final StudentApiWireFormat wireFormat, final StudentApiScheduler scheduler) {
     this.connection = connection.getNatsCon();
+    this.wireFormat = wireFormat;
+    this.scheduler = scheduler;
   }
 
 
@@ -135,11 +163,57 @@ public class RestUtils {
    * @return the pen master record by pen
    */
   public Optional<PenMasterRecord> getPenMasterRecordByPen(final String pen, final UUID correlationID) {
+    return DeadlineHolder.join(this.getPenMasterRecordByPenAsync(pen, correlationID));
+  }
+
+  /**
+   * Gets pen master record by pen without blocking the caller; the request is in flight when this returns and the
+   * future completes with the record, or empty if the student api times out or fails. When it times out at the deadline
+   * of the request, the future fails with a {@link DeadlineExceededException} instead, so the PEN is not taken as not
+   * on file.
+   *
+   * @param pen           the pen
+   * @param correlationID the correlation id
+   * @return the pen master record by pen
+   */
+  public CompletableFuture<Optional<PenMasterRecord>> getPenMasterRecordByPenAsync(final String pen, final UUID correlationID) {
+    final StudentApiScheduler.Slot slot;
+    try {
+      slot = this.scheduler.acquire();
+    } catch (final DeadlineExceededException ex) {
+      return CompletableFuture.failedFuture(ex);
+    }
+    final Long deadline = DeadlineHolder.getDeadline();
     try {
       final Event event = Event.builder().sagaId(correlationID).eventType(GET_STUDENT).eventPayload(pen).build();
-      final var responseMessage = this.connection.request(STUDENT_API_TOPIC, this.objectMapper.writeValueAsBytes(event), Duration.ofSeconds(60));
+      return this.connection.request(this.wireFormat.request(STUDENT_API_TOPIC, this.objectMapper.writeValueAsBytes(event)))
+          .orTimeout(DeadlineHolder.timeout(STUDENT_API_TIMEOUT).toMillis(), TimeUnit.MILLISECONDS)
+          .whenComplete((reply, ex) -> slot.close())
+          .thenApply(this::toPenMasterRecord)
+          .exceptionally(ex -> {
+            if (DeadlineHolder.isExpired(deadline)) {
+              throw new DeadlineExceededException(DeadlineHolder.LOOKUP_STAGE);
+            }
+            log.error("exception", ex);
+            return Optional.empty();
+          });
+    } catch (final Exception ex) {
+      slot.close();
+      log.error("exception", ex);
+      return CompletableFuture.completedFuture(Optional.empty());
+    }
+  }
+
+  /**
+   * Read the pen master record from a GET_STUDENT response.
+   *
+   * @param responseMessage the response message
+   * @return the pen master record
+   */
+  private Optional<PenMasterRecord> toPenMasterRecord(final Message responseMessage) {
+    try {
       if (responseMessage != null && responseMessage.getData() != null && responseMessage.getData().length > 0) {
-        val student = this.objectMapper.readValue(responseMessage.getData(), StudentEntity.class);
+        val student = this.wireFormat.readValue(responseMessage, StudentEntity.class);
         if (student == null || student.getPen() == null) {
           return Optional.empty();
         }
@@ -163,45 +237,8 @@ public class RestUtils {
    * @return the list
    * @throws JsonProcessingException the json processing exception
    */
-  public List<StudentEntity> lookupWithAllParts(final String dob, final String surname, final String givenName, final String mincode, final String localID, final UUID correlationID) throws JsonProcessingException {
-    final LocalDate dobDate = LocalDate.parse(dob, DOB_FORMATTER_SHORT);
-    final SearchCriteria criteriaDob = this.getCriteria(DOB, EQUAL, DOB_FORMATTER_LONG.format(dobDate), DATE);
-
-    final List<SearchCriteria> criteriaListDob = new LinkedList<>(Collections.singletonList(criteriaDob));
-
-    final List<SearchCriteria> criteriaListSurnameGiven = new LinkedList<>();
-    criteriaListSurnameGiven.add(this.getCriteria(LEGAL_LAST_NAME, STARTS_WITH, surname, STRING));
-
-    if(StringUtils.isNotBlank(givenName)) {
-      criteriaListSurnameGiven.add(this.getCriteriaWithCondition(LEGAL_FIRST_NAME, STARTS_WITH, givenName, STRING, AND));
-    }else{
-      criteriaListSurnameGiven.add(this.getCriteriaWithCondition(LEGAL_FIRST_NAME, EQUAL, null, STRING, AND));
-    }
-
-    final List<SearchCriteria> criteriaListMincodeLocalID = new LinkedList<>();
-    criteriaListMincodeLocalID.add(this.getCriteria(MINCODE, EQUAL, mincode, STRING));
-    criteriaListMincodeLocalID.add(this.getCriteriaWithCondition(LOCAL_ID, EQUAL, localID, STRING, AND));
-
-    final List<Search> searches = new LinkedList<>();
-    searches.add(Search.builder().searchCriteriaList(criteriaListDob).build());
-    if (!criteriaListSurnameGiven.isEmpty()) {
-      searches.add(Search.builder().condition(OR).searchCriteriaList(criteriaListSurnameGiven).build());
-    }
-    if (!criteriaListMincodeLocalID.isEmpty()) {
-      searches.add(Search.builder().condition(OR).searchCriteriaList(criteriaListMincodeLocalID).build());
-    }
-
-    final List<SearchCriteria> criteriaMergedDeceased = new LinkedList<>();
-
-    final SearchCriteria criteriaMandD =
-      SearchCriteria.builder().key(STATUS_CODE).operation(FilterOperation.NOT_IN).value("M,D").valueType(ValueType.STRING).build();
-
-    criteriaMergedDeceased.add(criteriaMandD);
-    searches.add(Search.builder().condition(AND).searchCriteriaList(criteriaMergedDeceased).build());
-
-    final String criteriaJSON = this.objectMapper.writeValueAsString(searches);
-
-    return this.getStudentsByCriteria(criteriaJSON, correlationID);
+  public List<StudentCandidateEntity> lookupWithAllParts(final String dob, final String surname, final String givenName, final String mincode, final String localID, final UUID correlationID) throws JsonProcessingException {
+    return this.getStudentsByEncodedCriteria(CandidateCriteriaTemplates.withAllParts(dob, surname, givenName, mincode, localID), correlationID);
   }
 
   /**
@@ -215,40 +252,8 @@ public class RestUtils {
    * @return the list
    * @throws JsonProcessingException the json processing exception
    */
-  public List<StudentEntity> lookupNoInit(final String dob, final String surname, final String mincode, final String localID, final UUID correlationID) throws JsonProcessingException {
-
-    final LocalDate dobDate = LocalDate.parse(dob, DOB_FORMATTER_SHORT);
-    final SearchCriteria criteriaDob = this.getCriteria(DOB, EQUAL, DOB_FORMATTER_LONG.format(dobDate), DATE);
-
-    final List<SearchCriteria> criteriaListDob = new LinkedList<>(Collections.singletonList(criteriaDob));
-
-    final List<SearchCriteria> criteriaListSurname = new LinkedList<>();
-    criteriaListSurname.add(this.getCriteria(LEGAL_LAST_NAME, STARTS_WITH, surname, STRING));
-
-    final List<SearchCriteria> criteriaListMincodeLocalID = new LinkedList<>();
-    criteriaListMincodeLocalID.add(this.getCriteria(MINCODE, EQUAL, mincode, STRING));
-    criteriaListMincodeLocalID.add(this.getCriteriaWithCondition(LOCAL_ID, EQUAL, localID, STRING, AND));
-
-    final List<Search> searches = new LinkedList<>();
-    searches.add(Search.builder().searchCriteriaList(criteriaListDob).build());
-    if (!criteriaListSurname.isEmpty()) {
-      searches.add(Search.builder().condition(OR).searchCriteriaList(criteriaListSurname).build());
-    }
-    if (!criteriaListMincodeLocalID.isEmpty()) {
-      searches.add(Search.builder().condition(OR).searchCriteriaList(criteriaListMincodeLocalID).build());
-    }
-
-    final List<SearchCriteria> criteriaMergedDeceased = new LinkedList<>();
-
-    final SearchCriteria criteriaMandD =
-      SearchCriteria.builder().key(STATUS_CODE).operation(FilterOperation.NOT_IN).value("M,D").valueType(ValueType.STRING).build();
-
-    criteriaMergedDeceased.add(criteriaMandD);
-    searches.add(Search.builder().condition(AND).searchCriteriaList(criteriaMergedDeceased).build());
-
-    final String criteriaJSON = this.objectMapper.writeValueAsString(searches);
-
-    return this.getStudentsByCriteria(criteriaJSON, correlationID);
+  public List<StudentCandidateEntity> lookupNoInit(final String dob, final String surname, final String mincode, final String localID, final UUID correlationID) throws JsonProcessingException {
+    return this.getStudentsByEncodedCriteria(CandidateCriteriaTemplates.noInit(dob, surname, mincode, localID), correlationID);
   }
 
   /**
@@ -261,33 +266,54 @@ public class RestUtils {
    * @return the list
    * @throws JsonProcessingException the json processing exception
    */
-  public List<StudentEntity> lookupNoLocalID(final String dob, final String surname, final String givenName, final UUID correlationID) throws JsonProcessingException {
-    final LocalDate dobDate = LocalDate.parse(dob, DOB_FORMATTER_SHORT);
-    final SearchCriteria criteriaDob = this.getCriteria(DOB, EQUAL, DOB_FORMATTER_LONG.format(dobDate), DATE);
-
-    final List<SearchCriteria> criteriaListDob = new LinkedList<>(Collections.singletonList(criteriaDob));
-
-    final List<SearchCriteria> criteriaListSurnameGiven = new LinkedList<>();
-    criteriaListSurnameGiven.add(this.getCriteria(LEGAL_LAST_NAME, STARTS_WITH, surname, STRING));
-
-    if(StringUtils.isNotBlank(givenName)) {
-      criteriaListSurnameGiven.add(this.getCriteriaWithCondition(LEGAL_FIRST_NAME, STARTS_WITH, givenName, STRING, AND));
-    }else{
-      criteriaListSurnameGiven.add(this.getCriteriaWithCondition(LEGAL_FIRST_NAME, EQUAL, null, STRING, AND));
-    }
-
-    final List<SearchCriteria> criteriaMergedDeceased = new LinkedList<>();
-
-    final SearchCriteria criteriaMandD =
-      SearchCriteria.builder().key(STATUS_CODE).operation(FilterOperation.NOT_IN).value("M,D").valueType(ValueType.STRING).build();
+  public List<StudentCandidateEntity> lookupNoLocalID(final String dob, final String surname, final String givenName, final UUID correlationID) throws JsonProcessingException {
+    return this.getStudentsByEncodedCriteria(CandidateCriteriaTemplates.noLocalID(dob, surname, givenName), correlationID);
+  }
 
-    criteriaMergedDeceased.add(criteriaMandD);
+  /**
+   * Lookup the candidates of several searches sharing one dob with a single widened search: the dob, or any of the
+   * surname (and given name) legs, or any of the mincode and local id legs of the given keys.
+   *
+   * @param dob           the dob
+   * @param keys          the keys, all for the given dob
+   * @param correlationID the correlation id
+   * @return the list
+   * @throws JsonProcessingException the json processing exception
+   */
+  public List<StudentCandidateEntity> lookupDobBucket(final String dob, final Collection<CandidateLookupKey> keys, final UUID correlationID) throws JsonProcessingException {
+    final SearchCriteria criteriaDob = this.getCriteria(DOB, EQUAL, CandidateCriteriaTemplates.toLongDob(dob), DATE);
 
     final List<Search> searches = new LinkedList<>();
-    searches.add(Search.builder().searchCriteriaList(criteriaListDob).build());
-    if (!criteriaListSurnameGiven.isEmpty()) {
+    searches.add(Search.builder().searchCriteriaList(new LinkedList<>(Collections.singletonList(criteriaDob))).build());
+
+    final Set<List<String>> surnameLegs = new LinkedHashSet<>();
+    final Set<List<String>> mincodeLocalIDLegs = new LinkedHashSet<>();
+    for (final CandidateLookupKey key : keys) {
+      // the given name part is null when the key does not restrict it, empty when it requires no given name
+      surnameLegs.add(Arrays.asList(key.getSurname(), key.usesGivenName() ? StringUtils.defaultString(key.getGivenName()) : null));
+      if (key.usesLocalID()) {
+        mincodeLocalIDLegs.add(Arrays.asList(key.getMincode(), key.getLocalID()));
+      }
+    }
+    for (final List<String> surnameLeg : surnameLegs) {
+      final List<SearchCriteria> criteriaListSurnameGiven = new LinkedList<>();
+      criteriaListSurnameGiven.add(this.getCriteria(LEGAL_LAST_NAME, STARTS_WITH, surnameLeg.get(0), STRING));
+      if (StringUtils.isNotBlank(surnameLeg.get(1))) {
+        criteriaListSurnameGiven.add(this.getCriteriaWithCondition(LEGAL_FIRST_NAME, STARTS_WITH, surnameLeg.get(1), STRING, AND));
+      } else if (surnameLeg.get(1) != null) {
+        criteriaListSurnameGiven.add(this.getCriteriaWithCondition(LEGAL_FIRST_NAME, EQUAL, null, STRING, AND));
+      }
       searches.add(Search.builder().condition(OR).searchCriteriaList(criteriaListSurnameGiven).build());
     }
+    for (final List<String> mincodeLocalIDLeg : mincodeLocalIDLegs) {
+      final List<SearchCriteria> criteriaListMincodeLocalID = new LinkedList<>();
+      criteriaListMincodeLocalID.add(this.getCriteria(MINCODE, EQUAL, mincodeLocalIDLeg.get(0), STRING));
+      criteriaListMincodeLocalID.add(this.getCriteriaWithCondition(LOCAL_ID, EQUAL, mincodeLocalIDLeg.get(1), STRING, AND));
+      searches.add(Search.builder().condition(OR).searchCriteriaList(criteriaListMincodeLocalID).build());
+    }
+
+    final List<SearchCriteria> criteriaMergedDeceased = new LinkedList<>();
+    criteriaMergedDeceased.add(SearchCriteria.builder().key(STATUS_CODE).operation(FilterOperation.NOT_IN).value("M,D").valueType(ValueType.STRING).build());
     searches.add(Search.builder().condition(AND).searchCriteriaList(criteriaMergedDeceased).build());
 
     final String criteriaJSON = this.objectMapper.writeValueAsString(searches);
@@ -295,7 +321,6 @@ public class RestUtils {
     return this.getStudentsByCriteria(criteriaJSON, correlationID);
   }
 
-
   /**
    * Gets criteria.
    *
@@ -332,55 +357,28 @@ public class RestUtils {
    * @return the list
    * @throws JsonProcessingException the json processing exception
    */
-  public List<StudentEntity> lookupNoInitNoLocalID(final String dob, final String surname, final UUID correlationID) throws JsonProcessingException {
-    final LocalDate dobDate = LocalDate.parse(dob, DOB_FORMATTER_SHORT);
-    final SearchCriteria criteriaDob = this.getCriteria(DOB, EQUAL, DOB_FORMATTER_LONG.format(dobDate), DATE);
-
-    final List<SearchCriteria> criteriaListDob = new LinkedList<>(Collections.singletonList(criteriaDob));
-
-    final List<SearchCriteria> criteriaListSurname = new LinkedList<>();
-    criteriaListSurname.add(this.getCriteria(LEGAL_LAST_NAME, STARTS_WITH, surname, STRING));
-
-    final List<Search> searches = new LinkedList<>();
-    searches.add(Search.builder().searchCriteriaList(criteriaListDob).build());
-    if (!criteriaListSurname.isEmpty()) {
-      searches.add(Search.builder().condition(OR).searchCriteriaList(criteriaListSurname).build());
-    }
-
-    final List<SearchCriteria> criteriaMergedDeceased = new LinkedList<>();
-
-    final SearchCriteria criteriaMandD =
-            SearchCriteria.builder().key(STATUS_CODE).operation(FilterOperation.NOT_IN).value("M,D").valueType(ValueType.STRING).build();
-
-    criteriaMergedDeceased.add(criteriaMandD);
-    searches.add(Search.builder().condition(AND).searchCriteriaList(criteriaMergedDeceased).build());
-
-    final String criteriaJSON = this.objectMapper.writeValueAsString(searches);
-    return this.getStudentsByCriteria(criteriaJSON, correlationID);
+  public List<StudentCandidateEntity> lookupNoInitNoLocalID(final String dob, final String surname, final UUID correlationID) throws JsonProcessingException {
+    return this.getStudentsByEncodedCriteria(CandidateCriteriaTemplates.noInitNoLocalID(dob, surname), correlationID);
   }
 
   /**
-   * Fetches a PEN Master Record given a student number
+   * Fetches a student given its student id
    *
    * @param studentID the student id
    * @param correlationID the correlation id.
    * @return the optional
    */
-  @Retryable(value = {Exception.class}, backoff = @Backoff(multiplier = 2, delay = 200))
-  public Optional<String> lookupStudentTruePENNumberByStudentID(final String studentID, UUID correlationID) {
+  @Retryable(value = {Exception.class}, exclude = {DeadlineExceededException.class}, backoff = @Backoff(multiplier = 2, delay = 200))
+  public Optional<StudentEntity> getStudentByStudentID(final String studentID, final UUID correlationID) {
     try {
-      List<String> studentIDs = new ArrayList<>();
-      studentIDs.add(studentID);
-      final List<StudentEntity> students = getStudents(correlationID, studentIDs); // it will be always a single response since one id was passed.
-      if (students.get(0) != null && students.get(0).getTrueStudentID() != null) {
-        studentIDs.clear();
-        studentIDs.add(students.get(0).getTrueStudentID());
-        final List<StudentEntity> trueStudents = getStudents(correlationID, studentIDs); // it will be always a single response since one id was passed.
-        if (trueStudents != null && trueStudents.get(0) != null) {
-          return Optional.ofNullable(trueStudents.get(0).getPen());
-        }
+      final List<StudentEntity> students = getStudents(correlationID, List.of(studentID)); // it will be always a single response since one id was passed.
+      if (students != null && !students.isEmpty()) {
+        return Optional.ofNullable(students.get(0));
       }
     } catch (final Exception e) {
+      if (DeadlineHolder.isExpired()) {
+        throw new DeadlineExceededException(DeadlineHolder.LOOKUP_STAGE);
+      }
       throw new PENMatchRuntimeException("Exception while calling student api for correlation ID :: "+correlationID+" :: "+ e.getMessage());
     }
     return Optional.empty();
@@ -389,14 +387,32 @@ public class RestUtils {
   private List<StudentEntity> getStudents(UUID sagaId, List<String> studentIDs) throws IOException, ExecutionException, InterruptedException, TimeoutException {
     final var event = ca.bc.gov.educ.api.penmatch.struct.Event.builder().sagaId(sagaId).eventType(EventType.GET_STUDENTS).eventPayload(JsonUtil.getJsonStringFromObject(studentIDs)).build();
     log.debug("called STUDENT_API saga id :: {}, get students :: {}",sagaId, studentIDs);
-    val responseEvent = JsonUtil.getJsonObjectFromByteArray(ca.bc.gov.educ.api.penmatch.struct.Event.class, this.connection.request(STUDENT_API_TOPIC, JsonUtil.getJsonBytesFromObject(event)).get(2, TimeUnit.SECONDS).getData());
+    final Message reply;
+    try (StudentApiScheduler.Slot ignored = this.scheduler.acquire()) {
+      reply = this.connection.request(this.wireFormat.request(STUDENT_API_TOPIC, JsonUtil.getJsonBytesFromObject(event))).get(DeadlineHolder.timeout(GET_STUDENTS_TIMEOUT).toMillis(), TimeUnit.MILLISECONDS);
+    }
+    final EventReply<List<StudentEntity>> responseEvent = this.wireFormat.readEventReply(reply, new TypeReference<>() {
+    });
     log.debug("got response from STUDENT_API  :: {}", responseEvent);
     if (responseEvent.getEventOutcome() == EventOutcome.STUDENT_NOT_FOUND) {
       log.error("Students not found or student size mismatch for student IDs:: {}, this should not have happened", studentIDs);
       throw new PENMatchRuntimeException("Student not found for , " + studentIDs);
     }
-    return this.objectMapper.readValue(responseEvent.getEventPayload(), new TypeReference<>() {
-    });
+    return responseEvent.getEventPayload();
+  }
+
+  /**
+   * Lookup one page of the candidates of a search.
+   *
+   * @param key           the key
+   * @param pageNumber    the page number
+   * @param pageSize      the page size
+   * @param correlationID the correlation id
+   * @return the page
+   * @throws JsonProcessingException the json processing exception
+   */
+  public RestPageImpl<StudentCandidateEntity> lookupCandidatePage(final CandidateLookupKey key, final int pageNumber, final int pageSize, final UUID correlationID) throws JsonProcessingException {
+    return this.getStudentPageByEncodedCriteria(CandidateCriteriaTemplates.encodedCriteria(key), STUDENT_ID_SORT, pageNumber, pageSize, correlationID);
   }
 
   /**
@@ -406,20 +422,76 @@ public class RestUtils {
    * @param correlationID the correlation id
    * @return the list
    */
-  public List<StudentEntity> getStudentsByCriteria(final String criteria, final UUID correlationID) {
+  public List<StudentCandidateEntity> getStudentsByCriteria(final String criteria, final UUID correlationID) {
+    return this.getStudentsByEncodedCriteria(URLEncoder.encode(criteria, StandardCharsets.UTF_8), correlationID);
+  }
+
+  /**
+   * Get students by URL encoded criteria list.
+   *
+   * @param encodedCriteria the URL encoded criteria
+   * @param correlationID   the correlation id
+   * @return the list
+   */
+  private List<StudentCandidateEntity> getStudentsByEncodedCriteria(final String encodedCriteria, final UUID correlationID) {
+    return this.getStudentPageByEncodedCriteria(encodedCriteria, null, 0, 100000, correlationID).getContent();
+  }
+
+  /**
+   * Gets one page of the students which are neither merged nor deceased, used to bootstrap the local replica. Pages are
+   * sorted by student id so that reading them one after another neither skips nor repeats a student.
+   *
+   * @param pageNumber    the page number
+   * @param pageSize      the page size
+   * @param correlationID the correlation id
+   * @return the page
+   * @throws JsonProcessingException the json processing exception
+   */
+  public RestPageImpl<StudentCandidateEntity> getActiveStudentsPage(final int pageNumber, final int pageSize, final UUID correlationID) throws JsonProcessingException {
+    final List<SearchCriteria> criteriaMergedDeceased = new LinkedList<>();
+    criteriaMergedDeceased.add(SearchCriteria.builder().key(STATUS_CODE).operation(FilterOperation.NOT_IN).value("M,D").valueType(ValueType.STRING).build());
+    final List<Search> searches = new LinkedList<>();
+    searches.add(Search.builder().searchCriteriaList(criteriaMergedDeceased).build());
+    return this.getStudentPageByEncodedCriteria(URLEncoder.encode(this.objectMapper.writeValueAsString(searches), StandardCharsets.UTF_8), STUDENT_ID_SORT, pageNumber, pageSize, correlationID);
+  }
+
+  /**
+   * Get one page of students by URL encoded criteria.
+   *
+   * @param encodedCriteria the URL encoded criteria
+   * @param encodedSort     the URL encoded sort, null for the order of the student api
+   * @param pageNumber      the page number
+   * @param pageSize        the page size
+   * @param correlationID   the correlation id
+   * @return the page
+   */
+  private RestPageImpl<StudentCandidateEntity> getStudentPageByEncodedCriteria(final String encodedCriteria, final String encodedSort, final int pageNumber, final int pageSize, final UUID correlationID) {
     try {
-      log.debug("Sys Criteria: {}", criteria);
-      final TypeReference<RestPageImpl<StudentEntity>> ref = new TypeReference<>() {
+      log.debug("Sys Criteria: {}", encodedCriteria);
+      final TypeReference<RestPageImpl<StudentCandidateEntity>> ref = new TypeReference<>() {
       };
-      val event = Event.builder().sagaId(correlationID).eventType(GET_PAGINATED_STUDENT_BY_CRITERIA).eventPayload(SEARCH_CRITERIA_LIST.concat("=").concat(URLEncoder.encode(criteria, StandardCharsets.UTF_8)).concat("&").concat(PAGE_SIZE).concat("=").concat("100000")).build();
-      final var responseMessage = this.connection.request(STUDENT_API_TOPIC, JsonUtil.objectMapper.writeValueAsBytes(event), Duration.ofSeconds(60));
+      String payload = SEARCH_CRITERIA_LIST.concat("=").concat(encodedCriteria).concat("&").concat(PAGE_SIZE).concat("=").concat(String.valueOf(pageSize));
+      if (pageNumber > 0) {
+        payload = payload.concat("&").concat(PAGE_NUMBER).concat("=").concat(String.valueOf(pageNumber));
+      }
+      if (encodedSort != null) {
+        payload = payload.concat("&").concat(SORT_CRITERIA_LIST).concat("=").concat(encodedSort);
+      }
+      val event = Event.builder().sagaId(correlationID).eventType(GET_PAGINATED_STUDENT_BY_CRITERIA).eventPayload(payload).build();
+      final Message responseMessage;
+      try (StudentApiScheduler.Slot ignored = this.scheduler.acquire()) {
+        responseMessage = this.connection.request(this.wireFormat.request(STUDENT_API_TOPIC, JsonUtil.objectMapper.writeValueAsBytes(event)), DeadlineHolder.timeout(STUDENT_API_TIMEOUT));
+      }
       if (null != responseMessage) {
-        return JsonUtil.objectMapper.readValue(responseMessage.getData(), ref).getContent();
+        return this.wireFormat.readValue(responseMessage, ref);
       } else {
         throw new PENMatchRuntimeException("Either NATS timed out or the response is null , correlationID :: " + correlationID);
       }
 
     } catch (final Exception ex) {
+      if (DeadlineHolder.isExpired()) {
+        throw new DeadlineExceededException(DeadlineHolder.LOOKUP_STAGE);
+      }
       throw new PENMatchRuntimeException("Either NATS timed out or the response is null , correlationID :: " + correlationID + ex.getMessage());
     }
   }
@@ -0,0 +1,169 @@
+package ca.bc.gov.educ.api.penmatch.rest;
+
+import ca.bc.gov.educ.api.penmatch.constants.WorkloadLane;
+import ca.bc.gov.educ.api.penmatch.exception.DeadlineExceededException;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import ca.bc.gov.educ.api.penmatch.helpers.WorkloadLaneHolder;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The type Student api scheduler.
+ * <p>
+ * Shares the capacity of the student api between the workload lanes: at most {@code student.api.max.concurrency}
+ * requests are in flight, and bulk requests leave {@code student.api.interactive.reserved} of them to interactive
+ * requests, so a saga or a batch cannot starve a user waiting on a single match. The time a request waits for its
+ * slot and the time it is in flight are exported per lane. A request does not wait for its slot past the deadline of
+ * its caller.
+ */
+@Component
+public class StudentApiScheduler {
+  /**
+   * The constant NO_SLOT, the slot of the requests when disabled.
+   */
+  private static final Slot NO_SLOT = () -> {
+  };
+  /**
+   * The Enabled flag.
+   */
+  private final boolean enabled;
+  /**
+   * The Max concurrency.
+   */
+  private final int maxConcurrency;
+  /**
+   * The Max bulk concurrency.
+   */
+  private final int maxBulkConcurrency;
+  /**
+   * The Lock.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Signalled when a slot is freed.
+   */
+  private final Condition slotFreed = this.lock.newCondition();
+  /**
+   * The Wait timers by lane.
+   */
+  private final Map<WorkloadLane, Timer> waitTimers = new EnumMap<>(WorkloadLane.class);
+  /**
+   * The Request timers by lane.
+   */
+  private final Map<WorkloadLane, Timer> requestTimers = new EnumMap<>(WorkloadLane.class);
+  /**
+   * The Requests in flight, guarded by the lock.
+   */
+  private int inFlight;
+
+  /**
+   * Instantiates a new Student api scheduler.
+   *
+   * @param applicationProperties the application properties
+   * @param meterRegistry         the meter registry
+   */
+  @Autowired
+  public StudentApiScheduler(final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+    this.enabled = applicationProperties.isWorkloadLanesEnabled();
+    this.maxConcurrency = Math.max(1, applicationProperties.getStudentApiMaxConcurrency());
+    this.maxBulkConcurrency = Math.max(1, this.maxConcurrency - Math.max(0, applicationProperties.getStudentApiInteractiveReserved()));
+    for (final WorkloadLane lane : WorkloadLane.values()) {
+      this.waitTimers.put(lane, Timer.builder("pen.match.student.api.wait").description("The time a student api request waits for a slot").tag("lane", lane.getValue()).register(meterRegistry));
+      this.requestTimers.put(lane, Timer.builder("pen.match.student.api.requests").description("The time a student api request is in flight").tag("lane", lane.getValue()).register(meterRegistry));
+    }
+  }
+
+  /**
+   * Waits for a slot of the lane of the current thread, up to the deadline of the current thread if it has one.
+   *
+   * @return the slot, to close once the reply is in
+   * @throws DeadlineExceededException if the deadline passes before a slot is free
+   */
+  public Slot acquire() {
+    if (!this.enabled) {
+      return NO_SLOT;
+    }
+    final WorkloadLane lane = WorkloadLaneHolder.getLane();
+    final int limit = lane == WorkloadLane.INTERACTIVE ? this.maxConcurrency : this.maxBulkConcurrency;
+    final Long deadline = DeadlineHolder.getDeadline();
+    final long start = System.nanoTime();
+    boolean interrupted = false;
+    this.lock.lock();
+    try {
+      while (this.inFlight >= limit) {
+        if (deadline == null) {
+          this.slotFreed.awaitUninterruptibly();
+          continue;
+        }
+        final long remainingMillis = deadline - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+          this.waitTimers.get(lane).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+          throw new DeadlineExceededException(DeadlineHolder.LOOKUP_STAGE);
+        }
+        try {
+          this.slotFreed.awaitNanos(TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+        } catch (final InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      this.inFlight++;
+    } finally {
+      this.lock.unlock();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    final long acquired = System.nanoTime();
+    this.waitTimers.get(lane).record(acquired - start, TimeUnit.NANOSECONDS);
+    final Timer requestTimer = this.requestTimers.get(lane);
+    return () -> {
+      requestTimer.record(System.nanoTime() - acquired, TimeUnit.NANOSECONDS);
+      this.release();
+    };
+  }
+
+  /**
+   * Gets the requests in flight.
+   *
+   * @return the in flight
+   */
+  public int getInFlight() {
+    this.lock.lock();
+    try {
+      return this.inFlight;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Release a slot.
+   */
+  private void release() {
+    this.lock.lock();
+    try {
+      this.inFlight--;
+      this.slotFreed.signalAll();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * The interface Slot, a student api request in flight.
+   */
+  @FunctionalInterface
+  public interface Slot extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,173 @@
+package ca.bc.gov.educ.api.penmatch.rest;
+
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.struct.Event;
+import ca.bc.gov.educ.api.penmatch.struct.EventReply;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nats.client.Message;
+import io.nats.client.impl.Headers;
+import io.nats.client.impl.NatsMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The type Student api wire format.
+ * <p>
+ * Negotiates the encoding of student api replies. Requests stay json and, when enabled, ask for a smile reply through
+ * the {@value #ACCEPT_HEADER} header; a reply whose {@value #CONTENT_TYPE_HEADER} header says smile is decoded as
+ * smile, with the payload of a reply event nested as is rather than carried as an escaped json string, and any other
+ * reply is decoded as json. A student api that does not know the header keeps answering in json, so json stays the
+ * fallback.
+ */
+@Component
+public class StudentApiWireFormat {
+  /**
+   * The constant ACCEPT_HEADER.
+   */
+  public static final String ACCEPT_HEADER = "Accept";
+  /**
+   * The constant CONTENT_TYPE_HEADER.
+   */
+  public static final String CONTENT_TYPE_HEADER = "Content-Type";
+  /**
+   * The constant SMILE.
+   */
+  public static final String SMILE = "application/x-jackson-smile";
+  /**
+   * The constant JSON.
+   */
+  public static final String JSON = "application/json";
+  /**
+   * The Object mapper.
+   */
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  /**
+   * The Smile mapper.
+   */
+  private final ObjectMapper smileMapper = new SmileMapper();
+  /**
+   * The Smile enabled flag.
+   */
+  private final boolean smileEnabled;
+  /**
+   * The Smile replies counter.
+   */
+  private final Counter smileReplies;
+  /**
+   * The Json replies counter.
+   */
+  private final Counter jsonReplies;
+
+  /**
+   * Instantiates a new Student api wire format.
+   *
+   * @param applicationProperties the application properties
+   * @param meterRegistry         the meter registry
+   */
+  @Autowired
+  public StudentApiWireFormat(final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+    this.smileEnabled = applicationProperties.isStudentApiSmileEnabled();
+    this.smileReplies = meterRegistry.counter("pen.match.student.api.replies", "format", "smile");
+    this.jsonReplies = meterRegistry.counter("pen.match.student.api.replies", "format", "json");
+  }
+
+  /**
+   * Builds a request, asking for a smile reply when enabled.
+   *
+   * @param subject the subject
+   * @param data    the json data
+   * @return the message
+   */
+  public Message request(final String subject, final byte[] data) {
+    final NatsMessage.Builder builder = NatsMessage.builder().subject(subject).data(data);
+    if (this.smileEnabled) {
+      builder.headers(new Headers().put(ACCEPT_HEADER, SMILE, JSON));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Decodes a reply.
+   *
+   * @param <T>   the type parameter
+   * @param reply the reply
+   * @param type  the type
+   * @return the value
+   * @throws IOException the io exception
+   */
+  public <T> T readValue(final Message reply, final Class<T> type) throws IOException {
+    return this.mapperFor(reply).readValue(reply.getData(), type);
+  }
+
+  /**
+   * Decodes a reply.
+   *
+   * @param <T>   the type parameter
+   * @param reply the reply
+   * @param type  the type
+   * @return the value
+   * @throws IOException the io exception
+   */
+  public <T> T readValue(final Message reply, final TypeReference<T> type) throws IOException {
+    return this.mapperFor(reply).readValue(reply.getData(), type);
+  }
+
+  /**
+   * Decodes a reply event and its payload: in one pass for a smile reply, whose payload is nested, and in two for a json
+   * reply, whose payload is a json string.
+   *
+   * @param <T>         the type parameter
+   * @param reply       the reply
+   * @param payloadType the payload type
+   * @return the event reply
+   * @throws IOException the io exception
+   */
+  public <T> EventReply<T> readEventReply(final Message reply, final TypeReference<T> payloadType) throws IOException {
+    if (this.isSmile(reply)) {
+      this.smileReplies.increment();
+      final JavaType payloadJavaType = this.smileMapper.getTypeFactory().constructType(payloadType);
+      return this.smileMapper.readValue(reply.getData(), this.smileMapper.getTypeFactory().constructParametricType(EventReply.class, payloadJavaType));
+    }
+    this.jsonReplies.increment();
+    final Event event = this.objectMapper.readValue(reply.getData(), Event.class);
+    final T payload = event.getEventPayload() == null ? null : this.objectMapper.readValue(event.getEventPayload(), payloadType);
+    return EventReply.<T>builder().eventType(event.getEventType()).eventOutcome(event.getEventOutcome()).sagaId(event.getSagaId()).eventPayload(payload).build();
+  }
+
+  /**
+   * The mapper for the format of a reply.
+   *
+   * @param reply the reply
+   * @return the object mapper
+   */
+  private ObjectMapper mapperFor(final Message reply) {
+    if (this.isSmile(reply)) {
+      this.smileReplies.increment();
+      return this.smileMapper;
+    }
+    this.jsonReplies.increment();
+    return this.objectMapper;
+  }
+
+  /**
+   * Whether the reply is encoded in smile.
+   *
+   * @param reply the reply
+   * @return the boolean
+   */
+  private boolean isSmile(final Message reply) {
+    if (!reply.hasHeaders()) {
+      return false;
+    }
+    final List<String> contentTypes = reply.getHeaders().getIgnoreCase(CONTENT_TYPE_HEADER);
+    return contentTypes != null && contentTypes.contains(SMILE);
+  }
+}
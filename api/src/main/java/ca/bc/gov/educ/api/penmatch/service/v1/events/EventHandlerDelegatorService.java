@@ -1,9 +1,15 @@
 package ca.bc.gov.educ.api.penmatch.service.v1.events;
 
+import ca.bc.gov.educ.api.penmatch.constants.WorkloadLane;
+import ca.bc.gov.educ.api.penmatch.exception.DeadlineExceededException;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import ca.bc.gov.educ.api.penmatch.helpers.WorkloadLaneHolder;
 import ca.bc.gov.educ.api.penmatch.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.penmatch.messaging.SubscriberAdmissionControl;
 import ca.bc.gov.educ.api.penmatch.messaging.jetstream.Publisher;
 import ca.bc.gov.educ.api.penmatch.model.v1.PENMatchEvent;
 import ca.bc.gov.educ.api.penmatch.struct.Event;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.nats.client.Message;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -13,6 +19,7 @@ import org.springframework.lang.NonNull;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 
 import static lombok.AccessLevel.PRIVATE;
@@ -45,28 +52,86 @@ public class EventHandlerDelegatorService {
   @Getter(PRIVATE)
   private final Publisher publisher; // Jet Stream publisher for choreography
 
+  /**
+   * The Admission control.
+   */
+  @Getter(PRIVATE)
+  private final SubscriberAdmissionControl admissionControl;
+
+  /**
+   * The Meter registry.
+   */
+  @Getter(PRIVATE)
+  private final MeterRegistry meterRegistry;
+
   /**
    * Instantiates a new Event handler delegator service.
    *
    * @param eventHandlerService the event handler service
    * @param messagePublisher    the message publisher
    * @param publisher           the publisher
+   * @param admissionControl    the admission control
+   * @param meterRegistry       the meter registry
    */
   @Autowired
-  public EventHandlerDelegatorService(final EventHandlerService eventHandlerService, final MessagePublisher messagePublisher, final Publisher publisher) {
+  public EventHandlerDelegatorService(final EventHandlerService eventHandlerService, final MessagePublisher messagePublisher, final Publisher publisher, final SubscriberAdmissionControl admissionControl, final MeterRegistry meterRegistry) {
     this.eventHandlerService = eventHandlerService;
     this.messagePublisher = messagePublisher;
     this.publisher = publisher;
+    this.admissionControl = admissionControl;
+    this.meterRegistry = meterRegistry;
   }
 
   /**
-   * Handle event.
+   * Handle an event admitted by the admission control, unless it waited so long its caller has timed out, and release
+   * it.
+   *
+   * @param event      the event
+   * @param message    the message
+   * @param admittedAt the nanos the event was admitted at
+   */
+  @Async("subscriberExecutor")
+  public void handleAdmittedEvent(final Event event, final Message message, final long admittedAt) {
+    try {
+      if (!this.getAdmissionControl().isExpired(admittedAt)) {
+        this.dispatchEvent(event, message);
+      }
+    } finally {
+      this.getAdmissionControl().release();
+    }
+  }
+
+  /**
+   * Dispatch an event to its handler, in the workload lane and by the deadline of the event, and publish the response.
+   * An event past its deadline is dropped without a response, as its caller has given up on it.
    *
    * @param event   the event
    * @param message the message
    */
-  @Async("subscriberExecutor")
-  public void handleEvent(final Event event, final Message message) {
+  private void dispatchEvent(final Event event, final Message message) {
+    WorkloadLaneHolder.setLane(WorkloadLane.fromValue(event.getWorkloadLane(), WorkloadLane.BULK));
+    final List<String> headerDeadlines = message.hasHeaders() ? message.getHeaders().getIgnoreCase(DeadlineHolder.NATS_HEADER) : null;
+    final String headerDeadline = headerDeadlines == null || headerDeadlines.isEmpty() ? null : headerDeadlines.get(0);
+    DeadlineHolder.setDeadline(DeadlineHolder.earliest(event.getDeadline(), DeadlineHolder.parse(headerDeadline)));
+    try {
+      DeadlineHolder.check(DeadlineHolder.RECEIVED_STAGE);
+      this.handleEventInLane(event, message);
+    } catch (final DeadlineExceededException e) {
+      log.warn("Dropping {} event for :: {}, {}", event.getEventType(), event.getSagaId(), e.getMessage());
+      this.getMeterRegistry().counter(DeadlineHolder.EXPIRED_COUNTER, "source", "event", "stage", e.getStage()).increment();
+    } finally {
+      WorkloadLaneHolder.clear();
+      DeadlineHolder.clear();
+    }
+  }
+
+  /**
+   * Handle an event and publish the response.
+   *
+   * @param event   the event
+   * @param message the message
+   */
+  private void handleEventInLane(final Event event, final Message message) {
     final boolean isSynchronous = message.getReplyTo() != null;
     final Pair<byte[], Optional<PENMatchEvent>> pairedResult;
     final byte[] response;
@@ -78,6 +143,11 @@ public class EventHandlerDelegatorService {
           response = this.getEventHandlerService().handleProcessPenMatchEvent(event);
           this.publishToNATS(event, message, isSynchronous, response);
           break;
+        case PROCESS_PEN_MATCH_BATCH:
+          log.debug("received PROCESS_PEN_MATCH_BATCH event for :: {}", event.getSagaId());
+          response = this.getEventHandlerService().handleProcessPenMatchBatchEvent(event);
+          this.publishToNATS(event, message, isSynchronous, response);
+          break;
         case ADD_POSSIBLE_MATCH:
           log.debug("received ADD_POSSIBLE_MATCH event for :: {}", event.getSagaId());
           log.debug(PAYLOAD_LOG + event.getEventPayload());
@@ -102,6 +172,8 @@ public class EventHandlerDelegatorService {
           log.debug("silently ignoring other event :: {}", event);
           break;
       }
+    } catch (final DeadlineExceededException e) {
+      throw e;
     } catch (final Exception e) {
       log.error("Exception", e);
     }
@@ -4,9 +4,11 @@ import ca.bc.gov.educ.api.penmatch.constants.EventOutcome;
 import ca.bc.gov.educ.api.penmatch.mappers.v1.PenMatchStudentMapper;
 import ca.bc.gov.educ.api.penmatch.mappers.v1.PossibleMatchMapper;
 import ca.bc.gov.educ.api.penmatch.model.v1.PENMatchEvent;
+import ca.bc.gov.educ.api.penmatch.service.v1.match.PenMatchBatchService;
 import ca.bc.gov.educ.api.penmatch.service.v1.match.PenMatchService;
 import ca.bc.gov.educ.api.penmatch.service.v1.match.PossibleMatchService;
 import ca.bc.gov.educ.api.penmatch.struct.Event;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchBatchStudent;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudent;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PossibleMatch;
 import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
@@ -56,6 +58,12 @@ public class EventHandlerService {
   @Getter(PRIVATE)
   private final PossibleMatchService possibleMatchService;
 
+  /**
+   * The Pen match batch service.
+   */
+  @Getter(PRIVATE)
+  private final PenMatchBatchService penMatchBatchService;
+
   /**
    * The Ob mapper.
    */
@@ -66,10 +74,12 @@ public class EventHandlerService {
    *
    * @param penMatchService      the pen match service
    * @param possibleMatchService the possible match service
+   * @param penMatchBatchService the pen match batch service
    */
-  public EventHandlerService(final PenMatchService penMatchService, final PossibleMatchService possibleMatchService) {
+  public EventHandlerService(final PenMatchService penMatchService, final PossibleMatchService possibleMatchService, final PenMatchBatchService penMatchBatchService) {
     this.penMatchService = penMatchService;
     this.possibleMatchService = possibleMatchService;
+    this.penMatchBatchService = penMatchBatchService;
   }
 
   /**
@@ -94,6 +104,28 @@ public class EventHandlerService {
     return this.obMapper.writeValueAsBytes(newEvent);
   }
 
+  /**
+   * Handle process pen match batch event.
+   * The students are matched through the bounded batch pipeline, each under its own saga id, and answered with one
+   * reply listing the result or error of every student in submission order.
+   *
+   * @param event the event
+   * @return the byte [ ]
+   * @throws JsonProcessingException the json processing exception
+   */
+  public byte[] handleProcessPenMatchBatchEvent(@NonNull final Event event) throws JsonProcessingException {
+    final List<PenMatchBatchStudent> students = this.obMapper.readValue(event.getEventPayload(), new TypeReference<>() {
+    });
+    final var results = this.getPenMatchBatchService().matchStudents(students);
+    log.debug("PEN Match batch of {} students processed for event :: {}", results.size(), event.getSagaId());
+    final Event newEvent = Event.builder()
+        .sagaId(event.getSagaId())
+        .eventType(event.getEventType())
+        .eventOutcome(EventOutcome.PEN_MATCH_BATCH_PROCESSED)
+        .eventPayload(JsonUtil.getJsonStringFromObject(results)).build();
+    return this.obMapper.writeValueAsBytes(newEvent);
+  }
+
   /**
    * Handle add possible match event byte [ ].
    *
@@ -1,12 +1,22 @@
 package ca.bc.gov.educ.api.penmatch.service.v1.events;
 
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupCache;
+import ca.bc.gov.educ.api.penmatch.lookup.MergedStudentResolver;
+import ca.bc.gov.educ.api.penmatch.lookup.StudentDemographicsReplica;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentMergeEntity;
 import ca.bc.gov.educ.api.penmatch.repository.v1.PENMatchEventRepository;
 import ca.bc.gov.educ.api.penmatch.struct.ChoreographedEvent;
+import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import static ca.bc.gov.educ.api.penmatch.constants.EventStatus.MESSAGE_PUBLISHED;
@@ -24,15 +34,36 @@ public class JetStreamEventHandlerService {
    */
   private final PENMatchEventRepository eventRepository;
 
+  /**
+   * The Candidate lookup cache.
+   */
+  private final CandidateLookupCache candidateLookupCache;
+
+  /**
+   * The Student demographics replica.
+   */
+  private final StudentDemographicsReplica studentDemographicsReplica;
+
+  /**
+   * The Merged student resolver.
+   */
+  private final MergedStudentResolver mergedStudentResolver;
+
 
   /**
    * Instantiates a new Stan event handler service.
    *
-   * @param eventRepository the student event repository
+   * @param eventRepository      the student event repository
+   * @param candidateLookupCache       the candidate lookup cache
+   * @param studentDemographicsReplica the student demographics replica
+   * @param mergedStudentResolver      the merged student resolver
    */
   @Autowired
-  public JetStreamEventHandlerService(final PENMatchEventRepository eventRepository) {
+  public JetStreamEventHandlerService(final PENMatchEventRepository eventRepository, final CandidateLookupCache candidateLookupCache, final StudentDemographicsReplica studentDemographicsReplica, final MergedStudentResolver mergedStudentResolver) {
     this.eventRepository = eventRepository;
+    this.candidateLookupCache = candidateLookupCache;
+    this.studentDemographicsReplica = studentDemographicsReplica;
+    this.mergedStudentResolver = mergedStudentResolver;
   }
 
   /**
@@ -52,4 +83,55 @@ public class JetStreamEventHandlerService {
       }
     }
   }
+
+  /**
+   * Handle student event, applying the change to the student demographics replica and evicting the cached candidate
+   * lookups the changed student could be part of, and the cached merged student mappings of the students changed,
+   * merged or demerged.
+   *
+   * @param choreographedEvent the choreographed event
+   * @param publishedAt        the time the event was published
+   * @throws JsonProcessingException the json processing exception
+   */
+  public void handleStudentEvent(final ChoreographedEvent choreographedEvent, final ZonedDateTime publishedAt) throws JsonProcessingException {
+    if (choreographedEvent == null || choreographedEvent.getEventType() == null) {
+      return;
+    }
+    switch (choreographedEvent.getEventType()) {
+      case CREATE_STUDENT:
+      case UPDATE_STUDENT:
+        final StudentEntity student = JsonUtil.getJsonObjectFromString(StudentEntity.class, choreographedEvent.getEventPayload());
+        this.studentDemographicsReplica.apply(student, publishedAt);
+        this.candidateLookupCache.invalidate(student);
+        this.mergedStudentResolver.invalidate(this.getStudentID(student));
+        break;
+      case DELETE_STUDENT:
+        final StudentEntity deletedStudent = JsonUtil.getJsonObjectFromString(StudentEntity.class, choreographedEvent.getEventPayload());
+        this.studentDemographicsReplica.remove(deletedStudent.getStudentID());
+        this.candidateLookupCache.invalidate(deletedStudent);
+        this.mergedStudentResolver.invalidate(this.getStudentID(deletedStudent));
+        break;
+      case CREATE_MERGE:
+      case DELETE_MERGE:
+        final List<StudentMergeEntity> merges = JsonUtil.objectMapper.readValue(choreographedEvent.getEventPayload(), new TypeReference<>() {
+        });
+        for (final StudentMergeEntity merge : merges) {
+          this.mergedStudentResolver.invalidate(merge.getStudentID());
+          this.mergedStudentResolver.invalidate(merge.getMergeStudentID());
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Gets the student id of a student event payload.
+   *
+   * @param student the student
+   * @return the student id
+   */
+  private String getStudentID(final StudentEntity student) {
+    return student.getStudentID() == null ? null : student.getStudentID().toString();
+  }
 }
@@ -1,25 +1,28 @@
 package ca.bc.gov.educ.api.penmatch.service.v1.match;
 
 import ca.bc.gov.educ.api.penmatch.compare.NewPenMatchComparator;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.constants.PenMatchPhase;
 import ca.bc.gov.educ.api.penmatch.constants.PenStatus;
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
+import ca.bc.gov.educ.api.penmatch.lookup.NicknameGroup;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupContext;
 import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupManager;
-import ca.bc.gov.educ.api.penmatch.model.v1.NicknameEntity;
-import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenConfirmationResult;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchCandidate;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchResult;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchTimings;
 import ca.bc.gov.educ.api.penmatch.struct.v1.newmatch.*;
 import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
+import ca.bc.gov.educ.api.penmatch.util.MatchCodeUtils;
 import ca.bc.gov.educ.api.penmatch.util.PenMatchUtils;
-import com.google.common.base.Stopwatch;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +44,10 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * The constant MIN_SURNAME_COMPARE_SIZE.
    */
   public static final int MIN_SURNAME_COMPARE_SIZE = 5;
+  /**
+   * The constant MAX_MATCHING_RECORDS.
+   */
+  public static final int MAX_MATCHING_RECORDS = 20;
   /**
    * The constant MERGED.
    */
@@ -59,14 +66,28 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    */
   private final PenMatchLookupManager lookupManager;
 
+  /**
+   * The Application properties.
+   */
+  private final ApplicationProperties applicationProperties;
+
+  /**
+   * The Pen match metrics.
+   */
+  private final PenMatchMetrics penMatchMetrics;
+
   /**
    * Instantiates a new New pen match service.
    *
-   * @param lookupManager the lookup manager
+   * @param lookupManager         the lookup manager
+   * @param applicationProperties the application properties
+   * @param penMatchMetrics       the pen match metrics
    */
   @Autowired
-  public NewPenMatchService(PenMatchLookupManager lookupManager) {
+  public NewPenMatchService(PenMatchLookupManager lookupManager, ApplicationProperties applicationProperties, PenMatchMetrics penMatchMetrics) {
     this.lookupManager = lookupManager;
+    this.applicationProperties = applicationProperties;
+    this.penMatchMetrics = penMatchMetrics;
     this.setOverrideCodes();
   }
 
@@ -129,7 +150,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * @return the pen match names
    */
   public NewPenMatchNames formatNamesFromMaster(PenMasterRecord master) {
-    var stopwatch = Stopwatch.createStarted();
     if (log.isDebugEnabled()) {
       log.debug(" input :: PenMasterRecord={}", JsonUtil.getJsonPrettyStringFromObject(master));
     }
@@ -138,10 +158,8 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     String given = master.getGiven();
     String usualGiven = master.getUsualGivenName();
     String middle = master.getMiddle();
-    NewPenMatchNames penMatchTransactionNames = formatNames(surname, usualSurname, given, middle, usualGiven);
+    NewPenMatchNames penMatchTransactionNames = PenMatchUtils.formatNames(surname, usualSurname, given, middle, usualGiven);
 
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: formatNamesFromMaster :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     return penMatchTransactionNames;
   }
 
@@ -149,12 +167,43 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * This is the main method to match a student
    */
   public PenMatchResult matchStudent(NewPenMatchStudentDetail student, UUID correlationID) {
-    var stopwatch = Stopwatch.createStarted();
+    return matchStudent(student, new PenMatchLookupContext(lookupManager, correlationID));
+  }
+
+  /**
+   * Match a student, reusing the lookups already done for the same match by the old algorithm.
+   *
+   * @param student       the student
+   * @param lookupContext the lookup context
+   * @return the pen match result
+   */
+  public PenMatchResult matchStudent(NewPenMatchStudentDetail student, PenMatchLookupContext lookupContext) {
     log.debug("Started new match");
     if (log.isDebugEnabled()) {
       log.debug(" input :: PenMatchStudentDetail={}", JsonUtil.getJsonPrettyStringFromObject(student));
     }
-    NewPenMatchSession session = initialize(student, correlationID);
+    PenMatchTimings timings = penMatchMetrics.start(PenMatchMetrics.NEW_ALGORITHM);
+    try {
+      return matchStudent(student, lookupContext, timings);
+    } catch (RuntimeException e) {
+      penMatchMetrics.abandon(timings);
+      throw e;
+    }
+  }
+
+  /**
+   * Match a student, timing the match.
+   *
+   * @param student       the student
+   * @param lookupContext the lookup context
+   * @param timings       the timings
+   * @return the pen match result
+   */
+  private PenMatchResult matchStudent(NewPenMatchStudentDetail student, PenMatchLookupContext lookupContext, PenMatchTimings timings) {
+    long initializeStart = timings.start();
+    NewPenMatchSession session = initialize(student, lookupContext);
+    session.setTimings(timings);
+    timings.stop(PenMatchPhase.INITIALIZE, initializeStart);
 
     PenConfirmationResult confirmationResult = new PenConfirmationResult();
     confirmationResult.setDeceased(false);
@@ -164,7 +213,10 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     }
     if (validCheckDigit) {
       // Attempt to confirm a supplied PEN
+      prefetchDemographicCandidates(student, session);
+      long confirmStart = timings.start();
       confirmationResult = confirmPEN(student, session);
+      timings.stop(PenMatchPhase.CONFIRM_PEN, confirmStart);
     }
 
     if (PenConfirmationResult.PEN_CONFIRMED.equals(confirmationResult.getPenConfirmationResultCode())) {
@@ -215,7 +267,9 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
           //Invalid PEN Supplied
           session.setPenStatus(PenStatus.CM.getValue());
         }
+        long selectionStart = timings.start();
         determineBestMatch(session);
+        timings.stop(PenMatchPhase.BEST_MATCH_SELECTION, selectionStart);
       } else {
         //! Assign a new PEN if there were no matches and the flag was passed to assign
         //! new PENS (not just lookup mode) (NO LONGER DONE HERE - NEW PENS NOW ASSIGNED
@@ -248,8 +302,7 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     if (log.isDebugEnabled()) {
       log.debug(" output :: NewPenMatchResult={}", JsonUtil.getJsonPrettyStringFromObject(result));
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: matchStudent :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    penMatchMetrics.record(timings, result.getPenStatus());
     return result;
   }
 
@@ -265,15 +318,9 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * @param session the session
    */
   private void findMatchesByDemog(NewPenMatchStudentDetail student, NewPenMatchSession session) {
-    var stopwatch = Stopwatch.createStarted();
-    boolean useGiven = setPartials(student);
-
-    if (useGiven) {
-      lookupByDobSurnameGiven(student, session);
-    } else {
-      lookupByDobSurname(student, session);
-    }
+    lookupByDemog(student, session, getDemographicLookupKey(student));
 
+    long selectionStart = session.getTimings().start();
     //Post-match overrides
     if (session.getMatchingRecordsList().size() == 1 && student.getApplicationCode() != null && student.getApplicationCode().equals("SLD")) {
       oneMatchOverrides(student, session);
@@ -284,8 +331,7 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     }
 
     appendOldF1(student, session);
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: findMatchesByDemog :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    session.getTimings().stop(PenMatchPhase.BEST_MATCH_SELECTION, selectionStart);
   }
 
   /**
@@ -327,29 +373,29 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * ! Determine if the match is a Pass or Fail
    * !---------------------------------------------------------------------------
    *
-   * @param student      the student
-   * @param masterRecord the master record
-   * @param session      the session
+   * @param student   the student
+   * @param candidate the candidate
+   * @param session   the session
    */
-  private void determineIfMatch(NewPenMatchStudentDetail student, PenMasterRecord masterRecord, NewPenMatchSession session) {
-    var stopwatch = Stopwatch.createStarted();
+  private void determineIfMatch(NewPenMatchStudentDetail student, PenMatchCandidate candidate, NewPenMatchSession session) {
+    PenMasterRecord masterRecord = candidate.getMasterRecord();
     if (log.isDebugEnabled()) {
       log.debug(" input :: NewPenMatchStudentDetail={} PenMasterRecord={} NewPenMatchSession={}", JsonUtil.getJsonPrettyStringFromObject(student), JsonUtil.getJsonPrettyStringFromObject(masterRecord), JsonUtil.getJsonPrettyStringFromObject(session));
     }
-    String matchCode = determineMatchCode(student, masterRecord, false);
+    int matchCode = determineMatchCode(student, masterRecord, candidate.getNewMatchMasterNames(), false);
 
     //Lookup Result
     String matchResult = lookupManager.lookupMatchResult(matchCode);
 
     //Apply overrides to Questionable Match
     if ("Q".equals(matchResult) && "SLD".equals(student.getApplicationCode())) {
-      matchResult = matchOverrides(student, masterRecord, matchCode, matchResult);
+      matchResult = matchOverrides(student, candidate, MatchCodeUtils.toString(matchCode), matchResult);
     }
 
     //Store PEN, match code and result in table (except if Fail)
-    if (!"F".equals(matchResult) && session.getMatchingRecordsList().size() < 20) {
+    if (!"F".equals(matchResult) && session.getMatchingRecordsList().size() < MAX_MATCHING_RECORDS) {
       if (!"D".equals(masterRecord.getStatus())) {
-        session.getMatchingRecordsList().add(new NewPenMatchRecord(matchResult, matchCode, masterRecord.getPen().trim(), masterRecord.getStudentID()));
+        session.getMatchingRecordsList().add(new NewPenMatchRecord(matchResult, MatchCodeUtils.toString(matchCode), masterRecord.getPen().trim(), masterRecord.getStudentID()));
       } else {
         session.setPenStatus(PenStatus.C0.getValue());
       }
@@ -357,46 +403,64 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     if (log.isDebugEnabled()) {
       log.debug(" input :: NewPenMatchStudentDetail={} PenMasterRecord={} NewPenMatchSession={}", JsonUtil.getJsonPrettyStringFromObject(student), JsonUtil.getJsonPrettyStringFromObject(masterRecord), JsonUtil.getJsonPrettyStringFromObject(session));
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: determineIfMatch :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
   }
 
   /**
    * !---------------------------------------------------------------------------
-   * ! Read Pen master by BIRTH DATE or (SURNAME AND GIVEN NAME)
-   * !                               or (MINCODE and LOCAL ID)
+   * ! Read Pen master by BIRTH DATE or SURNAME (AND GIVEN NAME when the surname
+   * ! is frequent) or (MINCODE and LOCAL ID)
    * !---------------------------------------------------------------------------
+   * Once the matching records list is full no later candidate can change the
+   * result, so the candidates stop being read. The pages of candidates are read
+   * between the candidates scored, so the fetch time is the time of the whole
+   * lookup less the scoring time.
    *
    * @param student the student
    * @param session the session
+   * @param key     the lookup key
    */
-  private void lookupByDobSurname(NewPenMatchStudentDetail student, NewPenMatchSession session) {
-    var stopwatch = Stopwatch.createStarted();
-    List<StudentEntity> penDemogList = lookupManager.lookupNoInit(student.getDob(), student.getPartialStudentSurname(),student.getMincode(), student.getLocalID(), session.getCorrelationID());
-    for (StudentEntity entity : penDemogList) {
-      determineIfMatch(student, PenMatchUtils.convertStudentEntityToPenMasterRecord(entity), session);
-    }
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: lookupByDobSurname :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+  private void lookupByDemog(NewPenMatchStudentDetail student, NewPenMatchSession session, CandidateLookupKey key) {
+    PenMatchTimings timings = session.getTimings();
+    long scoringBefore = timings.getNanos(PenMatchPhase.CANDIDATE_SCORING);
+    long fetchStart = timings.start();
+    session.getLookupContext().forEachCandidate(key, entity -> {
+      long scoringStart = timings.start();
+      determineIfMatch(student, session.getLookupContext().lookupPenMatchCandidate(entity), session);
+      timings.stop(PenMatchPhase.CANDIDATE_SCORING, scoringStart);
+      timings.candidateScored();
+      return session.getMatchingRecordsList().size() < MAX_MATCHING_RECORDS;
+    });
+    timings.stop(PenMatchPhase.CANDIDATE_FETCH, fetchStart + timings.getNanos(PenMatchPhase.CANDIDATE_SCORING) - scoringBefore);
   }
 
+  /**
+   * Gets the key of the demographic lookup for the student, setting the partial names it is built from.
+   *
+   * @param student the student
+   * @return the candidate lookup key
+   */
+  private CandidateLookupKey getDemographicLookupKey(NewPenMatchStudentDetail student) {
+    if (setPartials(student)) {
+      return CandidateLookupKey.withAllParts(student.getDob(), student.getPartialStudentSurname(), student.getPartialStudentGiven(), student.getMincode(), student.getLocalID());
+    }
+    return CandidateLookupKey.noInit(student.getDob(), student.getPartialStudentSurname(), student.getMincode(), student.getLocalID());
+  }
 
   /**
-   * !---------------------------------------------------------------------------
-   * ! Read Pen master by BIRTH DATE or SURNAME or (MINCODE and LOCAL ID)
-   * !---------------------------------------------------------------------------
+   * While the supplied PEN is being looked up, run the demographic search that an unconfirmed PEN falls back to, so
+   * the confirmation and the search do not wait for two student api round trips in a row. Not done when candidate
+   * searches are paged, as the prefetched full list would defeat the memory bound of the paged search.
    *
    * @param student the student
    * @param session the session
    */
-  private void lookupByDobSurnameGiven(NewPenMatchStudentDetail student, NewPenMatchSession session) {
-    var stopwatch = Stopwatch.createStarted();
-    List<StudentEntity> penDemogList = lookupManager.lookupWithAllParts(student.getDob(), student.getPartialStudentSurname(), student.getPartialStudentGiven(),student.getMincode(), student.getLocalID(), session.getCorrelationID());
-    for (StudentEntity entity : penDemogList) {
-      determineIfMatch(student, PenMatchUtils.convertStudentEntityToPenMasterRecord(entity), session);
+  private void prefetchDemographicCandidates(NewPenMatchStudentDetail student, NewPenMatchSession session) {
+    if (applicationProperties.isPenMatchParallelConfirmationEnabled() && !applicationProperties.isCandidateSearchPagedEnabled()
+        && session.getLookupContext().prefetchStudentByPEN(student.getPen())) {
+      long fetchStart = session.getTimings().start();
+      session.getLookupContext().lookupCandidates(getDemographicLookupKey(student));
+      session.getTimings().stop(PenMatchPhase.CANDIDATE_FETCH, fetchStart);
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: lookupByDobSurnameGiven :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
   }
 
   /**
@@ -409,7 +473,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * @param session the session
    */
   private void oneMatchOverrides(NewPenMatchStudentDetail student, NewPenMatchSession session) {
-    var stopwatch = Stopwatch.createStarted();
     //! 1 match and matched PEN is F1 PEN from the Old PEN Match
     NewPenMatchRecord matchRecord = session.getMatchingRecordsList().get(0);
     if (matchRecord.getMatchResult().equals("Q")) {
@@ -425,24 +488,22 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
         matchRecord.setMatchCode("P");
       }
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: oneMatchOverrides :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
   }
 
   /**
    * Initialize the student record and variables (will be refactored)
    *
    * @param student       the student
-   * @param correlationID the correlation id
+   * @param lookupContext the lookup context
    * @return the new pen match session
    */
-  private NewPenMatchSession initialize(NewPenMatchStudentDetail student, UUID correlationID) {
-    var stopwatch = Stopwatch.createStarted();
+  private NewPenMatchSession initialize(NewPenMatchStudentDetail student, PenMatchLookupContext lookupContext) {
     if (log.isDebugEnabled()) {
       log.debug(" input :: NewPenMatchStudentDetail={}", JsonUtil.getJsonPrettyStringFromObject(student));
     }
     NewPenMatchSession session = new NewPenMatchSession();
-    session.setCorrelationID(correlationID);
+    session.setCorrelationID(lookupContext.getCorrelationID());
+    session.setLookupContext(lookupContext);
 
     if (StringUtils.length(student.getMincode()) > 2 && student.getMincode().startsWith("102")) {
       session.setPSI(true);
@@ -470,30 +531,28 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     // there is a perfect match on surname
     int partialSurnameFrequency;
     String fullStudentSurname = student.getSurname();
-    int fullSurnameFrequency = lookupManager.lookupSurnameFrequency(fullStudentSurname);
+    int fullSurnameFrequency = lookupContext.lookupSurnameFrequency(fullStudentSurname);
 
     if (fullSurnameFrequency > VERY_FREQUENT) {
       partialSurnameFrequency = fullSurnameFrequency;
     } else {
       fullStudentSurname = student.getSurname().substring(0, student.getMinSurnameSearchSize());
-      partialSurnameFrequency = lookupManager.lookupSurnameFrequency(fullStudentSurname);
+      partialSurnameFrequency = lookupContext.lookupSurnameFrequency(fullStudentSurname);
     }
 
     student.setFullSurnameFrequency(fullSurnameFrequency);
     student.setPartialSurnameFrequency(partialSurnameFrequency);
 
     if (student.getGivenName() != null) {
-      student.setGivenNameNicknames(lookupManager.lookupNicknamesOnly(PenMatchUtils.replaceHyphensWithBlank(student.getGivenName())));
+      student.setGivenNameNicknames(lookupManager.lookupNicknameGroup(PenMatchUtils.replaceHyphensWithBlank(student.getGivenName())));
     }
 
     if (student.getMiddleName() != null) {
-      student.setMiddleNameNicknames(lookupManager.lookupNicknamesOnly(PenMatchUtils.replaceHyphensWithBlank(student.getMiddleName())));
+      student.setMiddleNameNicknames(lookupManager.lookupNicknameGroup(PenMatchUtils.replaceHyphensWithBlank(student.getMiddleName())));
     }
     if (log.isDebugEnabled()) {
       log.debug(" output :: NewPenMatchSession={}", JsonUtil.getJsonPrettyStringFromObject(session));
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match  :: initialize :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     return session;
   }
 
@@ -504,7 +563,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * @return the pen match names
    */
   private NewPenMatchNames formatNamesFromTransaction(NewPenMatchStudentDetail student) {
-    var stopwatch = Stopwatch.createStarted();
     if (log.isDebugEnabled()) {
       log.debug(" input :: NewPenMatchStudentDetail={}", JsonUtil.getJsonPrettyStringFromObject(student));
     }
@@ -513,31 +571,7 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     String given = student.getGivenName();
     String middle = student.getMiddleName();
     String usualGiven = student.getUsualGivenName();
-    NewPenMatchNames penMatchTransactionNames = formatNames(surname, usualSurname, given, middle, usualGiven);
-
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: formatNamesFromTransaction :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
-    return penMatchTransactionNames;
-  }
-
-  private NewPenMatchNames formatNames(String surname, String usualSurname, String given, String middle, String usualGiven){
-    NewPenMatchNames penMatchTransactionNames = new NewPenMatchNames();
-
-    penMatchTransactionNames.setLegalSurname(surname);
-    penMatchTransactionNames.setLegalGiven(given);
-    penMatchTransactionNames.setLegalMiddle(middle);
-    penMatchTransactionNames.setUsualSurname(usualSurname);
-    penMatchTransactionNames.setUsualGiven(usualGiven);
-
-    penMatchTransactionNames.setLegalSurnameScrubbed(PenMatchUtils.dropNonLetters(surname));
-    penMatchTransactionNames.setLegalGivenScrubbed((PenMatchUtils.dropNonLetters(given)));
-    penMatchTransactionNames.setLegalMiddleScrubbed((PenMatchUtils.dropNonLetters(middle)));
-    penMatchTransactionNames.setUsualSurnameScrubbed((PenMatchUtils.dropNonLetters(usualSurname)));
-    penMatchTransactionNames.setUsualGivenScrubbed((PenMatchUtils.dropNonLetters(usualGiven)));
-
-    penMatchTransactionNames.setLegalMiddleHyphenToBlank((PenMatchUtils.replaceHyphensWithBlank(middle)));
-    penMatchTransactionNames.setLegalSurnameHyphenToBlank((PenMatchUtils.replaceHyphensWithBlank(surname)));
-    penMatchTransactionNames.setLegalGivenHyphenToBlank((PenMatchUtils.replaceHyphensWithBlank(given)));
+    NewPenMatchNames penMatchTransactionNames = PenMatchUtils.formatNames(surname, usualSurname, given, middle, usualGiven);
 
     return penMatchTransactionNames;
   }
@@ -550,7 +584,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * @return the pen confirmation result
    */
   private PenConfirmationResult confirmPEN(NewPenMatchStudentDetail student, NewPenMatchSession session) {
-    var stopwatch = Stopwatch.createStarted();
     if (log.isDebugEnabled()) {
       log.debug(" input :: NewPenMatchStudentDetail={} NewPenMatchSession={}", JsonUtil.getJsonPrettyStringFromObject(student), JsonUtil.getJsonPrettyStringFromObject(session));
     }
@@ -560,20 +593,21 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     String localStudentNumber = student.getPen();
     result.setDeceased(false);
 
-    var masterRecordOptional = lookupManager.lookupStudentByPEN(localStudentNumber, session.getCorrelationID());
+    var masterRecordOptional = session.getLookupContext().lookupStudentByPEN(localStudentNumber);
 
     String studentTrueNumber = null;
-
+    Optional<PenMasterRecord> trueStudentOptional = Optional.empty();
 
     if (masterRecordOptional.isPresent() && MERGED.equals(masterRecordOptional.get().getStatus())) {
-      studentTrueNumber = lookupManager.lookupStudentTruePENNumberByStudentID(masterRecordOptional.get().getStudentID(), session.getCorrelationID());
+      trueStudentOptional = session.getLookupContext().lookupTrueStudent(masterRecordOptional.get());
+      studentTrueNumber = trueStudentOptional.map(PenMasterRecord::getPen).orElse(null);
     }
 
     if (masterRecordOptional.isPresent() && StringUtils.equals(masterRecordOptional.get().getPen(), localStudentNumber)) {
       if (masterRecordOptional.get().getStatus() != null && masterRecordOptional.get().getStatus().equals(MERGED) && studentTrueNumber != null) {
         student.setStudentTrueNumber(studentTrueNumber);
         result.setMergedPEN(studentTrueNumber);
-        masterRecordOptional = lookupManager.lookupStudentByPEN(studentTrueNumber, session.getCorrelationID());
+        masterRecordOptional = trueStudentOptional;
         if (masterRecordOptional.isPresent() && masterRecordOptional.get().getPen() != null && masterRecordOptional.get().getPen().trim().equals(studentTrueNumber)) {
           result.setPenConfirmationResultCode(PenConfirmationResult.PEN_ON_FILE);
         }
@@ -583,19 +617,17 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     }
 
     if (PenConfirmationResult.PEN_ON_FILE.equals(result.getPenConfirmationResultCode()) && masterRecordOptional.isPresent()) {
-      String matchCode = determineMatchCode(student, masterRecordOptional.get(), false);
+      int matchCode = determineMatchCode(student, masterRecordOptional.get(), formatNamesFromMaster(masterRecordOptional.get()), false);
       String matchResult = lookupManager.lookupMatchResult(matchCode);
 
       if (matchResult.equals("P")) {
         result.setPenConfirmationResultCode(PenConfirmationResult.PEN_CONFIRMED);
-        session.getMatchingRecordsList().add(new NewPenMatchRecord(matchResult, matchCode, StringUtils.trimToEmpty(masterRecordOptional.get().getPen()), masterRecordOptional.get().getStudentID()));
+        session.getMatchingRecordsList().add(new NewPenMatchRecord(matchResult, MatchCodeUtils.toString(matchCode), StringUtils.trimToEmpty(masterRecordOptional.get().getPen()), masterRecordOptional.get().getStudentID()));
       }
     }
     if (log.isDebugEnabled()) {
       log.debug(" output :: PenConfirmationResult={} NewPenMatchSession={}", JsonUtil.getJsonPrettyStringFromObject(result), JsonUtil.getJsonPrettyStringFromObject(session));
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match  :: confirmPEN :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     return result;
   }
 
@@ -606,13 +638,11 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    *
    * @param student          the student
    * @param masterRecord     the master record
+   * @param masterNames      the master names, formatted from the master record
    * @param reOrganizedNames the re organized names
-   * @return the string
+   * @return the packed match code, see {@link MatchCodeUtils}
    */
-  private String  determineMatchCode(NewPenMatchStudentDetail student, PenMasterRecord masterRecord, boolean reOrganizedNames) {
-    var stopwatch = Stopwatch.createStarted();
-    NewPenMatchNames masterNames = formatNamesFromMaster(masterRecord);
-
+  int determineMatchCode(NewPenMatchStudentDetail student, PenMasterRecord masterRecord, NewPenMatchNames masterNames, boolean reOrganizedNames) {
     // ! Match surname
     // ! -------------
     // !
@@ -620,7 +650,7 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     // !       1       Identical, Matches usual or partial (plus overrides to value 2)
     // !       2       Different
 
-    String surnameMatchCode;
+    int surnameMatchCode;
     String legalSurname = student.getSurname();
     String usualSurnameNoBlanks = student.getPenMatchTransactionNames().getUsualSurnameScrubbed();
     String legalSurnameNoBlanks = student.getPenMatchTransactionNames().getLegalSurnameScrubbed();
@@ -631,26 +661,26 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
 
     // !   submitted legal surname missing (shouldn't happen)
     if (legalSurname == null) {
-      surnameMatchCode = "2";
+      surnameMatchCode = 2;
     } else if (masterLegalSurnameNoBlanks != null && masterLegalSurnameNoBlanks.equals(legalSurnameNoBlanks)) {
       // !   submitted legal surname equals master legal surname
-      surnameMatchCode = "1";
+      surnameMatchCode = 1;
     } else {
       // !   submitted legal surname is part of master legal surname or vice verse
       String transactionName = legalSurnameHyphenToSpace;
       String masterName = masterLegalSurnameHyphenToSpace;
       if (PenMatchUtils.checkForPartialName(transactionName, masterName)) {
-        surnameMatchCode = "1";
+        surnameMatchCode = 1;
       } else {
-        surnameMatchCode = "2";
+        surnameMatchCode = 2;
       }
     }
 
     //!   Overrides: above resulted in match code 2 and
     //!   (submitted legal surname equals master usual surname or
     //!    submitted usual surname equals master legal surname)
-    if (surnameMatchCode.equals("2") && (legalSurnameNoBlanks != null && legalSurnameNoBlanks.equals(masterUsualSurnameNoBlanks)) || (usualSurnameNoBlanks != null && usualSurnameNoBlanks.equals(masterLegalSurnameNoBlanks))) {
-      surnameMatchCode = "1";
+    if (surnameMatchCode == 2 && (legalSurnameNoBlanks != null && legalSurnameNoBlanks.equals(masterUsualSurnameNoBlanks)) || (usualSurnameNoBlanks != null && usualSurnameNoBlanks.equals(masterLegalSurnameNoBlanks))) {
+      surnameMatchCode = 1;
     }
 
     // ! Match given name
@@ -662,7 +692,7 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     //!       3       Same initial
     //
     //!   submitted legal given name missing (shouldn't happen)
-    String givenNameMatchCode;
+    int givenNameMatchCode;
     String legalGiven = PenMatchUtils.checkForValidValue(student.getGivenName());
     String legalGivenNoBlanks = student.getPenMatchTransactionNames().getLegalGivenScrubbed();
     String usualGivenNoBlanks = student.getPenMatchTransactionNames().getUsualGivenScrubbed();
@@ -673,44 +703,36 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     String masterLegalGivenNameHyphenToSpace = masterNames.getLegalGivenHyphenToBlank();
 
     if (legalGiven == null) {
-      givenNameMatchCode = "2";
+      givenNameMatchCode = 2;
     } else if (masterLegalGivenNameNoBlanks != null && masterLegalGivenNameNoBlanks.equals(legalGivenNoBlanks)) {
       // !   submitted legal given name equals master legal given name
-      givenNameMatchCode = "1";
-    } else if ((legalGiven.length() >= 1 && masterLegalGivenName != null && masterLegalGivenName.length() >= 1 && legalGiven.substring(0, 1).equals(masterLegalGivenName.substring(0, 1))) && (masterLegalGivenName.length() == 1 || legalGiven.length() == 1)) {
+      givenNameMatchCode = 1;
+    } else if ((legalGiven.length() >= 1 && masterLegalGivenName != null && masterLegalGivenName.length() >= 1 && legalGiven.charAt(0) == masterLegalGivenName.charAt(0)) && (masterLegalGivenName.length() == 1 || legalGiven.length() == 1)) {
       // !   submitted legal given name starts with the same letter as master legal given
       // !   name and one of the names has only an initial
-      givenNameMatchCode = "3";
+      givenNameMatchCode = 3;
     } else {
       // !   submitted legal given name is part of master legal given name or vice verse
       String transactionName = legalGivenHyphenToSpace;
       String masterName = masterLegalGivenNameHyphenToSpace;
       if (PenMatchUtils.checkForPartialName(transactionName, masterName) && !reOrganizedNames) {
-        givenNameMatchCode = "1";
+        givenNameMatchCode = 1;
       } else {
         // !   submitted legal given name is a nickname of master legal given name or vice
         // !   verse
         transactionName = legalGivenHyphenToSpace;
         masterName = masterLegalGivenNameHyphenToSpace;
 
-        List<NicknameEntity> nicknamesEntities = student.getGivenNameNicknames();
+        NicknameGroup nicknameGroup = student.getGivenNameNicknames();
 
         if (reOrganizedNames) {
-          nicknamesEntities = lookupManager.lookupNicknamesOnly(transactionName);
-        }
-
-        boolean nicknameMasterMatchFound = false;
-        for (NicknameEntity entity : nicknamesEntities) {
-          if (StringUtils.trim(entity.getNickname1()).equals(masterLegalGivenNameHyphenToSpace) || StringUtils.trim(entity.getNickname2()).equals(masterLegalGivenNameHyphenToSpace)) {
-            nicknameMasterMatchFound = true;
-            break;
-          }
+          nicknameGroup = lookupManager.lookupNicknameGroup(transactionName);
         }
 
-        if (nicknameMasterMatchFound) {
-          givenNameMatchCode = "1";
+        if (nicknameGroup.contains(masterLegalGivenNameHyphenToSpace)) {
+          givenNameMatchCode = 1;
         } else {
-          givenNameMatchCode = "2";
+          givenNameMatchCode = 2;
         }
       }
     }
@@ -718,9 +740,9 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     // !  Overrides: above resulted in surname match code 1 and given name match code 2
     // !  and (submitted legal given name equals master usual given name or
     // !       submitted usual given name equals master legal given name)
-    if (surnameMatchCode.equals("1") && givenNameMatchCode.equals("2")) {
+    if (surnameMatchCode == 1 && givenNameMatchCode == 2) {
       if ((legalGivenNoBlanks != null && legalGivenNoBlanks.equals(masterUsualGivenNameNoBlanks)) || (usualGivenNoBlanks != null && usualGivenNoBlanks.equals(masterLegalGivenNameNoBlanks))) {
-        givenNameMatchCode = "1";
+        givenNameMatchCode = 1;
       }
     }
 
@@ -732,7 +754,7 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     //!       2       Different
     //!       3       Same initial, one letter typo or one missing
     //!       4       Both missing
-    String middleNameMatchCode;
+    int middleNameMatchCode;
     String legalMiddle = PenMatchUtils.checkForValidValue(student.getMiddleName());
     String legalMiddleNoBlanks = student.getPenMatchTransactionNames().getLegalMiddleScrubbed();
     String legalMiddleHyphenToSpace = student.getPenMatchTransactionNames().getLegalMiddleHyphenToBlank();
@@ -742,54 +764,46 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
 
     // !   submitted legal middle name and master legal middle name are both blank
     if (legalMiddle == null && masterRecord.getMiddle() == null) {
-      middleNameMatchCode = "4";
+      middleNameMatchCode = 4;
     } else if (legalMiddle == null || masterRecord.getMiddle() == null) {
       // !   submitted legal middle name or master legal middle is blank (not both)
-      middleNameMatchCode = "3";
+      middleNameMatchCode = 3;
     } else if (legalMiddleNoBlanks != null && legalMiddleNoBlanks.equals(masterLegalMiddleNameNoBlanks)) {
       // !   submitted legal middle name equals master legal middle name
-      middleNameMatchCode = "1";
-    } else if ((legalMiddle != null && legalMiddle.length() >= 1 && masterLegalMiddleName != null && masterLegalMiddleName.length() >= 1 && legalMiddle.substring(0, 1).equals(masterLegalMiddleName.substring(0, 1))) && (masterLegalMiddleName.length() == 1 || legalMiddle.length() == 1)) {
+      middleNameMatchCode = 1;
+    } else if ((legalMiddle != null && legalMiddle.length() >= 1 && masterLegalMiddleName != null && masterLegalMiddleName.length() >= 1 && legalMiddle.charAt(0) == masterLegalMiddleName.charAt(0)) && (masterLegalMiddleName.length() == 1 || legalMiddle.length() == 1)) {
       //!   submitted legal middle name starts with the same letter as master legal
       //!   middle name and one of the names has only an initial
-      middleNameMatchCode = "3";
+      middleNameMatchCode = 3;
     } else {
       //!   submitted legal middle name differs from master legal middle name by only
       //!   one character and both names are at least 5 characters long
       String transactionName = legalMiddleNoBlanks;
       String masterName = masterLegalMiddleNameNoBlanks;
       if (oneCharTypo(transactionName, masterName)) {
-        middleNameMatchCode = "3";
+        middleNameMatchCode = 3;
       } else {
         // !   submitted legal Middle name is part of master legal Middle name or vice verse
         transactionName = legalMiddleHyphenToSpace;
         masterName = masterLegalMiddleNameHyphenToSpace;
         if (PenMatchUtils.checkForPartialName(transactionName, masterName) && !reOrganizedNames) {
-          middleNameMatchCode = "1";
+          middleNameMatchCode = 1;
         } else {
           // !   submitted legal Middle name is a nickname of master legal Middle name or vice
           // !   verse
           transactionName = legalMiddleHyphenToSpace;
           masterName = masterLegalMiddleNameHyphenToSpace;
 
-          List<NicknameEntity> nicknamesEntities = student.getMiddleNameNicknames();
+          NicknameGroup nicknameGroup = student.getMiddleNameNicknames();
 
           if (reOrganizedNames) {
-            nicknamesEntities = lookupManager.lookupNicknamesOnly(transactionName);
-          }
-
-          boolean nicknameMasterMatchFound = false;
-          for (NicknameEntity entity : nicknamesEntities) {
-            if (entity.getNickname1().equals(masterLegalGivenNameHyphenToSpace) || entity.getNickname2().equals(masterLegalGivenNameHyphenToSpace)) {
-              nicknameMasterMatchFound = true;
-              break;
-            }
+            nicknameGroup = lookupManager.lookupNicknameGroup(transactionName);
           }
 
-          if (nicknameMasterMatchFound) {
-            middleNameMatchCode = "1";
+          if (nicknameGroup.contains(masterLegalGivenNameHyphenToSpace)) {
+            middleNameMatchCode = 1;
           } else {
-            middleNameMatchCode = "2";
+            middleNameMatchCode = 2;
           }
         }
       }
@@ -805,64 +819,61 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     //!   submitted birth date matches master
     String studentDob = student.getDob();
     String masterDob = masterRecord.getDob();
-    String yearMatchCode = null;
-    String monthMatchCode = null;
-    String dayMatchCode = null;
+    int yearMatchCode;
+    int monthMatchCode;
+    int dayMatchCode;
 
     if (studentDob != null && studentDob.equals(masterDob)) {
       // !   submitted birth date matches master
-      yearMatchCode = "1";
-      monthMatchCode = "1";
-      dayMatchCode = "1";
-    } else if (studentDob != null && studentDob.length() >= 4 && studentDob.substring(0, 4).equals(masterDob.substring(0, 4))) {
+      yearMatchCode = 1;
+      monthMatchCode = 1;
+      dayMatchCode = 1;
+    } else if (studentDob != null && studentDob.length() >= 4 && studentDob.regionMatches(0, masterDob, 0, 4)) {
       // !   submitted year matches master
-      yearMatchCode = "1";
+      yearMatchCode = 1;
     } else {
-      yearMatchCode = "2";
+      yearMatchCode = 2;
     }
 
     // !   submitted month matches master
-    if (studentDob != null && studentDob.length() >= 6 && studentDob.substring(4, 6).equals(masterDob.substring(4, 6))) {
-      monthMatchCode = "1";
+    if (studentDob != null && studentDob.length() >= 6 && studentDob.regionMatches(4, masterDob, 4, 2)) {
+      monthMatchCode = 1;
     } else {
-      monthMatchCode = "2";
+      monthMatchCode = 2;
     }
 
     // !   submitted day matches master
-    if (studentDob != null && studentDob.length() >= 8 && studentDob.substring(6, 8).equals(masterDob.substring(6, 8))) {
-      dayMatchCode = "1";
+    if (studentDob != null && studentDob.length() >= 8 && studentDob.regionMatches(6, masterDob, 6, 2)) {
+      dayMatchCode = 1;
     } else {
-      dayMatchCode = "2";
+      dayMatchCode = 2;
     }
 
-    String birthdayMatchCode = yearMatchCode + monthMatchCode + dayMatchCode;
+    int birthdayMatchCode = yearMatchCode * 100 + monthMatchCode * 10 + dayMatchCode;
 
     //!   Override:
     //!   only submitted year didn't match master but the last 2 digits are transposed
-    if (birthdayMatchCode.equals("211")) {
-      String tempDobYear = studentDob.substring(3, 4) + studentDob.substring(2, 3);
-      if (tempDobYear.equals(masterDob.substring(2, 4))) {
-        yearMatchCode = "1";
+    if (birthdayMatchCode == 211) {
+      if (isTransposed(studentDob, masterDob, 2)) {
+        yearMatchCode = 1;
       }
-    } else if (birthdayMatchCode.equals("121")) {
+    } else if (birthdayMatchCode == 121) {
       // !   Override:
       // !   only submitted month didn't match master but the last 2 digits are transposed
-      String tempDobMonth = studentDob.substring(5, 6) + studentDob.substring(4, 5);
-      if (tempDobMonth.equals(masterDob.substring(4, 6))) {
-        monthMatchCode = "1";
+      if (isTransposed(studentDob, masterDob, 4)) {
+        monthMatchCode = 1;
       }
-    } else if (birthdayMatchCode.equals("112")) {
+    } else if (birthdayMatchCode == 112) {
       // !   Override:
       // !   only submitted day didn't match master but the last 2 digits are transposed
-      String tempDobDay = studentDob.substring(7, 8) + studentDob.substring(6, 7);
-      if (tempDobDay.equals(masterDob.substring(6, 8))) {
-        dayMatchCode = "1";
+      if (isTransposed(studentDob, masterDob, 6)) {
+        dayMatchCode = 1;
       }
-    } else if (birthdayMatchCode.equals("122") && studentDob.substring(4, 6).equals(masterDob.substring(6, 8)) && studentDob.substring(6, 8).equals(masterDob.substring(4, 6))) {
+    } else if (birthdayMatchCode == 122 && studentDob.regionMatches(4, masterDob, 6, 2) && studentDob.regionMatches(6, masterDob, 4, 2)) {
       // !   Override:
       // !   Year matched master but month and day did not and they are transposed
-      monthMatchCode = "1";
-      dayMatchCode = "1";
+      monthMatchCode = 1;
+      dayMatchCode = 1;
     }
 
     // ! Match gender
@@ -871,18 +882,28 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     // ! Possible Values for GENDER_MATCH_CODE:
     // !       1       Identical
     // !       2       Different
-    String genderMatchCode;
+    int genderMatchCode;
     String studentSex = student.getSex();
     String masterSex = masterRecord.getSex();
 
     if (studentSex != null && studentSex.equals(masterSex)) {
-      genderMatchCode = "1";
+      genderMatchCode = 1;
     } else {
-      genderMatchCode = "2";
+      genderMatchCode = 2;
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match  :: determineMatchCode :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
-    return surnameMatchCode + givenNameMatchCode + middleNameMatchCode + yearMatchCode + monthMatchCode + dayMatchCode + genderMatchCode;
+    return MatchCodeUtils.pack(surnameMatchCode, givenNameMatchCode, middleNameMatchCode, yearMatchCode, monthMatchCode, dayMatchCode, genderMatchCode);
+  }
+
+  /**
+   * Whether the two digits of the submitted birth date at the offset are the master's two digits transposed
+   *
+   * @param studentDob the student dob
+   * @param masterDob  the master dob
+   * @param offset     the offset of the two digits
+   * @return the boolean
+   */
+  private boolean isTransposed(String studentDob, String masterDob, int offset) {
+    return studentDob.charAt(offset + 1) == masterDob.charAt(offset) && studentDob.charAt(offset) == masterDob.charAt(offset + 1);
   }
 
   /**
@@ -896,7 +917,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * @return the boolean
    */
   public boolean oneCharTypo(String transactionName, String masterName) {
-    var stopwatch = Stopwatch.createStarted();
     int transactionNameLength = transactionName.length();
     int masterNameLength = masterName.length();
 
@@ -950,8 +970,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
       }
 
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match  :: oneCharTypo :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     return false;
   }
 
@@ -962,22 +980,22 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * !---------------------------------------------------------------------------
    *
    * @param student        the student
-   * @param masterRecord   the master record
+   * @param candidate      the candidate
    * @param matchCode      the match code
    * @param curMatchResult the cur match result
    * @return the string
    */
-  private String matchOverrides(NewPenMatchStudentDetail student, PenMasterRecord masterRecord, String matchCode, String curMatchResult) {
-    var stopwatch = Stopwatch.createStarted();
+  private String matchOverrides(NewPenMatchStudentDetail student, PenMatchCandidate candidate, String matchCode, String curMatchResult) {
+    PenMasterRecord masterRecord = candidate.getMasterRecord();
     String matchResult = curMatchResult;
     //!   Combine given and middle names and re-calculate match code
     if (matchCode.equals("1131211") || matchCode.equals("1131221") || matchCode.equals("1132111") || matchCode.equals("1231111") && (student.getMiddleName() != null || masterRecord.getMiddle() != null)) {
-      concatenateNamesAndRecalc(student, masterRecord);
+      concatenateNamesAndRecalc(student, candidate);
     }
 
     //!   Switch given and middle names and re-calculate match code
     if (matchCode.equals("1221111") && (student.getMiddleName() != null && masterRecord.getMiddle() != null)) {
-      NewPenMatchNameChangeResult switchNamesResult = switchNamesAndRecalc(student, masterRecord);
+      NewPenMatchNameChangeResult switchNamesResult = switchNamesAndRecalc(student, candidate);
       if (switchNamesResult != null) {
         matchCode = switchNamesResult.getMatchCode();
         matchResult = switchNamesResult.getMatchResult();
@@ -1039,8 +1057,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
         }
       }
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match  :: matchOverrides :: in  {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     return matchResult;
   }
 
@@ -1054,7 +1070,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * @param session the session
    */
   public void changeResultFromQtoF(NewPenMatchStudentDetail student, NewPenMatchSession session) {
-    var stopwatch = Stopwatch.createStarted();
     //!   Change result from Questionable to Fail
     //!   Remove codes from the array if result is Fail
     var filteredList = session.getMatchingRecordsList().stream().filter(el -> !("Q".equals(el.getMatchResult()) && ("1241112".equals(el.getMatchCode()) || "2132111".equals(el.getMatchCode())))).collect(Collectors.toList());
@@ -1067,8 +1082,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
         record.setMatchResult("Q");
       }
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match  :: changeResultFromQtoF :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
   }
 
 
@@ -1084,7 +1097,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * @param session the session
    */
   private void appendOldF1(NewPenMatchStudentDetail student, NewPenMatchSession session) {
-    var stopwatch = Stopwatch.createStarted();
     boolean penF1Found;
     if (student.getOldMatchF1PEN() != null) {
       penF1Found = false;
@@ -1098,13 +1110,11 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
         }
       }
       if (!penF1Found) {
-        if (session.getMatchingRecordsList().size() < 20) {
+        if (session.getMatchingRecordsList().size() < MAX_MATCHING_RECORDS) {
           session.getMatchingRecordsList().add(new NewPenMatchRecord("Q", "Old F1", student.getOldMatchF1PEN(), student.getOldMatchF1StudentID()));
         }
       }
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: appendOldF1 ::in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
   }
 
   /**
@@ -1131,44 +1141,21 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * ! value. This allows us to loop through all found Match Codes calculating the
    * ! concatenated value and saving it and the applicable Match Code/PEN whenever
    * ! the concatenated value is less than the previously saved value.
+   * ! The concatenated value is computed arithmetically from the packed match code.
    * !---------------------------------------------------------------------------
    *
    * @param session the session
    */
   private void determineBestMatch(NewPenMatchSession session) {
-    var stopwatch = Stopwatch.createStarted();
     for (NewPenMatchRecord record : session.getMatchingRecordsList()) {
       String matchCode = record.getMatchCode();
-      if (matchCode != null && !matchCode.equals("Old F1")) {
-        int sumMatchCode = getSumOfMatchCode(matchCode);
-        String sumMatchCodeString = Integer.toString(sumMatchCode);
-        if (sumMatchCode < 10) {
-          sumMatchCodeString = "0" + sumMatchCodeString;
-        }
-
-        int num1 = 0;
-        int num2 = 0;
-        int num3 = 0;
-
-        for (int i = 0; i < matchCode.length(); i++) {
-          if (matchCode.charAt(i) == '1') {
-            num1 = num1 + 1;
-          } else if (matchCode.charAt(i) == '2') {
-            num2 = num2 + 2;
-          } else if (matchCode.charAt(i) == '3') {
-            num3 = num3 + 3;
-          }
-        }
-
-        String concatValue = sumMatchCodeString + (7 - num1) + (7 - num2) + (7 - num3) + matchCode;
-
-        session.getMatchingRecordsQueue().add(new BestMatchRecord(Long.parseLong(concatValue), matchCode, record.getMatchingPEN(), record.getStudentID()));
+      int packedMatchCode = MatchCodeUtils.parse(matchCode);
+      if (packedMatchCode != MatchCodeUtils.INVALID) {
+        session.getMatchingRecordsQueue().add(new BestMatchRecord(MatchCodeUtils.bestMatchKey(packedMatchCode), matchCode, record.getMatchingPEN(), record.getStudentID()));
       } else {
-        session.getMatchingRecordsQueue().add(new BestMatchRecord(Long.parseLong("999999999999"), matchCode, record.getMatchingPEN(), record.getStudentID()));
+        session.getMatchingRecordsQueue().add(new BestMatchRecord(MatchCodeUtils.NO_BEST_MATCH_KEY, matchCode, record.getMatchingPEN(), record.getStudentID()));
       }
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: determineBestMatch :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
   }
 
   /**
@@ -1178,10 +1165,7 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * @return the sum of match code
    */
   public int getSumOfMatchCode(String matchCode) {
-    return Pattern.compile("")
-        .splitAsStream(matchCode)
-        .mapToInt(Integer::parseInt)
-        .sum();
+    return MatchCodeUtils.sum(MatchCodeUtils.parse(matchCode));
   }
 
 
@@ -1197,13 +1181,15 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * !   Do this with the transaction names and if still no match , the names
    * !   in the master. If the new match code still does not result in a pass then
    * !   restore the original match code and result.
+   * !   The master names are combined on a copy of the master record, the
+   * !   candidate is shared and never modified.
    *
-   * @param student      the student
-   * @param masterRecord the master record
+   * @param student   the student
+   * @param candidate the candidate
    * @return the new pen match name change result
    */
-  private NewPenMatchNameChangeResult concatenateNamesAndRecalc(NewPenMatchStudentDetail student, PenMasterRecord masterRecord) {
-    var stopwatch = Stopwatch.createStarted();
+  private NewPenMatchNameChangeResult concatenateNamesAndRecalc(NewPenMatchStudentDetail student, PenMatchCandidate candidate) {
+    PenMasterRecord masterRecord = candidate.getMasterRecord();
     String savedGiven = student.getGivenName();
     String savedMiddle = student.getMiddleName();
     String matchResult = null;
@@ -1212,12 +1198,12 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     if (student.getMiddleName() != null) {
       student.setGivenName(savedGiven + savedMiddle);
       student.setMiddleName(null);
-      matchCode = determineMatchCode(student, masterRecord, true);
+      matchCode = MatchCodeUtils.toString(determineMatchCode(student, masterRecord, candidate.getNewMatchMasterNames(), true));
       matchResult = lookupManager.lookupMatchResult(matchCode);
 
       if (!matchResult.equals("P")) {
         student.setGivenName(savedMiddle + savedGiven);
-        matchCode = determineMatchCode(student, masterRecord, true);
+        matchCode = MatchCodeUtils.toString(determineMatchCode(student, masterRecord, candidate.getNewMatchMasterNames(), true));
         matchResult = lookupManager.lookupMatchResult(matchCode);
       }
 
@@ -1229,14 +1215,13 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
       savedGiven = masterRecord.getGiven();
       savedMiddle = masterRecord.getMiddle();
 
-      masterRecord.setGiven(savedGiven + savedMiddle);
-      masterRecord.setMiddle(null);
-      matchCode = determineMatchCode(student, masterRecord, true);
+      PenMasterRecord combinedRecord = masterRecord.toBuilder().given(savedGiven + savedMiddle).middle(null).build();
+      matchCode = MatchCodeUtils.toString(determineMatchCode(student, combinedRecord, formatNamesFromMaster(combinedRecord), true));
       matchResult = lookupManager.lookupMatchResult(matchCode);
 
       if (!matchResult.equals("P")) {
-        masterRecord.setGiven(savedMiddle + savedGiven);
-        matchCode = determineMatchCode(student, masterRecord, true);
+        combinedRecord = masterRecord.toBuilder().given(savedMiddle + savedGiven).middle(null).build();
+        matchCode = MatchCodeUtils.toString(determineMatchCode(student, combinedRecord, formatNamesFromMaster(combinedRecord), true));
         matchResult = lookupManager.lookupMatchResult(matchCode);
       }
     }
@@ -1244,8 +1229,6 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
     if (!"P".equals(matchResult)) {
       return new NewPenMatchNameChangeResult(matchResult, matchCode);
     }
-    stopwatch.stop();
-    log.debug("Completed new PEN match :: concatenateNamesAndRecalc :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     return null;
   }
 
@@ -1258,24 +1241,22 @@ public class NewPenMatchService extends BaseMatchService<NewPenMatchStudentDetai
    * !   in the transaction. If the new match code does not result in a pass then
    * !   restore the original match code and result.
    *
-   * @param student      the student
-   * @param masterRecord the master record
+   * @param student   the student
+   * @param candidate the candidate
    * @return the new pen match name change result
    */
-  private NewPenMatchNameChangeResult switchNamesAndRecalc(NewPenMatchStudentDetail student, PenMasterRecord masterRecord) {
-    var stopwatch = Stopwatch.createStarted();
+  private NewPenMatchNameChangeResult switchNamesAndRecalc(NewPenMatchStudentDetail student, PenMatchCandidate candidate) {
+    PenMasterRecord masterRecord = candidate.getMasterRecord();
     String legalGiven = student.getGivenName();
     student.setGivenName(student.getMiddleName());
     student.setMiddleName(legalGiven);
 
-    String matchCode = determineMatchCode(student, masterRecord, true);
+    String matchCode = MatchCodeUtils.toString(determineMatchCode(student, masterRecord, candidate.getNewMatchMasterNames(), true));
     String matchResult = lookupManager.lookupMatchResult(matchCode);
 
     legalGiven = student.getGivenName();
     student.setGivenName(student.getMiddleName());
     student.setMiddleName(legalGiven);
-    stopwatch.stop();
-    log.debug("Completed new PEN Match :: switchNamesAndRecalc :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     if (!"P".equals(matchResult)) {
       return new NewPenMatchNameChangeResult(matchResult, matchCode);
     }
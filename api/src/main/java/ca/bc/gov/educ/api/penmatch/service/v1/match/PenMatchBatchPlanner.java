@@ -0,0 +1,112 @@
+package ca.bc.gov.educ.api.penmatch.service.v1.match;
+
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupBucket;
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupContext;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupManager;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudentDetail;
+import ca.bc.gov.educ.api.penmatch.util.PenMatchUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static ca.bc.gov.educ.api.penmatch.service.v1.match.PenMatchService.VERY_FREQUENT;
+
+/**
+ * The type Pen match batch planner.
+ * <p>
+ * Plans the candidate searches of batch records ahead of matching, so records sharing a dob can be served by one
+ * widened search per dob instead of one or two searches each. The key planned for a record is the demographic search
+ * the old match algorithm issues for it (surname and given name partials from the surname frequency, plus mincode and
+ * local id when the record has one), derived by that algorithm's own key derivation. A search that is not covered by
+ * the bucket still goes to the student api on its own, so planning never changes match results.
+ */
+@Component
+@Slf4j
+public class PenMatchBatchPlanner {
+  /**
+   * The Lookup manager.
+   */
+  private final PenMatchLookupManager lookupManager;
+
+  /**
+   * Instantiates a new Pen match batch planner.
+   *
+   * @param lookupManager the lookup manager
+   */
+  @Autowired
+  public PenMatchBatchPlanner(final PenMatchLookupManager lookupManager) {
+    this.lookupManager = lookupManager;
+  }
+
+  /**
+   * New lookup context for one batch record.
+   *
+   * @param correlationID the correlation id
+   * @return the pen match lookup context
+   */
+  public PenMatchLookupContext newLookupContext(final UUID correlationID) {
+    return new PenMatchLookupContext(this.lookupManager, correlationID);
+  }
+
+  /**
+   * Plan the candidate search of a record, the same way the match algorithms derive it.
+   * The surname frequencies looked up here are kept in the context for the match itself. The key is derived by the
+   * old algorithm's own demographic key derivation on a copy of the record, so records without a local id are planned
+   * with the searches that leave the mincode and local id out, as their match issues them.
+   *
+   * @param student       the student, upper cased as the match algorithms see it
+   * @param lookupContext the lookup context of the record
+   * @return the candidate lookup key
+   */
+  public CandidateLookupKey plannedKey(final PenMatchStudentDetail student, final PenMatchLookupContext lookupContext) {
+    final String surname = StringUtils.defaultString(student.getSurname());
+    final PenMatchStudentDetail searchDetail = new PenMatchStudentDetail();
+    searchDetail.setDob(student.getDob());
+    searchDetail.setSurname(surname);
+    searchDetail.setGivenName(student.getGivenName());
+    searchDetail.setMincode(student.getMincode());
+    searchDetail.setLocalID(student.getLocalID());
+    searchDetail.setMinSurnameSearchSize(Math.min(4, surname.length()));
+    searchDetail.setMaxSurnameSearchSize(Math.min(6, surname.length()));
+
+    final int fullSurnameFrequency = lookupContext.lookupSurnameFrequency(student.getSurname());
+    if (fullSurnameFrequency > VERY_FREQUENT) {
+      searchDetail.setPartialSurnameFrequency(fullSurnameFrequency);
+    } else {
+      searchDetail.setPartialSurnameFrequency(lookupContext.lookupSurnameFrequency(surname.substring(0, searchDetail.getMinSurnameSearchSize())));
+    }
+    searchDetail.setFullSurnameFrequency(fullSurnameFrequency);
+    return PenMatchService.getDemographicLookupKey(searchDetail);
+  }
+
+  /**
+   * Upper case the record the way the match algorithms do before searching.
+   *
+   * @param student the student
+   */
+  public void normalize(final PenMatchStudentDetail student) {
+    PenMatchUtils.upperCaseInputStudent(student);
+  }
+
+  /**
+   * Fetch the candidates of one dob bucket with a single widened search.
+   *
+   * @param dob  the dob
+   * @param keys the keys planned for the records with this dob
+   * @return the candidate lookup bucket, empty if the bucket is not worth a search of its own
+   */
+  public Optional<CandidateLookupBucket> fetchBucket(final String dob, final Set<CandidateLookupKey> keys) {
+    if (keys.size() < 2) {
+      return Optional.empty();
+    }
+    final UUID correlationID = UUID.randomUUID();
+    log.debug("Fetching dob bucket {} for {} planned searches, correlationID :: {}", dob, keys.size(), correlationID);
+    return this.lookupManager.lookupDobBucket(dob, keys, correlationID);
+  }
+}
@@ -0,0 +1,472 @@
+package ca.bc.gov.educ.api.penmatch.service.v1.match;
+
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupBucket;
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupContext;
+import ca.bc.gov.educ.api.penmatch.mappers.v1.PenMatchStudentMapper;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchBatchResult;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchBatchStudent;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudent;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudentDetail;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * The type Pen match batch service.
+ * <p>
+ * Matches a stream of newline delimited pen match students and writes one {@link PenMatchBatchResult} line per
+ * record, in submission order. At most the configured number of records are matched at a time for one batch, and at
+ * most two plan windows are held, so neither the request nor the response is ever held in memory as a whole. A
+ * record that cannot be parsed, fails validation or fails to match produces an error line and does not affect the
+ * other records.
+ * Records are read ahead in plan windows, larger than the in flight limit; the candidate searches of a window are
+ * planned on the batch threads and records sharing a dob are served by one widened search (see
+ * {@link PenMatchBatchPlanner}), then matched in dob order.
+ * Batch events go through the same pipeline with their students already decoded.
+ */
+@Service
+@Slf4j
+public class PenMatchBatchService {
+  /**
+   * The constant mapper.
+   */
+  private static final PenMatchStudentMapper mapper = PenMatchStudentMapper.mapper;
+  /**
+   * The constant NO_BUCKET.
+   */
+  private static final CompletableFuture<Optional<CandidateLookupBucket>> NO_BUCKET = CompletableFuture.completedFuture(Optional.empty());
+  /**
+   * The Pen match service.
+   */
+  private final PenMatchService penMatchService;
+  /**
+   * The Pen match batch planner.
+   */
+  private final PenMatchBatchPlanner penMatchBatchPlanner;
+  /**
+   * The Object mapper.
+   */
+  private final ObjectMapper objectMapper;
+  /**
+   * The Validator.
+   */
+  private final Validator validator;
+  /**
+   * The Max in flight records per batch.
+   */
+  private final int maxInFlight;
+  /**
+   * The Plan window, the records planned together.
+   */
+  private final int planWindow;
+  /**
+   * The Executor.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Instantiates a new Pen match batch service.
+   *
+   * @param penMatchService       the pen match service
+   * @param penMatchBatchPlanner  the pen match batch planner
+   * @param objectMapper          the object mapper
+   * @param validator             the validator
+   * @param applicationProperties the application properties
+   */
+  @Autowired
+  public PenMatchBatchService(final PenMatchService penMatchService, final PenMatchBatchPlanner penMatchBatchPlanner, final ObjectMapper objectMapper, final Validator validator, final ApplicationProperties applicationProperties) {
+    this.penMatchService = penMatchService;
+    this.penMatchBatchPlanner = penMatchBatchPlanner;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+    this.maxInFlight = Math.max(1, applicationProperties.getPenMatchBatchMaxInFlight());
+    this.planWindow = Math.max(this.maxInFlight, applicationProperties.getPenMatchBatchPlanWindow());
+    this.executor = Executors.newFixedThreadPool(Math.max(1, applicationProperties.getPenMatchBatchThreads()),
+        new ThreadFactoryBuilder().setNameFormat("pen-match-batch-%d").setDaemon(true).build());
+  }
+
+  /**
+   * Match the students read from the input, writing the results to the output as they complete in order.
+   *
+   * @param input  the newline delimited json input
+   * @param output the newline delimited json output
+   * @throws IOException the io exception
+   */
+  public void matchStudents(final InputStream input, final OutputStream output) throws IOException {
+    final UUID batchID = UUID.randomUUID();
+    log.info("Started pen match batch :: {}", batchID);
+    final var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    final var writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    final Deque<CompletableFuture<PenMatchBatchResult>> inFlight = new ArrayDeque<>();
+    final MatchSlots slots = new MatchSlots(this.maxInFlight);
+    final List<BatchRecord> window = new ArrayList<>(this.planWindow);
+    long recordNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (StringUtils.isBlank(line)) {
+        continue;
+      }
+      window.add(this.parse(++recordNumber, line));
+      if (window.size() >= this.planWindow) {
+        inFlight.addAll(this.submitWindow(window, slots));
+        window.clear();
+        this.writeUntil(inFlight, this.planWindow, writer);
+      }
+    }
+    inFlight.addAll(this.submitWindow(window, slots));
+    this.writeUntil(inFlight, 0, writer);
+    log.info("Completed pen match batch :: {} with {} records", batchID, recordNumber);
+  }
+
+  /**
+   * Match the students of a batch event, each under its own saga id, returning the results in submission order.
+   *
+   * @param students the students
+   * @return the results
+   */
+  public List<PenMatchBatchResult> matchStudents(final List<PenMatchBatchStudent> students) {
+    final List<PenMatchBatchResult> results = new ArrayList<>(students.size());
+    final Deque<CompletableFuture<PenMatchBatchResult>> inFlight = new ArrayDeque<>();
+    final MatchSlots slots = new MatchSlots(this.maxInFlight);
+    final List<BatchRecord> window = new ArrayList<>(this.planWindow);
+    long recordNumber = 0;
+    for (final PenMatchBatchStudent student : students) {
+      ++recordNumber;
+      if (student == null) {
+        window.add(new BatchRecord(recordNumber, null, null, "Empty record"));
+      } else {
+        window.add(new BatchRecord(recordNumber, student.getSagaId(), student, null));
+      }
+      if (window.size() >= this.planWindow) {
+        inFlight.addAll(this.submitWindow(window, slots));
+        window.clear();
+        while (inFlight.size() > this.planWindow) {
+          results.add(inFlight.poll().join());
+        }
+      }
+    }
+    inFlight.addAll(this.submitWindow(window, slots));
+    while (!inFlight.isEmpty()) {
+      results.add(inFlight.poll().join());
+    }
+    return results;
+  }
+
+  /**
+   * Parse one line of the input.
+   *
+   * @param recordNumber the record number
+   * @param line         the line
+   * @return the batch record
+   */
+  private BatchRecord parse(final long recordNumber, final String line) {
+    try {
+      return new BatchRecord(recordNumber, null, this.objectMapper.readValue(line, PenMatchStudent.class), null);
+    } catch (final JsonProcessingException e) {
+      return new BatchRecord(recordNumber, null, null, "Malformed JSON record: " + e.getOriginalMessage());
+    }
+  }
+
+  /**
+   * Submit the records of a plan window without waiting on them. The records are validated and planned on the executor;
+   * once the whole window is planned its records are grouped by dob, each dob with more than one planned search gets
+   * one widened candidate search, and the records are matched in dob order as their buckets come in, answering their
+   * searches from them in memory.
+   *
+   * @param window the window
+   * @param slots  the match slots of the batch
+   * @return the completable futures of the results, in record order
+   */
+  private List<CompletableFuture<PenMatchBatchResult>> submitWindow(final List<BatchRecord> window, final MatchSlots slots) {
+    final List<BatchRecord> batchRecords = List.copyOf(window);
+    final List<CompletableFuture<PlannedRecord>> plans = new ArrayList<>(batchRecords.size());
+    final List<CompletableFuture<PenMatchBatchResult>> results = new ArrayList<>(batchRecords.size());
+    for (final BatchRecord batchRecord : batchRecords) {
+      plans.add(CompletableFuture.supplyAsync(() -> this.plan(batchRecord), this.executor));
+      results.add(new CompletableFuture<>());
+    }
+    CompletableFuture.allOf(plans.toArray(new CompletableFuture<?>[0]))
+        .thenRun(() -> this.matchWindow(plans.stream().map(CompletableFuture::join).collect(Collectors.toList()), results, slots))
+        .exceptionally(e -> {
+          for (int i = 0; i < batchRecords.size(); i++) {
+            results.get(i).complete(PenMatchBatchResult.failed(batchRecords.get(i).getRecordNumber(), "Error occurred while matching the record: " + e.getMessage()));
+          }
+          return null;
+        });
+    return results;
+  }
+
+  /**
+   * Validate and plan one record.
+   *
+   * @param batchRecord the batch record
+   * @return the planned record
+   */
+  private PlannedRecord plan(final BatchRecord batchRecord) {
+    final String error = batchRecord.getError() != null ? batchRecord.getError() : this.validate(batchRecord.getStudent());
+    if (error != null) {
+      return new PlannedRecord(batchRecord, null, null, null, error);
+    }
+    final PenMatchStudentDetail student = mapper.toPenMatchStudentDetails(batchRecord.getStudent());
+    final PenMatchLookupContext lookupContext = this.penMatchBatchPlanner.newLookupContext(batchRecord.getSagaId() == null ? UUID.randomUUID() : batchRecord.getSagaId());
+    CandidateLookupKey plannedKey = null;
+    try {
+      this.penMatchBatchPlanner.normalize(student);
+      plannedKey = this.penMatchBatchPlanner.plannedKey(student, lookupContext);
+    } catch (final RuntimeException e) {
+      log.warn("Could not plan the candidate search of pen match batch record {}, it will be searched on its own :: {}", batchRecord.getRecordNumber(), e.getMessage());
+    }
+    return new PlannedRecord(batchRecord, student, lookupContext, plannedKey, null);
+  }
+
+  /**
+   * Fetch the dob buckets of a planned window and submit its records for matching in dob order, completing their
+   * results.
+   *
+   * @param plannedRecords the planned records, in record order
+   * @param results        the results to complete, in record order
+   * @param slots          the match slots of the batch
+   */
+  private void matchWindow(final List<PlannedRecord> plannedRecords, final List<CompletableFuture<PenMatchBatchResult>> results, final MatchSlots slots) {
+    final Map<String, Set<CandidateLookupKey>> plannedKeys = new HashMap<>();
+    for (final PlannedRecord plannedRecord : plannedRecords) {
+      if (plannedRecord.getPlannedKey() != null) {
+        plannedKeys.computeIfAbsent(plannedRecord.getStudent().getDob(), dob -> new LinkedHashSet<>()).add(plannedRecord.getPlannedKey());
+      }
+    }
+
+    final Map<String, CompletableFuture<Optional<CandidateLookupBucket>>> buckets = new HashMap<>();
+    plannedKeys.forEach((dob, keys) -> buckets.put(dob, CompletableFuture.supplyAsync(() -> this.penMatchBatchPlanner.fetchBucket(dob, keys), this.executor)
+        .exceptionally(e -> {
+          log.warn("Dob bucket search failed, its records will be searched on their own :: {}", e.getMessage());
+          return Optional.empty();
+        })));
+
+    final List<Integer> dobOrder = new ArrayList<>(plannedRecords.size());
+    for (int i = 0; i < plannedRecords.size(); i++) {
+      dobOrder.add(i);
+    }
+    dobOrder.sort(Comparator.comparing(i -> this.dobOf(plannedRecords.get(i)), Comparator.nullsFirst(Comparator.naturalOrder())));
+    for (final int i : dobOrder) {
+      final PlannedRecord plannedRecord = plannedRecords.get(i);
+      this.submit(plannedRecord, buckets.getOrDefault(this.dobOf(plannedRecord), NO_BUCKET), slots)
+          .thenAccept(result -> {
+            result.setSagaId(plannedRecord.getBatchRecord().getSagaId());
+            results.get(i).complete(result);
+          });
+    }
+  }
+
+  /**
+   * The dob of a planned record.
+   *
+   * @param plannedRecord the planned record
+   * @return the dob, null if the record is not matched
+   */
+  private String dobOf(final PlannedRecord plannedRecord) {
+    return plannedRecord.getStudent() == null ? null : plannedRecord.getStudent().getDob();
+  }
+
+  /**
+   * Submit a planned record for matching once its dob bucket is in and a match slot of the batch is free.
+   *
+   * @param plannedRecord the planned record
+   * @param bucket        the dob bucket
+   * @param slots         the match slots of the batch
+   * @return the completable future of the result
+   */
+  private CompletableFuture<PenMatchBatchResult> submit(final PlannedRecord plannedRecord, final CompletableFuture<Optional<CandidateLookupBucket>> bucket, final MatchSlots slots) {
+    final long recordNumber = plannedRecord.getBatchRecord().getRecordNumber();
+    if (plannedRecord.getError() != null) {
+      return CompletableFuture.completedFuture(PenMatchBatchResult.failed(recordNumber, plannedRecord.getError()));
+    }
+    final PenMatchLookupContext lookupContext = plannedRecord.getLookupContext();
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    return slots.take(done).thenCombine(bucket, (slot, candidateLookupBucket) -> candidateLookupBucket)
+        .thenApplyAsync(candidateLookupBucket -> {
+          candidateLookupBucket.ifPresent(lookupContext::addBucket);
+          return PenMatchBatchResult.matched(recordNumber, this.penMatchService.matchStudent(plannedRecord.getStudent(), lookupContext));
+        }, this.executor)
+        .exceptionally(e -> {
+          log.error("Pen match batch record {} failed, correlationID :: {}", recordNumber, lookupContext.getCorrelationID(), e);
+          return PenMatchBatchResult.failed(recordNumber, "Error occurred while matching the record: " + e.getMessage());
+        })
+        .whenComplete((result, e) -> done.complete(null));
+  }
+
+  /**
+   * Validate a record.
+   *
+   * @param student the student
+   * @return the validation error, null if valid
+   */
+  private String validate(final PenMatchStudent student) {
+    final Set<ConstraintViolation<PenMatchStudent>> violations = this.validator.validate(student);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream().map(violation -> violation.getPropertyPath() + " " + violation.getMessage()).sorted().collect(Collectors.joining(", "));
+  }
+
+  /**
+   * Write results from the head of the queue, waiting for them until no more than the limit are in flight, then
+   * write whatever else is already complete so the client sees it without delay.
+   *
+   * @param inFlight the in flight results
+   * @param limit    the number of results that may stay in flight
+   * @param writer   the writer
+   * @throws IOException the io exception
+   */
+  private void writeUntil(final Deque<CompletableFuture<PenMatchBatchResult>> inFlight, final int limit, final Writer writer) throws IOException {
+    while (inFlight.size() > limit) {
+      this.write(inFlight.poll().join(), writer);
+    }
+    this.writeCompleted(inFlight, writer);
+  }
+
+  /**
+   * Write the results at the head of the queue that are already complete, so the client sees them without waiting
+   * for the window to fill.
+   *
+   * @param inFlight the in flight results
+   * @param writer   the writer
+   * @throws IOException the io exception
+   */
+  private void writeCompleted(final Deque<CompletableFuture<PenMatchBatchResult>> inFlight, final Writer writer) throws IOException {
+    while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+      this.write(inFlight.poll().join(), writer);
+    }
+    writer.flush();
+  }
+
+  /**
+   * Write one result line.
+   *
+   * @param result the result
+   * @param writer the writer
+   * @throws IOException the io exception
+   */
+  private void write(final PenMatchBatchResult result, final Writer writer) throws IOException {
+    writer.write(this.objectMapper.writeValueAsString(result));
+    writer.write('\n');
+  }
+
+  /**
+   * The type Batch record, one submitted record before validation.
+   */
+  @Getter
+  @AllArgsConstructor
+  private static final class BatchRecord {
+    /**
+     * The Record number.
+     */
+    private final long recordNumber;
+    /**
+     * The Saga id, for batch events.
+     */
+    private final UUID sagaId;
+    /**
+     * The Student, null if the record could not be parsed.
+     */
+    private final PenMatchStudent student;
+    /**
+     * The Parse error.
+     */
+    private final String error;
+  }
+
+  /**
+   * The type Planned record, a validated record with its lookup context.
+   */
+  @Getter
+  @AllArgsConstructor
+  private static final class PlannedRecord {
+    /**
+     * The Batch record.
+     */
+    private final BatchRecord batchRecord;
+    /**
+     * The Student as matched.
+     */
+    private final PenMatchStudentDetail student;
+    /**
+     * The Lookup context.
+     */
+    private final PenMatchLookupContext lookupContext;
+    /**
+     * The Planned key, null if the search could not be planned.
+     */
+    private final CandidateLookupKey plannedKey;
+    /**
+     * The Error, if the record is not matched.
+     */
+    private final String error;
+  }
+
+  /**
+   * The type Match slots, the matches of one batch in flight. A match takes the slot of the match submitted the in
+   * flight limit before it, and starts once that one is done, so no more than the limit run at a time without blocking
+   * a thread to wait for a slot.
+   */
+  private static final class MatchSlots {
+    /**
+     * The constant FREE.
+     */
+    private static final CompletableFuture<Void> FREE = CompletableFuture.completedFuture(null);
+    /**
+     * The Limit.
+     */
+    private final int limit;
+    /**
+     * The completions of the last matches taking a slot, oldest first.
+     */
+    private final Deque<CompletableFuture<Void>> taken = new ArrayDeque<>();
+
+    /**
+     * Instantiates new Match slots.
+     *
+     * @param limit the limit
+     */
+    private MatchSlots(final int limit) {
+      this.limit = limit;
+    }
+
+    /**
+     * Take a slot for a match.
+     *
+     * @param done the completion of the match
+     * @return the completable future, complete once the slot is free
+     */
+    private synchronized CompletableFuture<Void> take(final CompletableFuture<Void> done) {
+      this.taken.add(done);
+      return this.taken.size() > this.limit ? this.taken.poll() : FREE;
+    }
+  }
+
+  /**
+   * Shut down the executor.
+   */
+  @PreDestroy
+  public void close() {
+    this.executor.shutdownNow();
+  }
+}
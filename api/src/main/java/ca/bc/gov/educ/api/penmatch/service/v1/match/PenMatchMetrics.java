@@ -0,0 +1,178 @@
+package ca.bc.gov.educ.api.penmatch.service.v1.match;
+
+import ca.bc.gov.educ.api.penmatch.constants.PenMatchPhase;
+import ca.bc.gov.educ.api.penmatch.constants.WorkloadLane;
+import ca.bc.gov.educ.api.penmatch.helpers.WorkloadLaneHolder;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchTimings;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Pen match metrics.
+ * <p>
+ * Records the timings of a match, once its final pen status is known, as the {@value #PHASE_TIMER} timer per phase and
+ * the {@value #MATCH_TIMER} timer for the whole match, both tagged by algorithm and pen status, the latter by workload
+ * lane too, and counts the candidates scored. The matches in flight are tracked by the {@value #ACTIVE_TIMER} long task timer. When disabled
+ * the matches get the {@link PenMatchTimings#DISABLED} timings and nothing is timed.
+ */
+@Component
+public class PenMatchMetrics {
+  /**
+   * The constant OLD_ALGORITHM.
+   */
+  public static final String OLD_ALGORITHM = "old";
+  /**
+   * The constant NEW_ALGORITHM.
+   */
+  public static final String NEW_ALGORITHM = "new";
+  /**
+   * The constant PHASE_TIMER.
+   */
+  public static final String PHASE_TIMER = "pen.match.phase";
+  /**
+   * The constant MATCH_TIMER.
+   */
+  public static final String MATCH_TIMER = "pen.match";
+  /**
+   * The constant ACTIVE_TIMER.
+   */
+  public static final String ACTIVE_TIMER = "pen.match.active";
+  /**
+   * The constant CANDIDATES_SUMMARY.
+   */
+  public static final String CANDIDATES_SUMMARY = "pen.match.candidates.scored";
+  /**
+   * The constant NO_STATUS.
+   */
+  private static final String NO_STATUS = "none";
+  /**
+   * The Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+  /**
+   * The Enabled flag.
+   */
+  private final boolean enabled;
+  /**
+   * The Active timers by algorithm.
+   */
+  private final ConcurrentMap<String, LongTaskTimer> activeTimers = new ConcurrentHashMap<>();
+  /**
+   * The Candidate summaries by algorithm.
+   */
+  private final ConcurrentMap<String, DistributionSummary> candidateSummaries = new ConcurrentHashMap<>();
+  /**
+   * The Match timers by algorithm, workload lane and pen status.
+   */
+  private final ConcurrentMap<String, Map<WorkloadLane, ConcurrentMap<String, Timer>>> matchTimers = new ConcurrentHashMap<>();
+  /**
+   * The Phase timers by algorithm, phase and pen status.
+   */
+  private final ConcurrentMap<String, Map<PenMatchPhase, ConcurrentMap<String, Timer>>> phaseTimers = new ConcurrentHashMap<>();
+
+  /**
+   * Instantiates a new Pen match metrics.
+   *
+   * @param applicationProperties the application properties
+   * @param meterRegistry         the meter registry
+   */
+  @Autowired
+  public PenMatchMetrics(final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    this.enabled = applicationProperties.isPenMatchMetricsEnabled();
+  }
+
+  /**
+   * Starts the timings of a match.
+   *
+   * @param algorithm the algorithm
+   * @return the pen match timings
+   */
+  public PenMatchTimings start(final String algorithm) {
+    if (!this.enabled) {
+      return PenMatchTimings.DISABLED;
+    }
+    final LongTaskTimer active = this.activeTimers.computeIfAbsent(algorithm, key -> LongTaskTimer.builder(ACTIVE_TIMER)
+        .description("The pen matches in flight")
+        .tag("algorithm", key)
+        .register(this.meterRegistry));
+    return new PenMatchTimings(algorithm, active.start());
+  }
+
+  /**
+   * Stops the timings of a match that failed or was abandoned, so it is no longer counted as in flight.
+   *
+   * @param timings the timings
+   */
+  public void abandon(final PenMatchTimings timings) {
+    if (timings.isEnabled()) {
+      timings.getActive().stop();
+    }
+  }
+
+  /**
+   * Records the timings of a finished match.
+   *
+   * @param timings   the timings
+   * @param penStatus the final pen status
+   */
+  public void record(final PenMatchTimings timings, final String penStatus) {
+    if (!timings.isEnabled()) {
+      return;
+    }
+    final long elapsed = System.nanoTime() - timings.getStartNanos();
+    timings.getActive().stop();
+    final String algorithm = timings.getAlgorithm();
+    final String status = StringUtils.defaultIfBlank(penStatus, NO_STATUS);
+
+    final WorkloadLane lane = WorkloadLaneHolder.getLane();
+
+    this.matchTimers.computeIfAbsent(algorithm, key -> {
+          final Map<WorkloadLane, ConcurrentMap<String, Timer>> lanes = new EnumMap<>(WorkloadLane.class);
+          for (final WorkloadLane workloadLane : WorkloadLane.values()) {
+            lanes.put(workloadLane, new ConcurrentHashMap<>());
+          }
+          return lanes;
+        }).get(lane)
+        .computeIfAbsent(status, key -> Timer.builder(MATCH_TIMER)
+            .description("The time of a pen match")
+            .tags("algorithm", algorithm, "lane", lane.getValue(), "penStatus", key)
+            .register(this.meterRegistry))
+        .record(elapsed, TimeUnit.NANOSECONDS);
+
+    final Map<PenMatchPhase, ConcurrentMap<String, Timer>> byPhase = this.phaseTimers.computeIfAbsent(algorithm, key -> {
+      final Map<PenMatchPhase, ConcurrentMap<String, Timer>> phases = new EnumMap<>(PenMatchPhase.class);
+      for (final PenMatchPhase phase : PenMatchPhase.values()) {
+        phases.put(phase, new ConcurrentHashMap<>());
+      }
+      return phases;
+    });
+    for (final PenMatchPhase phase : PenMatchPhase.values()) {
+      if (timings.ran(phase)) {
+        byPhase.get(phase).computeIfAbsent(status, key -> Timer.builder(PHASE_TIMER)
+                .description("The time a pen match spends in a phase")
+                .tags("algorithm", algorithm, "phase", phase.getValue(), "penStatus", key)
+                .register(this.meterRegistry))
+            .record(timings.getNanos(phase), TimeUnit.NANOSECONDS);
+      }
+    }
+
+    this.candidateSummaries.computeIfAbsent(algorithm, key -> DistributionSummary.builder(CANDIDATES_SUMMARY)
+            .description("The candidates scored by a pen match")
+            .tag("algorithm", key)
+            .register(this.meterRegistry))
+        .record(timings.getCandidatesScored());
+  }
+}
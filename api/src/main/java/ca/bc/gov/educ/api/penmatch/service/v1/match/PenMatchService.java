@@ -2,17 +2,20 @@ package ca.bc.gov.educ.api.penmatch.service.v1.match;
 
 import ca.bc.gov.educ.api.penmatch.compare.PenMatchComparator;
 import ca.bc.gov.educ.api.penmatch.constants.PenAlgorithm;
+import ca.bc.gov.educ.api.penmatch.constants.PenMatchPhase;
 import ca.bc.gov.educ.api.penmatch.constants.PenStatus;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupContext;
 import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupManager;
-import ca.bc.gov.educ.api.penmatch.model.v1.NicknameEntity;
-import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
 import ca.bc.gov.educ.api.penmatch.struct.PenMatchRecord;
 import ca.bc.gov.educ.api.penmatch.struct.v1.*;
 import ca.bc.gov.educ.api.penmatch.struct.v1.newmatch.NewPenMatchStudentDetail;
 import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
 import ca.bc.gov.educ.api.penmatch.util.PenMatchUtils;
 import ca.bc.gov.educ.api.penmatch.util.ScoringUtils;
-import com.google.common.base.Stopwatch;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,7 +25,6 @@ import java.util.List;
 import java.util.Objects;
 import java.util.PriorityQueue;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
 /**
  * The type Pen match service.
@@ -66,16 +68,30 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      */
     private final NewPenMatchService newPenMatchService;
 
+    /**
+     * The Application properties.
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The Pen match metrics.
+     */
+    private final PenMatchMetrics penMatchMetrics;
+
     /**
      * Instantiates a new Pen match service.
      *
-     * @param lookupManager      the lookup manager
-     * @param newPenMatchService the new pen match service
+     * @param lookupManager         the lookup manager
+     * @param newPenMatchService    the new pen match service
+     * @param applicationProperties the application properties
+     * @param penMatchMetrics       the pen match metrics
      */
     @Autowired
-    public PenMatchService(PenMatchLookupManager lookupManager, NewPenMatchService newPenMatchService) {
+    public PenMatchService(PenMatchLookupManager lookupManager, NewPenMatchService newPenMatchService, ApplicationProperties applicationProperties, PenMatchMetrics penMatchMetrics) {
         this.lookupManager = lookupManager;
         this.newPenMatchService = newPenMatchService;
+        this.applicationProperties = applicationProperties;
+        this.penMatchMetrics = penMatchMetrics;
     }
 
     /**
@@ -84,7 +100,7 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * @param givenName the given name
      * @return the nicknames
      */
-    public List<NicknameEntity> getNicknames(String givenName) {
+    public List<String> getNicknames(String givenName) {
         return lookupManager.lookupNicknamesOnly(givenName);
     }
 
@@ -93,12 +109,43 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      */
     @Override
     public PenMatchResult matchStudent(PenMatchStudentDetail student, UUID correlationID) {
-        var stopwatch = Stopwatch.createStarted();
+        return matchStudent(student, new PenMatchLookupContext(lookupManager, correlationID));
+    }
+
+    /**
+     * Match a student with a lookup context that may already hold candidates, e.g. a dob bucket of a batch.
+     *
+     * @param student       the student
+     * @param lookupContext the lookup context
+     * @return the pen match result
+     */
+    public PenMatchResult matchStudent(PenMatchStudentDetail student, PenMatchLookupContext lookupContext) {
         log.debug("Started old PEN match");
         if (log.isDebugEnabled()) {
             log.debug(INPUT_PEN_MATCH_STUDENT_DETAIL, JsonUtil.getJsonPrettyStringFromObject(student));
         }
-        PenMatchSession session = initialize(student, correlationID);
+        PenMatchTimings timings = penMatchMetrics.start(PenMatchMetrics.OLD_ALGORITHM);
+        try {
+            return matchStudent(student, lookupContext, timings);
+        } catch (RuntimeException e) {
+            penMatchMetrics.abandon(timings);
+            throw e;
+        }
+    }
+
+    /**
+     * Match a student, timing the match.
+     *
+     * @param student       the student
+     * @param lookupContext the lookup context
+     * @param timings       the timings
+     * @return the pen match result
+     */
+    private PenMatchResult matchStudent(PenMatchStudentDetail student, PenMatchLookupContext lookupContext, PenMatchTimings timings) {
+        long initializeStart = timings.start();
+        PenMatchSession session = initialize(student, lookupContext);
+        session.setTimings(timings);
+        timings.stop(PenMatchPhase.INITIALIZE, initializeStart);
 
         PenConfirmationResult confirmationResult = new PenConfirmationResult();
         confirmationResult.setDeceased(false);
@@ -141,9 +188,12 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
             if (log.isDebugEnabled()) {
                 log.debug(" Running new PEN match algorithm with payload: {}", JsonUtil.getJsonPrettyStringFromObject(newStudentDetail));
             }
-            stopwatch.stop();
-            log.debug("Completed old PEN match in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
-            return newPenMatchService.matchStudent(newStudentDetail, session.getCorrelationID());
+            DeadlineHolder.check(PenMatchPhase.NEW_ALGORITHM_HANDOFF.getValue());
+            long handoffStart = timings.start();
+            result = newPenMatchService.matchStudent(newStudentDetail, session.getLookupContext());
+            timings.stop(PenMatchPhase.NEW_ALGORITHM_HANDOFF, handoffStart);
+            penMatchMetrics.record(timings, result.getPenStatus());
+            return result;
         } else {
             result = new PenMatchResult(PenMatchUtils.convertOldMatchPriorityQueueToList(session.getMatchingRecords()), session.getPenStatus(), session.getPenStatusMessage());
         }
@@ -151,8 +201,7 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
         if (log.isDebugEnabled()) {
             log.debug(" output :: PenMatchResult={}", JsonUtil.getJsonPrettyStringFromObject(result));
         }
-        stopwatch.stop();
-        log.debug("Completed old PEN match in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        penMatchMetrics.record(timings, result.getPenStatus());
         return result;
     }
 
@@ -210,6 +259,7 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
         if (student.getPen() != null) {
             boolean validCheckDigit = PenMatchUtils.penCheckDigit(student.getPen());
             if (validCheckDigit) {
+                prefetchDemographicCandidates(student, session);
                 confirmationResult = getPenConfirmationResult(student, session);
             } else {
                 session.setPenStatus(PenStatus.C.getValue());
@@ -222,6 +272,21 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
         return confirmationResult;
     }
 
+    /**
+     * While the supplied PEN is being looked up, run the demographic search that a PEN which is not confirmed (B or C
+     * status) falls back to, so those statuses do not wait for two student api round trips in a row.
+     *
+     * @param student the student
+     * @param session the session
+     */
+    private void prefetchDemographicCandidates(PenMatchStudentDetail student, PenMatchSession session) {
+        if (applicationProperties.isPenMatchParallelConfirmationEnabled() && session.getLookupContext().prefetchStudentByPEN(student.getPen())) {
+            long fetchStart = session.getTimings().start();
+            session.getLookupContext().lookupCandidates(getDemographicLookupKey(student));
+            session.getTimings().stop(PenMatchPhase.CANDIDATE_FETCH, fetchStart);
+        }
+    }
+
     /**
      * Gets pen confirmation result.
      *
@@ -231,7 +296,9 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      */
     private PenConfirmationResult getPenConfirmationResult(PenMatchStudentDetail student, PenMatchSession session) {
         PenConfirmationResult confirmationResult;
+        long confirmStart = session.getTimings().start();
         confirmationResult = confirmPEN(student, session);
+        session.getTimings().stop(PenMatchPhase.CONFIRM_PEN, confirmStart);
         if (confirmationResult.getPenConfirmationResultCode().equals(PenConfirmationResult.PEN_CONFIRMED)) {
             if (confirmationResult.getMergedPEN() == null) {
                 session.setPenStatus(PenStatus.AA.getValue());
@@ -256,16 +323,16 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * Initialize the student record and variables (will be refactored)
      *
      * @param student       the student
-     * @param correlationID the correlation id
+     * @param lookupContext the lookup context
      * @return the pen match session
      */
-    private PenMatchSession initialize(PenMatchStudentDetail student, UUID correlationID) {
-        var stopwatch = Stopwatch.createStarted();
+    private PenMatchSession initialize(PenMatchStudentDetail student, PenMatchLookupContext lookupContext) {
         if (log.isDebugEnabled()) {
             log.debug(INPUT_PEN_MATCH_STUDENT_DETAIL, JsonUtil.getJsonPrettyStringFromObject(student));
         }
         PenMatchSession session = new PenMatchSession();
-        session.setCorrelationID(correlationID);
+        session.setCorrelationID(lookupContext.getCorrelationID());
+        session.setLookupContext(lookupContext);
         session.setPenStatusMessage(null);
         session.setMatchingRecords(new PriorityQueue<>(new PenMatchComparator()));
 
@@ -304,13 +371,13 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
         // there is a perfect match on surname
         int partialSurnameFrequency;
         String fullStudentSurname = student.getSurname();
-        int fullSurnameFrequency = lookupManager.lookupSurnameFrequency(fullStudentSurname);
+        int fullSurnameFrequency = lookupContext.lookupSurnameFrequency(fullStudentSurname);
 
         if (fullSurnameFrequency > VERY_FREQUENT) {
             partialSurnameFrequency = fullSurnameFrequency;
         } else {
             fullStudentSurname = student.getSurname().substring(0, student.getMinSurnameSearchSize());
-            partialSurnameFrequency = lookupManager.lookupSurnameFrequency(fullStudentSurname);
+            partialSurnameFrequency = lookupContext.lookupSurnameFrequency(fullStudentSurname);
         }
 
         student.setFullSurnameFrequency(fullSurnameFrequency);
@@ -318,8 +385,6 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
         if (log.isDebugEnabled()) {
             log.debug(" output :: PenMatchSession={}", JsonUtil.getJsonPrettyStringFromObject(session));
         }
-        stopwatch.stop();
-        log.debug("Completed old PEN match :: initialize :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
         return session;
     }
 
@@ -331,7 +396,6 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * @return the pen match names
      */
     private PenMatchNames storeNamesFromTransaction(PenMatchStudentDetail student) {
-        var stopwatch = Stopwatch.createStarted();
         if (log.isDebugEnabled()) {
             log.debug(INPUT_PEN_MATCH_STUDENT_DETAIL, JsonUtil.getJsonPrettyStringFromObject(student));
         }
@@ -379,8 +443,6 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
         if (log.isDebugEnabled()) {
             log.debug(" output :: PenMatchNames={}", JsonUtil.getJsonPrettyStringFromObject(penMatchTransactionNames));
         }
-        stopwatch.stop();
-        log.debug("Completed old PEN match :: storeNamesFromTransaction :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
         return penMatchTransactionNames;
     }
 
@@ -395,7 +457,6 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * @return the check for match result
      */
     private CheckForMatchResult simpleCheckForMatch(PenMatchStudentDetail student, PenMasterRecord master, PenMatchSession session) {
-        var stopwatch = Stopwatch.createStarted();
         if (log.isDebugEnabled()) {
             log.debug(" input :: PenMatchStudentDetail={} PenMasterRecord={} PenMatchSession={}", JsonUtil.getJsonPrettyStringFromObject(student), JsonUtil.getJsonPrettyStringFromObject(master), JsonUtil.getJsonPrettyStringFromObject(session));
         }
@@ -422,8 +483,6 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
         if (log.isDebugEnabled()) {
             log.debug(" output :: CheckForMatchResult={}", JsonUtil.getJsonPrettyStringFromObject(result));
         }
-        stopwatch.stop();
-        log.debug("Completed old PEN match :: simpleCheckForMatch :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
         return result;
     }
 
@@ -485,7 +544,6 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * @return the pen confirmation result
      */
     private PenConfirmationResult confirmPEN(PenMatchStudentDetail student, PenMatchSession session) {
-        var stopwatch = Stopwatch.createStarted();
         if (log.isDebugEnabled()) {
             log.debug(" input :: PenMatchStudentDetail={} PenMatchSession={}", JsonUtil.getJsonPrettyStringFromObject(student), JsonUtil.getJsonPrettyStringFromObject(session));
         }
@@ -499,8 +557,6 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
         if (log.isDebugEnabled()) {
             log.debug(" output :: PenConfirmationResult={}", JsonUtil.getJsonPrettyStringFromObject(result));
         }
-        stopwatch.stop();
-        log.debug("Completed old PEN match :: confirmPEN :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
         return result;
     }
 
@@ -513,7 +569,7 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * @param localStudentNumber the local student number
      */
     private void checkMatchFoundAndSetResult(PenMatchStudentDetail student, PenMatchSession session, PenConfirmationResult result, String localStudentNumber) {
-        var masterRecordOptional = lookupManager.lookupStudentByPEN(localStudentNumber, session.getCorrelationID());
+        var masterRecordOptional = session.getLookupContext().lookupStudentByPEN(localStudentNumber);
         PenMasterRecord masterRecord = null;
         boolean matchFound = false;
 
@@ -522,12 +578,12 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
             masterRecord = masterRecordOptional.get();
             result.setPenConfirmationResultCode(PenConfirmationResult.PEN_ON_FILE);
 
-            String studentTrueNumber = getStudentTrueNumberForMergedStudent(masterRecord, session.getCorrelationID());
+            String studentTrueNumber = getStudentTrueNumberForMergedStudent(masterRecord, session.getLookupContext());
 
             if (MERGED.equals(masterRecord.getStatus()) && StringUtils.isNotBlank(studentTrueNumber)) {
                 localStudentNumber = studentTrueNumber.trim();
                 result.setMergedPEN(localStudentNumber);
-                masterRecordOptional = lookupManager.lookupStudentByPEN(localStudentNumber, session.getCorrelationID());
+                masterRecordOptional = session.getLookupContext().lookupStudentByPEN(localStudentNumber);
                 if (masterRecordOptional.isPresent()
                         && StringUtils.equals(StringUtils.trimToEmpty(masterRecordOptional.get().getPen()), localStudentNumber)) {
                     masterRecord = masterRecordOptional.get();
@@ -557,16 +613,17 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
     }
 
     /**
-     * Gets student true number for merged student.
+     * Gets student true number for merged student. The true student's master record is kept in the lookup context, so
+     * the lookup of the true number that follows does not go to the student api again.
      *
      * @param masterRecord the master record
-     * @param correlationID the correlation id
+     * @param lookupContext the lookup context
      * @return the student true number for merged student
      */
-    private String getStudentTrueNumberForMergedStudent(PenMasterRecord masterRecord, UUID correlationID) {
+    private String getStudentTrueNumberForMergedStudent(PenMasterRecord masterRecord, PenMatchLookupContext lookupContext) {
         String studentTrueNumber = null;
         if (MERGED.equals(masterRecord.getStatus())) {
-            studentTrueNumber = lookupManager.lookupStudentTruePENNumberByStudentID(masterRecord.getStudentID(), correlationID);
+            studentTrueNumber = lookupContext.lookupTrueStudent(masterRecord).map(PenMasterRecord::getPen).orElse(null);
         }
         return studentTrueNumber;
     }
@@ -584,33 +641,24 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * @param masterRecord     the master record
      */
     private void findMatchesOnPenDemog(PenMatchStudentDetail student, boolean penFoundOnMaster, PenMatchSession session, PenMasterRecord masterRecord) {
-        var stopwatch = Stopwatch.createStarted();
         if (log.isDebugEnabled()) {
             log.debug(" input :: PenMatchStudentDetail={} PenMatchSession={} penFoundOnMaster={} PenMasterRecord={}", JsonUtil.getJsonPrettyStringFromObject(student), JsonUtil.getJsonPrettyStringFromObject(session), penFoundOnMaster, masterRecord);
         }
 
-        boolean useGivenInitial = setPartials(student);
-
-        List<StudentEntity> studentEntityList;
-        if (student.getLocalID() == null) {
-            if (useGivenInitial) {
-                studentEntityList = lookupManager.lookupNoLocalID(student.getDob(), student.getPartialStudentSurname(), student.getPartialStudentGiven(), session.getCorrelationID());
-            } else {
-                studentEntityList = lookupManager.lookupNoInitNoLocalID(student.getDob(), student.getPartialStudentSurname(), session.getCorrelationID());
-            }
-        } else {
-            if (useGivenInitial) {
-                studentEntityList = lookupManager.lookupWithAllParts(student.getDob(), student.getPartialStudentSurname(), student.getPartialStudentGiven(), student.getMincode(), student.getLocalID(), session.getCorrelationID());
-            } else {
-                studentEntityList = lookupManager.lookupNoInit(student.getDob(), student.getPartialStudentSurname(), student.getMincode(), student.getLocalID(), session.getCorrelationID());
-            }
-        }
+        PenMatchTimings timings = session.getTimings();
+        long fetchStart = timings.start();
+        List<StudentCandidateEntity> studentEntityList = session.getLookupContext().lookupCandidates(getDemographicLookupKey(student));
+        timings.stop(PenMatchPhase.CANDIDATE_FETCH, fetchStart);
 
+        long scoringStart = timings.start();
         if (masterRecord != null) {
             performCheckForMatchAndMerge(studentEntityList, student, session, masterRecord.getPen());
         } else {
             performCheckForMatchAndMerge(studentEntityList, student, session, null);
         }
+        timings.stop(PenMatchPhase.CANDIDATE_SCORING, scoringStart);
+
+        long selectionStart = timings.start();
 
         // If a PEN was provided, but the demographics didn't match the student
         // on PEN-MASTER with that PEN, then add the student on PEN-MASTER to
@@ -628,6 +676,7 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
             session.getMatchingRecords().clear();
             session.getMatchingRecords().add(new OldPenMatchRecord(null, null, session.getReallyGoodMasterMatchRecord().getMasterRecord().getPen(), session.getReallyGoodMasterMatchRecord().getMasterRecord().getStudentID(), session.getReallyGoodMasterMatchRecord().getMasterRecord()));
             session.setPenStatus(PenStatus.D1.getValue());
+            timings.stop(PenMatchPhase.BEST_MATCH_SELECTION, selectionStart);
             return;
         }
 
@@ -649,8 +698,28 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
             // many matches, so they are all considered questionable, even if some are "solid"
             session.setPenStatus(session.getPenStatus().trim() + MERGED);
         }
-        stopwatch.stop();
-        log.debug("Completed old PEN match :: findMatchesOnPenDemog :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        timings.stop(PenMatchPhase.BEST_MATCH_SELECTION, selectionStart);
+    }
+
+    /**
+     * Gets the criteria of the demographic search, after setting the partial names it uses. Shared with the batch
+     * planner, so the search planned for a batch record is the one its match issues.
+     *
+     * @param student the student, with its surname search sizes and surname frequencies set
+     * @return the demographic lookup key
+     */
+    static CandidateLookupKey getDemographicLookupKey(PenMatchStudentDetail student) {
+        boolean useGivenInitial = setPartials(student);
+        if (student.getLocalID() == null) {
+            if (useGivenInitial) {
+                return CandidateLookupKey.noLocalID(student.getDob(), student.getPartialStudentSurname(), student.getPartialStudentGiven());
+            }
+            return CandidateLookupKey.noInitNoLocalID(student.getDob(), student.getPartialStudentSurname());
+        }
+        if (useGivenInitial) {
+            return CandidateLookupKey.withAllParts(student.getDob(), student.getPartialStudentSurname(), student.getPartialStudentGiven(), student.getMincode(), student.getLocalID());
+        }
+        return CandidateLookupKey.noInit(student.getDob(), student.getPartialStudentSurname(), student.getMincode(), student.getLocalID());
     }
 
     /**
@@ -659,7 +728,7 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * @param student the student
      * @return the partials
      */
-    private boolean setPartials(PenMatchStudentDetail student) {
+    private static boolean setPartials(PenMatchStudentDetail student) {
         boolean useGivenInitial = true;
         if (student.getPartialSurnameFrequency() <= NOT_VERY_FREQUENT) {
             if (student.getSurname() != null) {
@@ -699,7 +768,6 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * @param totalPoints   the total points
      */
     private void mergeNewMatchIntoList(PenMatchStudentDetail student, PenMasterRecord masterRecord, String matchingPEN, PenMatchSession session, PenAlgorithm algorithmUsed, int totalPoints) {
-        var stopwatch = Stopwatch.createStarted();
         if (log.isDebugEnabled()) {
             log.debug(" input :: PenMatchStudentDetail={} PenMatchSession={} matchingPEN={} PenAlgorithm={} totalPoints={}", JsonUtil.getJsonPrettyStringFromObject(student), JsonUtil.getJsonPrettyStringFromObject(session), matchingPEN, algorithmUsed, totalPoints);
         }
@@ -742,28 +810,25 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
             // Add new slot in the array
             session.getMatchingRecords().add(new OldPenMatchRecord(matchingAlgorithmResult, matchingScore, matchingPEN, masterRecord.getStudentID(), masterRecord));
         }
-        stopwatch.stop();
-        log.debug("Completed old PEN match :: mergeNewMatchIntoList :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     }
 
     /**
      * Check for Matching demographic data on Master
      *
-     * @param student the student
-     * @param master  the master
-     * @param session the session
+     * @param student   the student
+     * @param candidate the candidate
+     * @param session   the session
      * @return the check for match result
      */
-    private CheckForMatchResult checkForMatch(PenMatchStudentDetail student, PenMasterRecord master, PenMatchSession session) {
-        var stopwatch = Stopwatch.createStarted();
+    private CheckForMatchResult checkForMatch(PenMatchStudentDetail student, PenMatchCandidate candidate, PenMatchSession session) {
+        PenMasterRecord master = candidate.getMasterRecord();
         if (log.isDebugEnabled()) {
             log.debug(" input :: PenMatchStudentDetail={} PenMatchSession={} PenMasterRecord={}", JsonUtil.getJsonPrettyStringFromObject(student), JsonUtil.getJsonPrettyStringFromObject(session), JsonUtil.getJsonPrettyStringFromObject(master));
         }
         boolean matchFound = false;
         PenAlgorithm algorithmUsed = null;
 
-        PenMatchUtils.normalizeLocalIDsFromMaster(master);
-        PenMatchNames penMatchMasterNames = PenMatchUtils.storeNamesFromMaster(master);
+        PenMatchNames penMatchMasterNames = candidate.getMasterNames();
 
         int totalPoints = 0;
         int bonusPoints;
@@ -925,8 +990,6 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
         if (log.isDebugEnabled()) {
             log.debug(" output :: CheckForMatchResult={}", JsonUtil.getJsonPrettyStringFromObject(result));
         }
-        stopwatch.stop();
-        log.debug("Completed old PEN match :: checkForMatch :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
         return result;
     }
 
@@ -966,25 +1029,24 @@ public class PenMatchService extends BaseMatchService<PenMatchStudentDetail, Pen
      * @param session            the session
      * @param localStudentNumber the local student number
      */
-    private void performCheckForMatchAndMerge(List<StudentEntity> penDemogList, PenMatchStudentDetail student, PenMatchSession session, String localStudentNumber) {
-        var stopwatch = Stopwatch.createStarted();
+    private void performCheckForMatchAndMerge(List<StudentCandidateEntity> penDemogList, PenMatchStudentDetail student, PenMatchSession session, String localStudentNumber) {
         if (log.isDebugEnabled()) {
             log.debug(" input :: penDemogList={} PenMatchStudentDetail={} PenMatchSession={} localStudentNumber={}", JsonUtil.getJsonPrettyStringFromObject(penDemogList), JsonUtil.getJsonPrettyStringFromObject(student), JsonUtil.getJsonPrettyStringFromObject(session), localStudentNumber);
         }
         if (penDemogList != null) {
-            for (StudentEntity entity : penDemogList) {
+            for (StudentCandidateEntity entity : penDemogList) {
                 if (entity.getStatusCode() != null && !entity.getStatusCode().equals(PenStatus.M.getValue()) && !entity.getStatusCode().equals(PenStatus.D.getValue()) && (localStudentNumber == null || !entity.getPen().trim().equals(localStudentNumber))) {
-                    PenMasterRecord masterRecord = PenMatchUtils.convertStudentEntityToPenMasterRecord(entity);
-                    CheckForMatchResult result = checkForMatch(student, masterRecord, session);
+                    PenMatchCandidate candidate = session.getLookupContext().lookupPenMatchCandidate(entity);
+                    CheckForMatchResult result = checkForMatch(student, candidate, session);
+                    session.getTimings().candidateScored();
 
                     if (result.isMatchFound()) {
+                        PenMasterRecord masterRecord = candidate.getMasterRecord();
                         mergeNewMatchIntoList(student, masterRecord, masterRecord.getPen().trim(), session, result.getAlgorithmUsed(), result.getTotalPoints());
                     }
                 }
             }
         }
-        stopwatch.stop();
-        log.debug("Completed old PEN match :: performCheckForMatchAndMerge :: in {} milli seconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     }
 
 }
@@ -1,16 +1,14 @@
 package ca.bc.gov.educ.api.penmatch.service.v1.match;
 
-import ca.bc.gov.educ.api.penmatch.model.v1.FrequencySurnameEntity;
+import ca.bc.gov.educ.api.penmatch.lookup.ReferenceDataHolder;
+import ca.bc.gov.educ.api.penmatch.lookup.SurnameFrequencySnapshot;
 import ca.bc.gov.educ.api.penmatch.repository.v1.SurnameFrequencyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Slf4j
 @Service
 public class SurnameFrequencyService {
@@ -22,33 +20,30 @@ public class SurnameFrequencyService {
   @Getter
   private final SurnameFrequencyRepository surnameFrequencyRepository;
 
-  public SurnameFrequencyService(SurnameFrequencyRepository surnameFrequencyRepository) {
+  /**
+   * The Surname frequencies.
+   */
+  private final ReferenceDataHolder<SurnameFrequencySnapshot> surnameFrequencies;
+
+  public SurnameFrequencyService(SurnameFrequencyRepository surnameFrequencyRepository, MeterRegistry meterRegistry) {
     this.surnameFrequencyRepository = surnameFrequencyRepository;
+    this.surnameFrequencies = new ReferenceDataHolder<>("surnameFrequency", SurnameFrequencySnapshot.EMPTY,
+        version -> new SurnameFrequencySnapshot(version, getSurnameFrequencyRepository().findAll()), meterRegistry);
   }
 
-  @Scheduled(fixedRate = 300000)
-  @CacheEvict(value="surnameFrequency", allEntries=true)
-  public void evictAllcachesAtIntervals() {
-    log.debug("Evicting surnameFrequency cache");
+  /**
+   * Reload the surname frequencies into a new snapshot. Loaded at startup with the rest of the reference data by
+   * the lookup manager, then refreshed on schedule.
+   */
+  @Scheduled(cron = "${schedule.jobs.load.surname.frequency.cron}")
+  public void reload() {
+    this.surnameFrequencies.reload();
   }
 
-  @Cacheable("surnameFrequency")
   public Integer lookupSurnameFrequency(String fullStudentSurname) {
     if (fullStudentSurname == null) {
       return 0;
     }
-    // Note this returns in two different places
-    Integer surnameFrequency = 0;
-    List<FrequencySurnameEntity> surnameFreqEntityList = getSurnameFrequencyRepository().findAllBySurnameStartingWith(fullStudentSurname);
-
-    for (FrequencySurnameEntity surnameFreqEntity : surnameFreqEntityList) {
-      surnameFrequency = surnameFrequency + Integer.valueOf(surnameFreqEntity.getSurnameFrequency());
-
-      if (surnameFrequency >= VERY_FREQUENT) {
-        break;
-      }
-    }
-
-    return surnameFrequency;
+    return this.surnameFrequencies.get().frequencyOfPrefix(fullStudentSurname, VERY_FREQUENT);
   }
 }
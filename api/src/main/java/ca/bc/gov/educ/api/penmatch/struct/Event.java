@@ -3,6 +3,7 @@ package ca.bc.gov.educ.api.penmatch.struct;
 import ca.bc.gov.educ.api.penmatch.constants.EventOutcome;
 import ca.bc.gov.educ.api.penmatch.constants.EventType;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -39,4 +40,14 @@ public class Event {
    * The Event payload.
    */
   private String eventPayload; // json string
+  /**
+   * The Workload lane, e.g. interactive for a match a user is waiting on; bulk when absent.
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String workloadLane;
+  /**
+   * The Deadline, the epoch millis the caller gives up at; none when absent.
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Long deadline;
 }
@@ -0,0 +1,43 @@
+package ca.bc.gov.educ.api.penmatch.struct;
+
+import ca.bc.gov.educ.api.penmatch.constants.EventOutcome;
+import ca.bc.gov.educ.api.penmatch.constants.EventType;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * The type Event reply.
+ * <p>
+ * A reply event with its payload decoded, either from the nested payload of a binary reply or from the json string
+ * payload of a json reply.
+ *
+ * @param <T> the payload type
+ */
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EventReply<T> {
+  /**
+   * The Event type.
+   */
+  private EventType eventType;
+  /**
+   * The Event outcome.
+   */
+  private EventOutcome eventOutcome;
+  /**
+   * The Saga id.
+   */
+  private UUID sagaId;
+  /**
+   * The Event payload.
+   */
+  private T eventPayload;
+}
@@ -1,5 +1,7 @@
 package ca.bc.gov.educ.api.penmatch.struct.v1;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -7,12 +9,18 @@ import lombok.NoArgsConstructor;
  * The type Pen master record.
  */
 @Data
+@Builder(toBuilder = true)
 @NoArgsConstructor
+@AllArgsConstructor
 public class PenMasterRecord {
   /**
    * The Student id.
    */
   private String studentID;
+  /**
+   * The True student id, set when the student is merged.
+   */
+  private String trueStudentID;
   /**
    * The Archive flag.
    */
@@ -0,0 +1,59 @@
+package ca.bc.gov.educ.api.penmatch.struct.v1;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * The type Pen match batch result.
+ * <p>
+ * One line of a batch response: the pen match result of the record at the given position of the submitted batch,
+ * or the error that record failed with.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PenMatchBatchResult {
+  /**
+   * The Record number, starting at 1.
+   */
+  private long recordNumber;
+  /**
+   * The Saga id of the record, for batch events.
+   */
+  private UUID sagaId;
+  /**
+   * The Pen match result.
+   */
+  private PenMatchResult penMatchResult;
+  /**
+   * The Error.
+   */
+  private String error;
+
+  /**
+   * Result of a matched record.
+   *
+   * @param recordNumber   the record number
+   * @param penMatchResult the pen match result
+   * @return the pen match batch result
+   */
+  public static PenMatchBatchResult matched(final long recordNumber, final PenMatchResult penMatchResult) {
+    return new PenMatchBatchResult(recordNumber, null, penMatchResult, null);
+  }
+
+  /**
+   * Result of a failed record.
+   *
+   * @param recordNumber the record number
+   * @param error        the error
+   * @return the pen match batch result
+   */
+  public static PenMatchBatchResult failed(final long recordNumber, final String error) {
+    return new PenMatchBatchResult(recordNumber, null, null, error);
+  }
+}
@@ -0,0 +1,22 @@
+package ca.bc.gov.educ.api.penmatch.struct.v1;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * The type Pen match batch student.
+ * <p>
+ * One student of a PROCESS_PEN_MATCH_BATCH event, carrying the saga id its result is reported under.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@NoArgsConstructor
+public class PenMatchBatchStudent extends PenMatchStudent {
+  /**
+   * The Saga id.
+   */
+  private UUID sagaId;
+}
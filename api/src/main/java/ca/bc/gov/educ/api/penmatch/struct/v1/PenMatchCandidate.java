@@ -0,0 +1,30 @@
+package ca.bc.gov.educ.api.penmatch.struct.v1;
+
+import ca.bc.gov.educ.api.penmatch.struct.v1.newmatch.NewPenMatchNames;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The type Pen match candidate.
+ * <p>
+ * The normalized view of one candidate student: the pen master record, with its alternate local id already set, and
+ * the master names as the old and the new algorithm compare them. It is computed once per student and shared by
+ * both algorithms, every recalculation pass and every match that gets the same student from a lookup cache, so
+ * nothing in it may be modified; a pass that needs different names works on a copy of the master record.
+ */
+@Getter
+@AllArgsConstructor
+public final class PenMatchCandidate {
+  /**
+   * The Master record.
+   */
+  private final PenMasterRecord masterRecord;
+  /**
+   * The Master names, for the old algorithm.
+   */
+  private final PenMatchNames masterNames;
+  /**
+   * The Master names, for the new algorithm.
+   */
+  private final NewPenMatchNames newMatchMasterNames;
+}
@@ -1,7 +1,11 @@
 package ca.bc.gov.educ.api.penmatch.struct.v1;
 
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupContext;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.PriorityQueue;
 import java.util.UUID;
@@ -42,5 +46,21 @@ public class PenMatchSession {
    */
   private UUID correlationID;
 
+  /**
+   * The lookups already done for this match, shared by both algorithms.
+   */
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private PenMatchLookupContext lookupContext;
+
+  /**
+   * The timings of the phases of this match.
+   */
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private PenMatchTimings timings = PenMatchTimings.DISABLED;
+
 
 }
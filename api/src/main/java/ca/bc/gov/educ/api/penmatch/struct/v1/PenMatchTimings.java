@@ -0,0 +1,150 @@
+package ca.bc.gov.educ.api.penmatch.struct.v1;
+
+import ca.bc.gov.educ.api.penmatch.constants.PenMatchPhase;
+import io.micrometer.core.instrument.LongTaskTimer;
+
+/**
+ * The type Pen match timings.
+ * <p>
+ * Accumulates the time one match of one algorithm spends in each {@link PenMatchPhase}, so the phases are recorded once
+ * the final pen status is known. A match runs on a single thread, so the timings are not thread safe. The disabled
+ * timings never read the clock.
+ */
+public final class PenMatchTimings {
+  /**
+   * The constant DISABLED.
+   */
+  public static final PenMatchTimings DISABLED = new PenMatchTimings(null, null);
+  /**
+   * The Algorithm.
+   */
+  private final String algorithm;
+  /**
+   * The Active sample, null when disabled.
+   */
+  private final LongTaskTimer.Sample active;
+  /**
+   * The Start nanos.
+   */
+  private final long startNanos;
+  /**
+   * The Nanos per phase.
+   */
+  private final long[] nanos = new long[PenMatchPhase.values().length];
+  /**
+   * The Times each phase was stopped.
+   */
+  private final int[] counts = new int[PenMatchPhase.values().length];
+  /**
+   * The Candidates scored.
+   */
+  private int candidatesScored;
+
+  /**
+   * Instantiates a new Pen match timings.
+   *
+   * @param algorithm the algorithm
+   * @param active    the sample of the active matches timer, null for the disabled timings
+   */
+  public PenMatchTimings(final String algorithm, final LongTaskTimer.Sample active) {
+    this.algorithm = algorithm;
+    this.active = active;
+    this.startNanos = active == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Whether the timings are enabled.
+   *
+   * @return the boolean
+   */
+  public boolean isEnabled() {
+    return this.active != null;
+  }
+
+  /**
+   * Starts timing a phase.
+   *
+   * @return the start nanos, 0 when disabled
+   */
+  public long start() {
+    return this.isEnabled() ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Stops timing a phase, adding the time since the start to it.
+   *
+   * @param phase the phase
+   * @param start the start nanos
+   */
+  public void stop(final PenMatchPhase phase, final long start) {
+    if (this.isEnabled()) {
+      this.nanos[phase.ordinal()] += System.nanoTime() - start;
+      this.counts[phase.ordinal()]++;
+    }
+  }
+
+  /**
+   * Counts a scored candidate.
+   */
+  public void candidateScored() {
+    if (this.isEnabled()) {
+      this.candidatesScored++;
+    }
+  }
+
+  /**
+   * Gets the nanos accumulated by a phase.
+   *
+   * @param phase the phase
+   * @return the nanos
+   */
+  public long getNanos(final PenMatchPhase phase) {
+    return this.nanos[phase.ordinal()];
+  }
+
+  /**
+   * Whether a phase ran.
+   *
+   * @param phase the phase
+   * @return the boolean
+   */
+  public boolean ran(final PenMatchPhase phase) {
+    return this.counts[phase.ordinal()] > 0;
+  }
+
+  /**
+   * Gets algorithm.
+   *
+   * @return the algorithm
+   */
+  public String getAlgorithm() {
+    return this.algorithm;
+  }
+
+  /**
+   * Gets active.
+   *
+   * @return the active sample
+   */
+  public LongTaskTimer.Sample getActive() {
+    return this.active;
+  }
+
+  /**
+   * Gets start nanos.
+   *
+   * @return the start nanos
+   */
+  public long getStartNanos() {
+    return this.startNanos;
+  }
+
+  /**
+   * Gets candidates scored.
+   *
+   * @return the candidates scored
+   */
+  public int getCandidatesScored() {
+    return this.candidatesScored;
+  }
+}
@@ -1,8 +1,13 @@
 package ca.bc.gov.educ.api.penmatch.struct.v1.newmatch;
 
 
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupContext;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchTimings;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.List;
 import java.util.PriorityQueue;
@@ -40,4 +45,20 @@ public class NewPenMatchSession {
    * correlation id to pass to different events for easy tracking.
    */
   private UUID correlationID;
+
+  /**
+   * The lookups already done for this match, shared by both algorithms.
+   */
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private PenMatchLookupContext lookupContext;
+
+  /**
+   * The timings of the phases of this match.
+   */
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private PenMatchTimings timings = PenMatchTimings.DISABLED;
 }
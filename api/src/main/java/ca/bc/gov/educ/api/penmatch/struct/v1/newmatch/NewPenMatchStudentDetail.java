@@ -1,7 +1,7 @@
 package ca.bc.gov.educ.api.penmatch.struct.v1.newmatch;
 
 
-import ca.bc.gov.educ.api.penmatch.model.v1.NicknameEntity;
+import ca.bc.gov.educ.api.penmatch.lookup.NicknameGroup;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudent;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudentDetail;
 import lombok.Builder;
@@ -63,11 +63,11 @@ public class NewPenMatchStudentDetail extends PenMatchStudent {
   /**
    * The Given name nicknames.
    */
-  private List<NicknameEntity> givenNameNicknames;
+  private NicknameGroup givenNameNicknames;
   /**
    * The Middle name nicknames.
    */
-  private List<NicknameEntity> middleNameNicknames;
+  private NicknameGroup middleNameNicknames;
 
   /**
    * Instantiates a new New pen match student detail.
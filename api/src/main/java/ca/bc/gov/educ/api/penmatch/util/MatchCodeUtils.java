@@ -0,0 +1,152 @@
+package ca.bc.gov.educ.api.penmatch.util;
+
+/**
+ * The type Match code utils.
+ * <p>
+ * The new pen match builds a 7 position match code (surname, given name, middle name, year, month, day and gender),
+ * each position a digit from 1 to 4. Internally a match code is packed into an int, 3 bits per position with the
+ * surname in the highest bits, so it can be built, compared, summed and used as an array index without creating
+ * strings. The 7 character string form is only produced where a match code leaves the algorithm.
+ */
+public final class MatchCodeUtils {
+  /**
+   * The constant POSITIONS.
+   */
+  public static final int POSITIONS = 7;
+  /**
+   * The constant BITS_PER_POSITION.
+   */
+  public static final int BITS_PER_POSITION = 3;
+  /**
+   * The constant CODE_SPACE, the number of distinct packed match codes.
+   */
+  public static final int CODE_SPACE = 1 << (POSITIONS * BITS_PER_POSITION);
+  /**
+   * The constant INVALID, for strings that are not a packable match code.
+   */
+  public static final int INVALID = -1;
+  /**
+   * The constant NO_BEST_MATCH_KEY, the ordering key of matches without a match code (e.g. the old F1 pen).
+   */
+  public static final long NO_BEST_MATCH_KEY = 999999999999L;
+  /**
+   * The constant POSITION_MASK.
+   */
+  private static final int POSITION_MASK = (1 << BITS_PER_POSITION) - 1;
+
+  /**
+   * Instantiates a new Match code utils.
+   */
+  private MatchCodeUtils() {
+  }
+
+  /**
+   * Pack the position codes into a match code.
+   *
+   * @param surname the surname code
+   * @param given   the given name code
+   * @param middle  the middle name code
+   * @param year    the year code
+   * @param month   the month code
+   * @param day     the day code
+   * @param gender  the gender code
+   * @return the packed match code
+   */
+  public static int pack(int surname, int given, int middle, int year, int month, int day, int gender) {
+    int code = surname;
+    code = (code << BITS_PER_POSITION) | given;
+    code = (code << BITS_PER_POSITION) | middle;
+    code = (code << BITS_PER_POSITION) | year;
+    code = (code << BITS_PER_POSITION) | month;
+    code = (code << BITS_PER_POSITION) | day;
+    return (code << BITS_PER_POSITION) | gender;
+  }
+
+  /**
+   * The digit at a position of a packed match code, position 0 being the surname.
+   *
+   * @param code     the packed match code
+   * @param position the position
+   * @return the digit
+   */
+  public static int digit(int code, int position) {
+    return (code >>> (BITS_PER_POSITION * (POSITIONS - 1 - position))) & POSITION_MASK;
+  }
+
+  /**
+   * Parse a 7 character match code.
+   *
+   * @param matchCode the match code
+   * @return the packed match code, or {@link #INVALID}
+   */
+  public static int parse(String matchCode) {
+    if (matchCode == null || matchCode.length() != POSITIONS) {
+      return INVALID;
+    }
+    int code = 0;
+    for (int i = 0; i < POSITIONS; i++) {
+      int digit = matchCode.charAt(i) - '0';
+      if (digit < 0 || digit > POSITION_MASK) {
+        return INVALID;
+      }
+      code = (code << BITS_PER_POSITION) | digit;
+    }
+    return code;
+  }
+
+  /**
+   * The 7 character form of a packed match code.
+   *
+   * @param code the packed match code
+   * @return the string
+   */
+  public static String toString(int code) {
+    char[] chars = new char[POSITIONS];
+    for (int i = 0; i < POSITIONS; i++) {
+      chars[i] = (char) ('0' + digit(code, i));
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Sum of the positions of a packed match code.
+   *
+   * @param code the packed match code
+   * @return the sum
+   */
+  public static int sum(int code) {
+    int sum = 0;
+    for (int i = 0; i < POSITIONS; i++) {
+      sum += digit(code, i);
+    }
+    return sum;
+  }
+
+  /**
+   * The best match ordering key of a packed match code, lowest is best.
+   * It is the number the match code string used to be concatenated into: the 2 digit sum of the positions, then
+   * 7 minus the count of ones, 7 minus twice the count of twos and 7 minus three times the count of threes, then
+   * the match code itself.
+   *
+   * @param code the packed match code
+   * @return the key
+   */
+  public static long bestMatchKey(int code) {
+    int ones = 0;
+    int twos = 0;
+    int threes = 0;
+    long decimal = 0;
+    for (int i = 0; i < POSITIONS; i++) {
+      int digit = digit(code, i);
+      if (digit == 1) {
+        ones++;
+      } else if (digit == 2) {
+        twos++;
+      } else if (digit == 3) {
+        threes++;
+      }
+      decimal = decimal * 10 + digit;
+    }
+    return sum(code) * 10_000_000_000L + (7 - ones) * 1_000_000_000L + (7 - 2 * twos) * 100_000_000L + (7 - 3 * threes) * 10_000_000L + decimal;
+  }
+}
@@ -1,10 +1,11 @@
 package ca.bc.gov.educ.api.penmatch.util;
 
 import ca.bc.gov.educ.api.penmatch.constants.PenStatus;
-import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
 import ca.bc.gov.educ.api.penmatch.struct.PenMatchRecord;
 import ca.bc.gov.educ.api.penmatch.struct.v1.*;
 import ca.bc.gov.educ.api.penmatch.struct.v1.newmatch.BestMatchRecord;
+import ca.bc.gov.educ.api.penmatch.struct.v1.newmatch.NewPenMatchNames;
 import ca.bc.gov.educ.api.penmatch.struct.v1.newmatch.NewPenMatchSession;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -70,7 +71,7 @@ public class PenMatchUtils {
    * @param entity the entity
    * @return the pen master record
    */
-  public static PenMasterRecord convertStudentEntityToPenMasterRecord(StudentEntity entity) {
+  public static PenMasterRecord convertStudentEntityToPenMasterRecord(StudentCandidateEntity entity) {
     if (log.isDebugEnabled()) {
       log.debug(" input :: PenDemographicsEntity={}", JsonUtil.getJsonPrettyStringFromObject(entity));
     }
@@ -92,12 +93,57 @@ public class PenMatchUtils {
     masterRecord.setStatus(checkForValidValue(entity.getStatusCode()));
     masterRecord.setMincode(checkForValidValue(entity.getMincode()));
     masterRecord.setLocalId(checkForValidValue(entity.getLocalID()));
+    masterRecord.setTrueStudentID(checkForValidValue(entity.getTrueStudentID()));
     if (log.isDebugEnabled()) {
       log.debug(" output :: PenMasterRecord={}", JsonUtil.getJsonPrettyStringFromObject(masterRecord));
     }
     return masterRecord;
   }
 
+  /**
+   * Converts PEN Demog record to the normalized candidate view used by both match algorithms
+   *
+   * @param entity the entity
+   * @return the pen match candidate
+   */
+  public static PenMatchCandidate convertStudentEntityToPenMatchCandidate(StudentCandidateEntity entity) {
+    var masterRecord = convertStudentEntityToPenMasterRecord(entity);
+    normalizeLocalIDsFromMaster(masterRecord);
+    return new PenMatchCandidate(masterRecord, storeNamesFromMaster(masterRecord), formatNames(masterRecord.getSurname(), masterRecord.getUsualSurname(), masterRecord.getGiven(), masterRecord.getMiddle(), masterRecord.getUsualGivenName()));
+  }
+
+  /**
+   * Stores the names, scrubbed and with hyphens replaced, the way the new PEN match compares them
+   *
+   * @param surname      the surname
+   * @param usualSurname the usual surname
+   * @param given        the given
+   * @param middle       the middle
+   * @param usualGiven   the usual given
+   * @return the new pen match names
+   */
+  public static NewPenMatchNames formatNames(String surname, String usualSurname, String given, String middle, String usualGiven) {
+    NewPenMatchNames penMatchNames = new NewPenMatchNames();
+
+    penMatchNames.setLegalSurname(surname);
+    penMatchNames.setLegalGiven(given);
+    penMatchNames.setLegalMiddle(middle);
+    penMatchNames.setUsualSurname(usualSurname);
+    penMatchNames.setUsualGiven(usualGiven);
+
+    penMatchNames.setLegalSurnameScrubbed(dropNonLetters(surname));
+    penMatchNames.setLegalGivenScrubbed(dropNonLetters(given));
+    penMatchNames.setLegalMiddleScrubbed(dropNonLetters(middle));
+    penMatchNames.setUsualSurnameScrubbed(dropNonLetters(usualSurname));
+    penMatchNames.setUsualGivenScrubbed(dropNonLetters(usualGiven));
+
+    penMatchNames.setLegalMiddleHyphenToBlank(replaceHyphensWithBlank(middle));
+    penMatchNames.setLegalSurnameHyphenToBlank(replaceHyphensWithBlank(surname));
+    penMatchNames.setLegalGivenHyphenToBlank(replaceHyphensWithBlank(given));
+
+    return penMatchNames;
+  }
+
   /**
    * Checks for valid string value
    *
@@ -370,7 +370,7 @@ public class ScoringUtils {
    * @param inputString the input string
    * @return the string
    */
-  private static String runSoundex(String inputString) {
+  static String runSoundex(String inputString) {
     log.debug(" input :: soundexInputString={}", inputString);
 
     String previousCharRaw;
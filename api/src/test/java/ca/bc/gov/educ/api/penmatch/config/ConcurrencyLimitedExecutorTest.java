@@ -0,0 +1,79 @@
+package ca.bc.gov.educ.api.penmatch.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The type Concurrency limited executor test.
+ */
+public class ConcurrencyLimitedExecutorTest {
+  /**
+   * The Meter registry.
+   */
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * The Delegate, a thread per task.
+   */
+  private ExecutorService delegate;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.delegate = Executors.newCachedThreadPool();
+  }
+
+  /**
+   * After.
+   */
+  @After
+  public void after() {
+    this.delegate.shutdownNow();
+  }
+
+  /**
+   * Tasks beyond the permits wait for one, however many threads the delegate has.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testExecute_GivenMoreTasksThanPermits_ShouldRunAtMostPermits() throws Exception {
+    final ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor("test.executor", this.delegate, 2, this.meterRegistry);
+    final CountDownLatch started = new CountDownLatch(2);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(5);
+    for (int i = 0; i < 5; i++) {
+      executor.execute(() -> {
+        started.countDown();
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        done.countDown();
+      });
+    }
+
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(executor.getInFlight()).isEqualTo(2);
+    assertThat(executor.getQueued()).isEqualTo(3);
+    assertThat(this.meterRegistry.get("test.executor.in.flight").gauge().value()).isEqualTo(2);
+    assertThat(this.meterRegistry.get("test.executor.queued").gauge().value()).isEqualTo(3);
+
+    release.countDown();
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(executor.getQueued()).isZero();
+    assertThat(this.meterRegistry.get("test.executor.queue.wait").timer().count()).isEqualTo(5);
+  }
+}
@@ -2,6 +2,7 @@ package ca.bc.gov.educ.api.penmatch.controller;
 
 import ca.bc.gov.educ.api.penmatch.constants.MatchReasonCodes;
 import ca.bc.gov.educ.api.penmatch.controller.v1.PenMatchController;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
 import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupManager;
 import ca.bc.gov.educ.api.penmatch.mappers.v1.PossibleMatchMapper;
 import ca.bc.gov.educ.api.penmatch.model.v1.FrequencySurnameEntity;
@@ -16,6 +17,7 @@ import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudent;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PossibleMatch;
 import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -42,12 +44,16 @@ import java.util.stream.Collectors;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oidcLogin;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -160,6 +166,7 @@ public class PenMatchControllerTest {
     List<FrequencySurnameEntity> surnameFreqEntities = new ObjectMapper().readValue(fileSurnameFrequency, new TypeReference<>() {
     });
     surnameFreqRepository.saveAll(surnameFreqEntities);
+    penMatchLookupManager.reloadCache();
   }
 
   /**
@@ -187,6 +194,47 @@ public class PenMatchControllerTest {
 
   }
 
+  /**
+   * Test pen match given a deadline that has passed should drop the request.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testPenMatch_GivenDeadlinePassed_ShouldReturnGatewayTimeout() throws Exception {
+    this.mockMvc.perform(post("/api/v1/pen-match").with(jwt().jwt((jwt) -> jwt.claim("scope", "READ_PEN_MATCH"))).header(DeadlineHolder.HTTP_HEADER, System.currentTimeMillis() - 1000)
+        .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(asJsonString(createPenMatchStudent()))).andExpect(status().isGatewayTimeout());
+    verify(restUtils, never()).getPenMasterRecordByPenAsync(any(), any());
+  }
+
+  /**
+   * Test batch pen match given ndjson payload should stream one result per record in order.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testPenMatchBatch_GivenNdjsonPayload_ShouldStreamResultsInOrder() throws Exception {
+    PenMatchStudent invalid = createPenMatchStudent();
+    invalid.setDob(null);
+    String payload = asJsonString(createPenMatchStudent()) + "\n{not json\n" + asJsonString(invalid) + "\n";
+
+    var asyncResult = this.mockMvc.perform(post("/api/v1/pen-match/batch").with(jwt().jwt((jwt) -> jwt.claim("scope", "READ_PEN_MATCH"))).contentType(MediaType.APPLICATION_NDJSON).accept(MediaType.APPLICATION_NDJSON).content(payload))
+        .andExpect(request().asyncStarted()).andReturn();
+    String response = this.mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    List<JsonNode> lines = new ArrayList<>();
+    for (String line : response.split("\n")) {
+      lines.add(objectMapper.readTree(line));
+    }
+    assertThat(lines).hasSize(3);
+    assertThat(lines.get(0).get("recordNumber").asLong()).isEqualTo(1);
+    assertThat(lines.get(0).get("penMatchResult").get("penStatus").asText()).isEqualTo("C0");
+    assertThat(lines.get(1).get("recordNumber").asLong()).isEqualTo(2);
+    assertThat(lines.get(1).get("error").asText()).startsWith("Malformed JSON record");
+    assertThat(lines.get(2).get("recordNumber").asLong()).isEqualTo(3);
+    assertThat(lines.get(2).get("error").asText()).contains("dob");
+  }
+
   /**
    * Test nicknames for given name should return list of nicknames.
    *
@@ -0,0 +1,132 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The type Candidate lookup cache test.
+ */
+public class CandidateLookupCacheTest {
+  /**
+   * The Meter registry.
+   */
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * The Cache.
+   */
+  private CandidateLookupCache cache;
+  /**
+   * The Remote calls.
+   */
+  private AtomicInteger remoteCalls;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    final ApplicationProperties props = new ApplicationProperties();
+    props.setCandidateLookupCacheEnabled(true);
+    props.setCandidateLookupCacheMaxSize(10);
+    props.setCandidateLookupCacheTtlSeconds(60);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.cache = new CandidateLookupCache(props, this.meterRegistry);
+    this.remoteCalls = new AtomicInteger();
+  }
+
+  /**
+   * Same criteria for different transactions is served from the cache.
+   */
+  @Test
+  public void testGet_GivenSameCriteria_ShouldCallRemoteOnce() {
+    final StudentEntity student = this.createStudent();
+    this.cache.get(CandidateLookupKey.noInit("20000101", "SMIT", "10210518", "12345"), () -> this.remote(student));
+    final List<StudentCandidateEntity> result = this.cache.get(CandidateLookupKey.noInit("20000101", "SMIT", "10210518", "12345"), () -> this.remote(student));
+    assertThat(result).containsExactly(student);
+    assertThat(this.remoteCalls.get()).isEqualTo(1);
+    assertThat(this.meterRegistry.get("cache.gets").tag("cache", CandidateLookupCache.CACHE_NAME).tag("result", "hit").functionCounter().count()).isEqualTo(1);
+  }
+
+  /**
+   * Different lookup types are kept apart.
+   */
+  @Test
+  public void testGet_GivenDifferentLookupType_ShouldCallRemoteTwice() {
+    final StudentEntity student = this.createStudent();
+    this.cache.get(CandidateLookupKey.noInitNoLocalID("20000101", "SMIT"), () -> this.remote(student));
+    this.cache.get(CandidateLookupKey.noLocalID("20000101", "SMIT", "J"), () -> this.remote(student));
+    assertThat(this.remoteCalls.get()).isEqualTo(2);
+  }
+
+  /**
+   * A student change evicts the entries the student could be part of and leaves the others.
+   */
+  @Test
+  public void testInvalidate_GivenChangedStudent_ShouldEvictMatchingEntries() {
+    final StudentEntity student = this.createStudent();
+    this.cache.get(CandidateLookupKey.noInitNoLocalID("20000101", "SMIT"), () -> this.remote(student));
+    this.cache.get(CandidateLookupKey.noInitNoLocalID("19990101", "SMITH"), () -> this.remote(student));
+    this.cache.get(CandidateLookupKey.noInitNoLocalID("19990101", "JONE"), List::of);
+    final StudentEntity changed = this.createStudent();
+    changed.setDob("1980-01-01");
+    changed.setLegalLastName("SMITHERS");
+    this.cache.invalidate(changed);
+    assertThat(this.cache.size()).isEqualTo(1);
+    assertThat(this.meterRegistry.get(CandidateLookupCache.CACHE_NAME + ".invalidations").counter().count()).isEqualTo(2);
+  }
+
+  /**
+   * An entry whose criteria no longer match the changed student is still evicted when it holds the student.
+   */
+  @Test
+  public void testInvalidate_GivenEntryHoldingStudent_ShouldEvictIt() {
+    final StudentEntity student = this.createStudent();
+    this.cache.get(CandidateLookupKey.noInitNoLocalID("20000101", "JACK"), () -> this.remote(student));
+    final StudentEntity changed = this.createStudent();
+    changed.setDob("1980-01-01");
+    changed.setLegalLastName("SMITHERS");
+    changed.setMincode("99999999");
+    this.cache.invalidate(changed);
+    assertThat(this.cache.size()).isZero();
+  }
+
+  /**
+   * A load which started before a student change is returned but not cached, as it may hold the student before the
+   * change.
+   */
+  @Test
+  public void testGet_GivenInvalidationDuringLoad_ShouldNotCacheLoad() {
+    final StudentEntity student = this.createStudent();
+    final CandidateLookupKey key = CandidateLookupKey.noInitNoLocalID("20000101", "JACK");
+    final List<StudentCandidateEntity> result = this.cache.get(key, () -> {
+      this.cache.invalidate(this.createStudent());
+      return this.remote(student);
+    });
+    assertThat(result).containsExactly(student);
+    assertThat(this.cache.getIfPresent(key)).isEmpty();
+
+    this.cache.get(key, () -> this.remote(student));
+    assertThat(this.cache.getIfPresent(key)).isPresent();
+    assertThat(this.remoteCalls.get()).isEqualTo(2);
+  }
+
+  private List<StudentCandidateEntity> remote(final StudentEntity student) {
+    this.remoteCalls.incrementAndGet();
+    return List.of(student);
+  }
+
+  private StudentEntity createStudent() {
+    return StudentEntity.builder().studentID(UUID.fromString("0a614e84-7e27-1815-817e-fd3cd2240000")).pen("123456789").legalLastName("JACKSON")
+        .legalFirstName("JAKE").dob("2000-01-01").mincode("10210518").localID("12345").build();
+  }
+}
@@ -0,0 +1,95 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.rest.RestUtils;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * The type Merged student resolver test.
+ */
+public class MergedStudentResolverTest {
+  /**
+   * The Merged student id.
+   */
+  private static final UUID MERGED_STUDENT_ID = UUID.randomUUID();
+  /**
+   * The True student id.
+   */
+  private static final UUID TRUE_STUDENT_ID = UUID.randomUUID();
+  /**
+   * The Rest utils.
+   */
+  private RestUtils restUtils;
+  /**
+   * The Resolver.
+   */
+  private MergedStudentResolver resolver;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    this.restUtils = Mockito.mock(RestUtils.class);
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    applicationProperties.setMergedStudentCacheEnabled(true);
+    applicationProperties.setMergedStudentCacheMaxSize(10);
+    applicationProperties.setMergedStudentCacheTtlSeconds(60);
+    this.resolver = new MergedStudentResolver(this.restUtils, applicationProperties, new SimpleMeterRegistry());
+    when(this.restUtils.getStudentByStudentID(eq(TRUE_STUDENT_ID.toString()), any())).thenReturn(Optional.of(this.createStudent(TRUE_STUDENT_ID, "123456789", null)));
+  }
+
+  /**
+   * A merged record carrying its true student id resolves with one request, later resolves are served from the cache
+   * until the true student changes.
+   */
+  @Test
+  public void testResolve_GivenTrueStudentIDOnRecord_ShouldFetchTrueStudentOnce() {
+    final PenMasterRecord mergedRecord = PenMasterRecord.builder().studentID(MERGED_STUDENT_ID.toString()).pen("120164447").status("M").trueStudentID(TRUE_STUDENT_ID.toString()).build();
+
+    assertThat(this.resolver.resolve(mergedRecord, UUID.randomUUID())).map(PenMasterRecord::getPen).contains("123456789");
+    assertThat(this.resolver.resolve(mergedRecord, UUID.randomUUID())).map(PenMasterRecord::getStudentID).contains(TRUE_STUDENT_ID.toString());
+    verify(this.restUtils, times(1)).getStudentByStudentID(any(), any());
+
+    this.resolver.invalidate(TRUE_STUDENT_ID.toString());
+    this.resolver.resolve(mergedRecord, UUID.randomUUID());
+    verify(this.restUtils, times(2)).getStudentByStudentID(any(), any());
+  }
+
+  /**
+   * A merged record without its true student id is fetched by id first, the mapping is kept until the student is
+   * demerged.
+   */
+  @Test
+  public void testResolve_GivenNoTrueStudentIDOnRecord_ShouldCacheMapping() {
+    when(this.restUtils.getStudentByStudentID(eq(MERGED_STUDENT_ID.toString()), any())).thenReturn(Optional.of(this.createStudent(MERGED_STUDENT_ID, "120164447", TRUE_STUDENT_ID.toString())));
+    final PenMasterRecord mergedRecord = PenMasterRecord.builder().studentID(MERGED_STUDENT_ID.toString()).pen("120164447").status("M").build();
+
+    assertThat(this.resolver.resolve(mergedRecord, UUID.randomUUID())).map(PenMasterRecord::getPen).contains("123456789");
+    assertThat(this.resolver.resolve(mergedRecord, UUID.randomUUID())).isPresent();
+    verify(this.restUtils, times(1)).getStudentByStudentID(eq(MERGED_STUDENT_ID.toString()), any());
+    verify(this.restUtils, times(1)).getStudentByStudentID(eq(TRUE_STUDENT_ID.toString()), any());
+
+    when(this.restUtils.getStudentByStudentID(eq(MERGED_STUDENT_ID.toString()), any())).thenReturn(Optional.of(this.createStudent(MERGED_STUDENT_ID, "120164447", null)));
+    this.resolver.invalidate(MERGED_STUDENT_ID.toString());
+    assertThat(this.resolver.resolve(mergedRecord, UUID.randomUUID())).isEmpty();
+  }
+
+  private StudentEntity createStudent(final UUID studentID, final String pen, final String trueStudentID) {
+    return StudentEntity.builder().studentID(studentID).pen(pen).legalLastName("JACKSON").legalFirstName("JAKE").dob("2000-01-01")
+        .statusCode(trueStudentID == null ? "A" : "M").trueStudentID(trueStudentID).build();
+  }
+}
@@ -0,0 +1,164 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.exception.DeadlineExceededException;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * The type Pen match lookup context test.
+ */
+public class PenMatchLookupContextTest {
+  /**
+   * The Lookup manager.
+   */
+  private PenMatchLookupManager lookupManager;
+  /**
+   * The Context.
+   */
+  private PenMatchLookupContext context;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    this.lookupManager = Mockito.mock(PenMatchLookupManager.class);
+    this.context = new PenMatchLookupContext(this.lookupManager, UUID.randomUUID());
+  }
+
+  /**
+   * After.
+   */
+  @After
+  public void after() {
+    DeadlineHolder.clear();
+  }
+
+  /**
+   * Past the deadline of the request, a search answered by the context is still answered, one that is not is abandoned
+   * before it goes to the lookup manager.
+   */
+  @Test
+  public void testLookupCandidates_GivenDeadlinePassed_ShouldAbandonRemoteLookup() {
+    final CandidateLookupKey wide = CandidateLookupKey.noInit("20000101", "JACK", "10210518", "12345");
+    when(this.lookupManager.lookupCandidates(eq(wide), any())).thenReturn(List.of(this.createStudent("JACKSON", "JAKE", "2000-01-01")));
+    this.context.lookupCandidates(wide);
+
+    DeadlineHolder.setDeadline(System.currentTimeMillis() - 1);
+    assertThat(this.context.lookupCandidates(CandidateLookupKey.noLocalID("20000101", "JACK", "J"))).hasSize(1);
+    assertThatThrownBy(() -> this.context.lookupStudentByPEN("120164447"))
+        .isInstanceOf(DeadlineExceededException.class).extracting("stage").isEqualTo(DeadlineHolder.LOOKUP_STAGE);
+    verify(this.lookupManager, times(1)).lookupCandidates(any(), any());
+    verify(this.lookupManager, never()).lookupStudentByPEN(any(), any());
+  }
+
+  /**
+   * The same criteria asked by both algorithms is looked up once.
+   */
+  @Test
+  public void testLookupCandidates_GivenSameCriteria_ShouldLookupOnce() {
+    final CandidateLookupKey key = CandidateLookupKey.withAllParts("20000101", "JACK", "J", "10210518", "12345");
+    when(this.lookupManager.lookupCandidates(eq(key), any())).thenReturn(List.of(this.createStudent("JACKSON", "JAKE", "2000-01-01")));
+    this.context.lookupCandidates(key);
+    assertThat(this.context.lookupCandidates(CandidateLookupKey.withAllParts("20000101", "JACK", "J", "10210518", "12345"))).hasSize(1);
+    verify(this.lookupManager, times(1)).lookupCandidates(any(), any());
+  }
+
+  /**
+   * A narrower search is filtered from a wider one, a search that is not covered goes to the lookup manager.
+   */
+  @Test
+  public void testLookupCandidates_GivenCoveredCriteria_ShouldFilterInMemory() {
+    final CandidateLookupKey wide = CandidateLookupKey.noInit("20000101", "JACK", "10210518", "12345");
+    when(this.lookupManager.lookupCandidates(eq(wide), any())).thenReturn(List.of(
+        this.createStudent("JACKSON", "JAKE", "1990-01-01"), this.createStudent("JACKMAN", "PETER", "1990-01-01"), this.createStudent("SMITH", "JOHN", "2000-01-01")));
+
+    assertThat(this.context.lookupCandidates(wide)).hasSize(3);
+    assertThat(this.context.lookupCandidates(CandidateLookupKey.noLocalID("20000101", "JACK", "J")))
+        .extracting(StudentCandidateEntity::getLegalLastName).containsExactlyInAnyOrder("JACKSON", "SMITH");
+    verify(this.lookupManager, times(1)).lookupCandidates(any(), any());
+
+    this.context.lookupCandidates(CandidateLookupKey.withAllParts("20000101", "JACK", "J", "10210518", null));
+    verify(this.lookupManager, times(2)).lookupCandidates(any(), any());
+  }
+
+  /**
+   * A search covered by a planned key of a dob bucket is answered from the bucket, other searches go to the lookup manager.
+   */
+  @Test
+  public void testLookupCandidates_GivenDobBucket_ShouldAnswerCoveredCriteriaFromBucket() {
+    final CandidateLookupBucket bucket = new CandidateLookupBucket("20000101",
+        Set.of(CandidateLookupKey.noInit("20000101", "JACK", "10210518", "12345"), CandidateLookupKey.withAllParts("20000101", "SMIT", "J", "10210518", "67890")),
+        List.of(this.createStudent("JACKSON", "JAKE", "1990-01-01"), this.createStudent("SMITHERS", "PETER", "1990-01-01"), this.createStudent("BROWN", "JOHN", "2000-01-01")));
+    this.context.addBucket(bucket);
+
+    assertThat(this.context.lookupCandidates(CandidateLookupKey.noLocalID("20000101", "JACK", "J")))
+        .extracting(StudentCandidateEntity::getLegalLastName).containsExactlyInAnyOrder("JACKSON", "BROWN");
+    assertThat(this.context.lookupCandidates(CandidateLookupKey.withAllParts("20000101", "SMITH", "JO", "10210518", "67890")))
+        .extracting(StudentCandidateEntity::getLegalLastName).containsExactly("BROWN");
+    verify(this.lookupManager, never()).lookupCandidates(any(), any());
+
+    this.context.lookupCandidates(CandidateLookupKey.noInit("20000101", "BRO", "10210518", "12345"));
+    verify(this.lookupManager, times(1)).lookupCandidates(any(), any());
+  }
+
+  /**
+   * Pen, true student and surname frequency lookups are shared as well.
+   */
+  @Test
+  public void testReferenceLookups_GivenRepeatedCalls_ShouldLookupOnce() {
+    when(this.lookupManager.lookupStudentByPEN(eq("120164447"), any())).thenReturn(Optional.of(new PenMasterRecord()));
+    when(this.lookupManager.lookupSurnameFrequency("JACK")).thenReturn(20);
+    this.context.lookupStudentByPEN("120164447");
+    this.context.lookupStudentByPEN("120164447");
+    this.context.lookupSurnameFrequency("JACK");
+    assertThat(this.context.lookupSurnameFrequency("JACK")).isEqualTo(20);
+    final PenMasterRecord mergedRecord = PenMasterRecord.builder().studentID("merged").pen("120164447").status("M").build();
+    final PenMasterRecord trueRecord = PenMasterRecord.builder().studentID("true").pen("123456789").build();
+    when(this.lookupManager.lookupTrueStudent(eq(mergedRecord), any())).thenReturn(Optional.of(trueRecord));
+    this.context.lookupTrueStudent(mergedRecord);
+    assertThat(this.context.lookupTrueStudent(mergedRecord)).containsSame(trueRecord);
+    assertThat(this.context.lookupStudentByPEN("123456789")).containsSame(trueRecord);
+    verify(this.lookupManager, times(1)).lookupStudentByPEN(any(), any());
+    verify(this.lookupManager, times(1)).lookupSurnameFrequency(any());
+    verify(this.lookupManager, times(1)).lookupTrueStudent(any(), any());
+  }
+
+  /**
+   * A prefetched pen is sent once and the later lookup waits for it instead of looking it up again.
+   */
+  @Test
+  public void testPrefetchStudentByPEN_GivenLaterLookup_ShouldJoinPrefetchedRequest() {
+    final PenMasterRecord masterRecord = new PenMasterRecord();
+    when(this.lookupManager.lookupStudentByPENAsync(eq("120164447"), any())).thenReturn(CompletableFuture.completedFuture(Optional.of(masterRecord)));
+    assertThat(this.context.prefetchStudentByPEN("120164447")).isTrue();
+    assertThat(this.context.prefetchStudentByPEN("120164447")).isFalse();
+    assertThat(this.context.lookupStudentByPEN("120164447")).containsSame(masterRecord);
+    assertThat(this.context.prefetchStudentByPEN("120164447")).isFalse();
+    verify(this.lookupManager, times(1)).lookupStudentByPENAsync(any(), any());
+    verify(this.lookupManager, never()).lookupStudentByPEN(any(), any());
+  }
+
+  private StudentEntity createStudent(final String surname, final String givenName, final String dob) {
+    return StudentEntity.builder().studentID(UUID.randomUUID()).legalLastName(surname).legalFirstName(givenName).dob(dob)
+        .mincode("00000000").localID("1").statusCode("A").build();
+  }
+}
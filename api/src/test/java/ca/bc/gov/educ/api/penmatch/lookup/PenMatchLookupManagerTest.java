@@ -2,12 +2,14 @@ package ca.bc.gov.educ.api.penmatch.lookup;
 
 import ca.bc.gov.educ.api.penmatch.model.v1.FrequencySurnameEntity;
 import ca.bc.gov.educ.api.penmatch.model.v1.NicknameEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
 import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
 import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
 import ca.bc.gov.educ.api.penmatch.repository.v1.ForeignSurnameRepository;
 import ca.bc.gov.educ.api.penmatch.repository.v1.MatchCodesRepository;
 import ca.bc.gov.educ.api.penmatch.repository.v1.NicknamesRepository;
 import ca.bc.gov.educ.api.penmatch.repository.v1.SurnameFrequencyRepository;
+import ca.bc.gov.educ.api.penmatch.rest.RestPageImpl;
 import ca.bc.gov.educ.api.penmatch.rest.RestUtils;
 import ca.bc.gov.educ.api.penmatch.service.v1.match.SurnameFrequencyService;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
@@ -17,6 +19,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -24,6 +27,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.client.RestTemplate;
@@ -36,7 +40,10 @@ import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 /**
  * The type Pen match lookup manager test.
@@ -92,6 +99,30 @@ public class PenMatchLookupManagerTest {
 
   @Autowired
   SurnameFrequencyService surnameFrequencyService;
+
+  /**
+   * The Candidate lookup cache.
+   */
+  @Autowired
+  CandidateLookupCache candidateLookupCache;
+
+  /**
+   * The Student demographics replica.
+   */
+  @Autowired
+  StudentDemographicsReplica studentDemographicsReplica;
+
+  /**
+   * The Merged student resolver.
+   */
+  @Autowired
+  MergedStudentResolver mergedStudentResolver;
+
+  /**
+   * The Meter registry.
+   */
+  @Autowired
+  MeterRegistry meterRegistry;
   /**
    * The Correlation id.
    */
@@ -116,7 +147,8 @@ public class PenMatchLookupManagerTest {
       List<FrequencySurnameEntity> surnameFreqEntities = new ObjectMapper().readValue(fileSurnameFrequency, new TypeReference<>() {
       });
       surnameFrequencyRepository.saveAll(surnameFreqEntities);
-      lookupManager = new PenMatchLookupManager(foreignSurnameRepository, nicknamesRepository, matchCodesRepository, restUtils, surnameFrequencyService);
+      lookupManager = new PenMatchLookupManager(foreignSurnameRepository, nicknamesRepository, matchCodesRepository, restUtils, surnameFrequencyService, candidateLookupCache, studentDemographicsReplica, mergedStudentResolver, props, meterRegistry);
+      lookupManager.init();
       dataLoaded = true;
     }
   }
@@ -167,6 +199,23 @@ public class PenMatchLookupManagerTest {
     assertThat(masterRecord).isPresent();
   }
 
+  /**
+   * The candidate view of a student is normalized once and shared by every lookup of the same student.
+   */
+  @Test
+  public void testLookupPenMatchCandidate_GivenSameStudent_ShouldNormalizeOnce() {
+    var student = StudentEntity.builder().studentID(UUID.randomUUID()).pen("120164447").dob("1998-11-02").legalLastName("O'DLUS")
+        .legalFirstName("MARY-ANN").legalMiddleNames("JO").mincode("00501007").localID("00239 661").statusCode("A").build();
+    var candidate = lookupManager.lookupPenMatchCandidate(student);
+
+    assertThat(lookupManager.lookupPenMatchCandidate(student)).isSameAs(candidate);
+    assertThat(candidate.getMasterRecord().getDob()).isEqualTo("19981102");
+    assertThat(candidate.getMasterRecord().getAlternateLocalId()).isEqualTo("239661");
+    assertThat(candidate.getMasterNames().getAlternateLegalGiven()).isEqualTo("MARY");
+    assertThat(candidate.getNewMatchMasterNames().getLegalSurnameScrubbed()).isEqualTo("ODLUS");
+    assertThat(candidate.getNewMatchMasterNames().getLegalGivenHyphenToBlank()).isEqualTo("MARY ANN");
+  }
+
   /**
    * Test lookup student with all parts.
    *
@@ -174,10 +223,10 @@ public class PenMatchLookupManagerTest {
    */
   @Test
   public void testLookupStudentWithAllParts() throws JsonProcessingException {
-    var students = new ArrayList<StudentEntity>();
+    var students = new ArrayList<StudentCandidateEntity>();
     students.add(createStudent("19981102", "ODLUS", "VICTORIA", "00501007", "239661"));
     when(restUtils.lookupWithAllParts("19981102", "ODLUS", "VICTORIA", "00501007", "239661", correlationID)).thenReturn(students);
-    List<StudentEntity> studentEntities = lookupManager.lookupWithAllParts("19981102", "ODLUS", "VICTORIA", "00501007", "239661", correlationID);
+    List<StudentCandidateEntity> studentEntities = lookupManager.lookupWithAllParts("19981102", "ODLUS", "VICTORIA", "00501007", "239661", correlationID);
 
     assertNotNull(studentEntities);
     assertTrue(studentEntities.size() > 0);
@@ -190,11 +239,11 @@ public class PenMatchLookupManagerTest {
    */
   @Test
   public void testLookupStudentNoInitLargeData() throws JsonProcessingException {
-    var students = new ArrayList<StudentEntity>();
+    var students = new ArrayList<StudentCandidateEntity>();
     students.add(createStudent("19981102", "ODLUS", null, "VICTORIA", "00501007"));
     when(restUtils.lookupNoInit("19981102", "ODLUS", "VICTORIA", "00501007", correlationID)).thenReturn(students);
 
-    List<StudentEntity> studentEntities = lookupManager.lookupNoInit("19981102", "ODLUS", "VICTORIA", "00501007", correlationID);
+    List<StudentCandidateEntity> studentEntities = lookupManager.lookupNoInit("19981102", "ODLUS", "VICTORIA", "00501007", correlationID);
     assertNotNull(studentEntities);
     assertTrue(studentEntities.size() > 0);
   }
@@ -206,11 +255,11 @@ public class PenMatchLookupManagerTest {
    */
   @Test
   public void testLookupStudentNoInit() throws JsonProcessingException {
-    var students = new ArrayList<StudentEntity>();
+    var students = new ArrayList<StudentCandidateEntity>();
     students.add(createStudent("19791018", "VANDERLEEK", null, "JAKE", "08288006"));
     when(restUtils.lookupNoInit("19791018", "VANDERLEEK", "JAKE", "08288006", correlationID)).thenReturn(students);
 
-    List<StudentEntity> studentEntities = lookupManager.lookupNoInit("19791018", "VANDERLEEK", "JAKE", "08288006", correlationID);
+    List<StudentCandidateEntity> studentEntities = lookupManager.lookupNoInit("19791018", "VANDERLEEK", "JAKE", "08288006", correlationID);
 
     assertNotNull(studentEntities);
     assertTrue(studentEntities.size() > 0);
@@ -223,10 +272,10 @@ public class PenMatchLookupManagerTest {
    */
   @Test
   public void testLookupStudentNoLocalIDLargeData() throws JsonProcessingException {
-    var students = new ArrayList<StudentEntity>();
+    var students = new ArrayList<StudentCandidateEntity>();
     students.add(createStudent("19981102", "ODLUS", "VICTORIA", null, null));
     when(restUtils.lookupNoLocalID("19981102", "ODLUS", "VICTORIA", correlationID)).thenReturn(students);
-    List<StudentEntity> studentEntities = lookupManager.lookupNoLocalID("19981102", "ODLUS", "VICTORIA", correlationID);
+    List<StudentCandidateEntity> studentEntities = lookupManager.lookupNoLocalID("19981102", "ODLUS", "VICTORIA", correlationID);
 
     assertNotNull(studentEntities);
     assertTrue(studentEntities.size() > 0);
@@ -239,10 +288,10 @@ public class PenMatchLookupManagerTest {
    */
   @Test
   public void testLookupStudentNoLocalID() throws JsonProcessingException {
-    var students = new ArrayList<StudentEntity>();
+    var students = new ArrayList<StudentCandidateEntity>();
     students.add(createStudent("19791018", "VANDERLEEK", "JAKE", null, null));
     when(restUtils.lookupNoLocalID("19791018", "VANDERLEEK", "JAKE", correlationID)).thenReturn(students);
-    List<StudentEntity> studentEntities = lookupManager.lookupNoLocalID("19791018", "VANDERLEEK", "JAKE", correlationID);
+    List<StudentCandidateEntity> studentEntities = lookupManager.lookupNoLocalID("19791018", "VANDERLEEK", "JAKE", correlationID);
 
     assertNotNull(studentEntities);
     assertTrue(studentEntities.size() > 0);
@@ -255,14 +304,77 @@ public class PenMatchLookupManagerTest {
    */
   @Test
   public void testLookupStudentNoInitNoLocalID() throws JsonProcessingException {
-    var students = new ArrayList<StudentEntity>();
+    var students = new ArrayList<StudentCandidateEntity>();
     students.add(createStudent("19791018", "VANDERLEEK", null, null, null));
     when(restUtils.lookupNoInitNoLocalID("19791018", "VANDERLEEK", correlationID)).thenReturn(students);
-    List<StudentEntity> studentEntities = lookupManager.lookupNoInitNoLocalID("19791018", "VANDERLEEK", correlationID);
+    List<StudentCandidateEntity> studentEntities = lookupManager.lookupNoInitNoLocalID("19791018", "VANDERLEEK", correlationID);
 
     assertNotNull(studentEntities);
   }
 
+  /**
+   * A paged candidate search stops requesting pages once the action stops, and reads every page otherwise.
+   *
+   * @throws JsonProcessingException the json processing exception
+   */
+  @Test
+  public void testForEachCandidate_GivenPagedSearch_ShouldStopRequestingPagesWhenActionStops() throws JsonProcessingException {
+    CandidateLookupKey key = CandidateLookupKey.noInitNoLocalID("20010203", "PAGED");
+    when(restUtils.lookupCandidatePage(eq(key), eq(0), eq(2), any())).thenReturn(new RestPageImpl<>(List.of(createStudent("20010203", "PAGED", "A", null, null), createStudent("20010203", "PAGED", "B", null, null)), PageRequest.of(0, 2), 5));
+    when(restUtils.lookupCandidatePage(eq(key), eq(1), eq(2), any())).thenReturn(new RestPageImpl<>(List.of(createStudent("20010203", "PAGED", "C", null, null), createStudent("20010203", "PAGED", "D", null, null)), PageRequest.of(1, 2), 5));
+    when(restUtils.lookupCandidatePage(eq(key), eq(2), eq(2), any())).thenReturn(new RestPageImpl<>(List.of(createStudent("20010203", "PAGED", "E", null, null)), PageRequest.of(2, 2), 5));
+    props.setCandidateSearchPagedEnabled(true);
+    try {
+      List<String> read = new ArrayList<>();
+      lookupManager.forEachCandidate(key, correlationID, candidate -> read.add(candidate.getLegalFirstName()) && read.size() < 3);
+      assertThat(read).containsExactly("A", "B", "C");
+      verify(restUtils, never()).lookupCandidatePage(eq(key), eq(2), anyInt(), any());
+
+      read.clear();
+      lookupManager.forEachCandidate(key, correlationID, candidate -> read.add(candidate.getLegalFirstName()));
+      assertThat(read).containsExactly("A", "B", "C", "D", "E");
+      verify(restUtils, times(1)).lookupCandidatePage(eq(key), eq(2), anyInt(), any());
+    } finally {
+      props.setCandidateSearchPagedEnabled(false);
+    }
+  }
+
+  /**
+   * A paged candidate search which reads every page caches the candidates, so the next search of the key is answered
+   * from memory, while one stopped early is not cached.
+   *
+   * @throws JsonProcessingException the json processing exception
+   */
+  @Test
+  public void testForEachCandidate_GivenPagedSearchReadToTheEnd_ShouldCacheCandidates() throws JsonProcessingException {
+    CandidateLookupKey key = CandidateLookupKey.noInitNoLocalID("20010204", "CACHED");
+    when(restUtils.lookupCandidatePage(eq(key), eq(0), eq(2), any())).thenReturn(new RestPageImpl<>(List.of(createStudent("20010204", "CACHED", "A", null, null), createStudent("20010204", "CACHED", "B", null, null)), PageRequest.of(0, 2), 3));
+    when(restUtils.lookupCandidatePage(eq(key), eq(1), eq(2), any())).thenReturn(new RestPageImpl<>(List.of(createStudent("20010204", "CACHED", "C", null, null)), PageRequest.of(1, 2), 3));
+    ApplicationProperties cacheProps = new ApplicationProperties();
+    cacheProps.setCandidateLookupCacheEnabled(true);
+    cacheProps.setCandidateLookupCacheMaxSize(10);
+    cacheProps.setCandidateLookupCacheTtlSeconds(60);
+    CandidateLookupCache cache = new CandidateLookupCache(cacheProps, meterRegistry);
+    props.setCandidateSearchPagedEnabled(true);
+    try {
+      PenMatchLookupManager cachingLookupManager = new PenMatchLookupManager(foreignSurnameRepository, nicknamesRepository, matchCodesRepository, restUtils, surnameFrequencyService, cache, studentDemographicsReplica, mergedStudentResolver, props, meterRegistry);
+      cachingLookupManager.forEachCandidate(key, correlationID, candidate -> false);
+      assertThat(cache.getIfPresent(key)).isEmpty();
+
+      List<String> read = new ArrayList<>();
+      cachingLookupManager.forEachCandidate(key, correlationID, candidate -> read.add(candidate.getLegalFirstName()));
+      assertThat(read).containsExactly("A", "B", "C");
+      assertThat(cache.getIfPresent(key).orElseThrow()).extracting(StudentCandidateEntity::getLegalFirstName).containsExactly("A", "B", "C");
+
+      read.clear();
+      cachingLookupManager.forEachCandidate(key, correlationID, candidate -> read.add(candidate.getLegalFirstName()));
+      assertThat(read).containsExactly("A", "B", "C");
+      verify(restUtils, times(2)).lookupCandidatePage(eq(key), eq(0), anyInt(), any());
+    } finally {
+      props.setCandidateSearchPagedEnabled(false);
+    }
+  }
+
   /**
    * Create student student entity.
    *
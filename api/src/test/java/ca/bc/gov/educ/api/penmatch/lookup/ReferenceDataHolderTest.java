@@ -0,0 +1,138 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.FrequencySurnameEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.NicknameEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The type Reference data holder test.
+ */
+public class ReferenceDataHolderTest {
+  /**
+   * The Meter registry.
+   */
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * The Nickname entities the holder loads from.
+   */
+  private List<NicknameEntity> nicknameEntities;
+  /**
+   * The Holder.
+   */
+  private ReferenceDataHolder<NicknameSnapshot> holder;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.nicknameEntities = new ArrayList<>(List.of(this.createNickname("JAMES", "JIM"), this.createNickname("JAMES", "JIMMY")));
+    this.holder = new ReferenceDataHolder<>("nicknames", NicknameSnapshot.EMPTY, version -> new NicknameSnapshot(version, List.copyOf(this.nicknameEntities)), this.meterRegistry);
+  }
+
+  /**
+   * The empty snapshot is served until the first load, each reload swaps in the next version.
+   */
+  @Test
+  public void testReload_ShouldSwapInNextVersion() {
+    assertThat(this.holder.get().getVersion()).isZero();
+    assertThat(this.holder.get().getNicknames("JAMES")).isEmpty();
+
+    final NicknameSnapshot first = this.holder.reload();
+    assertThat(first.getVersion()).isEqualTo(1);
+    assertThat(this.holder.get()).isSameAs(first);
+    assertThat(first.getNicknames("JAMES")).hasSize(2);
+    assertThat(first.getNicknames("JIM")).hasSize(1);
+
+    this.nicknameEntities.add(this.createNickname("JAMES", "JAIMIE"));
+    final NicknameSnapshot second = this.holder.reload();
+    assertThat(second.getVersion()).isEqualTo(2);
+    assertThat(second.getNicknames("JAMES")).hasSize(3);
+    assertThat(first.getNicknames("JAMES")).hasSize(2);
+  }
+
+  /**
+   * The version and size of the current snapshot are published as gauges.
+   */
+  @Test
+  public void testReload_ShouldPublishMetrics() {
+    this.holder.reload();
+    assertThat(this.meterRegistry.get("pen.match.reference.data.version").tag("data", "nicknames").gauge().value()).isEqualTo(1);
+    assertThat(this.meterRegistry.get("pen.match.reference.data.size").tag("data", "nicknames").gauge().value()).isEqualTo(2);
+    assertThat(this.meterRegistry.get("pen.match.reference.data.build").tag("data", "nicknames").timer().count()).isEqualTo(1);
+  }
+
+  /**
+   * The nickname snapshot answers the old algorithm expansion, the new algorithm nickname check and the endpoint
+   * from the compiled rows.
+   */
+  @Test
+  public void testNicknameSnapshot_ShouldCompileNicknames() {
+    final NicknameSnapshot snapshot = new NicknameSnapshot(1, List.of(this.createNickname("JAMES", "JIM"),
+        this.createNickname("JAMES", "JIMMY"), this.createNickname("JIMMY", "JIMBO"), this.createNickname("WILLIAM", "BILL")));
+    assertThat(snapshot.getExpansion("JIM")).containsExactly("JAMES", "JIMMY");
+    assertThat(snapshot.getExpansion("JAMES")).containsExactly("JIM", "JIMMY");
+    assertThat(snapshot.getExpansion("ROBERT")).isEmpty();
+
+    assertThat(snapshot.getGroup("JIM").contains("JAMES")).isTrue();
+    assertThat(snapshot.getGroup("JAMES").contains("JIMMY")).isTrue();
+    assertThat(snapshot.getGroup("JIMMY").contains("JIMBO")).isTrue();
+    assertThat(snapshot.getGroup("JIM").contains("JIMBO")).isFalse();
+    assertThat(snapshot.getGroup("JAMES").contains("BILL")).isFalse();
+    assertThat(snapshot.getGroup("ROBERT").isEmpty()).isTrue();
+
+    assertThat(snapshot.getNicknames("JAMES")).containsExactly("JIM", "JIMMY");
+    assertThat(snapshot.getNicknames("JIMMY")).containsExactly("JIMBO", "JIMMY");
+  }
+
+  /**
+   * The frequency of a prefix sums the surnames starting with it, stopping once the limit is reached.
+   */
+  @Test
+  public void testSurnameFrequencySnapshot_ShouldSumSurnamesStartingWithPrefix() {
+    final SurnameFrequencySnapshot snapshot = new SurnameFrequencySnapshot(1, List.of(this.createSurnameFrequency("JAMESON", "30"),
+        this.createSurnameFrequency("JAMES", "100"), this.createSurnameFrequency("JAMIESON", "7"), this.createSurnameFrequency("JACK", "1000")));
+    assertThat(snapshot.frequencyOfPrefix("JAMES", 500)).isEqualTo(130);
+    assertThat(snapshot.frequencyOfPrefix("JAM", 500)).isEqualTo(137);
+    assertThat(snapshot.frequencyOfPrefix("JA", 500)).isEqualTo(1000);
+    assertThat(snapshot.frequencyOfPrefix("JAM", 120)).isEqualTo(130);
+    assertThat(snapshot.frequencyOfPrefix("JAMESON", 500)).isEqualTo(30);
+    assertThat(snapshot.frequencyOfPrefix("SMITH", 500)).isZero();
+  }
+
+  /**
+   * Create nickname.
+   *
+   * @param nickname1 the nickname 1
+   * @param nickname2 the nickname 2
+   * @return the nickname entity
+   */
+  private NicknameEntity createNickname(final String nickname1, final String nickname2) {
+    final NicknameEntity entity = new NicknameEntity();
+    entity.setNickname1(nickname1);
+    entity.setNickname2(nickname2);
+    return entity;
+  }
+
+  /**
+   * Create surname frequency.
+   *
+   * @param surname   the surname
+   * @param frequency the frequency
+   * @return the frequency surname entity
+   */
+  private FrequencySurnameEntity createSurnameFrequency(final String surname, final String frequency) {
+    final FrequencySurnameEntity entity = new FrequencySurnameEntity();
+    entity.setSurname(surname);
+    entity.setSurnameFrequency(frequency);
+    return entity;
+  }
+}
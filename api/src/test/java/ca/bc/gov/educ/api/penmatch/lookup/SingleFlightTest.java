@@ -0,0 +1,153 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.exception.DeadlineExceededException;
+import ca.bc.gov.educ.api.penmatch.exception.PENMatchRuntimeException;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The type Single flight test.
+ */
+public class SingleFlightTest {
+  /**
+   * The Meter registry.
+   */
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * The Flight.
+   */
+  private SingleFlight<String, List<String>> flight;
+  /**
+   * The Executor.
+   */
+  private ExecutorService executor;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.flight = new SingleFlight<>("test", this.meterRegistry);
+    this.executor = Executors.newFixedThreadPool(4);
+  }
+
+  /**
+   * After.
+   */
+  @After
+  public void after() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Callers arriving while a load of the same key is in flight share it, and the key is forgotten once it completes.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testGet_GivenConcurrentCallsForSameKey_ShouldLoadOnce() throws Exception {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger loads = new AtomicInteger();
+    final Future<List<String>> leader = this.executor.submit(() -> this.flight.get("20000101|JACK", () -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      this.await(release);
+      return List.of("JACKSON");
+    }));
+    loading.await(5, TimeUnit.SECONDS);
+    final Future<List<String>> follower = this.executor.submit(() -> this.flight.get("20000101|JACK", () -> {
+      loads.incrementAndGet();
+      return List.of("OTHER");
+    }));
+    while (this.meterRegistry.get("pen.match.single.flight.coalesced").counter().count() < 1) {
+      Thread.onSpinWait();
+    }
+    release.countDown();
+
+    assertThat(leader.get(5, TimeUnit.SECONDS)).containsExactly("JACKSON");
+    assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get());
+    assertThat(loads).hasValue(1);
+    assertThat(this.flight.inFlight()).isZero();
+    assertThat(this.meterRegistry.get("pen.match.single.flight.loads").tag("flight", "test").counter().count()).isEqualTo(1);
+
+    assertThat(this.flight.get("20000101|JACK", () -> List.of("RELOADED"))).containsExactly("RELOADED");
+  }
+
+  /**
+   * A failed load is rethrown to every caller sharing it and is not remembered.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testGet_GivenFailingLoad_ShouldRethrowToCoalescedCallers() throws Exception {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Future<List<String>> leader = this.executor.submit(() -> this.flight.get("20000101|JACK", () -> {
+      loading.countDown();
+      this.await(release);
+      throw new PENMatchRuntimeException("NATS timed out");
+    }));
+    loading.await(5, TimeUnit.SECONDS);
+    final Future<List<String>> follower = this.executor.submit(() -> this.flight.get("20000101|JACK", List::of));
+    while (this.meterRegistry.get("pen.match.single.flight.coalesced").counter().count() < 1) {
+      Thread.onSpinWait();
+    }
+    release.countDown();
+
+    assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(PENMatchRuntimeException.class);
+    assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(PENMatchRuntimeException.class);
+    assertThat(this.flight.inFlight()).isZero();
+    assertThat(this.flight.get("20000101|JACK", () -> List.of("JACKSON"))).containsExactly("JACKSON");
+  }
+
+  /**
+   * A caller coalesced into a load that outlasts its deadline stops waiting at its own deadline, while the load goes on
+   * for the caller which started it.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testGet_GivenDeadlinePassesWhileWaiting_ShouldThrowDeadlineExceeded() throws Exception {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Future<List<String>> leader = this.executor.submit(() -> this.flight.get("20000101|JACK", () -> {
+      loading.countDown();
+      this.await(release);
+      return List.of("JACKSON");
+    }));
+    loading.await(5, TimeUnit.SECONDS);
+    final Future<List<String>> follower = this.executor.submit(() -> {
+      DeadlineHolder.setDeadline(System.currentTimeMillis() + 100);
+      try {
+        return this.flight.get("20000101|JACK", List::of);
+      } finally {
+        DeadlineHolder.clear();
+      }
+    });
+
+    assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(DeadlineExceededException.class);
+    assertThat(leader.isDone()).isFalse();
+    release.countDown();
+    assertThat(leader.get(5, TimeUnit.SECONDS)).containsExactly("JACKSON");
+  }
+
+  private void await(final CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package ca.bc.gov.educ.api.penmatch.lookup;
+
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.rest.RestPageImpl;
+import ca.bc.gov.educ.api.penmatch.rest.RestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * The type Student demographics replica test.
+ */
+public class StudentDemographicsReplicaTest {
+  /**
+   * The Replica.
+   */
+  private StudentDemographicsReplica replica;
+  /**
+   * The Props.
+   */
+  private ApplicationProperties props;
+  /**
+   * The Rest utils.
+   */
+  private RestUtils restUtils;
+
+  /**
+   * Before.
+   *
+   * @throws Exception the exception
+   */
+  @Before
+  public void before() throws Exception {
+    this.props = new ApplicationProperties();
+    this.props.setStudentReplicaEnabled(true);
+    this.props.setStudentReplicaBootstrapPageSize(2);
+    this.props.setStudentReplicaMaxLagSeconds(30);
+    this.restUtils = Mockito.mock(RestUtils.class);
+    when(this.restUtils.getActiveStudentsPage(eq(0), anyInt(), any())).thenReturn(new RestPageImpl<>(List.of(
+        this.createStudent("JACKSON", "JAKE", "2000-01-01", "10210518", "12345"),
+        this.createStudent("SMITH", "JOHN", "1999-05-05", "10210518", "55555")), PageRequest.of(0, 2), 3));
+    when(this.restUtils.getActiveStudentsPage(eq(1), anyInt(), any())).thenReturn(new RestPageImpl<>(List.of(
+        this.createStudent("SMITHERS", "WAYLON", "1980-02-02", "00000000", "1")), PageRequest.of(1, 2), 3));
+    this.replica = new StudentDemographicsReplica(this.restUtils, this.props, new SimpleMeterRegistry());
+  }
+
+  /**
+   * Lookups are not served before the bootstrap completes.
+   */
+  @Test
+  public void testLookup_GivenNotBootstrapped_ShouldFallBack() {
+    assertThat(this.replica.isServing()).isFalse();
+    assertThat(this.replica.lookup(CandidateLookupKey.noInitNoLocalID("20000101", "SMIT"))).isEmpty();
+  }
+
+  /**
+   * Each leg of the search is answered from its index.
+   */
+  @Test
+  public void testLookup_GivenBootstrapped_ShouldAnswerFromIndexes() {
+    this.replica.bootstrap();
+    assertThat(this.replica.isServing()).isTrue();
+    assertThat(this.replica.lookup(CandidateLookupKey.noInitNoLocalID("20000101", "SMIT")).orElseThrow())
+        .extracting(StudentCandidateEntity::getLegalLastName).containsExactlyInAnyOrder("JACKSON", "SMITH", "SMITHERS");
+    assertThat(this.replica.lookup(CandidateLookupKey.noLocalID("20000101", "SMIT", "J")).orElseThrow())
+        .extracting(StudentCandidateEntity::getLegalLastName).containsExactlyInAnyOrder("JACKSON", "SMITH");
+    assertThat(this.replica.lookup(CandidateLookupKey.noInit("20100101", "ZZZZ", "10210518", "55555")).orElseThrow())
+        .extracting(StudentCandidateEntity::getLegalLastName).containsExactly("SMITH");
+  }
+
+  /**
+   * Change events move the student between postings, and stale events stop the replica from serving.
+   */
+  @Test
+  public void testApply_GivenUpdatedStudent_ShouldReindex() {
+    this.replica.bootstrap();
+    final StudentEntity moved = this.createStudent("JONES", "JOHN", "1999-05-05", "10210518", "55555");
+    moved.setStudentID(this.replica.lookup(CandidateLookupKey.noLocalID("19990505", "SMITH", "JOHN")).orElseThrow().get(0).getStudentID());
+    moved.setUpdateDate("2021-01-01T00:00:00");
+    this.replica.apply(moved, ZonedDateTime.now());
+    assertThat(this.replica.lookup(CandidateLookupKey.noInitNoLocalID("20100101", "SMITH")).orElseThrow())
+        .extracting(StudentCandidateEntity::getLegalLastName).containsExactly("SMITHERS");
+    assertThat(this.replica.lookup(CandidateLookupKey.noInitNoLocalID("20100101", "JON")).orElseThrow()).hasSize(1);
+
+    this.replica.apply(moved, ZonedDateTime.now().minusMinutes(5));
+    assertThat(this.replica.isServing()).isFalse();
+  }
+
+  /**
+   * A replica that hears neither an event nor a heartbeat within the lag stops serving, and a heartbeat resumes it.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testIsServing_GivenSilentEventStream_ShouldStopServingUntilHeartbeat() throws Exception {
+    this.props.setStudentReplicaMaxLagSeconds(1);
+    final StudentDemographicsReplica quickReplica = new StudentDemographicsReplica(this.restUtils, this.props, new SimpleMeterRegistry());
+    quickReplica.bootstrap();
+    assertThat(quickReplica.isServing()).isTrue();
+
+    Thread.sleep(1100);
+    assertThat(quickReplica.isServing()).isFalse();
+    assertThat(quickReplica.lookup(CandidateLookupKey.noInitNoLocalID("20000101", "SMIT"))).isEmpty();
+
+    quickReplica.heartbeat();
+    assertThat(quickReplica.isServing()).isTrue();
+  }
+
+  /**
+   * A student deleted after the first bootstrap page was loaded is not brought back by the page that still holds it.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testBootstrap_GivenDeleteBetweenPages_ShouldNotReinsertDeletedStudent() throws Exception {
+    final StudentEntity deleted = this.createStudent("SMITHERS", "WAYLON", "1980-02-02", "00000000", "1");
+    when(this.restUtils.getActiveStudentsPage(eq(1), anyInt(), any())).thenAnswer(invocation -> {
+      this.replica.remove(deleted.getStudentID());
+      return new RestPageImpl<>(List.of(deleted), PageRequest.of(1, 2), 3);
+    });
+
+    this.replica.bootstrap();
+
+    assertThat(this.replica.isServing()).isTrue();
+    assertThat(this.replica.lookup(CandidateLookupKey.noInitNoLocalID("19800202", "SMIT")).orElseThrow())
+        .extracting(StudentCandidateEntity::getLegalLastName).containsExactly("SMITH");
+  }
+
+  private StudentEntity createStudent(final String surname, final String givenName, final String dob, final String mincode, final String localID) {
+    return StudentEntity.builder().studentID(UUID.randomUUID()).legalLastName(surname).legalFirstName(givenName).dob(dob)
+        .mincode(mincode).localID(localID).statusCode("A").updateDate("2020-01-01T00:00:00").build();
+  }
+}
@@ -0,0 +1,124 @@
+package ca.bc.gov.educ.api.penmatch.messaging;
+
+import ca.bc.gov.educ.api.penmatch.constants.EventType;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.service.v1.events.EventHandlerDelegatorService;
+import ca.bc.gov.educ.api.penmatch.struct.Event;
+import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static ca.bc.gov.educ.api.penmatch.constants.Topics.PEN_MATCH_API_TOPIC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The type Message subscriber test.
+ */
+public class MessageSubscriberTest {
+  /**
+   * The Meter registry.
+   */
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * The Connection.
+   */
+  private Connection connection;
+  /**
+   * The Dispatcher of the first subscription.
+   */
+  private Dispatcher firstDispatcher;
+  /**
+   * The Dispatcher of the subscription after resuming.
+   */
+  private Dispatcher resumedDispatcher;
+  /**
+   * The Event handler delegator service.
+   */
+  private EventHandlerDelegatorService eventHandlerDelegatorService;
+  /**
+   * The Admission control.
+   */
+  private SubscriberAdmissionControl admissionControl;
+
+  /**
+   * Before.
+   *
+   * @throws Exception the exception
+   */
+  @Before
+  public void before() throws Exception {
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    applicationProperties.setSubscriberMaxQueueDepth(2);
+    applicationProperties.setSubscriberMaxQueueAgeMs(1000);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.admissionControl = new SubscriberAdmissionControl(applicationProperties, this.meterRegistry);
+    this.connection = mock(Connection.class);
+    this.firstDispatcher = mock(Dispatcher.class);
+    this.resumedDispatcher = mock(Dispatcher.class);
+    when(this.connection.createDispatcher(any(MessageHandler.class))).thenReturn(this.firstDispatcher, this.resumedDispatcher);
+    final NatsConnection natsConnection = mock(NatsConnection.class);
+    when(natsConnection.getNatsCon()).thenReturn(this.connection);
+    this.eventHandlerDelegatorService = mock(EventHandlerDelegatorService.class);
+    new MessageSubscriber(natsConnection, this.eventHandlerDelegatorService, this.admissionControl).subscribe();
+  }
+
+  /**
+   * Reaching the max depth drains the dispatcher rather than unsubscribing it, so events it already holds are still
+   * handed to the handler and shed there; draining to the resume depth joins the queue group again.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testOnMessage_GivenMaxDepthThenDrained_ShouldDrainAndResubscribe() throws Exception {
+    final String subject = PEN_MATCH_API_TOPIC.toString();
+    final ArgumentCaptor<MessageHandler> handler = ArgumentCaptor.forClass(MessageHandler.class);
+    verify(this.connection).createDispatcher(handler.capture());
+    verify(this.firstDispatcher).subscribe(subject, subject.replace("_", "-"));
+
+    handler.getValue().onMessage(this.message());
+    verify(this.firstDispatcher, never()).drain(any(Duration.class));
+    handler.getValue().onMessage(this.message());
+    assertThat(this.admissionControl.isPaused()).isTrue();
+    verify(this.firstDispatcher).drain(any(Duration.class));
+    verify(this.firstDispatcher, never()).unsubscribe(anyString());
+
+    handler.getValue().onMessage(this.message());
+    verify(this.eventHandlerDelegatorService, times(2)).handleAdmittedEvent(any(Event.class), any(Message.class), anyLong());
+    assertThat(this.meterRegistry.get("pen.match.subscriber.shed").tag("reason", "depth").counter().count()).isEqualTo(1);
+
+    this.admissionControl.release();
+    assertThat(this.admissionControl.isPaused()).isFalse();
+    verify(this.connection, times(2)).createDispatcher(any(MessageHandler.class));
+    verify(this.resumedDispatcher).subscribe(subject, subject.replace("_", "-"));
+  }
+
+  /**
+   * A pen match request message.
+   *
+   * @return the message
+   * @throws Exception the exception
+   */
+  private Message message() throws Exception {
+    final Event event = Event.builder().sagaId(UUID.randomUUID()).eventType(EventType.PROCESS_PEN_MATCH).eventPayload("{}").build();
+    final Message message = mock(Message.class);
+    when(message.getData()).thenReturn(JsonUtil.getJsonStringFromObject(event).getBytes());
+    return message;
+  }
+}
@@ -0,0 +1,79 @@
+package ca.bc.gov.educ.api.penmatch.messaging;
+
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The type Subscriber admission control test.
+ */
+public class SubscriberAdmissionControlTest {
+  /**
+   * The Meter registry.
+   */
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * The Admission control.
+   */
+  private SubscriberAdmissionControl admissionControl;
+  /**
+   * The Pauses.
+   */
+  private final AtomicInteger pauses = new AtomicInteger();
+  /**
+   * The Resumes.
+   */
+  private final AtomicInteger resumes = new AtomicInteger();
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    applicationProperties.setSubscriberMaxQueueDepth(4);
+    applicationProperties.setSubscriberMaxQueueAgeMs(1000);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.admissionControl = new SubscriberAdmissionControl(applicationProperties, this.meterRegistry);
+    this.admissionControl.setSubscription(this.pauses::incrementAndGet, this.resumes::incrementAndGet);
+  }
+
+  /**
+   * The subscription pauses at the max depth, events beyond it are shed, and it resumes once half drained.
+   */
+  @Test
+  public void testTryAdmit_GivenMaxDepth_ShouldShedAndPauseUntilDrained() {
+    for (int i = 0; i < 4; i++) {
+      assertThat(this.admissionControl.tryAdmit()).isTrue();
+    }
+    assertThat(this.admissionControl.isPaused()).isTrue();
+    assertThat(this.pauses.get()).isEqualTo(1);
+
+    assertThat(this.admissionControl.tryAdmit()).isFalse();
+    assertThat(this.admissionControl.getDepth()).isEqualTo(4);
+    assertThat(this.meterRegistry.get("pen.match.subscriber.shed").tag("reason", "depth").counter().count()).isEqualTo(1);
+
+    this.admissionControl.release();
+    assertThat(this.admissionControl.isPaused()).isTrue();
+    this.admissionControl.release();
+    assertThat(this.admissionControl.isPaused()).isFalse();
+    assertThat(this.resumes.get()).isEqualTo(1);
+    assertThat(this.meterRegistry.get("pen.match.subscriber.depth").gauge().value()).isEqualTo(2);
+  }
+
+  /**
+   * An event that waited more than the max age is shed.
+   */
+  @Test
+  public void testIsExpired_GivenEventOlderThanMaxAge_ShouldShed() {
+    assertThat(this.admissionControl.isExpired(System.nanoTime())).isFalse();
+    assertThat(this.admissionControl.isExpired(System.nanoTime() - TimeUnit.SECONDS.toNanos(2))).isTrue();
+    assertThat(this.meterRegistry.get("pen.match.subscriber.shed").tag("reason", "age").counter().count()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,53 @@
+package ca.bc.gov.educ.api.penmatch.rest;
+
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
+import org.junit.Test;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The type Candidate criteria templates test.
+ */
+public class CandidateCriteriaTemplatesTest {
+
+  /**
+   * Every query shape renders exactly what serializing and URL encoding its criteria graph produces, including values
+   * that need JSON escaping or URL encoding, missing values and students without a given name.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testEncodedCriteria_GivenAnyKey_ShouldMatchSerializedCriteria() throws Exception {
+    final List<CandidateLookupKey> keys = List.of(
+        CandidateLookupKey.withAllParts("19981102", "ODLUS", "VICTORIA", "00501007", "239661"),
+        CandidateLookupKey.withAllParts("19981102", "O'DLUS-SMITH", " ", "00501007", null),
+        CandidateLookupKey.withAllParts("20010230", "DE LA \"CRUZ\"", "JOSÉ\\\t", null, "A&B=C+D%"),
+        CandidateLookupKey.noInit("19791018", "VANDERLEEK", "08288006", "1234 5"),
+        CandidateLookupKey.noLocalID("19791018", "VANDERLEEK", "J"),
+        CandidateLookupKey.noLocalID("20000131", "ŁUKASZ 山田", null),
+        CandidateLookupKey.noInitNoLocalID("20001231", "JACKSON"));
+
+    for (final CandidateLookupKey key : keys) {
+      assertThat(CandidateCriteriaTemplates.encodedCriteria(key)).as(key.toString())
+          .isEqualTo(URLEncoder.encode(CandidateCriteriaTemplates.serializedCriteria(key), StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Dobs outside the fast path resolve through the date formatters as before.
+   */
+  @Test
+  public void testToLongDob_GivenLenientOrInvalidDob_ShouldResolveLikeFormatter() {
+    assertThat(CandidateCriteriaTemplates.toLongDob("19981102")).isEqualTo("1998-11-02");
+    assertThat(CandidateCriteriaTemplates.toLongDob("20000229")).isEqualTo("2000-02-29");
+    assertThat(CandidateCriteriaTemplates.toLongDob("20010230")).isEqualTo("2001-02-28");
+    assertThatThrownBy(() -> CandidateCriteriaTemplates.toLongDob("20011301")).isInstanceOf(DateTimeParseException.class);
+    assertThatThrownBy(() -> CandidateCriteriaTemplates.toLongDob("2001-1-1")).isInstanceOf(DateTimeParseException.class);
+  }
+}
@@ -0,0 +1,97 @@
+package ca.bc.gov.educ.api.penmatch.rest;
+
+import ca.bc.gov.educ.api.penmatch.exception.DeadlineExceededException;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import ca.bc.gov.educ.api.penmatch.messaging.NatsConnection;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.struct.Event;
+import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nats.client.Connection;
+import io.nats.client.Message;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The type Rest utils test.
+ */
+public class RestUtilsTest {
+  /**
+   * The Connection.
+   */
+  private Connection connection;
+  /**
+   * The Rest utils.
+   */
+  private RestUtils restUtils;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final NatsConnection natsConnection = mock(NatsConnection.class);
+    this.connection = mock(Connection.class);
+    when(natsConnection.getNatsCon()).thenReturn(this.connection);
+    this.restUtils = new RestUtils(natsConnection, new StudentApiWireFormat(applicationProperties, meterRegistry), new StudentApiScheduler(applicationProperties, meterRegistry));
+  }
+
+  /**
+   * After.
+   */
+  @After
+  public void after() {
+    DeadlineHolder.clear();
+  }
+
+  /**
+   * A PEN lookup cut short by the deadline of the request fails rather than reporting the PEN as not on file.
+   */
+  @Test
+  public void testGetPenMasterRecordByPen_GivenDeadlinePasses_ShouldThrowDeadlineExceeded() {
+    when(this.connection.request(any(Message.class))).thenReturn(new CompletableFuture<>());
+    DeadlineHolder.setDeadline(System.currentTimeMillis() + 50);
+
+    assertThatThrownBy(() -> this.restUtils.getPenMasterRecordByPen("120164447", UUID.randomUUID())).isInstanceOf(DeadlineExceededException.class);
+  }
+
+  /**
+   * The pages of the replica bootstrap are requested in student id order.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testGetActiveStudentsPage_ShouldSortByStudentID() throws Exception {
+    assertThatThrownBy(() -> this.restUtils.getActiveStudentsPage(1, 2, UUID.randomUUID())).isInstanceOf(RuntimeException.class);
+
+    final ArgumentCaptor<Message> request = ArgumentCaptor.forClass(Message.class);
+    verify(this.connection).request(request.capture(), any(Duration.class));
+    final Event event = JsonUtil.getJsonObjectFromString(Event.class, new String(request.getValue().getData()));
+    assertThat(event.getEventPayload()).endsWith("&" + RestUtils.SORT_CRITERIA_LIST + "=" + RestUtils.STUDENT_ID_SORT);
+  }
+
+  /**
+   * A PEN lookup failing without a deadline still reports the PEN as not on file.
+   */
+  @Test
+  public void testGetPenMasterRecordByPen_GivenNoDeadlineAndFailure_ShouldReturnEmpty() {
+    when(this.connection.request(any(Message.class))).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("no responders")));
+
+    assertThat(this.restUtils.getPenMasterRecordByPen("120164447", UUID.randomUUID())).isEmpty();
+  }
+}
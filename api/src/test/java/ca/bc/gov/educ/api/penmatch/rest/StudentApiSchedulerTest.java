@@ -0,0 +1,104 @@
+package ca.bc.gov.educ.api.penmatch.rest;
+
+import ca.bc.gov.educ.api.penmatch.constants.WorkloadLane;
+import ca.bc.gov.educ.api.penmatch.exception.DeadlineExceededException;
+import ca.bc.gov.educ.api.penmatch.helpers.DeadlineHolder;
+import ca.bc.gov.educ.api.penmatch.helpers.WorkloadLaneHolder;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The type Student api scheduler test.
+ */
+public class StudentApiSchedulerTest {
+  /**
+   * The Meter registry.
+   */
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * The Scheduler.
+   */
+  private StudentApiScheduler scheduler;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    applicationProperties.setWorkloadLanesEnabled(true);
+    applicationProperties.setStudentApiMaxConcurrency(3);
+    applicationProperties.setStudentApiInteractiveReserved(1);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.scheduler = new StudentApiScheduler(applicationProperties, this.meterRegistry);
+  }
+
+  /**
+   * After.
+   */
+  @After
+  public void after() {
+    WorkloadLaneHolder.clear();
+    DeadlineHolder.clear();
+  }
+
+  /**
+   * Bulk requests leave the reserved slots to interactive requests, and wait for a slot once they took the rest.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testAcquire_GivenBulkSlotsTaken_ShouldWaitBulkButNotInteractive() throws Exception {
+    final StudentApiScheduler.Slot first = this.scheduler.acquire();
+    final StudentApiScheduler.Slot second = this.scheduler.acquire();
+
+    final CountDownLatch bulkAcquired = new CountDownLatch(1);
+    final Thread bulk = new Thread(() -> {
+      try (StudentApiScheduler.Slot ignored = this.scheduler.acquire()) {
+        bulkAcquired.countDown();
+      }
+    });
+    bulk.start();
+    assertThat(bulkAcquired.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+    WorkloadLaneHolder.setLane(WorkloadLane.INTERACTIVE);
+    final StudentApiScheduler.Slot interactive = this.scheduler.acquire();
+    assertThat(this.scheduler.getInFlight()).isEqualTo(3);
+    interactive.close();
+    assertThat(bulkAcquired.getCount()).isEqualTo(1);
+
+    first.close();
+    assertThat(bulkAcquired.await(5, TimeUnit.SECONDS)).isTrue();
+    bulk.join(5000);
+    second.close();
+    assertThat(this.scheduler.getInFlight()).isZero();
+    assertThat(this.meterRegistry.get("pen.match.student.api.requests").tag("lane", "bulk").timer().count()).isEqualTo(3);
+    assertThat(this.meterRegistry.get("pen.match.student.api.requests").tag("lane", "interactive").timer().count()).isEqualTo(1);
+  }
+
+  /**
+   * A request waiting for a slot gives up at the deadline of its caller, without taking a slot.
+   */
+  @Test
+  public void testAcquire_GivenDeadlinePassesWhileWaiting_ShouldThrowDeadlineExceeded() {
+    final StudentApiScheduler.Slot first = this.scheduler.acquire();
+    final StudentApiScheduler.Slot second = this.scheduler.acquire();
+    DeadlineHolder.setDeadline(System.currentTimeMillis() + 100);
+
+    assertThatThrownBy(() -> this.scheduler.acquire()).isInstanceOf(DeadlineExceededException.class);
+
+    assertThat(this.scheduler.getInFlight()).isEqualTo(2);
+    first.close();
+    second.close();
+    assertThat(this.scheduler.getInFlight()).isZero();
+  }
+}
@@ -0,0 +1,94 @@
+package ca.bc.gov.educ.api.penmatch.rest;
+
+import ca.bc.gov.educ.api.penmatch.constants.EventOutcome;
+import ca.bc.gov.educ.api.penmatch.constants.EventType;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.struct.Event;
+import ca.bc.gov.educ.api.penmatch.struct.EventReply;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nats.client.Message;
+import io.nats.client.impl.Headers;
+import io.nats.client.impl.NatsMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The type Student api wire format test.
+ */
+public class StudentApiWireFormatTest {
+  /**
+   * The Students.
+   */
+  private final List<StudentEntity> students = List.of(
+      StudentEntity.builder().studentID(UUID.randomUUID()).pen("120164447").legalLastName("JACKSON").legalFirstName("JAKE").dob("2000-01-01").statusCode("A").build(),
+      StudentEntity.builder().studentID(UUID.randomUUID()).pen("123456789").legalLastName("JACKSON").legalFirstName("JANE").dob("2000-01-01").statusCode("A").build());
+  /**
+   * The Meter registry.
+   */
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * The Wire format.
+   */
+  private StudentApiWireFormat wireFormat;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    applicationProperties.setStudentApiSmileEnabled(true);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.wireFormat = new StudentApiWireFormat(applicationProperties, this.meterRegistry);
+  }
+
+  /**
+   * Requests ask for smile only when enabled.
+   */
+  @Test
+  public void testRequest_GivenSmileEnabled_ShouldAcceptSmile() {
+    assertThat(this.wireFormat.request(RestUtils.STUDENT_API_TOPIC, new byte[0]).getHeaders().get(StudentApiWireFormat.ACCEPT_HEADER)).containsExactly(StudentApiWireFormat.SMILE, StudentApiWireFormat.JSON);
+
+    final StudentApiWireFormat jsonOnly = new StudentApiWireFormat(new ApplicationProperties(), new SimpleMeterRegistry());
+    assertThat(jsonOnly.request(RestUtils.STUDENT_API_TOPIC, new byte[0]).hasHeaders()).isFalse();
+  }
+
+  /**
+   * A smile reply carries the students nested in the event and decodes to the same event reply as its json fallback,
+   * in fewer bytes.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testReadEventReply_GivenSmileOrJsonReply_ShouldDecodeSameStudents() throws Exception {
+    final UUID sagaId = UUID.randomUUID();
+    final EventReply<List<StudentEntity>> nested = EventReply.<List<StudentEntity>>builder().eventType(EventType.GET_STUDENTS).eventOutcome(EventOutcome.STUDENTS_FOUND).sagaId(sagaId).eventPayload(this.students).build();
+    final byte[] smile = new SmileMapper().writeValueAsBytes(nested);
+    final Message smileReply = NatsMessage.builder().subject("reply").headers(new Headers().put(StudentApiWireFormat.CONTENT_TYPE_HEADER, StudentApiWireFormat.SMILE)).data(smile).build();
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final Event event = Event.builder().eventType(EventType.GET_STUDENTS).eventOutcome(EventOutcome.STUDENTS_FOUND).sagaId(sagaId).eventPayload(objectMapper.writeValueAsString(this.students)).build();
+    final byte[] json = objectMapper.writeValueAsBytes(event);
+    final Message jsonReply = NatsMessage.builder().subject("reply").data(json).build();
+
+    final EventReply<List<StudentEntity>> fromSmile = this.wireFormat.readEventReply(smileReply, new TypeReference<>() {
+    });
+    final EventReply<List<StudentEntity>> fromJson = this.wireFormat.readEventReply(jsonReply, new TypeReference<>() {
+    });
+
+    assertThat(fromSmile.getEventPayload()).isEqualTo(this.students);
+    assertThat(fromSmile).isEqualTo(fromJson);
+    assertThat(smile.length).isLessThan(json.length);
+    assertThat(this.meterRegistry.get("pen.match.student.api.replies").tag("format", "smile").counter().count()).isEqualTo(1);
+    assertThat(this.meterRegistry.get("pen.match.student.api.replies").tag("format", "json").counter().count()).isEqualTo(1);
+  }
+}
@@ -3,6 +3,7 @@ package ca.bc.gov.educ.api.penmatch.service;
 import ca.bc.gov.educ.api.penmatch.constants.PenStatus;
 import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupManager;
 import ca.bc.gov.educ.api.penmatch.model.v1.*;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
 import ca.bc.gov.educ.api.penmatch.repository.v1.MatchCodesRepository;
 import ca.bc.gov.educ.api.penmatch.repository.v1.NicknamesRepository;
 import ca.bc.gov.educ.api.penmatch.repository.v1.SurnameFrequencyRepository;
@@ -33,9 +34,12 @@ import org.springframework.test.context.junit4.rules.SpringMethodRule;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import static ca.bc.gov.educ.api.penmatch.constants.PenStatus.AA;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -94,6 +98,11 @@ public class PenMatchServiceTest {
    */
   @Autowired
   private PenMatchLookupManager lookupManager;
+  /**
+   * The Application properties.
+   */
+  @Autowired
+  private ApplicationProperties applicationProperties;
   /**
    * The Match codes repository.
    */
@@ -190,7 +199,7 @@ public class PenMatchServiceTest {
       student.setUpdateCode("S");
       student.setSurname("JAKE");
     }
-    List<StudentEntity> students = new ArrayList<>();
+    List<StudentCandidateEntity> students = new ArrayList<>();
     students.add(createStudent(student.getDob(), student.getSurname(), student.getGivenName(), student.getMincode(), student.getLocalID()));
     when(restUtils.lookupWithAllParts(student.getDob(), student.getSurname(), student.getGivenName() == null ? null : student.getGivenName().substring(0, 1), student.getMincode(), student.getLocalID(), correlationID)).thenReturn(students);
     when(restUtils.lookupNoInit(student.getDob(), student.getSurname(), student.getMincode(), student.getLocalID(), correlationID)).thenReturn(students);
@@ -221,7 +230,7 @@ public class PenMatchServiceTest {
     student.setSex("F");
     student.setDob("19990501");
     student.setLocalID(null);
-    List<StudentEntity> students = new ArrayList<>();
+    List<StudentCandidateEntity> students = new ArrayList<>();
     students.add(createStudent(student.getDob(), student.getSurname(), student.getGivenName(), student.getMincode(), student.getLocalID()));
     when(restUtils.lookupNoLocalID(student.getDob(), student.getSurname(), "C", correlationID)).thenReturn(students);
     PenMatchResult result = service.matchStudent(student, correlationID);
@@ -240,7 +249,7 @@ public class PenMatchServiceTest {
   public void testMatchStudentWithoutPEN_ShouldReturnD1Match() throws JsonProcessingException {
     PenMatchStudentDetail student = createPenMatchStudentDetailWithoutPEN();
     var studentEntity = createStudent(student.getDob(), student.getSurname(), student.getGivenName(), student.getMincode(), student.getLocalID());
-    List<StudentEntity> students = new ArrayList<>();
+    List<StudentCandidateEntity> students = new ArrayList<>();
     students.add(studentEntity);
     when(restUtils.lookupWithAllParts(student.getDob(), student.getSurname(), "C", student.getMincode(), student.getLocalID(), correlationID)).thenReturn(students);
     PenMatchResult result = service.matchStudent(student, correlationID);
@@ -261,7 +270,7 @@ public class PenMatchServiceTest {
     PenMatchStudentDetail student = createPenMatchStudentDetailWithoutPEN();
     student.setLocalID(null);
     var studentEntity = createStudent(student.getDob(), student.getSurname(), student.getGivenName(), student.getMincode(), student.getLocalID());
-    List<StudentEntity> students = new ArrayList<>();
+    List<StudentCandidateEntity> students = new ArrayList<>();
     students.add(studentEntity);
     when(restUtils.lookupNoLocalID(student.getDob(), student.getSurname(), "C", correlationID)).thenReturn(students);
     PenMatchResult result = service.matchStudent(student, correlationID);
@@ -342,7 +351,7 @@ public class PenMatchServiceTest {
     PenMatchStudentDetail student = createPenMatchStudentDetail();
     student.setPen(pen);
     var studentEntity = createStudent(student.getDob(), student.getSurname(), student.getGivenName(), student.getMincode(), student.getLocalID());
-    List<StudentEntity> students = new ArrayList<>();
+    List<StudentCandidateEntity> students = new ArrayList<>();
     students.add(studentEntity);
     when(restUtils.lookupWithAllParts(student.getDob(), student.getSurname(), "C", student.getMincode(), student.getLocalID(), correlationID)).thenReturn(students);
     when(restUtils.lookupNoLocalID(student.getDob(), student.getSurname(), "C", correlationID)).thenReturn(students);
@@ -432,6 +441,35 @@ public class PenMatchServiceTest {
     assertThat(result.getPenStatus()).isEqualTo(PenStatus.C0.toString());
   }
 
+  /**
+   * Test match student with rare name given parallel confirmation should look up the pen asynchronously and return c 0,
+   * issuing the prefetched demographic search only once.
+   */
+  @Test
+  public void testMatchStudentWithRareName_givenParallelConfirmation_ShouldLookupPenAsyncAndReturnC0() {
+    PenMatchStudentDetail student = createPenMatchStudentDetailMergedDeceased();
+    student.setUpdateCode("Y");
+    student.setMincode("00501007");
+
+    when(restUtils.getPenMasterRecordByPenAsync(student.getPen(), correlationID)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+    applicationProperties.setPenMatchParallelConfirmationEnabled(true);
+    try {
+      PenMatchResult result = service.matchStudent(student, correlationID);
+
+      verify(restUtils, times(1)).getPenMasterRecordByPenAsync(student.getPen(), correlationID);
+      verify(restUtils, never()).getPenMasterRecordByPen(student.getPen(), correlationID);
+      List<String> searches = mockingDetails(restUtils).getInvocations().stream()
+          .filter(invocation -> invocation.getMethod().getName().startsWith("lookup"))
+          .map(invocation -> invocation.getMethod().getName() + Arrays.toString(invocation.getArguments()))
+          .collect(Collectors.toList());
+      assertThat(searches).isNotEmpty().doesNotHaveDuplicates();
+      assertNotNull(result);
+      assertThat(result.getPenStatus()).isEqualTo(PenStatus.C0.toString());
+    } finally {
+      applicationProperties.setPenMatchParallelConfirmationEnabled(false);
+    }
+  }
+
   /**
    * Test match student with merged valid given old match returns f 1 should execute new pen match.
    *
@@ -443,7 +481,7 @@ public class PenMatchServiceTest {
     StudentEntity entity = createStudent(student.getDob(), student.getSurname(), student.getGivenName(), student.getMincode(), student.getLocalID());
     entity.setPen(student.getPen());
     when(restUtils.getPenMasterRecordByPen(student.getPen(), correlationID)).thenReturn(createPenMasterRecord(entity));
-    var students = new ArrayList<StudentEntity>();
+    var students = new ArrayList<StudentCandidateEntity>();
     students.add(entity);
     when(restUtils.lookupNoInitNoLocalID(student.getDob(), "SMIT", correlationID)).thenReturn(students);
     PenMatchResult result = service.matchStudent(student, correlationID);
@@ -7,9 +7,12 @@ import ca.bc.gov.educ.api.penmatch.mappers.v1.PossibleMatchMapper;
 import ca.bc.gov.educ.api.penmatch.repository.v1.PossibleMatchRepository;
 import ca.bc.gov.educ.api.penmatch.service.v1.match.PossibleMatchWrapperService;
 import ca.bc.gov.educ.api.penmatch.struct.Event;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchBatchStudent;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PossibleMatch;
 import ca.bc.gov.educ.api.penmatch.util.JsonUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -125,6 +128,37 @@ public class EventHandlerServiceTest {
     assertThat(this.possibleMatchRepository.findAll()).hasSize(16);
   }
 
+  /**
+   * Test handle process pen match batch event given students should reply with one result per saga id.
+   *
+   * @throws JsonProcessingException the json processing exception
+   */
+  @Test
+  public void testHandleProcessPenMatchBatchEvent_givenStudents_shouldReplyWithResultPerSagaId() throws JsonProcessingException {
+    final List<PenMatchBatchStudent> students = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      final PenMatchBatchStudent student = new PenMatchBatchStudent();
+      student.setSagaId(UUID.randomUUID());
+      student.setSurname("LORD");
+      student.setGivenName("CLAYTON");
+      student.setDob("19991201");
+      student.setSex("F");
+      student.setMincode("00501007");
+      students.add(student);
+    }
+    students.get(1).setDob(null);
+    final Event event = Event.builder().sagaId(UUID.randomUUID()).eventPayload(JsonUtil.getJsonStringFromObject(students)).eventType(EventType.PROCESS_PEN_MATCH_BATCH).replyTo("BATCH_API").build();
+    final var response = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventHandlerService.handleProcessPenMatchBatchEvent(event)));
+    assertThat(response.getEventOutcome()).isEqualTo(EventOutcome.PEN_MATCH_BATCH_PROCESSED);
+    final List<JsonNode> results = new ArrayList<>();
+    new ObjectMapper().readTree(response.getEventPayload()).forEach(results::add);
+    assertThat(results).hasSize(2);
+    assertThat(results.get(0).get("sagaId").asText()).isEqualTo(students.get(0).getSagaId().toString());
+    assertThat(results.get(0).get("penMatchResult").get("penStatus").asText()).isEqualTo("D0");
+    assertThat(results.get(1).get("sagaId").asText()).isEqualTo(students.get(1).getSagaId().toString());
+    assertThat(results.get(1).get("error").asText()).contains("dob");
+  }
+
   /**
    * Gets possible matches place holder data.
    *
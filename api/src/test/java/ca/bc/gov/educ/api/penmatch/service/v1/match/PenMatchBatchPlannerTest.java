@@ -0,0 +1,125 @@
+package ca.bc.gov.educ.api.penmatch.service.v1.match;
+
+import ca.bc.gov.educ.api.penmatch.constants.CandidateLookupType;
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupContext;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupManager;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchResult;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudentDetail;
+import ca.bc.gov.educ.api.penmatch.struct.v1.newmatch.NewPenMatchStudentDetail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The type Pen match batch planner test.
+ */
+public class PenMatchBatchPlannerTest {
+  /**
+   * The Lookup manager.
+   */
+  private PenMatchLookupManager lookupManager;
+  /**
+   * The Pen match batch planner.
+   */
+  private PenMatchBatchPlanner penMatchBatchPlanner;
+  /**
+   * The Pen match service.
+   */
+  private PenMatchService penMatchService;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    this.lookupManager = Mockito.mock(PenMatchLookupManager.class);
+    when(this.lookupManager.lookupCandidates(any(), any())).thenReturn(List.of());
+    final NewPenMatchService newPenMatchService = Mockito.mock(NewPenMatchService.class);
+    when(newPenMatchService.matchStudent(any(NewPenMatchStudentDetail.class), any(PenMatchLookupContext.class))).thenReturn(new PenMatchResult(new ArrayList<>(), "D0", null));
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    this.penMatchBatchPlanner = new PenMatchBatchPlanner(this.lookupManager);
+    this.penMatchService = new PenMatchService(this.lookupManager, newPenMatchService, applicationProperties, new PenMatchMetrics(applicationProperties, new SimpleMeterRegistry()));
+  }
+
+  /**
+   * A record without a local id with a rare surname is planned with the search its match issues, which leaves out the
+   * given initial, the mincode and the local id.
+   */
+  @Test
+  public void testPlannedKey_GivenNoLocalIDAndRareSurname_ShouldEqualMatchKey() {
+    when(this.lookupManager.lookupSurnameFrequency(anyString())).thenReturn(0);
+
+    final CandidateLookupKey plannedKey = this.plannedKey(this.student());
+
+    assertThat(plannedKey.getLookupType()).isEqualTo(CandidateLookupType.NO_INIT_NO_LOCAL_ID);
+    assertThat(plannedKey).isEqualTo(this.matchKey(this.student()));
+  }
+
+  /**
+   * A record without a local id with a frequent surname is planned with the search its match issues, which keeps the
+   * given initial but leaves out the mincode and the local id.
+   */
+  @Test
+  public void testPlannedKey_GivenNoLocalIDAndFrequentSurname_ShouldEqualMatchKey() {
+    when(this.lookupManager.lookupSurnameFrequency(anyString())).thenReturn(100);
+
+    final CandidateLookupKey plannedKey = this.plannedKey(this.student());
+
+    assertThat(plannedKey.getLookupType()).isEqualTo(CandidateLookupType.NO_LOCAL_ID);
+    assertThat(plannedKey).isEqualTo(this.matchKey(this.student()));
+  }
+
+  /**
+   * Planned key of a record, normalized the way the batch does it.
+   *
+   * @param student the student
+   * @return the candidate lookup key
+   */
+  private CandidateLookupKey plannedKey(final PenMatchStudentDetail student) {
+    this.penMatchBatchPlanner.normalize(student);
+    return this.penMatchBatchPlanner.plannedKey(student, this.penMatchBatchPlanner.newLookupContext(UUID.randomUUID()));
+  }
+
+  /**
+   * The key of the demographic search the old algorithm issues when matching the record.
+   *
+   * @param student the student
+   * @return the candidate lookup key
+   */
+  private CandidateLookupKey matchKey(final PenMatchStudentDetail student) {
+    this.penMatchService.matchStudent(student, this.penMatchBatchPlanner.newLookupContext(UUID.randomUUID()));
+    final ArgumentCaptor<CandidateLookupKey> key = ArgumentCaptor.forClass(CandidateLookupKey.class);
+    verify(this.lookupManager, atLeastOnce()).lookupCandidates(key.capture(), any());
+    return key.getValue();
+  }
+
+  /**
+   * A student without a local id, in lower case as it may arrive in a batch.
+   *
+   * @return the pen match student detail
+   */
+  private PenMatchStudentDetail student() {
+    final PenMatchStudentDetail student = new PenMatchStudentDetail();
+    student.setDob("20000101");
+    student.setSex("M");
+    student.setSurname("jackson");
+    student.setGivenName("jake");
+    student.setMincode("10210518");
+    return student;
+  }
+}
@@ -0,0 +1,142 @@
+package ca.bc.gov.educ.api.penmatch.service.v1.match;
+
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupBucket;
+import ca.bc.gov.educ.api.penmatch.lookup.CandidateLookupKey;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupContext;
+import ca.bc.gov.educ.api.penmatch.lookup.PenMatchLookupManager;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchBatchResult;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchBatchStudent;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchResult;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchStudentDetail;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The type Pen match batch service test.
+ */
+public class PenMatchBatchServiceTest {
+  /**
+   * The Dobs, each shared by two records which are never next to each other.
+   */
+  private static final List<String> DOBS = List.of("20000101", "20000202", "20000303", "20000404");
+  /**
+   * The Lookup manager.
+   */
+  private PenMatchLookupManager lookupManager;
+  /**
+   * The Pen match batch service.
+   */
+  private PenMatchBatchService penMatchBatchService;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    this.lookupManager = Mockito.mock(PenMatchLookupManager.class);
+    when(this.lookupManager.lookupSurnameFrequency(anyString())).thenReturn(0);
+    when(this.lookupManager.lookupDobBucket(anyString(), any(), any())).thenAnswer(invocation -> Optional.of(new CandidateLookupBucket(invocation.getArgument(0), invocation.getArgument(1), List.of())));
+    when(this.lookupManager.lookupCandidates(any(), any())).thenReturn(List.of());
+  }
+
+  /**
+   * After.
+   */
+  @After
+  public void after() {
+    if (this.penMatchBatchService != null) {
+      this.penMatchBatchService.close();
+    }
+  }
+
+  /**
+   * Records sharing a dob further apart than the in flight limit are planned together within the plan window, so
+   * each dob takes one search instead of one per record.
+   */
+  @Test
+  public void testMatchStudents_GivenDobsSpreadBeyondInFlightLimit_ShouldSearchOncePerDob() {
+    this.penMatchBatchService = this.newPenMatchBatchService(8);
+
+    final List<PenMatchBatchResult> results = this.penMatchBatchService.matchStudents(this.students());
+
+    assertThat(results).extracting(PenMatchBatchResult::getRecordNumber).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+    verify(this.lookupManager, times(DOBS.size())).lookupDobBucket(anyString(), any(), any());
+    verify(this.lookupManager, times(0)).lookupCandidates(any(), any());
+  }
+
+  /**
+   * With a plan window no larger than the in flight limit, no two records of a window share a dob, so every record
+   * is searched on its own.
+   */
+  @Test
+  public void testMatchStudents_GivenPlanWindowOfInFlightLimit_ShouldSearchPerRecord() {
+    this.penMatchBatchService = this.newPenMatchBatchService(2);
+
+    final List<PenMatchBatchResult> results = this.penMatchBatchService.matchStudents(this.students());
+
+    assertThat(results).extracting(PenMatchBatchResult::getRecordNumber).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+    verify(this.lookupManager, times(0)).lookupDobBucket(anyString(), any(), any());
+    verify(this.lookupManager, times(8)).lookupCandidates(any(), any());
+  }
+
+  /**
+   * New pen match batch service, matching two records at a time, whose matches issue the planned search.
+   *
+   * @param planWindow the plan window
+   * @return the pen match batch service
+   */
+  private PenMatchBatchService newPenMatchBatchService(final int planWindow) {
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    applicationProperties.setPenMatchBatchThreads(2);
+    applicationProperties.setPenMatchBatchMaxInFlight(2);
+    applicationProperties.setPenMatchBatchPlanWindow(planWindow);
+    final PenMatchService penMatchService = Mockito.mock(PenMatchService.class);
+    when(penMatchService.matchStudent(any(PenMatchStudentDetail.class), any(PenMatchLookupContext.class))).thenAnswer(invocation -> {
+      final PenMatchStudentDetail student = invocation.getArgument(0);
+      final PenMatchLookupContext lookupContext = invocation.getArgument(1);
+      lookupContext.lookupCandidates(CandidateLookupKey.noInit(student.getDob(), student.getSurname().substring(0, 4), student.getMincode(), student.getLocalID()));
+      return new PenMatchResult(new ArrayList<>(), "D0", null);
+    });
+    return new PenMatchBatchService(penMatchService, new PenMatchBatchPlanner(this.lookupManager), new ObjectMapper(),
+        Validation.buildDefaultValidatorFactory().getValidator(), applicationProperties);
+  }
+
+  /**
+   * The students, cycling through the dobs twice.
+   *
+   * @return the students
+   */
+  private List<PenMatchBatchStudent> students() {
+    final List<PenMatchBatchStudent> students = new ArrayList<>();
+    for (int i = 0; i < 2 * DOBS.size(); i++) {
+      final PenMatchBatchStudent student = new PenMatchBatchStudent();
+      student.setSagaId(UUID.randomUUID());
+      student.setDob(DOBS.get(i % DOBS.size()));
+      student.setSex("M");
+      student.setSurname("JACKSON" + (char) ('A' + i));
+      student.setGivenName("JAKE");
+      student.setMincode("10210518");
+      student.setLocalID(String.valueOf(i));
+      students.add(student);
+    }
+    return students;
+  }
+}
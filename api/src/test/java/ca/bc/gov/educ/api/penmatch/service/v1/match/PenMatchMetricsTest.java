@@ -0,0 +1,75 @@
+package ca.bc.gov.educ.api.penmatch.service.v1.match;
+
+import ca.bc.gov.educ.api.penmatch.constants.PenMatchPhase;
+import ca.bc.gov.educ.api.penmatch.constants.PenStatus;
+import ca.bc.gov.educ.api.penmatch.properties.ApplicationProperties;
+import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchTimings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The type Pen match metrics test.
+ */
+public class PenMatchMetricsTest {
+  /**
+   * The Meter registry.
+   */
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * The Pen match metrics.
+   */
+  private PenMatchMetrics penMatchMetrics;
+
+  /**
+   * Before.
+   */
+  @Before
+  public void before() {
+    final ApplicationProperties applicationProperties = new ApplicationProperties();
+    applicationProperties.setPenMatchMetricsEnabled(true);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.penMatchMetrics = new PenMatchMetrics(applicationProperties, this.meterRegistry);
+  }
+
+  /**
+   * The phases that ran are recorded under the final pen status, and the match is no longer active.
+   */
+  @Test
+  public void testRecord_GivenTimedPhases_ShouldRecordPhasesByAlgorithmAndPenStatus() {
+    final PenMatchTimings timings = this.penMatchMetrics.start(PenMatchMetrics.NEW_ALGORITHM);
+    assertThat(this.meterRegistry.get(PenMatchMetrics.ACTIVE_TIMER).tag("algorithm", "new").longTaskTimer().activeTasks()).isEqualTo(1);
+
+    timings.stop(PenMatchPhase.INITIALIZE, timings.start());
+    for (int i = 0; i < 3; i++) {
+      timings.stop(PenMatchPhase.CANDIDATE_SCORING, timings.start());
+      timings.candidateScored();
+    }
+    this.penMatchMetrics.record(timings, PenStatus.D1.getValue());
+
+    assertThat(this.meterRegistry.get(PenMatchMetrics.ACTIVE_TIMER).tag("algorithm", "new").longTaskTimer().activeTasks()).isZero();
+    assertThat(this.meterRegistry.get(PenMatchMetrics.MATCH_TIMER).tags("algorithm", "new", "penStatus", "D1").timer().count()).isEqualTo(1);
+    assertThat(this.meterRegistry.get(PenMatchMetrics.PHASE_TIMER).tags("phase", "initialize", "penStatus", "D1").timer().count()).isEqualTo(1);
+    assertThat(this.meterRegistry.get(PenMatchMetrics.PHASE_TIMER).tags("phase", "candidate_scoring", "penStatus", "D1").timer().count()).isEqualTo(1);
+    assertThat(this.meterRegistry.find(PenMatchMetrics.PHASE_TIMER).tags("phase", "confirm_pen").timer()).isNull();
+    assertThat(this.meterRegistry.get(PenMatchMetrics.CANDIDATES_SUMMARY).summary().totalAmount()).isEqualTo(3);
+  }
+
+  /**
+   * When disabled the matches are not timed and nothing is registered.
+   */
+  @Test
+  public void testStart_GivenMetricsDisabled_ShouldNotTime() {
+    final PenMatchMetrics disabled = new PenMatchMetrics(new ApplicationProperties(), this.meterRegistry);
+    final PenMatchTimings timings = disabled.start(PenMatchMetrics.OLD_ALGORITHM);
+
+    assertThat(timings).isSameAs(PenMatchTimings.DISABLED);
+    assertThat(timings.start()).isZero();
+    timings.stop(PenMatchPhase.INITIALIZE, timings.start());
+    disabled.record(timings, PenStatus.AA.getValue());
+    assertThat(timings.ran(PenMatchPhase.INITIALIZE)).isFalse();
+    assertThat(this.meterRegistry.getMeters()).isEmpty();
+  }
+}
@@ -0,0 +1,78 @@
+package ca.bc.gov.educ.api.penmatch.util;
+
+import ca.bc.gov.educ.api.penmatch.lookup.MatchCodeTable;
+import ca.bc.gov.educ.api.penmatch.model.v1.MatchCodeEntity;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The type Match code utils test.
+ */
+@RunWith(JUnitParamsRunner.class)
+public class MatchCodeUtilsTest {
+
+  /**
+   * Packing and parsing agree with the string form.
+   *
+   * @param matchCode the match code
+   */
+  @Test
+  @Parameters({"1111111", "1131221", "2244222", "4142111"})
+  public void testPack_GivenPositions_ShouldRoundTrip(final String matchCode) {
+    final int[] digits = matchCode.chars().map(c -> c - '0').toArray();
+    final int packed = MatchCodeUtils.pack(digits[0], digits[1], digits[2], digits[3], digits[4], digits[5], digits[6]);
+    assertThat(MatchCodeUtils.parse(matchCode)).isEqualTo(packed);
+    assertThat(MatchCodeUtils.toString(packed)).isEqualTo(matchCode);
+    assertThat(MatchCodeUtils.sum(packed)).isEqualTo(matchCode.chars().map(c -> c - '0').sum());
+  }
+
+  /**
+   * Strings that are not match codes do not parse.
+   *
+   * @param matchCode the match code
+   */
+  @Test
+  @Parameters({"Old F1", "P", "11111119", "111111"})
+  public void testParse_GivenInvalidCode_ShouldReturnInvalid(final String matchCode) {
+    assertThat(MatchCodeUtils.parse(matchCode)).isEqualTo(MatchCodeUtils.INVALID);
+  }
+
+  /**
+   * The best match key is the number the match code used to be concatenated into.
+   *
+   * @param matchCode the match code
+   * @param key       the key
+   */
+  @Test
+  @Parameters({"1111111, 70771111111", "1131221, 113341131221", "1231112, 113341231112"})
+  public void testBestMatchKey_GivenCode_ShouldMatchConcatenatedValue(final String matchCode, final long key) {
+    assertThat(MatchCodeUtils.bestMatchKey(MatchCodeUtils.parse(matchCode))).isEqualTo(key);
+  }
+
+  /**
+   * The match code table answers known codes and nothing else.
+   */
+  @Test
+  public void testMatchCodeTable_GivenEntities_ShouldLookupResults() {
+    final MatchCodeTable table = new MatchCodeTable(1, List.of(this.createMatchCode("1111111", "P"), this.createMatchCode("1131221", "Q"), this.createMatchCode("2222222", "F")));
+    assertThat(table.size()).isEqualTo(3);
+    assertThat(table.lookup(MatchCodeUtils.parse("1131221"))).isEqualTo("Q");
+    assertThat(table.lookup(MatchCodeUtils.parse("2222222"))).isEqualTo("F");
+    assertThat(table.lookup(MatchCodeUtils.parse("1111112"))).isNull();
+    assertThat(table.lookup(MatchCodeUtils.parse("4444444"))).isNull();
+    assertThat(table.lookup(MatchCodeUtils.INVALID)).isNull();
+  }
+
+  private MatchCodeEntity createMatchCode(final String matchCode, final String matchResult) {
+    final MatchCodeEntity entity = new MatchCodeEntity();
+    entity.setMatchCode(matchCode);
+    entity.setMatchResult(matchResult);
+    return entity;
+  }
+}
@@ -1,6 +1,7 @@
 package ca.bc.gov.educ.api.penmatch.util;
 
 import ca.bc.gov.educ.api.penmatch.constants.PenStatus;
+import ca.bc.gov.educ.api.penmatch.model.v1.StudentCandidateEntity;
 import ca.bc.gov.educ.api.penmatch.model.v1.StudentEntity;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMasterRecord;
 import ca.bc.gov.educ.api.penmatch.struct.v1.PenMatchNames;
@@ -186,6 +187,23 @@ public class PenMatchUtilsTest {
 		assertNotNull(masterRecord.getLocalId());
 	}
 
+  /**
+   * Test a full student decoded as a candidate should keep the match fields only.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+	public void testConvertToPenMasterRecord_GivenStudentDecodedAsCandidate_ShouldKeepMatchFields() throws Exception {
+		StudentEntity entity = StudentEntity.builder().studentID(UUID.randomUUID()).pen("123456789").dob("1980-01-15")
+				.legalLastName("JACKSON").legalFirstName("PETER").sexCode("M").statusCode("A").mincode("12345678").localID("9876575")
+				.email("peter@example.com").memo("memo").demogCode("A").createUser("TEST").updateDate("2020-01-01T00:00:00").build();
+
+		StudentCandidateEntity candidate = JsonUtil.objectMapper.readValue(JsonUtil.getJsonStringFromObject(entity), StudentCandidateEntity.class);
+		assertEquals(StudentCandidateEntity.class, candidate.getClass());
+		assertEquals("2020-01-01T00:00:00", candidate.getUpdateDate());
+		assertEquals(PenMatchUtils.convertStudentEntityToPenMasterRecord(entity), PenMatchUtils.convertStudentEntityToPenMasterRecord(candidate));
+	}
+
   /**
    * Create pen master record pen master record.
    *